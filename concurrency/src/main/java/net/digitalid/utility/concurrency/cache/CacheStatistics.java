@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * Cache statistics count the hits, misses, loads, refreshes, expirations and evictions of a {@link ConcurrentCache cache}.
+ * The counters are striped so that recording them from many threads does not contend on a single memory location.
+ * Load times are measured with {@link System#nanoTime()} and reported in nanoseconds.
+ */
+@Mutable
+@ThreadSafe
+public class CacheStatistics {
+    
+    /* -------------------------------------------------- Counters -------------------------------------------------- */
+    
+    private final @Nonnull LongAdder hits = new LongAdder();
+    
+    private final @Nonnull LongAdder misses = new LongAdder();
+    
+    private final @Nonnull LongAdder loadSuccesses = new LongAdder();
+    
+    private final @Nonnull LongAdder loadFailures = new LongAdder();
+    
+    private final @Nonnull LongAdder totalLoadTime = new LongAdder();
+    
+    private final @Nonnull LongAdder refreshes = new LongAdder();
+    
+    private final @Nonnull LongAdder expirations = new LongAdder();
+    
+    private final @Nonnull LongAdder evictions = new LongAdder();
+    
+    private final @Nonnull LongAdder evictionWeight = new LongAdder();
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected CacheStatistics() {}
+    
+    /**
+     * Returns new cache statistics without any measurements.
+     */
+    @Pure
+    public static @Nonnull CacheStatistics withNoMeasurements() {
+        return new CacheStatistics();
+    }
+    
+    /* -------------------------------------------------- Recording -------------------------------------------------- */
+    
+    @Impure
+    void recordHit() {
+        hits.increment();
+    }
+    
+    @Impure
+    void recordMiss() {
+        misses.increment();
+    }
+    
+    @Impure
+    void recordLoadSuccess(long loadTime) {
+        loadSuccesses.increment();
+        totalLoadTime.add(loadTime);
+    }
+    
+    @Impure
+    void recordLoadFailure(long loadTime) {
+        loadFailures.increment();
+        totalLoadTime.add(loadTime);
+    }
+    
+    @Impure
+    void recordRefresh() {
+        refreshes.increment();
+    }
+    
+    @Impure
+    void recordExpiration() {
+        expirations.increment();
+    }
+    
+    @Impure
+    void recordEviction(int weight) {
+        evictions.increment();
+        evictionWeight.add(weight);
+    }
+    
+    /* -------------------------------------------------- Getters -------------------------------------------------- */
+    
+    /**
+     * Returns the number of lookups that found a present entry.
+     */
+    @Pure
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * Returns the number of lookups that found no present entry.
+     */
+    @Pure
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * Returns the ratio of hits to lookups or one if there were no lookups.
+     */
+    @Pure
+    public double getHitRate() {
+        final long hits = getHits();
+        final long lookups = hits + getMisses();
+        return lookups == 0 ? 1.0 : (double) hits / lookups;
+    }
+    
+    /**
+     * Returns the number of values that were loaded or refreshed successfully.
+     */
+    @Pure
+    public long getLoadSuccesses() {
+        return loadSuccesses.sum();
+    }
+    
+    /**
+     * Returns the number of loads and refreshes that threw an exception.
+     */
+    @Pure
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+    
+    /**
+     * Returns the average time that a load or refresh took.
+     */
+    @Pure
+    public long getAverageLoadTime() {
+        final long loads = getLoadSuccesses() + getLoadFailures();
+        return loads == 0 ? 0 : totalLoadTime.sum() / loads;
+    }
+    
+    /**
+     * Returns the number of entries that were replaced by an asynchronous refresh.
+     */
+    @Pure
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+    
+    /**
+     * Returns the number of entries that were removed because they expired.
+     */
+    @Pure
+    public long getExpirations() {
+        return expirations.sum();
+    }
+    
+    /**
+     * Returns the number of entries that were evicted because the maximum weight was exceeded.
+     */
+    @Pure
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    
+    /**
+     * Returns the total weight of the entries that were evicted.
+     */
+    @Pure
+    public long getEvictionWeight() {
+        return evictionWeight.sum();
+    }
+    
+    /* -------------------------------------------------- Reset -------------------------------------------------- */
+    
+    /**
+     * Resets all measurements.
+     * Measurements that are recorded concurrently to this reset might be lost or only partially reset.
+     */
+    @Impure
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        loadSuccesses.reset();
+        loadFailures.reset();
+        totalLoadTime.reset();
+        refreshes.reset();
+        expirations.reset();
+        evictions.reset();
+        evictionWeight.reset();
+    }
+    
+    /* -------------------------------------------------- Object -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull String toString() {
+        return "hits: " + getHits() + ", misses: " + getMisses() + ", loads: " + getLoadSuccesses() + ", load failures: " + getLoadFailures() + ", average load: " + getAverageLoadTime() + " ns, refreshes: " + getRefreshes() + ", expirations: " + getExpirations() + ", evictions: " + getEvictions();
+    }
+    
+}
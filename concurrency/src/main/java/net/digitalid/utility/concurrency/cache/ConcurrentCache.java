@@ -0,0 +1,598 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.cache;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.concurrency.lock.NonReentrantLock;
+import net.digitalid.utility.concurrency.lock.NonReentrantLockBuilder;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.functional.interfaces.UnaryFunction;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.validation.annotations.generation.Default;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This class implements a concurrent cache whose entries are bounded by weight and can expire and be refreshed asynchronously.
+ * <p>
+ * Lookups only read a {@link ConcurrentHashMap} and record the access in a lossy, striped buffer.
+ * The buffered accesses are replayed in batches on a segmented LRU policy while holding an eviction lock, which is only tried but never awaited by readers.
+ * New entries are admitted to a probationary segment and promoted to a protected segment when they are accessed again,
+ * so that entries which are only used once are evicted before frequently used ones.
+ * <p>
+ * Missing values are {@link #get(java.lang.Object, net.digitalid.utility.functional.interfaces.UnaryFunction) loaded} at most once per key at a time
+ * while concurrent lookups of the same key wait for the result instead of loading the value again.
+ * 
+ * @param <KEY> the type of the keys of this cache.
+ * @param <VALUE> the type of the values of this cache.
+ */
+@Mutable
+@ThreadSafe
+@GenerateBuilder
+@GenerateSubclass
+public abstract class ConcurrentCache<KEY, VALUE> {
+    
+    /* -------------------------------------------------- Node -------------------------------------------------- */
+    
+    private static final int DETACHED = 0;
+    
+    private static final int PROBATION = 1;
+    
+    private static final int PROTECTED = 2;
+    
+    /**
+     * A node stores a cached value together with the metadata for its eviction and expiration.
+     * Values are never modified in place but replaced with a new node.
+     * The links and the segment of a node are only accessed while holding the eviction lock.
+     */
+    private static final class Node<KEY, VALUE> {
+        
+        private final @Nonnull KEY key;
+        
+        private final @Nonnull VALUE value;
+        
+        private final int weight;
+        
+        private final long writeTime;
+        
+        private volatile long accessTime;
+        
+        private @Nullable Node<KEY, VALUE> previous;
+        
+        private @Nullable Node<KEY, VALUE> next;
+        
+        private int segment = DETACHED;
+        
+        private Node(@Nonnull KEY key, @Nonnull VALUE value, int weight, long time) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = time;
+            this.accessTime = time;
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    private final long maximumWeight;
+    
+    private final long maximumProtectedWeight;
+    
+    private final @Nonnull Weigher<? super KEY, ? super VALUE> weigher;
+    
+    private final long expireAfterWriteNanos;
+    
+    private final long expireAfterAccessNanos;
+    
+    private final long refreshAfterWriteNanos;
+    
+    private final @Nonnull Executor executor;
+    
+    private final @Nonnull Ticker ticker;
+    
+    /**
+     * Returns the given time in nanoseconds or {@link Long#MAX_VALUE} if the time is {@link Time#MAX}.
+     */
+    @Pure
+    private static long toNanos(@Nonnull Time time) {
+        return time.getValue() == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(time.getValue());
+    }
+    
+    /**
+     * Returns the maximum total weight of the entries in this cache.
+     */
+    @Pure
+    public @Positive long getMaximumWeight() {
+        return maximumWeight;
+    }
+    
+    /* -------------------------------------------------- Data -------------------------------------------------- */
+    
+    private final @Nonnull ConcurrentHashMap<KEY, Node<KEY, VALUE>> data = new ConcurrentHashMap<>();
+    
+    private final @Nonnull Set<KEY> refreshingKeys = ConcurrentHashMap.newKeySet();
+    
+    private final @Nonnull CacheStatistics statistics = CacheStatistics.withNoMeasurements();
+    
+    /**
+     * Returns the statistics of this cache.
+     */
+    @Pure
+    public @Nonnull CacheStatistics getStatistics() {
+        return statistics;
+    }
+    
+    /**
+     * Returns the number of entries in this cache, which may include expired entries that have not yet been removed.
+     */
+    @Pure
+    public @NonNegative int getEstimatedSize() {
+        return data.size();
+    }
+    
+    /**
+     * Returns the total weight of the entries in this cache as of the last maintenance.
+     */
+    @Pure
+    public @NonNegative long getWeightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Expiration -------------------------------------------------- */
+    
+    /**
+     * Returns whether the given node has expired at the given time.
+     */
+    @Pure
+    private boolean isExpired(@Nonnull Node<KEY, VALUE> node, long now) {
+        return now - node.writeTime >= expireAfterWriteNanos || now - node.accessTime >= expireAfterAccessNanos;
+    }
+    
+    /**
+     * Removes the given node if it is still mapped and records its expiration.
+     */
+    @Impure
+    private void expire(@Nonnull Node<KEY, VALUE> node) {
+        if (data.remove(node.key, node)) {
+            statistics.recordExpiration();
+            afterRemoval(node);
+        }
+    }
+    
+    /* -------------------------------------------------- Lookup -------------------------------------------------- */
+    
+    /**
+     * Returns the value that is cached for the given key or null if there is no such value or it has expired.
+     */
+    @Impure
+    public @Nullable VALUE getIfPresent(@NonCaptured @Unmodified @Nonnull KEY key) {
+        final @Nullable Node<KEY, VALUE> node = data.get(key);
+        if (node != null) {
+            final long now = ticker.read();
+            if (!isExpired(node, now)) {
+                statistics.recordHit();
+                afterRead(node, now);
+                return node.value;
+            }
+            expire(node);
+        }
+        statistics.recordMiss();
+        return null;
+    }
+    
+    /**
+     * Returns the value that is cached for the given key or loads it with the given loader if there is no such value or it has expired.
+     * While a value is loaded, other threads which look up the same key wait for the loaded value instead of loading it again.
+     * The loader may not access this cache and may not return null.
+     * If a refresh interval is configured and the cached value is older, the value is reloaded asynchronously with the given loader
+     * while the current value continues to be returned.
+     */
+    @Impure
+    public @Nonnull VALUE get(@Captured @Nonnull KEY key, @Nonnull UnaryFunction<? super KEY, ? extends VALUE> loader) {
+        final long now = ticker.read();
+        final @Nullable Node<KEY, VALUE> present = data.get(key);
+        if (present != null && !isExpired(present, now)) {
+            statistics.recordHit();
+            afterRead(present, now);
+            if (now - present.writeTime >= refreshAfterWriteNanos) { refresh(present, loader); }
+            return present.value;
+        }
+        
+        @SuppressWarnings("unchecked") final @Nullable Node<KEY, VALUE>[] loadedAndReplaced = new Node[2];
+        final @Nonnull Node<KEY, VALUE> node = data.compute(key, (k, existing) -> {
+            final long startTime = ticker.read();
+            if (existing != null && !isExpired(existing, startTime)) { return existing; }
+            loadedAndReplaced[0] = load(k, loader, startTime);
+            loadedAndReplaced[1] = existing;
+            return loadedAndReplaced[0];
+        });
+        
+        if (loadedAndReplaced[0] == null) {
+            statistics.recordHit();
+            afterRead(node, ticker.read());
+        } else {
+            statistics.recordMiss();
+            if (loadedAndReplaced[1] != null) { statistics.recordExpiration(); }
+            afterWrite(node, loadedAndReplaced[1]);
+        }
+        return node.value;
+    }
+    
+    /**
+     * Loads the value for the given key with the given loader and returns a new node for it.
+     */
+    @Impure
+    private @Nonnull Node<KEY, VALUE> load(@Nonnull KEY key, @Nonnull UnaryFunction<? super KEY, ? extends VALUE> loader, long startTime) {
+        final @Nullable VALUE value;
+        try {
+            value = loader.evaluate(key);
+        } catch (@Nonnull RuntimeException exception) {
+            statistics.recordLoadFailure(ticker.read() - startTime);
+            throw exception;
+        }
+        final long endTime = ticker.read();
+        if (value == null) { statistics.recordLoadFailure(endTime - startTime); }
+        Require.that(value != null).orThrow("The loader may not return null for the key $.", key);
+        
+        statistics.recordLoadSuccess(endTime - startTime);
+        return newNode(key, value, endTime);
+    }
+    
+    /**
+     * Returns a new node for the given key and value, whose weight is determined by the weigher of this cache.
+     */
+    @Pure
+    private @Nonnull Node<KEY, VALUE> newNode(@Nonnull KEY key, @Nonnull VALUE value, long time) {
+        final int weight = weigher.weigh(key, value);
+        Require.that(weight >= 0).orThrow("The weight of an entry may not be negative but was $.", weight);
+        
+        return new Node<>(key, value, weight, time);
+    }
+    
+    /* -------------------------------------------------- Refresh -------------------------------------------------- */
+    
+    /**
+     * Reloads the value of the given node asynchronously unless it is already being refreshed.
+     * The refreshed value replaces the node only if the node has not been replaced or removed in the meantime.
+     */
+    @Impure
+    private void refresh(@Nonnull Node<KEY, VALUE> node, @Nonnull UnaryFunction<? super KEY, ? extends VALUE> loader) {
+        if (!refreshingKeys.add(node.key)) { return; }
+        try {
+            executor.execute(() -> {
+                try {
+                    final @Nonnull Node<KEY, VALUE> refreshed = load(node.key, loader, ticker.read());
+                    if (data.replace(node.key, node, refreshed)) {
+                        statistics.recordRefresh();
+                        afterWrite(refreshed, node);
+                    }
+                } catch (@Nonnull RuntimeException exception) {
+                    // The failure has been recorded and the current value remains cached until it expires.
+                } finally {
+                    refreshingKeys.remove(node.key);
+                }
+            });
+        } catch (@Nonnull RejectedExecutionException exception) {
+            refreshingKeys.remove(node.key);
+        }
+    }
+    
+    /* -------------------------------------------------- Modification -------------------------------------------------- */
+    
+    /**
+     * Caches the given value for the given key and returns the previously cached value or null if there was none.
+     */
+    @Impure
+    public @Nullable VALUE put(@Captured @Nonnull KEY key, @Captured @Nonnull VALUE value) {
+        final @Nonnull Node<KEY, VALUE> node = newNode(key, value, ticker.read());
+        final @Nullable Node<KEY, VALUE> previous = data.put(key, node);
+        afterWrite(node, previous);
+        return previous != null ? previous.value : null;
+    }
+    
+    /**
+     * Removes the value that is cached for the given key and returns it or null if there was none.
+     */
+    @Impure
+    public @Nullable VALUE remove(@NonCaptured @Unmodified @Nonnull KEY key) {
+        final @Nullable Node<KEY, VALUE> node = data.remove(key);
+        if (node == null) { return null; }
+        afterRemoval(node);
+        return node.value;
+    }
+    
+    /**
+     * Removes all entries from this cache.
+     */
+    @Impure
+    public void clear() {
+        for (@Nonnull Node<KEY, VALUE> node : data.values()) {
+            if (data.remove(node.key, node)) { afterRemoval(node); }
+        }
+    }
+    
+    /**
+     * Removes all expired entries and replays the buffered accesses.
+     * Expired entries are otherwise only removed when they are looked up or evicted.
+     */
+    @Impure
+    public void cleanUp() {
+        final long now = ticker.read();
+        for (@Nonnull Node<KEY, VALUE> node : data.values()) {
+            if (isExpired(node, now)) { expire(node); }
+        }
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Read Buffer -------------------------------------------------- */
+    
+    private static final int READ_BUFFER_SIZE = 32;
+    
+    private static final int READ_BUFFER_STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+    
+    private final @Nonnull AtomicReferenceArray<Node<KEY, VALUE>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_STRIPES * READ_BUFFER_SIZE);
+    
+    private final @Nonnull AtomicLongArray readBufferWrites = new AtomicLongArray(READ_BUFFER_STRIPES);
+    
+    private final @Nonnull AtomicLongArray readBufferReads = new AtomicLongArray(READ_BUFFER_STRIPES);
+    
+    /**
+     * Records the access of the given node and replays the buffered accesses if the stripe of the current thread is full.
+     * Accesses are dropped if the buffer is full and another thread is already replaying them.
+     */
+    @Impure
+    private void afterRead(@Nonnull Node<KEY, VALUE> node, long now) {
+        if (expireAfterAccessNanos != Long.MAX_VALUE) { node.accessTime = now; }
+        if (maximumWeight == Long.MAX_VALUE) { return; }
+        
+        final long id = Thread.currentThread().getId();
+        final int stripe = (int) (id ^ (id >>> 7)) & (READ_BUFFER_STRIPES - 1);
+        final long writes = readBufferWrites.get(stripe);
+        if (writes - readBufferReads.get(stripe) < READ_BUFFER_SIZE) {
+            if (readBufferWrites.compareAndSet(stripe, writes, writes + 1)) {
+                readBuffer.lazySet(stripe * READ_BUFFER_SIZE + (int) (writes & (READ_BUFFER_SIZE - 1)), node);
+            }
+        } else if (evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Replays the buffered accesses on the segments.
+     */
+    @Impure
+    private void drainReadBuffer() {
+        for (int stripe = 0; stripe < READ_BUFFER_STRIPES; stripe++) {
+            final long writes = readBufferWrites.get(stripe);
+            long reads = readBufferReads.get(stripe);
+            while (reads < writes) {
+                final int index = stripe * READ_BUFFER_SIZE + (int) (reads & (READ_BUFFER_SIZE - 1));
+                final @Nullable Node<KEY, VALUE> node = readBuffer.get(index);
+                if (node == null) { break; }
+                readBuffer.lazySet(index, null);
+                onAccess(node);
+                reads++;
+            }
+            readBufferReads.lazySet(stripe, reads);
+        }
+    }
+    
+    /* -------------------------------------------------- Segments -------------------------------------------------- */
+    
+    private final @Nonnull NonReentrantLock evictionLock = NonReentrantLockBuilder.build();
+    
+    private @Nullable Node<KEY, VALUE> probationHead;
+    
+    private @Nullable Node<KEY, VALUE> probationTail;
+    
+    private @Nullable Node<KEY, VALUE> protectedHead;
+    
+    private @Nullable Node<KEY, VALUE> protectedTail;
+    
+    private long weightedSize = 0;
+    
+    private long protectedWeight = 0;
+    
+    /**
+     * Appends the given node to the tail of the given segment.
+     */
+    @Impure
+    private void link(@Nonnull Node<KEY, VALUE> node, int segment) {
+        node.segment = segment;
+        node.next = null;
+        if (segment == PROBATION) {
+            node.previous = probationTail;
+            if (probationTail == null) { probationHead = node; } else { probationTail.next = node; }
+            probationTail = node;
+        } else {
+            node.previous = protectedTail;
+            if (protectedTail == null) { protectedHead = node; } else { protectedTail.next = node; }
+            protectedTail = node;
+            protectedWeight += node.weight;
+        }
+    }
+    
+    /**
+     * Removes the given node from its segment.
+     */
+    @Impure
+    private void unlink(@Nonnull Node<KEY, VALUE> node) {
+        final @Nullable Node<KEY, VALUE> previous = node.previous;
+        final @Nullable Node<KEY, VALUE> next = node.next;
+        if (node.segment == PROBATION) {
+            if (previous == null) { probationHead = next; } else { previous.next = next; }
+            if (next == null) { probationTail = previous; } else { next.previous = previous; }
+        } else {
+            if (previous == null) { protectedHead = next; } else { previous.next = next; }
+            if (next == null) { protectedTail = previous; } else { next.previous = previous; }
+            protectedWeight -= node.weight;
+        }
+        node.previous = null;
+        node.next = null;
+        node.segment = DETACHED;
+    }
+    
+    /**
+     * Promotes the given node to the tail of the protected segment and demotes the least recently used protected nodes if the segment overflows.
+     */
+    @Impure
+    private void onAccess(@Nonnull Node<KEY, VALUE> node) {
+        if (node.segment == DETACHED) { return; }
+        unlink(node);
+        link(node, PROTECTED);
+        while (protectedWeight > maximumProtectedWeight && protectedHead != null) {
+            final @Nonnull Node<KEY, VALUE> demoted = protectedHead;
+            unlink(demoted);
+            link(demoted, PROBATION);
+        }
+    }
+    
+    /**
+     * Admits the given node to the probationary segment if it is still mapped, detaches the given previous node and evicts entries until the maximum weight is no longer exceeded.
+     */
+    @Impure
+    private void afterWrite(@Nonnull Node<KEY, VALUE> node, @Nullable Node<KEY, VALUE> previous) {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            if (previous != null && previous.segment != DETACHED) {
+                unlink(previous);
+                weightedSize -= previous.weight;
+            }
+            if (node.segment == DETACHED && data.get(node.key) == node) {
+                link(node, PROBATION);
+                weightedSize += node.weight;
+            }
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * Detaches the given node, which has already been removed from the data.
+     */
+    @Impure
+    private void afterRemoval(@Nonnull Node<KEY, VALUE> node) {
+        evictionLock.lock();
+        try {
+            if (node.segment != DETACHED) {
+                unlink(node);
+                weightedSize -= node.weight;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * Evicts the least recently used entries of the probationary segment and then of the protected segment until the maximum weight is no longer exceeded.
+     */
+    @Impure
+    private void evict() {
+        while (weightedSize > maximumWeight) {
+            final @Nullable Node<KEY, VALUE> victim = probationHead != null ? probationHead : protectedHead;
+            if (victim == null) { break; }
+            unlink(victim);
+            weightedSize -= victim.weight;
+            if (data.remove(victim.key, victim)) { statistics.recordEviction(victim.weight); }
+        }
+    }
+    
+    /* -------------------------------------------------- Object -------------------------------------------------- */
+    
+    /**
+     * Caches are compared by identity.
+     */
+    @Pure
+    @Override
+    public boolean equals(@Nullable Object object) {
+        return this == object;
+    }
+    
+    @Pure
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+    
+    @Pure
+    @Override
+    public @Nonnull String toString() {
+        return "ConcurrentCache(size: " + getEstimatedSize() + ", statistics: " + statistics + ")";
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    /**
+     * Creates a new cache with the given configuration.
+     * 
+     * @param maximumWeight the maximum total weight of the entries, which bounds the number of entries if every entry has a weight of one.
+     * @param weigher the weigher which determines the weight of each entry.
+     * @param expireAfterWrite the time after which entries expire since they were stored.
+     * @param expireAfterAccess the time after which entries expire since they were last looked up.
+     * @param refreshAfterWrite the time after which entries are refreshed asynchronously when they are looked up with a loader.
+     * @param executor the executor on which the asynchronous refreshes are performed.
+     * @param ticker the ticker which provides the current time to determine the expiration and refresh of entries.
+     */
+    protected ConcurrentCache(@Positive @Default("Long.MAX_VALUE") long maximumWeight, @Nonnull @Default("net.digitalid.utility.concurrency.cache.Weigher.unit()") Weigher<? super KEY, ? super VALUE> weigher, @Nonnull @Default("net.digitalid.utility.time.Time.MAX") Time expireAfterWrite, @Nonnull @Default("net.digitalid.utility.time.Time.MAX") Time expireAfterAccess, @Nonnull @Default("net.digitalid.utility.time.Time.MAX") Time refreshAfterWrite, @Nonnull @Default("java.util.concurrent.ForkJoinPool.commonPool()") Executor executor, @Nonnull @Default("net.digitalid.utility.concurrency.cache.Ticker.SYSTEM") Ticker ticker) {
+        Require.that(maximumWeight > 0).orThrow("The maximum weight has to be positive but was $.", maximumWeight);
+        
+        this.maximumWeight = maximumWeight;
+        this.maximumProtectedWeight = maximumWeight == Long.MAX_VALUE ? Long.MAX_VALUE : maximumWeight - maximumWeight / 5;
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = toNanos(expireAfterWrite);
+        this.expireAfterAccessNanos = toNanos(expireAfterAccess);
+        this.refreshAfterWriteNanos = toNanos(refreshAfterWrite);
+        this.executor = executor;
+        this.ticker = ticker;
+    }
+    
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.cache;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.validation.annotations.type.Functional;
+import net.digitalid.utility.validation.annotations.type.Stateless;
+
+/**
+ * A ticker provides the current time to a {@link ConcurrentCache cache} so that tests can inject a deterministic time.
+ */
+@Stateless
+@Functional
+public interface Ticker {
+    
+    /* -------------------------------------------------- Time -------------------------------------------------- */
+    
+    /**
+     * Returns the current time in nanoseconds relative to an arbitrary but fixed origin.
+     */
+    @Impure
+    public long read();
+    
+    /* -------------------------------------------------- Constants -------------------------------------------------- */
+    
+    /**
+     * Stores a ticker that returns the value of {@link System#nanoTime()}.
+     */
+    public static final @Nonnull Ticker SYSTEM = System::nanoTime;
+    
+}
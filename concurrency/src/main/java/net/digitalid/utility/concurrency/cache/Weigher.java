@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.cache;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Functional;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * A weigher determines how much of the maximum weight of a {@link ConcurrentCache cache} an entry occupies.
+ * 
+ * @param <KEY> the type of the keys of the weighed entries.
+ * @param <VALUE> the type of the values of the weighed entries.
+ */
+@Immutable
+@Functional
+public interface Weigher<@Specifiable KEY, @Specifiable VALUE> {
+    
+    /* -------------------------------------------------- Weigh -------------------------------------------------- */
+    
+    /**
+     * Returns the weight of the entry with the given key and value.
+     * The weight of an entry is computed once when the entry is stored and may not change afterwards.
+     */
+    @Pure
+    public @NonNegative int weigh(@NonCaptured @Unmodified KEY key, @NonCaptured @Unmodified VALUE value);
+    
+    /* -------------------------------------------------- Unit -------------------------------------------------- */
+    
+    /**
+     * Returns a weigher which assigns every entry a weight of one so that the maximum weight of a cache limits its size.
+     */
+    @Pure
+    public static <@Specifiable KEY, @Specifiable VALUE> @Nonnull Weigher<KEY, VALUE> unit() {
+        return (key, value) -> 1;
+    }
+    
+}
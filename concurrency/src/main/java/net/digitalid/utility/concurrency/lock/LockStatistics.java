@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.lock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * Lock statistics record how long threads wait for and hold the locks they are {@link NonReentrantLock#setStatistics(LockStatistics) attached} to.
+ * All durations are measured with {@link System#nanoTime()} and reported in nanoseconds.
+ * The same statistics can be attached to several locks (such as the stripes of a {@link StripedLock}) in order to aggregate their measurements.
+ * 
+ * @see NonReentrantLock#setStatistics(LockStatistics)
+ */
+@Mutable
+@ThreadSafe
+public class LockStatistics {
+    
+    /* -------------------------------------------------- Counters -------------------------------------------------- */
+    
+    private final @Nonnull LongAdder acquisitions = new LongAdder();
+    
+    private final @Nonnull LongAdder contentions = new LongAdder();
+    
+    private final @Nonnull LongAdder totalWaitTime = new LongAdder();
+    
+    private final @Nonnull AtomicLong maximumWaitTime = new AtomicLong();
+    
+    private final @Nonnull LongAdder releases = new LongAdder();
+    
+    private final @Nonnull LongAdder totalHoldTime = new LongAdder();
+    
+    private final @Nonnull AtomicLong maximumHoldTime = new AtomicLong();
+    
+    private final @Nonnull AtomicInteger queueLength = new AtomicInteger();
+    
+    private final @Nonnull AtomicInteger maximumQueueLength = new AtomicInteger();
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected LockStatistics() {}
+    
+    /**
+     * Returns new lock statistics without any measurements.
+     */
+    @Pure
+    public static @Nonnull LockStatistics withNoMeasurements() {
+        return new LockStatistics();
+    }
+    
+    /* -------------------------------------------------- Recording -------------------------------------------------- */
+    
+    /**
+     * Records that the current thread starts waiting for the lock and returns the current time.
+     * 
+     * @param contended whether the lock was held by another thread when the current thread requested it.
+     */
+    @Impure
+    protected long beginWaiting(boolean contended) {
+        if (contended) { contentions.increment(); }
+        final int length = queueLength.incrementAndGet();
+        maximumQueueLength.accumulateAndGet(length, Math::max);
+        return System.nanoTime();
+    }
+    
+    /**
+     * Records that the current thread stopped waiting for the lock and returns the current time.
+     * 
+     * @param startTime the time returned by {@link #beginWaiting(boolean)}.
+     * @param acquired whether the current thread acquired the lock.
+     */
+    @Impure
+    protected long endWaiting(long startTime, boolean acquired) {
+        queueLength.decrementAndGet();
+        final long endTime = System.nanoTime();
+        if (acquired) { recordAcquisition(endTime - startTime); }
+        return endTime;
+    }
+    
+    /**
+     * Records that the current thread acquired the lock after having waited for the given duration.
+     */
+    @Impure
+    protected void recordAcquisition(long waitTime) {
+        acquisitions.increment();
+        totalWaitTime.add(waitTime);
+        maximumWaitTime.accumulateAndGet(waitTime, Math::max);
+    }
+    
+    /**
+     * Records that the current thread released the lock which it acquired at the given time.
+     */
+    @Impure
+    protected void recordRelease(long acquisitionTime) {
+        final long holdTime = System.nanoTime() - acquisitionTime;
+        releases.increment();
+        totalHoldTime.add(holdTime);
+        maximumHoldTime.accumulateAndGet(holdTime, Math::max);
+    }
+    
+    /* -------------------------------------------------- Getters -------------------------------------------------- */
+    
+    /**
+     * Returns the number of times the lock was acquired.
+     */
+    @Pure
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+    
+    /**
+     * Returns the number of times the lock was already held by another thread when it was requested.
+     */
+    @Pure
+    public long getContentions() {
+        return contentions.sum();
+    }
+    
+    /**
+     * Returns the total time that threads waited to acquire the lock.
+     */
+    @Pure
+    public long getTotalWaitTime() {
+        return totalWaitTime.sum();
+    }
+    
+    /**
+     * Returns the average time that threads waited to acquire the lock.
+     */
+    @Pure
+    public long getAverageWaitTime() {
+        final long acquisitions = getAcquisitions();
+        return acquisitions == 0 ? 0 : getTotalWaitTime() / acquisitions;
+    }
+    
+    /**
+     * Returns the longest time that a thread waited to acquire the lock.
+     */
+    @Pure
+    public long getMaximumWaitTime() {
+        return maximumWaitTime.get();
+    }
+    
+    /**
+     * Returns the total time that threads held the lock.
+     */
+    @Pure
+    public long getTotalHoldTime() {
+        return totalHoldTime.sum();
+    }
+    
+    /**
+     * Returns the average time that threads held the lock.
+     */
+    @Pure
+    public long getAverageHoldTime() {
+        final long releases = this.releases.sum();
+        return releases == 0 ? 0 : getTotalHoldTime() / releases;
+    }
+    
+    /**
+     * Returns the longest time that a thread held the lock.
+     */
+    @Pure
+    public long getMaximumHoldTime() {
+        return maximumHoldTime.get();
+    }
+    
+    /**
+     * Returns the number of threads that are currently waiting to acquire the lock.
+     */
+    @Pure
+    public int getQueueLength() {
+        return queueLength.get();
+    }
+    
+    /**
+     * Returns the largest number of threads that waited to acquire the lock at the same time.
+     */
+    @Pure
+    public int getMaximumQueueLength() {
+        return maximumQueueLength.get();
+    }
+    
+    /* -------------------------------------------------- Reset -------------------------------------------------- */
+    
+    /**
+     * Resets all measurements except the current queue length.
+     * Measurements that are recorded concurrently to this reset might be lost or only partially reset.
+     */
+    @Impure
+    public void reset() {
+        acquisitions.reset();
+        contentions.reset();
+        totalWaitTime.reset();
+        maximumWaitTime.set(0);
+        releases.reset();
+        totalHoldTime.reset();
+        maximumHoldTime.set(0);
+        maximumQueueLength.set(queueLength.get());
+    }
+    
+    /* -------------------------------------------------- Object -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull String toString() {
+        return "acquisitions: " + getAcquisitions() + ", contentions: " + getContentions() + ", average wait: " + getAverageWaitTime() + " ns, maximum wait: " + getMaximumWaitTime() + " ns, average hold: " + getAverageHoldTime() + " ns, maximum hold: " + getMaximumHoldTime() + " ns, maximum queue length: " + getMaximumQueueLength();
+    }
+    
+}
@@ -21,6 +21,7 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
@@ -46,6 +47,9 @@ import net.digitalid.utility.validation.annotations.type.Mutable;
  *     lock.unlock();
  * }
  * }</pre>
+ * <p>
+ * The wait and hold times of a lock can be measured by {@link #setStatistics(LockStatistics) attaching} lock statistics to it.
+ * Locks without statistics only pay for a volatile read per acquisition.
  */
 @Mutable
 @ThreadSafe
@@ -67,33 +71,77 @@ public abstract class NonReentrantLock extends RootClass implements Lock, Lockin
     @Override
     @LockNotHeldByCurrentThread
     public void lock() {
-        getReentrantLock().lock();
+        final @Nullable LockStatistics statistics = lockStatistics;
+        if (statistics == null) {
+            getReentrantLock().lock();
+        } else {
+            final long startTime = statistics.beginWaiting(getReentrantLock().isLocked());
+            getReentrantLock().lock();
+            acquisitionTime = statistics.endWaiting(startTime, true);
+        }
     }
     
     @Impure
     @Override
     @LockNotHeldByCurrentThread
     public void lockInterruptibly() throws InterruptedException {
-        getReentrantLock().lockInterruptibly();
+        final @Nullable LockStatistics statistics = lockStatistics;
+        if (statistics == null) {
+            getReentrantLock().lockInterruptibly();
+        } else {
+            final long startTime = statistics.beginWaiting(getReentrantLock().isLocked());
+            boolean acquired = false;
+            try {
+                getReentrantLock().lockInterruptibly();
+                acquired = true;
+            } finally {
+                final long endTime = statistics.endWaiting(startTime, acquired);
+                if (acquired) { acquisitionTime = endTime; }
+            }
+        }
     }
     
     @Impure
     @Override
     @LockNotHeldByCurrentThread
     public boolean tryLock() {
-        return getReentrantLock().tryLock();
+        final boolean acquired = getReentrantLock().tryLock();
+        final @Nullable LockStatistics statistics = lockStatistics;
+        if (acquired && statistics != null) {
+            statistics.recordAcquisition(0);
+            acquisitionTime = System.nanoTime();
+        }
+        return acquired;
     }
     
     @Impure
     @Override
     @LockNotHeldByCurrentThread
     public boolean tryLock(long time, @Nonnull TimeUnit unit) throws InterruptedException {
-        return getReentrantLock().tryLock(time, unit);
+        final @Nullable LockStatistics statistics = lockStatistics;
+        if (statistics == null) {
+            return getReentrantLock().tryLock(time, unit);
+        } else {
+            final long startTime = statistics.beginWaiting(getReentrantLock().isLocked());
+            boolean acquired = false;
+            try {
+                acquired = getReentrantLock().tryLock(time, unit);
+            } finally {
+                final long endTime = statistics.endWaiting(startTime, acquired);
+                if (acquired) { acquisitionTime = endTime; }
+            }
+            return acquired;
+        }
     }
     
     @Impure
     @Override
     public void unlock() {
+        if (acquisitionTime != 0 && getReentrantLock().getHoldCount() == 1) {
+            final @Nullable LockStatistics statistics = lockStatistics;
+            if (statistics != null) { statistics.recordRelease(acquisitionTime); }
+            acquisitionTime = 0;
+        }
         getReentrantLock().unlock();
     }
     
@@ -103,6 +151,43 @@ public abstract class NonReentrantLock extends RootClass implements Lock, Lockin
         return getReentrantLock().newCondition();
     }
     
+    /* -------------------------------------------------- Statistics -------------------------------------------------- */
+    
+    private volatile @Nullable LockStatistics lockStatistics = null;
+    
+    /**
+     * Stores the time at which the lock was acquired while statistics were attached or zero otherwise.
+     * This field is only accessed by the thread that holds the lock.
+     */
+    private long acquisitionTime = 0;
+    
+    /**
+     * Returns the statistics that are attached to this lock or null if the lock is not instrumented.
+     */
+    @Pure
+    public @Nullable LockStatistics getStatistics() {
+        return lockStatistics;
+    }
+    
+    /**
+     * Attaches the given statistics to this lock or detaches the current statistics if the given value is null.
+     * A lock that is held while the statistics are attached or detached is not included in the hold time measurements.
+     */
+    @Impure
+    public void setStatistics(@Nullable LockStatistics statistics) {
+        this.lockStatistics = statistics;
+    }
+    
+    /* -------------------------------------------------- Queue -------------------------------------------------- */
+    
+    /**
+     * Returns an estimate of the number of threads that are currently waiting to acquire this lock.
+     */
+    @Pure
+    public int getQueueLength() {
+        return getReentrantLock().getQueueLength();
+    }
+    
     /* -------------------------------------------------- Locking -------------------------------------------------- */
     
     @Pure
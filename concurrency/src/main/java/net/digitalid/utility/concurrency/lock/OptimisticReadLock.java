@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StampedLock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.contracts.exceptions.PreconditionException;
+import net.digitalid.utility.functional.interfaces.Producer;
+import net.digitalid.utility.interfaces.Locking;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This class implements a non-reentrant write lock on top of a {@link StampedLock}, which allows readers to proceed without acquiring any lock.
+ * A {@link #read(Producer) read} first runs optimistically and is only repeated under a read lock if a writer interfered with it.
+ * Like the {@link NonReentrantLock}, this lock throws a {@link PreconditionException} if a thread tries to acquire the write lock that it already holds.
+ * <p>
+ * Writers should follow a (successful) call to one of the lock methods immediately with a try-finally block like
+ * <pre>{@code
+ * lock.lock();
+ * try {
+ *     // Do the synchronized operations here.
+ * } finally {
+ *     lock.unlock();
+ * }
+ * }</pre>
+ * while readers pass the synchronized operations to {@link #read(Producer)}.
+ */
+@Mutable
+@ThreadSafe
+public class OptimisticReadLock implements Lock, Locking {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull StampedLock stampedLock = new StampedLock();
+    
+    /**
+     * Stores the thread that holds the write lock or null if the write lock is not held.
+     */
+    private volatile @Nullable Thread owner = null;
+    
+    /**
+     * Stores the stamp of the write lock, which is only accessed by the thread that holds the write lock.
+     */
+    private long writeStamp = 0;
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected OptimisticReadLock() {}
+    
+    /**
+     * Returns a new optimistic read lock which is not held by any thread.
+     */
+    @Pure
+    public static @Nonnull OptimisticReadLock withNoArguments() {
+        return new OptimisticReadLock();
+    }
+    
+    /* -------------------------------------------------- Read -------------------------------------------------- */
+    
+    /**
+     * Returns the output of the given producer, which is evaluated without acquiring a lock if no writer interferes.
+     * Otherwise, the producer is evaluated again while holding the read lock.
+     * As the producer may observe an inconsistent state during the optimistic evaluation, it must not have any side effects
+     * and any exception that it throws is only propagated if the observed state turns out to be consistent.
+     * If the current thread holds the write lock, the producer is evaluated directly.
+     */
+    @Impure
+    public <@Specifiable OUTPUT> OUTPUT read(@Nonnull Producer<? extends OUTPUT> producer) {
+        if (owner == Thread.currentThread()) { return producer.produce(); }
+        
+        final long optimisticStamp = stampedLock.tryOptimisticRead();
+        if (optimisticStamp != 0) {
+            try {
+                final OUTPUT output = producer.produce();
+                if (stampedLock.validate(optimisticStamp)) { return output; }
+            } catch (@Nonnull RuntimeException exception) {
+                if (stampedLock.validate(optimisticStamp)) { throw exception; }
+            }
+        }
+        
+        final long readStamp = stampedLock.readLock();
+        try {
+            return producer.produce();
+        } finally {
+            stampedLock.unlockRead(readStamp);
+        }
+    }
+    
+    /**
+     * Returns whether the write lock is currently held by some thread.
+     */
+    @Pure
+    public boolean isWriteLocked() {
+        return stampedLock.isWriteLocked();
+    }
+    
+    /* -------------------------------------------------- Lock -------------------------------------------------- */
+    
+    /**
+     * Requires that the current thread does not hold the write lock, as stamped locks are not reentrant and would deadlock.
+     */
+    @Pure
+    private void requireNotHeld() {
+        Require.that(!isLockHeldByCurrentThread()).orThrow("The lock may not be held by the current thread.");
+    }
+    
+    /**
+     * Records that the current thread acquired the write lock with the given stamp.
+     */
+    @Impure
+    private boolean acquired(long stamp) {
+        if (stamp == 0) { return false; }
+        this.writeStamp = stamp;
+        this.owner = Thread.currentThread();
+        return true;
+    }
+    
+    @Impure
+    @Override
+    public void lock() {
+        requireNotHeld();
+        acquired(stampedLock.writeLock());
+    }
+    
+    @Impure
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        requireNotHeld();
+        acquired(stampedLock.writeLockInterruptibly());
+    }
+    
+    @Impure
+    @Override
+    public boolean tryLock() {
+        requireNotHeld();
+        return acquired(stampedLock.tryWriteLock());
+    }
+    
+    @Impure
+    @Override
+    public boolean tryLock(long time, @Nonnull TimeUnit unit) throws InterruptedException {
+        requireNotHeld();
+        return acquired(stampedLock.tryWriteLock(time, unit));
+    }
+    
+    @Impure
+    @Override
+    public void unlock() {
+        if (owner != Thread.currentThread()) { throw new IllegalMonitorStateException("The lock is not held by the current thread."); }
+        final long stamp = writeStamp;
+        this.owner = null;
+        this.writeStamp = 0;
+        stampedLock.unlockWrite(stamp);
+    }
+    
+    /**
+     * Throws an {@link UnsupportedOperationException} because stamped locks do not support conditions.
+     */
+    @Pure
+    @Override
+    public @Nonnull Condition newCondition() {
+        throw new UnsupportedOperationException("Optimistic read locks do not support conditions.");
+    }
+    
+    /* -------------------------------------------------- Locking -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isLockHeldByCurrentThread() {
+        return owner == Thread.currentThread();
+    }
+    
+}
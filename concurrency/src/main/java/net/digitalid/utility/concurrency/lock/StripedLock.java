@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.lock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.interfaces.Locking;
+import net.digitalid.utility.rootclass.RootClass;
+import net.digitalid.utility.validation.annotations.generation.Default;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A striped lock guards independent keys with a fixed number of {@link NonReentrantLock non-reentrant locks}.
+ * Keys with the same hash always map to the same stripe so that operations on different keys rarely contend.
+ * The number of stripes is rounded up to the next power of two.
+ * <p>
+ * Operations that span several keys should acquire {@link #lockAll() all stripes} in order to avoid deadlocks.
+ */
+@Mutable
+@ThreadSafe
+@GenerateBuilder
+@GenerateSubclass
+public abstract class StripedLock extends RootClass implements Locking {
+    
+    /* -------------------------------------------------- Stripes -------------------------------------------------- */
+    
+    /**
+     * Stores the maximum number of stripes.
+     */
+    public static final int MAXIMUM_STRIPES = 1 << 16;
+    
+    private final @Nonnull NonReentrantLock[] locks;
+    
+    /**
+     * Returns the number of stripes of this lock, which is always a power of two.
+     */
+    @Pure
+    public @Positive int getNumberOfStripes() {
+        return locks.length;
+    }
+    
+    /**
+     * Returns the lock of the stripe with the given index.
+     */
+    @Pure
+    public @Nonnull NonReentrantLock getLockAt(@NonNegative int index) {
+        Require.that(index >= 0 && index < locks.length).orThrow("The index $ has to be smaller than the number of stripes $.", index, locks.length);
+        
+        return locks[index];
+    }
+    
+    /**
+     * Returns the lock of the stripe to which the given key is mapped.
+     */
+    @Pure
+    public @Nonnull NonReentrantLock getLock(@Nullable Object key) {
+        return locks[indexOf(key)];
+    }
+    
+    /**
+     * Returns the index of the stripe to which the given key is mapped.
+     * The hash code is scrambled so that keys which only differ in their higher bits are spread across the stripes.
+     */
+    @Pure
+    protected int indexOf(@Nullable Object key) {
+        int hash = key == null ? 0 : key.hashCode() * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        return hash & (locks.length - 1);
+    }
+    
+    /* -------------------------------------------------- All Stripes -------------------------------------------------- */
+    
+    /**
+     * Acquires the locks of all stripes in ascending order.
+     */
+    @Impure
+    public void lockAll() {
+        for (@Nonnull NonReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+    
+    /**
+     * Releases the locks of all stripes in descending order.
+     */
+    @Impure
+    public void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Statistics -------------------------------------------------- */
+    
+    /**
+     * Attaches the given statistics to the locks of all stripes so that their measurements are aggregated.
+     * If the given value is null, the statistics of all stripes are detached.
+     * 
+     * @see NonReentrantLock#setStatistics(LockStatistics)
+     */
+    @Impure
+    public void setStatistics(@Nullable LockStatistics statistics) {
+        for (@Nonnull NonReentrantLock lock : locks) {
+            lock.setStatistics(statistics);
+        }
+    }
+    
+    /* -------------------------------------------------- Locking -------------------------------------------------- */
+    
+    /**
+     * Returns whether the current thread holds the lock of at least one stripe.
+     */
+    @Pure
+    @Override
+    public boolean isLockHeldByCurrentThread() {
+        for (@Nonnull NonReentrantLock lock : locks) {
+            if (lock.isLockHeldByCurrentThread()) { return true; }
+        }
+        return false;
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected StripedLock(@Positive @Default("16") int stripes) {
+        Require.that(stripes > 0 && stripes <= MAXIMUM_STRIPES).orThrow("The number of stripes has to be positive and at most $ but was $.", MAXIMUM_STRIPES, stripes);
+        
+        this.locks = new NonReentrantLock[stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = NonReentrantLockBuilder.build();
+        }
+    }
+    
+}
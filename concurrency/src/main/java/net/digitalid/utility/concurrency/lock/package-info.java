@@ -14,6 +14,6 @@
  * limitations under the License.
  */
 /**
- * Provides a non-reentrant lock implementation.
+ * Provides a non-reentrant lock, a striped lock, a lock with optimistic reads and statistics to instrument locks.
  */
 package net.digitalid.utility.concurrency.lock;
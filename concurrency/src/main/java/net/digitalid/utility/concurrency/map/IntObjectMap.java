@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.map;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.annotations.ownership.NonCapturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.concurrency.lock.NonReentrantLock;
+import net.digitalid.utility.concurrency.lock.NonReentrantLockBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.generation.Default;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Functional;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This class implements a concurrent map from {@code int} keys to objects without boxing the keys or allocating a node per entry.
+ * <p>
+ * The entries are stored in open-addressing tables with linear probing, which are split into segments that are locked independently by writers.
+ * Readers never lock and never wait: they probe the current table of a segment, in which a key is never moved once it has been published.
+ * Removed entries leave a marker behind, which is only discarded when the table of the segment is rebuilt.
+ * 
+ * @param <VALUE> the type of the values of this map.
+ */
+@Mutable
+@ThreadSafe
+@GenerateBuilder
+@GenerateSubclass
+public abstract class IntObjectMap<VALUE> {
+    
+    /* -------------------------------------------------- Tables -------------------------------------------------- */
+    
+    /**
+     * Marks an entry that has been removed, whose key has to be skipped while probing.
+     */
+    private static final @Nonnull Object REMOVED = new Object();
+    
+    private static final int MINIMUM_CAPACITY = 8;
+    
+    /**
+     * A table stores the keys and values of a segment in parallel arrays.
+     * A key is always written before its value is published with a volatile write so that readers which see the value also see the key.
+     */
+    private static final class Table {
+        
+        private final @Nonnull int[] keys;
+        
+        private final @Nonnull AtomicReferenceArray<Object> values;
+        
+        private Table(int capacity) {
+            this.keys = new int[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+        }
+        
+    }
+    
+    /**
+     * A segment guards its table with a lock that is only acquired by writers.
+     */
+    private static final class Segment {
+        
+        private final @Nonnull NonReentrantLock lock = NonReentrantLockBuilder.build();
+        
+        private volatile @Nonnull Table table;
+        
+        /**
+         * Stores the number of entries in the table, which is only written while holding the lock.
+         */
+        private volatile int size = 0;
+        
+        /**
+         * Stores the number of slots that are occupied by entries or removal markers, which is only accessed while holding the lock.
+         */
+        private int used = 0;
+        
+        private Segment(int capacity) {
+            this.table = new Table(capacity);
+        }
+        
+    }
+    
+    /**
+     * Returns the smallest power of two that is at least the given capacity and the minimum capacity.
+     */
+    @Pure
+    private static int tableSizeFor(int capacity) {
+        return capacity <= MINIMUM_CAPACITY ? MINIMUM_CAPACITY : Integer.highestOneBit(capacity - 1) << 1;
+    }
+    
+    /**
+     * Returns a well-distributed hash of the given key.
+     */
+    @Pure
+    private static int hash(int key) {
+        final int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+    
+    /* -------------------------------------------------- Segments -------------------------------------------------- */
+    
+    private final @Nonnull Segment[] segments;
+    
+    private final int segmentShift;
+    
+    /**
+     * Returns the segment for the given hash, which is determined by its highest bits.
+     */
+    @Pure
+    private @Nonnull Segment segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & (segments.length - 1)];
+    }
+    
+    /**
+     * Rebuilds the table of the given segment without removal markers so that it is at most a quarter full after inserting another entry.
+     * The segment has to be locked by the current thread.
+     */
+    @Impure
+    private static void rebuild(@Nonnull Segment segment) {
+        final @Nonnull Table oldTable = segment.table;
+        final @Nonnull Table newTable = new Table(tableSizeFor((segment.size + 1) * 4));
+        final int mask = newTable.keys.length - 1;
+        for (int i = 0; i < oldTable.keys.length; i++) {
+            final @Nullable Object value = oldTable.values.get(i);
+            if (value != null && value != REMOVED) {
+                final int key = oldTable.keys[i];
+                int index = hash(key) & mask;
+                while (newTable.values.get(index) != null) { index = (index + 1) & mask; }
+                newTable.keys[index] = key;
+                newTable.values.lazySet(index, value);
+            }
+        }
+        segment.used = segment.size;
+        segment.table = newTable;
+    }
+    
+    /* -------------------------------------------------- Queries -------------------------------------------------- */
+    
+    /**
+     * Returns the value that is associated with the given key or null if there is no such value.
+     */
+    @Pure
+    @SuppressWarnings("unchecked")
+    public @NonCapturable @Nullable VALUE get(int key) {
+        final int hash = hash(key);
+        final @Nonnull Table table = segmentFor(hash).table;
+        final int mask = table.keys.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final @Nullable Object value = table.values.get(i);
+            if (value == null) { return null; }
+            if (table.keys[i] == key) { return value == REMOVED ? null : (VALUE) value; }
+        }
+    }
+    
+    /**
+     * Returns whether this map contains a value for the given key.
+     */
+    @Pure
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+    
+    /**
+     * Returns the number of entries in this map.
+     */
+    @Pure
+    public @NonNegative int size() {
+        int size = 0;
+        for (@Nonnull Segment segment : segments) { size += segment.size; }
+        return size;
+    }
+    
+    /**
+     * Returns whether this map contains no entries.
+     */
+    @Pure
+    public boolean isEmpty() {
+        for (@Nonnull Segment segment : segments) {
+            if (segment.size > 0) { return false; }
+        }
+        return true;
+    }
+    
+    /* -------------------------------------------------- Modifications -------------------------------------------------- */
+    
+    /**
+     * Associates the given value with the given key if the given key is not yet associated with a value or if the given flag is true.
+     * 
+     * @return the value that was previously associated with the given key or null if there was no such value.
+     */
+    @Impure
+    @SuppressWarnings("unchecked")
+    private @Nullable VALUE put(int key, @Nonnull VALUE value, boolean replace) {
+        final int hash = hash(key);
+        final @Nonnull Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            if (segment.used + 1 > segment.table.keys.length >>> 1) { rebuild(segment); }
+            final @Nonnull Table table = segment.table;
+            final int mask = table.keys.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                final @Nullable Object current = table.values.get(i);
+                if (current == null) {
+                    table.keys[i] = key;
+                    table.values.set(i, value);
+                    segment.used++;
+                    segment.size++;
+                    return null;
+                } else if (table.keys[i] == key) {
+                    if (current == REMOVED) {
+                        table.values.set(i, value);
+                        segment.size++;
+                        return null;
+                    } else {
+                        if (replace) { table.values.set(i, value); }
+                        return (VALUE) current;
+                    }
+                }
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+    
+    /**
+     * Associates the given value with the given key.
+     * 
+     * @return the value that was previously associated with the given key or null if there was no such value.
+     */
+    @Impure
+    public @Capturable @Nullable VALUE put(int key, @Captured @Nonnull VALUE value) {
+        return put(key, value, true);
+    }
+    
+    /**
+     * Associates the given value with the given key if the given key is not yet associated with a value.
+     * 
+     * @return the value that is already associated with the given key or null if the given value was associated.
+     */
+    @Impure
+    public @NonCapturable @Nullable VALUE putIfAbsent(int key, @Captured @Nonnull VALUE value) {
+        return put(key, value, false);
+    }
+    
+    /**
+     * Associates the given value with the given key, if the
+     * given key is not already associated with another value.
+     * 
+     * @return the value that is now associated with the given key.
+     */
+    @Impure
+    public @NonCapturable @Nonnull VALUE putIfAbsentElseReturnPresent(int key, @Captured @Nonnull VALUE value) {
+        final @Nullable VALUE present = get(key);
+        if (present != null) { return present; }
+        final @Nullable VALUE previous = put(key, value, false);
+        return previous != null ? previous : value;
+    }
+    
+    /**
+     * Removes the value that is associated with the given key if the value is the given value or if the given value is null.
+     * 
+     * @return the value that was associated with the given key or null if no value was removed.
+     */
+    @Impure
+    @SuppressWarnings("unchecked")
+    private @Nullable VALUE remove(int key, @Nullable Object expectedValue, boolean conditional) {
+        final int hash = hash(key);
+        final @Nonnull Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            final @Nonnull Table table = segment.table;
+            final int mask = table.keys.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                final @Nullable Object current = table.values.get(i);
+                if (current == null) { return null; }
+                if (table.keys[i] == key) {
+                    if (current == REMOVED || conditional && !current.equals(expectedValue)) { return null; }
+                    table.values.set(i, REMOVED);
+                    segment.size--;
+                    return (VALUE) current;
+                }
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+    
+    /**
+     * Removes the value that is associated with the given key.
+     * 
+     * @return the value that was associated with the given key or null if there was no such value.
+     */
+    @Impure
+    public @Capturable @Nullable VALUE remove(int key) {
+        return remove(key, null, false);
+    }
+    
+    /**
+     * Removes the entry with the given key only if it is associated with the given value.
+     * 
+     * @return whether the entry was removed.
+     */
+    @Impure
+    public boolean remove(int key, @NonCaptured @Unmodified @Nonnull Object value) {
+        return remove(key, value, true) != null;
+    }
+    
+    /**
+     * Removes all entries from this map.
+     */
+    @Impure
+    public void clear() {
+        for (@Nonnull Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.table = new Table(MINIMUM_CAPACITY);
+                segment.size = 0;
+                segment.used = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+    
+    /* -------------------------------------------------- Iteration -------------------------------------------------- */
+    
+    /**
+     * An entry consumer is called with the key and the value of each entry.
+     */
+    @Functional
+    public static interface EntryConsumer<@Specifiable VALUE> {
+        
+        /**
+         * Consumes the entry with the given key and value.
+         */
+        @Impure
+        public void consume(int key, @NonCaptured @Unmodified @Nonnull VALUE value);
+        
+    }
+    
+    /**
+     * Calls the given consumer with each entry of this map.
+     * The iteration is weakly consistent: it reflects some but not necessarily all modifications that happen concurrently.
+     */
+    @Pure
+    @SuppressWarnings("unchecked")
+    public void forEach(@Nonnull EntryConsumer<? super VALUE> consumer) {
+        for (@Nonnull Segment segment : segments) {
+            final @Nonnull Table table = segment.table;
+            for (int i = 0; i < table.keys.length; i++) {
+                final @Nullable Object value = table.values.get(i);
+                if (value != null && value != REMOVED) { consumer.consume(table.keys[i], (VALUE) value); }
+            }
+        }
+    }
+    
+    /* -------------------------------------------------- Object -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (object == this) { return true; }
+        if (!(object instanceof IntObjectMap)) { return false; }
+        final @Nonnull IntObjectMap<?> that = (IntObjectMap<?>) object;
+        if (that.size() != size()) { return false; }
+        final @Nonnull boolean[] equal = { true };
+        forEach((key, value) -> { if (equal[0] && !value.equals(that.get(key))) { equal[0] = false; } });
+        return equal[0];
+    }
+    
+    @Pure
+    @Override
+    public int hashCode() {
+        final @Nonnull int[] hashCode = { 0 };
+        forEach((key, value) -> hashCode[0] += key ^ value.hashCode());
+        return hashCode[0];
+    }
+    
+    @Pure
+    @Override
+    public @Nonnull String toString() {
+        final @Nonnull StringBuilder string = new StringBuilder("{");
+        forEach((key, value) -> string.append(string.length() > 1 ? ", " : "").append(key).append("=").append(value));
+        return string.append("}").toString();
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected IntObjectMap(@NonNegative @Default("16") int initialCapacity, @Positive @Default("16") int concurrencyLevel) {
+        final int numberOfSegments = concurrencyLevel >= 1 << 16 ? 1 << 16 : concurrencyLevel <= 1 ? 1 : Integer.highestOneBit(concurrencyLevel - 1) << 1;
+        this.segments = new Segment[numberOfSegments];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(numberOfSegments);
+        final int capacity = tableSizeFor((initialCapacity / numberOfSegments + 1) * 2);
+        for (int i = 0; i < numberOfSegments; i++) { segments[i] = new Segment(capacity); }
+    }
+    
+}
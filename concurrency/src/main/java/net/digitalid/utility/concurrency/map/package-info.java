@@ -14,6 +14,6 @@
  * limitations under the License.
  */
 /**
- * Provides subclasses of the default concurrent maps.
+ * Provides subclasses of the default concurrent maps and concurrent maps with primitive keys.
  */
 package net.digitalid.utility.concurrency.map;
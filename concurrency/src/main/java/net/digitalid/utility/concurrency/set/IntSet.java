@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.set;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.concurrency.lock.NonReentrantLock;
+import net.digitalid.utility.concurrency.lock.NonReentrantLockBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.generation.Default;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Functional;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This class implements a concurrent set of {@code int} values without boxing the elements or allocating a node per element.
+ * <p>
+ * The elements are stored in open-addressing tables with linear probing, which are split into segments that are locked independently by writers.
+ * Readers never lock and never wait: they probe the current table of a segment, in which an element is never moved once it has been published.
+ * Removed elements leave a marker behind, which is only discarded when the table of the segment is rebuilt.
+ */
+@Mutable
+@ThreadSafe
+@GenerateBuilder
+@GenerateSubclass
+public abstract class IntSet {
+    
+    /* -------------------------------------------------- Tables -------------------------------------------------- */
+    
+    private static final int EMPTY = 0;
+    
+    private static final int PRESENT = 1;
+    
+    private static final int REMOVED = 2;
+    
+    private static final int MINIMUM_CAPACITY = 8;
+    
+    /**
+     * A table stores the elements of a segment together with the state of each slot.
+     * An element is always written before its state is published with a volatile write so that readers which see the state also see the element.
+     */
+    private static final class Table {
+        
+        private final @Nonnull int[] elements;
+        
+        private final @Nonnull AtomicIntegerArray states;
+        
+        private Table(int capacity) {
+            this.elements = new int[capacity];
+            this.states = new AtomicIntegerArray(capacity);
+        }
+        
+    }
+    
+    /**
+     * A segment guards its table with a lock that is only acquired by writers.
+     */
+    private static final class Segment {
+        
+        private final @Nonnull NonReentrantLock lock = NonReentrantLockBuilder.build();
+        
+        private volatile @Nonnull Table table;
+        
+        /**
+         * Stores the number of elements in the table, which is only written while holding the lock.
+         */
+        private volatile int size = 0;
+        
+        /**
+         * Stores the number of slots that are occupied by elements or removal markers, which is only accessed while holding the lock.
+         */
+        private int used = 0;
+        
+        private Segment(int capacity) {
+            this.table = new Table(capacity);
+        }
+        
+    }
+    
+    /**
+     * Returns the smallest power of two that is at least the given capacity and the minimum capacity.
+     */
+    @Pure
+    private static int tableSizeFor(int capacity) {
+        return capacity <= MINIMUM_CAPACITY ? MINIMUM_CAPACITY : Integer.highestOneBit(capacity - 1) << 1;
+    }
+    
+    /**
+     * Returns a well-distributed hash of the given element.
+     */
+    @Pure
+    private static int hash(int element) {
+        final int hash = element * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+    
+    /* -------------------------------------------------- Segments -------------------------------------------------- */
+    
+    private final @Nonnull Segment[] segments;
+    
+    private final int segmentShift;
+    
+    /**
+     * Returns the segment for the given hash, which is determined by its highest bits.
+     */
+    @Pure
+    private @Nonnull Segment segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & (segments.length - 1)];
+    }
+    
+    /**
+     * Rebuilds the table of the given segment without removal markers so that it is at most a quarter full after inserting another element.
+     * The segment has to be locked by the current thread.
+     */
+    @Impure
+    private static void rebuild(@Nonnull Segment segment) {
+        final @Nonnull Table oldTable = segment.table;
+        final @Nonnull Table newTable = new Table(tableSizeFor((segment.size + 1) * 4));
+        final int mask = newTable.elements.length - 1;
+        for (int i = 0; i < oldTable.elements.length; i++) {
+            if (oldTable.states.get(i) == PRESENT) {
+                final int element = oldTable.elements[i];
+                int index = hash(element) & mask;
+                while (newTable.states.get(index) != EMPTY) { index = (index + 1) & mask; }
+                newTable.elements[index] = element;
+                newTable.states.lazySet(index, PRESENT);
+            }
+        }
+        segment.used = segment.size;
+        segment.table = newTable;
+    }
+    
+    /* -------------------------------------------------- Queries -------------------------------------------------- */
+    
+    /**
+     * Returns whether this set contains the given element.
+     */
+    @Pure
+    public boolean contains(int element) {
+        final int hash = hash(element);
+        final @Nonnull Table table = segmentFor(hash).table;
+        final int mask = table.elements.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final int state = table.states.get(i);
+            if (state == EMPTY) { return false; }
+            if (table.elements[i] == element) { return state == PRESENT; }
+        }
+    }
+    
+    /**
+     * Returns the number of elements in this set.
+     */
+    @Pure
+    public @NonNegative int size() {
+        int size = 0;
+        for (@Nonnull Segment segment : segments) { size += segment.size; }
+        return size;
+    }
+    
+    /**
+     * Returns whether this set contains no elements.
+     */
+    @Pure
+    public boolean isEmpty() {
+        for (@Nonnull Segment segment : segments) {
+            if (segment.size > 0) { return false; }
+        }
+        return true;
+    }
+    
+    /* -------------------------------------------------- Modifications -------------------------------------------------- */
+    
+    /**
+     * Adds the given element to this set.
+     * 
+     * @return whether the given element was not yet contained in this set.
+     */
+    @Impure
+    public boolean add(int element) {
+        final int hash = hash(element);
+        final @Nonnull Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            if (segment.used + 1 > segment.table.elements.length >>> 1) { rebuild(segment); }
+            final @Nonnull Table table = segment.table;
+            final int mask = table.elements.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                final int state = table.states.get(i);
+                if (state == EMPTY) {
+                    table.elements[i] = element;
+                    table.states.set(i, PRESENT);
+                    segment.used++;
+                    segment.size++;
+                    return true;
+                } else if (table.elements[i] == element) {
+                    if (state == PRESENT) { return false; }
+                    table.states.set(i, PRESENT);
+                    segment.size++;
+                    return true;
+                }
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+    
+    /**
+     * Removes the given element from this set.
+     * 
+     * @return whether the given element was contained in this set.
+     */
+    @Impure
+    public boolean remove(int element) {
+        final int hash = hash(element);
+        final @Nonnull Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            final @Nonnull Table table = segment.table;
+            final int mask = table.elements.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                final int state = table.states.get(i);
+                if (state == EMPTY) { return false; }
+                if (table.elements[i] == element) {
+                    if (state != PRESENT) { return false; }
+                    table.states.set(i, REMOVED);
+                    segment.size--;
+                    return true;
+                }
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+    
+    /**
+     * Removes all elements from this set.
+     */
+    @Impure
+    public void clear() {
+        for (@Nonnull Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.table = new Table(MINIMUM_CAPACITY);
+                segment.size = 0;
+                segment.used = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+    
+    /* -------------------------------------------------- Iteration -------------------------------------------------- */
+    
+    /**
+     * An element consumer is called with each element.
+     */
+    @Functional
+    public static interface ElementConsumer {
+        
+        /**
+         * Consumes the given element.
+         */
+        @Impure
+        public void consume(int element);
+        
+    }
+    
+    /**
+     * Calls the given consumer with each element of this set.
+     * The iteration is weakly consistent: it reflects some but not necessarily all modifications that happen concurrently.
+     */
+    @Pure
+    public void forEach(@Nonnull ElementConsumer consumer) {
+        for (@Nonnull Segment segment : segments) {
+            final @Nonnull Table table = segment.table;
+            for (int i = 0; i < table.elements.length; i++) {
+                if (table.states.get(i) == PRESENT) { consumer.consume(table.elements[i]); }
+            }
+        }
+    }
+    
+    /**
+     * Returns the elements of this set in an array.
+     */
+    @Pure
+    public @Capturable @Nonnull int[] toArray() {
+        final @Nonnull int[][] array = { new int[size()] };
+        final @Nonnull int[] index = { 0 };
+        forEach(element -> {
+            if (index[0] == array[0].length) { array[0] = Arrays.copyOf(array[0], index[0] * 2 + 1); }
+            array[0][index[0]++] = element;
+        });
+        return index[0] == array[0].length ? array[0] : Arrays.copyOf(array[0], index[0]);
+    }
+    
+    /* -------------------------------------------------- Object -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (object == this) { return true; }
+        if (!(object instanceof IntSet)) { return false; }
+        final @Nonnull IntSet that = (IntSet) object;
+        if (that.size() != size()) { return false; }
+        final @Nonnull boolean[] equal = { true };
+        forEach(element -> { if (equal[0] && !that.contains(element)) { equal[0] = false; } });
+        return equal[0];
+    }
+    
+    @Pure
+    @Override
+    public int hashCode() {
+        final @Nonnull int[] hashCode = { 0 };
+        forEach(element -> hashCode[0] += element);
+        return hashCode[0];
+    }
+    
+    @Pure
+    @Override
+    public @Nonnull String toString() {
+        return Arrays.toString(toArray());
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected IntSet(@NonNegative @Default("16") int initialCapacity, @Positive @Default("16") int concurrencyLevel) {
+        final int numberOfSegments = concurrencyLevel >= 1 << 16 ? 1 << 16 : concurrencyLevel <= 1 ? 1 : Integer.highestOneBit(concurrencyLevel - 1) << 1;
+        this.segments = new Segment[numberOfSegments];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(numberOfSegments);
+        final int capacity = tableSizeFor((initialCapacity / numberOfSegments + 1) * 2);
+        for (int i = 0; i < numberOfSegments; i++) { segments[i] = new Segment(capacity); }
+    }
+    
+}
@@ -14,6 +14,6 @@
  * limitations under the License.
  */
 /**
- * Provides a concurrent set interface and implementation.
+ * Provides a concurrent set interface and implementation as well as concurrent sets of primitive values.
  */
 package net.digitalid.utility.concurrency.set;
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.time.Time;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrentCacheTest {
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    /**
+     * This ticker only advances when the test advances it.
+     */
+    private static class ManualTicker implements Ticker {
+        
+        private final @Nonnull AtomicLong time = new AtomicLong(0);
+        
+        @Override
+        public long read() {
+            return time.get();
+        }
+        
+        public void advance(long duration, @Nonnull TimeUnit unit) {
+            time.addAndGet(unit.toNanos(duration));
+        }
+        
+    }
+    
+    private final @Nonnull ManualTicker ticker = new ManualTicker();
+    
+    /* -------------------------------------------------- Eviction -------------------------------------------------- */
+    
+    @Test
+    public void testEvictionOrder() {
+        final @Nonnull ConcurrentCache<Integer, String> cache = ConcurrentCacheBuilder.<Integer, String>withMaximumWeight(5).build();
+        for (int key = 0; key < 5; key++) { cache.put(key, "value" + key); }
+        // The accessed entries are promoted to the protected segment when the next write replays the buffered accesses.
+        assertEquals("value0", cache.getIfPresent(0));
+        assertEquals("value1", cache.getIfPresent(1));
+        cache.put(5, "value5");
+        cache.put(6, "value6");
+        
+        assertEquals(5, cache.getEstimatedSize());
+        assertEquals(2, cache.getStatistics().getEvictions());
+        assertNull(cache.getIfPresent(2));
+        assertNull(cache.getIfPresent(3));
+        for (int key : new int[] {0, 1, 4, 5, 6}) { assertEquals("value" + key, cache.getIfPresent(key)); }
+    }
+    
+    @Test
+    public void testWeightLimit() {
+        final @Nonnull ConcurrentCache<String, String> cache = ConcurrentCacheBuilder.<String, String>withMaximumWeight(10).withWeigher((key, value) -> value.length()).build();
+        cache.put("a", "12345");
+        cache.put("b", "1234");
+        assertEquals(9, cache.getWeightedSize());
+        cache.put("c", "123");
+        
+        assertEquals(7, cache.getWeightedSize());
+        assertEquals(1, cache.getStatistics().getEvictions());
+        assertEquals(5, cache.getStatistics().getEvictionWeight());
+        assertNull(cache.getIfPresent("a"));
+        
+        cache.put("b", "1");
+        assertEquals(4, cache.getWeightedSize());
+        cache.remove("c");
+        assertEquals(1, cache.getWeightedSize());
+        cache.clear();
+        assertEquals(0, cache.getWeightedSize());
+    }
+    
+    /* -------------------------------------------------- Expiration -------------------------------------------------- */
+    
+    @Test
+    public void testExpireAfterWrite() {
+        final @Nonnull ConcurrentCache<String, String> cache = ConcurrentCacheBuilder.<String, String>withExpireAfterWrite(Time.SECOND).withTicker(ticker).build();
+        cache.put("key", "value");
+        ticker.advance(500, TimeUnit.MILLISECONDS);
+        assertEquals("value", cache.getIfPresent("key"));
+        ticker.advance(499, TimeUnit.MILLISECONDS);
+        assertEquals("value", cache.getIfPresent("key"));
+        // Accessing the entry does not extend the time after which it expires.
+        ticker.advance(1, TimeUnit.MILLISECONDS);
+        assertNull(cache.getIfPresent("key"));
+        assertEquals(1, cache.getStatistics().getExpirations());
+        assertEquals(0, cache.getEstimatedSize());
+    }
+    
+    @Test
+    public void testExpireAfterAccess() {
+        final @Nonnull ConcurrentCache<String, String> cache = ConcurrentCacheBuilder.<String, String>withExpireAfterAccess(Time.SECOND).withTicker(ticker).build();
+        cache.put("key", "value");
+        cache.put("other", "value");
+        for (int i = 0; i < 3; i++) {
+            ticker.advance(800, TimeUnit.MILLISECONDS);
+            assertEquals("value", cache.getIfPresent("key"));
+        }
+        cache.cleanUp();
+        assertEquals(1, cache.getEstimatedSize());
+        assertEquals(1, cache.getStatistics().getExpirations());
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertNull(cache.getIfPresent("key"));
+        assertEquals(2, cache.getStatistics().getExpirations());
+    }
+    
+    @Test
+    public void testExpiredEntryIsReloaded() {
+        final @Nonnull ConcurrentCache<String, String> cache = ConcurrentCacheBuilder.<String, String>withExpireAfterWrite(Time.SECOND).withTicker(ticker).build();
+        final @Nonnull AtomicInteger loads = new AtomicInteger();
+        assertEquals("value1", cache.get("key", key -> "value" + loads.incrementAndGet()));
+        assertEquals("value1", cache.get("key", key -> "value" + loads.incrementAndGet()));
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertEquals("value2", cache.get("key", key -> "value" + loads.incrementAndGet()));
+        assertEquals(1, cache.getStatistics().getHits());
+        assertEquals(2, cache.getStatistics().getMisses());
+        assertEquals(1, cache.getStatistics().getExpirations());
+    }
+    
+    /* -------------------------------------------------- Loading -------------------------------------------------- */
+    
+    @Test(timeout = 10_000)
+    public void testConcurrentMissesLoadOnce() throws InterruptedException {
+        final @Nonnull ConcurrentCache<String, String> cache = ConcurrentCacheBuilder.<String, String>withMaximumWeight(100).build();
+        final @Nonnull AtomicInteger loads = new AtomicInteger();
+        final @Nonnull CountDownLatch loading = new CountDownLatch(1);
+        final @Nonnull CountDownLatch release = new CountDownLatch(1);
+        final @Nonnull AtomicReference<String> failure = new AtomicReference<>();
+        final @Nonnull List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                final @Nonnull String value = cache.get("key", key -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (@Nonnull InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "value";
+                });
+                if (!value.equals("value")) { failure.set(value); }
+            }));
+        }
+        for (@Nonnull Thread thread : threads) { thread.start(); }
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // Give the other threads time to reach the pending load before it completes.
+        Thread.sleep(100);
+        release.countDown();
+        for (@Nonnull Thread thread : threads) { thread.join(); }
+        
+        assertNull(failure.get());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStatistics().getLoadSuccesses());
+        assertEquals(1, cache.getStatistics().getMisses());
+        assertEquals(7, cache.getStatistics().getHits());
+    }
+    
+    @Test
+    public void testLoadFailuresAreRecorded() {
+        final @Nonnull ConcurrentCache<String, String> cache = ConcurrentCacheBuilder.<String, String>withTicker(ticker).build();
+        try {
+            cache.get("key", key -> {
+                ticker.advance(3, TimeUnit.MILLISECONDS);
+                throw new IllegalStateException("The loading failed.");
+            });
+            fail("The exception of the loader should have been propagated.");
+        } catch (@Nonnull IllegalStateException exception) {
+            assertEquals("The loading failed.", exception.getMessage());
+        }
+        try {
+            cache.get("key", key -> {
+                ticker.advance(3, TimeUnit.MILLISECONDS);
+                return null;
+            });
+            fail("A loader which returns null should have been rejected.");
+        } catch (@Nonnull RuntimeException exception) {
+            // The precondition of the loader was violated.
+        }
+        assertEquals(2, cache.getStatistics().getLoadFailures());
+        assertEquals(0, cache.getStatistics().getLoadSuccesses());
+        assertEquals(0, cache.getEstimatedSize());
+        
+        assertEquals("value", cache.get("key", key -> {
+            ticker.advance(3, TimeUnit.MILLISECONDS);
+            return "value";
+        }));
+        assertEquals(1, cache.getStatistics().getLoadSuccesses());
+        // The time of failed loads is included in the average load time.
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3), cache.getStatistics().getAverageLoadTime());
+    }
+    
+}
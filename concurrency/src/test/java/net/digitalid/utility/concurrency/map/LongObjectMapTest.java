@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.map;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongObjectMapTest {
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    private static @Nonnull String valueOf(long key) {
+        return "value" + key;
+    }
+    
+    private static @Nonnull LongObjectMap<String> newMap() {
+        return LongObjectMapBuilder.<String>withInitialCapacity(0).withConcurrencyLevel(1).build();
+    }
+    
+    /* -------------------------------------------------- Single Thread -------------------------------------------------- */
+    
+    @Test
+    public void testPutGetRemove() {
+        final @Nonnull LongObjectMap<String> map = newMap();
+        assertTrue(map.isEmpty());
+        for (long key : new long[] {0, -1, 1L << 32, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            assertNull(map.get(key));
+            assertNull(map.put(key, valueOf(key)));
+            assertEquals(valueOf(key), map.get(key));
+            assertEquals(valueOf(key), map.put(key, "other"));
+            assertEquals("other", map.putIfAbsent(key, valueOf(key)));
+            assertFalse(map.remove(key, valueOf(key)));
+            assertTrue(map.remove(key, "other"));
+            assertNull(map.remove(key));
+            assertFalse(map.containsKey(key));
+        }
+        assertTrue(map.isEmpty());
+    }
+    
+    @Test
+    public void testCollidingKeysRemainReachableAfterRemovals() {
+        // With a load factor of at most one half, a thousand keys collide in many slots and form long probing sequences.
+        final @Nonnull LongObjectMap<String> map = newMap();
+        for (long key = 0; key < 1_000; key++) { map.put(key * 31, valueOf(key * 31)); }
+        for (long key = 0; key < 1_000; key += 2) { assertEquals(valueOf(key * 31), map.remove(key * 31)); }
+        assertEquals(500, map.size());
+        for (long key = 0; key < 1_000; key++) {
+            if (key % 2 == 0) { assertNull(map.get(key * 31)); }
+            else { assertEquals(valueOf(key * 31), map.get(key * 31)); }
+        }
+    }
+    
+    @Test
+    public void testRemovedSlotsAreReused() {
+        final @Nonnull LongObjectMap<String> map = newMap();
+        for (int round = 0; round < 10_000; round++) {
+            final long key = round % 3;
+            assertNull(map.put(key, valueOf(round)));
+            assertEquals(valueOf(round), map.get(key));
+            assertEquals(valueOf(round), map.remove(key));
+        }
+        assertTrue(map.isEmpty());
+        map.put(7, valueOf(7));
+        assertEquals(1, map.size());
+        assertEquals(valueOf(7), map.get(7));
+    }
+    
+    @Test
+    public void testGrowthUnderLoad() {
+        final @Nonnull LongObjectMap<String> map = LongObjectMapBuilder.<String>withInitialCapacity(0).withConcurrencyLevel(4).build();
+        for (long key = -50_000; key < 50_000; key++) { map.put(key, valueOf(key)); }
+        assertEquals(100_000, map.size());
+        for (long key = -50_000; key < 50_000; key++) { assertEquals(valueOf(key), map.get(key)); }
+        final @Nonnull long[] count = new long[1];
+        map.forEach((key, value) -> {
+            assertEquals(valueOf(key), value);
+            count[0]++;
+        });
+        assertEquals(100_000, count[0]);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+    }
+    
+    /* -------------------------------------------------- Multiple Threads -------------------------------------------------- */
+    
+    private static final int NUMBER_OF_KEYS = 2_000;
+    
+    private static final int NUMBER_OF_WRITERS = 2;
+    
+    /**
+     * Returns whether the given key is never removed during the stress test.
+     */
+    private static boolean isPermanent(long key) {
+        return key % (NUMBER_OF_WRITERS + 1) == NUMBER_OF_WRITERS;
+    }
+    
+    @Test(timeout = 60_000)
+    public void testConcurrentReadsSeeOnlyPublishedValues() throws InterruptedException {
+        final @Nonnull LongObjectMap<String> map = LongObjectMapBuilder.<String>withInitialCapacity(0).withConcurrencyLevel(2).build();
+        int permanentKeys = 0;
+        for (long key = 0; key < NUMBER_OF_KEYS; key++) {
+            if (isPermanent(key)) {
+                map.put(key, valueOf(key));
+                permanentKeys++;
+            }
+        }
+        
+        final @Nonnull AtomicBoolean running = new AtomicBoolean(true);
+        final @Nonnull AtomicReference<String> failure = new AtomicReference<>();
+        final @Nonnull List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            readers.add(new Thread(() -> {
+                while (running.get() && failure.get() == null) {
+                    for (long key = 0; key < NUMBER_OF_KEYS; key++) {
+                        final @Nullable Object value = map.get(key);
+                        if (isPermanent(key) ? !valueOf(key).equals(value) : value != null && !valueOf(key).equals(value)) {
+                            failure.compareAndSet(null, "The key " + key + " was mapped to " + value + ".");
+                        }
+                    }
+                }
+            }));
+        }
+        final @Nonnull List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_WRITERS; i++) {
+            final int writer = i;
+            writers.add(new Thread(() -> {
+                for (int round = 0; round < 50; round++) {
+                    for (long key = writer; key < NUMBER_OF_KEYS; key += NUMBER_OF_WRITERS + 1) { map.put(key, valueOf(key)); }
+                    for (long key = writer; key < NUMBER_OF_KEYS; key += NUMBER_OF_WRITERS + 1) { map.remove(key); }
+                }
+            }));
+        }
+        
+        for (@Nonnull Thread thread : readers) { thread.start(); }
+        for (@Nonnull Thread thread : writers) { thread.start(); }
+        for (@Nonnull Thread thread : writers) { thread.join(); }
+        running.set(false);
+        for (@Nonnull Thread thread : readers) { thread.join(); }
+        
+        assertNull(failure.get());
+        for (long key = 0; key < NUMBER_OF_KEYS; key++) {
+            if (isPermanent(key)) { assertEquals(valueOf(key), map.get(key)); }
+            else { assertNull(map.get(key)); }
+        }
+        assertEquals(permanentKeys, map.size());
+    }
+    
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.concurrency.set;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongSetTest {
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    private static @Nonnull LongSet newSet() {
+        return LongSetBuilder.withInitialCapacity(0).withConcurrencyLevel(1).build();
+    }
+    
+    /* -------------------------------------------------- Single Thread -------------------------------------------------- */
+    
+    @Test
+    public void testAddContainsRemove() {
+        final @Nonnull LongSet set = newSet();
+        assertTrue(set.isEmpty());
+        for (long element : new long[] {0, -1, 1L << 32, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            assertFalse(set.contains(element));
+            assertTrue(set.add(element));
+            assertFalse(set.add(element));
+            assertTrue(set.contains(element));
+            assertTrue(set.remove(element));
+            assertFalse(set.remove(element));
+            assertFalse(set.contains(element));
+        }
+        assertTrue(set.isEmpty());
+    }
+    
+    @Test
+    public void testCollidingElementsRemainReachableAfterRemovals() {
+        // With a load factor of at most one half, a thousand elements collide in many slots and form long probing sequences.
+        final @Nonnull LongSet set = newSet();
+        for (long element = 0; element < 1_000; element++) { set.add(element * 31); }
+        for (long element = 0; element < 1_000; element += 2) { assertTrue(set.remove(element * 31)); }
+        assertEquals(500, set.size());
+        for (long element = 0; element < 1_000; element++) { assertEquals(element % 2 == 1, set.contains(element * 31)); }
+    }
+    
+    @Test
+    public void testRemovedSlotsAreReused() {
+        final @Nonnull LongSet set = newSet();
+        for (int round = 0; round < 10_000; round++) {
+            final long element = round % 3;
+            assertTrue(set.add(element));
+            assertTrue(set.contains(element));
+            assertTrue(set.remove(element));
+        }
+        assertTrue(set.isEmpty());
+        set.add(7);
+        assertArrayEquals(new long[] {7}, set.toArray());
+    }
+    
+    @Test
+    public void testGrowthUnderLoad() {
+        final @Nonnull LongSet set = LongSetBuilder.withInitialCapacity(0).withConcurrencyLevel(4).build();
+        for (long element = -50_000; element < 50_000; element++) { set.add(element); }
+        assertEquals(100_000, set.size());
+        for (long element = -50_000; element < 50_000; element++) { assertTrue(set.contains(element)); }
+        final @Nonnull long[] elements = set.toArray();
+        Arrays.sort(elements);
+        assertEquals(100_000, elements.length);
+        for (int i = 0; i < elements.length; i++) { assertEquals(i - 50_000, elements[i]); }
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+    }
+    
+    /* -------------------------------------------------- Multiple Threads -------------------------------------------------- */
+    
+    private static final int NUMBER_OF_ELEMENTS = 2_000;
+    
+    private static final int NUMBER_OF_WRITERS = 2;
+    
+    /**
+     * Returns whether the given element is never removed during the stress test.
+     */
+    private static boolean isPermanent(long element) {
+        return element % (NUMBER_OF_WRITERS + 1) == NUMBER_OF_WRITERS;
+    }
+    
+    @Test(timeout = 60_000)
+    public void testConcurrentReadsSeeOnlyPublishedElements() throws InterruptedException {
+        final @Nonnull LongSet set = LongSetBuilder.withInitialCapacity(0).withConcurrencyLevel(2).build();
+        int permanentElements = 0;
+        for (long element = 0; element < NUMBER_OF_ELEMENTS; element++) {
+            if (isPermanent(element)) {
+                set.add(element);
+                permanentElements++;
+            }
+        }
+        
+        final @Nonnull AtomicBoolean running = new AtomicBoolean(true);
+        final @Nonnull AtomicReference<String> failure = new AtomicReference<>();
+        final @Nonnull List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            readers.add(new Thread(() -> {
+                while (running.get() && failure.get() == null) {
+                    for (long element = 0; element < NUMBER_OF_ELEMENTS; element++) {
+                        if (isPermanent(element) && !set.contains(element)) { failure.compareAndSet(null, "The element " + element + " was missing."); }
+                    }
+                    // Elements that are never added must never be found, not even while the tables are rebuilt.
+                    for (long element = NUMBER_OF_ELEMENTS; element < 2 * NUMBER_OF_ELEMENTS; element++) {
+                        if (set.contains(element)) { failure.compareAndSet(null, "The element " + element + " was found."); }
+                    }
+                }
+            }));
+        }
+        final @Nonnull List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_WRITERS; i++) {
+            final int writer = i;
+            writers.add(new Thread(() -> {
+                for (int round = 0; round < 50; round++) {
+                    for (long element = writer; element < NUMBER_OF_ELEMENTS; element += NUMBER_OF_WRITERS + 1) { set.add(element); }
+                    for (long element = writer; element < NUMBER_OF_ELEMENTS; element += NUMBER_OF_WRITERS + 1) { set.remove(element); }
+                }
+            }));
+        }
+        
+        for (@Nonnull Thread thread : readers) { thread.start(); }
+        for (@Nonnull Thread thread : writers) { thread.start(); }
+        for (@Nonnull Thread thread : writers) { thread.join(); }
+        running.set(false);
+        for (@Nonnull Thread thread : readers) { thread.join(); }
+        
+        assertNull(failure.get());
+        for (long element = 0; element < NUMBER_OF_ELEMENTS; element++) { assertEquals(isPermanent(element), set.contains(element)); }
+        assertEquals(permanentElements, set.size());
+    }
+    
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.buffer;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * A buffer codec encodes objects directly into and decodes them directly from a {@link ByteBuffer byte buffer}.
+ * Unlike a {@link Converter converter}, which passes every value through an encoder or decoder, a buffer codec is specific to a single binary format.
+ * The converter generator implements this interface for types whose converter is generated with {@code @GenerateConverter(generateBufferCodec = true)}.
+ * 
+ * @see BufferCoding
+ */
+@Immutable
+public interface BufferCodec<@Unspecifiable TYPE> {
+    
+    /* -------------------------------------------------- Size -------------------------------------------------- */
+    
+    /**
+     * Returns the number of bytes that are needed to encode the given object.
+     */
+    @Pure
+    public @NonNegative int getEncodedSize(@NonCaptured @Unmodified @Nonnull TYPE object);
+    
+    /* -------------------------------------------------- Encoding -------------------------------------------------- */
+    
+    /**
+     * Encodes the given object into the given buffer at its current position.
+     * 
+     * @throws BufferOverflowException if the remaining bytes of the buffer do not suffice, in which case nothing is written.
+     */
+    @Pure
+    public void encode(@NonCaptured @Unmodified @Nonnull TYPE object, @NonCaptured @Modified @Nonnull ByteBuffer buffer);
+    
+    /* -------------------------------------------------- Decoding -------------------------------------------------- */
+    
+    /**
+     * Decodes an object from the given buffer at its current position.
+     */
+    @Pure
+    public @Capturable @Nonnull TYPE decode(@NonCaptured @Modified @Nonnull ByteBuffer buffer) throws RecoveryException;
+    
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.buffer;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.recovery.Check;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * This utility class provides the operations on byte buffers that generated {@link BufferCodec buffer codecs} need beyond the methods of {@link ByteBuffer}.
+ * Byte arrays and strings are encoded with a length prefix of four bytes, and strings are encoded in UTF-8.
+ */
+@Utility
+public abstract class BufferCoding {
+    
+    /* -------------------------------------------------- Bounds -------------------------------------------------- */
+    
+    /**
+     * Ensures that the given buffer has at least the given number of remaining bytes so that the subsequent writes need not be checked individually.
+     * 
+     * @throws BufferOverflowException if this is not the case.
+     */
+    @Pure
+    public static void requireRemaining(@NonCaptured @Unmodified @Nonnull ByteBuffer buffer, @NonNegative int size) {
+        if (buffer.remaining() < size) { throw new BufferOverflowException(); }
+    }
+    
+    /* -------------------------------------------------- Sizes -------------------------------------------------- */
+    
+    /**
+     * Returns the number of bytes that the UTF-8 encoding of the given string takes.
+     * Unpaired surrogates count as one byte because they are replaced with a question mark.
+     */
+    @Pure
+    public static @NonNegative int getUTF8Length(@Nonnull CharSequence string) {
+        final int length = string.length();
+        int result = length;
+        for (int i = 0; i < length; i++) {
+            final char c = string.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    result += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                    result += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    result += 2;
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the number of bytes that the encoding of the given string takes including its length prefix.
+     */
+    @Pure
+    public static @NonNegative int getEncodedSize(@Nonnull String string) {
+        return 4 + getUTF8Length(string);
+    }
+    
+    /**
+     * Returns the number of bytes that the encoding of the given byte array takes including its length prefix.
+     */
+    @Pure
+    public static @NonNegative int getEncodedSize(@Nonnull byte[] bytes) {
+        return 4 + bytes.length;
+    }
+    
+    /* -------------------------------------------------- Encoding -------------------------------------------------- */
+    
+    /**
+     * Writes the given byte array with its length prefix into the given buffer.
+     */
+    @Impure
+    public static void putBytes(@NonCaptured @Unmodified @Nonnull byte[] bytes, @NonCaptured @Modified @Nonnull ByteBuffer buffer) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+    
+    /**
+     * Writes the given string in UTF-8 with its length prefix into the given buffer.
+     */
+    @Impure
+    public static void putString(@Nonnull String string, @NonCaptured @Modified @Nonnull ByteBuffer buffer) {
+        putBytes(string.getBytes(StandardCharsets.UTF_8), buffer);
+    }
+    
+    /* -------------------------------------------------- Decoding -------------------------------------------------- */
+    
+    /**
+     * Reads a byte array with its length prefix from the given buffer.
+     */
+    @Impure
+    public static @Capturable @Nonnull byte[] getBytes(@NonCaptured @Modified @Nonnull ByteBuffer buffer) throws RecoveryException {
+        final int length = buffer.getInt();
+        Check.that(length >= 0 && length <= buffer.remaining()).orThrow("The length $ of the encoded bytes has to be between 0 and the $ remaining bytes.", length, buffer.remaining());
+        final @Nonnull byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+    
+    /**
+     * Reads a string in UTF-8 with its length prefix from the given buffer.
+     */
+    @Impure
+    public static @Nonnull String getString(@NonCaptured @Modified @Nonnull ByteBuffer buffer) throws RecoveryException {
+        final int length = buffer.getInt();
+        Check.that(length >= 0 && length <= buffer.remaining()).orThrow("The length $ of the encoded string has to be between 0 and the $ remaining bytes.", length, buffer.remaining());
+        final @Nonnull String string;
+        if (buffer.hasArray()) {
+            string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            final @Nonnull byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return string;
+    }
+    
+}
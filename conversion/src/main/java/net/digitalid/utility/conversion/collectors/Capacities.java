@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.collectors;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * This utility class computes the initial capacities with which decoded collections are created when their size is known in advance.
+ */
+@Utility
+public abstract class Capacities {
+    
+    /**
+     * Returns the initial capacity with which a hash-based collection with the default load factor of 0.75 can hold the given number of elements without rehashing.
+     */
+    @Pure
+    public static @Positive int forHashing(@NonNegative int size) {
+        return size < 3 ? size + 1 : (int) Math.min((long) (size / 0.75f) + 1, Integer.MAX_VALUE);
+    }
+    
+}
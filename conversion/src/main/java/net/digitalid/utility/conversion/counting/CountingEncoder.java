@@ -0,0 +1,435 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.counting;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.conversion.buffer.BufferCoding;
+import net.digitalid.utility.conversion.enumerations.Representation;
+import net.digitalid.utility.conversion.exceptions.ConnectionException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.conversion.interfaces.Encoder;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.method.Ensures;
+import net.digitalid.utility.validation.annotations.method.Requires;
+import net.digitalid.utility.validation.annotations.size.MaxSize;
+import net.digitalid.utility.validation.annotations.size.Size;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * The counting encoder computes the exact number of bytes that the encoded values take without encoding them, which allows binary encoders to allocate their buffer once and connections to write a length prefix before the message.
+ * The size is computed for the following binary layout, which matches the layout of the {@link net.digitalid.utility.conversion.buffer.BufferCodec buffer codecs}:
+ * booleans and bytes take one byte, shorts and characters two bytes, ints and floats four bytes, longs and doubles eight bytes,
+ * strings and byte arrays of variable length are prefixed with their length in four bytes and strings are encoded in UTF-8,
+ * big integers are encoded like their two's-complement byte array, nullable values are prefixed with a byte that indicates their presence,
+ * and iterables and maps are prefixed with their number of elements in four bytes.
+ * Encoders with a different layout can override the corresponding methods.
+ * <p>
+ * If a converter {@link Converter#estimateSize(Object) knows the size} of an object, the object is not traversed.
+ * Compressed values cannot be counted without compressing them, which is why the {@link #getSize() size} becomes unknown as soon as the encoder starts compressing.
+ */
+@Mutable
+public class CountingEncoder implements Encoder<ConnectionException> {
+    
+    /* -------------------------------------------------- Size -------------------------------------------------- */
+    
+    private long size = 0;
+    
+    /**
+     * Stores whether some of the values encoded so far were compressed.
+     */
+    private boolean unknown = false;
+    
+    /**
+     * Returns the number of bytes that the values encoded so far take or -1 if the size is unknown because some of the values were compressed.
+     */
+    @Pure
+    public long getSize() {
+        return unknown ? -1 : size;
+    }
+    
+    /**
+     * Adds the given number of bytes to the size.
+     */
+    @Impure
+    protected void add(@NonNegative long bytes) {
+        size += bytes;
+    }
+    
+    /* -------------------------------------------------- Representation -------------------------------------------------- */
+    
+    private final @Nonnull Representation representation;
+    
+    @Pure
+    @Override
+    public @Nonnull Representation getRepresentation() {
+        return representation;
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected CountingEncoder(@Nonnull Representation representation) {
+        this.representation = representation;
+    }
+    
+    /**
+     * Returns a new counting encoder with the given representation.
+     */
+    @Pure
+    public static @Capturable @Nonnull CountingEncoder with(@Nonnull Representation representation) {
+        return new CountingEncoder(representation);
+    }
+    
+    /**
+     * Returns the number of bytes that the given object takes when it is encoded with the given converter in the given representation or -1 if the converter compresses some of its values.
+     */
+    @Pure
+    public static <@Unspecifiable TYPE> long getEncodedSize(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nonnull TYPE object, @Nonnull Representation representation) {
+        final @Nonnull CountingEncoder encoder = new CountingEncoder(representation);
+        try {
+            encoder.encodeObject(converter, object);
+        } catch (@Nonnull ConnectionException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+        return encoder.getSize();
+    }
+    
+    /* -------------------------------------------------- Objects -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeObject(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nonnull TYPE object) throws ConnectionException {
+        final long estimatedSize = converter.estimateSize(object);
+        if (estimatedSize >= 0) { add(estimatedSize); }
+        else { converter.convert(object, this); }
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeNullableObject(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nullable TYPE object) throws ConnectionException {
+        add(1);
+        if (object != null) { encodeObject(converter, object); }
+    }
+    
+    /* -------------------------------------------------- Values -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void encodeBoolean(boolean value) {
+        add(1);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger08(byte value) {
+        add(Byte.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger16(short value) {
+        add(Short.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger32(int value) {
+        add(Integer.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger64(long value) {
+        add(Long.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger(@Nonnull BigInteger value) {
+        add(Integer.BYTES + value.bitLength() / 8 + 1);
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal32(float value) {
+        add(Float.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal64(double value) {
+        add(Double.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeString01(char value) {
+        add(Character.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeString64(@Nonnull @MaxSize(64) String string) {
+        add(BufferCoding.getEncodedSize(string));
+    }
+    
+    @Impure
+    @Override
+    public void encodeString(@Nonnull String string) {
+        add(BufferCoding.getEncodedSize(string));
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary128(@Nonnull @Size(16) byte[] bytes) {
+        add(16);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary256(@Nonnull @Size(32) byte[] bytes) {
+        add(32);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary(@Nonnull byte[] bytes) {
+        add(BufferCoding.getEncodedSize(bytes));
+    }
+    
+    /**
+     * Counts the given length without reading from the given input stream.
+     */
+    @Impure
+    @Override
+    public void encodeBinaryStream(@Nonnull InputStream inputStream, int length) {
+        add(Integer.BYTES + length);
+    }
+    
+    /* -------------------------------------------------- Primitive Arrays -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void encodeBooleanArray(@NonCaptured @Unmodified @Nonnull boolean[] values) {
+        add(Integer.BYTES + Integer.BYTES + (values.length + 7) / 8);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger16Array(@NonCaptured @Unmodified @Nonnull short[] values) {
+        add(Integer.BYTES + (long) values.length * Short.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger32Array(@NonCaptured @Unmodified @Nonnull int[] values) {
+        add(Integer.BYTES + (long) values.length * Integer.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger64Array(@NonCaptured @Unmodified @Nonnull long[] values) {
+        add(Integer.BYTES + (long) values.length * Long.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal32Array(@NonCaptured @Unmodified @Nonnull float[] values) {
+        add(Integer.BYTES + (long) values.length * Float.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal64Array(@NonCaptured @Unmodified @Nonnull double[] values) {
+        add(Integer.BYTES + (long) values.length * Double.BYTES);
+    }
+    
+    /* -------------------------------------------------- Collections -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeOrderedIterable(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nonnull TYPE> iterable) throws ConnectionException {
+        add(Integer.BYTES);
+        for (@Nonnull TYPE element : iterable) { encodeObject(converter, element); }
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeOrderedIterableWithNullableElements(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nullable TYPE> iterable) throws ConnectionException {
+        add(Integer.BYTES);
+        for (@Nullable TYPE element : iterable) { encodeNullableObject(converter, element); }
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeUnorderedIterable(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nonnull TYPE> iterable) throws ConnectionException {
+        encodeOrderedIterable(converter, iterable);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeUnorderedIterableWithNullableElements(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nullable TYPE> iterable) throws ConnectionException {
+        encodeOrderedIterableWithNullableElements(converter, iterable);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable KEY, @Unspecifiable VALUE> void encodeMap(@Nonnull Converter<KEY, ?> keyConverter, @Nonnull Converter<VALUE, ?> valueConverter, @Nonnull Map<@Nonnull KEY, @Nonnull VALUE> map) throws ConnectionException {
+        add(Integer.BYTES);
+        for (Map.@Nonnull Entry<@Nonnull KEY, @Nonnull VALUE> entry : map.entrySet()) {
+            encodeObject(keyConverter, entry.getKey());
+            encodeObject(valueConverter, entry.getValue());
+        }
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable KEY, @Unspecifiable VALUE> void encodeMapWithNullableValues(@Nonnull Converter<KEY, ?> keyConverter, @Nonnull Converter<VALUE, ?> valueConverter, @Nonnull Map<@Nullable KEY, @Nullable VALUE> map) throws ConnectionException {
+        add(Integer.BYTES);
+        for (Map.@Nonnull Entry<@Nullable KEY, @Nullable VALUE> entry : map.entrySet()) {
+            encodeNullableObject(keyConverter, entry.getKey());
+            encodeNullableObject(valueConverter, entry.getValue());
+        }
+    }
+    
+    /* -------------------------------------------------- Hashing -------------------------------------------------- */
+    
+    private int digestLength = -1;
+    
+    @Pure
+    @Override
+    public boolean isHashing() {
+        return digestLength >= 0;
+    }
+    
+    /**
+     * Hashing does not change the size of the encoded values, which is why only the length of the digest is retained.
+     */
+    @Impure
+    @Override
+    @Ensures(condition = "isHashing()", message = "The encoder has to be hashing.")
+    public void startHashing(@Nonnull MessageDigest digest) {
+        this.digestLength = Math.max(digest.getDigestLength(), 0);
+    }
+    
+    /**
+     * Returns an array of zeros with the length of the digest so that encoding the hash afterwards is counted correctly.
+     */
+    @Impure
+    @Override
+    @Requires(condition = "isHashing()", message = "The encoder has to be hashing.")
+    public @Nonnull byte[] stopHashing() {
+        final @Nonnull byte[] hash = new byte[digestLength];
+        this.digestLength = -1;
+        return hash;
+    }
+    
+    /* -------------------------------------------------- Compressing -------------------------------------------------- */
+    
+    private boolean compressing = false;
+    
+    @Pure
+    @Override
+    public boolean isCompressing() {
+        return compressing;
+    }
+    
+    /**
+     * Marks the size as unknown, since the size of compressed values cannot be determined without compressing them.
+     * The given deflater is not used.
+     */
+    @Impure
+    @Override
+    @Ensures(condition = "isCompressing()", message = "The encoder has to be compressing.")
+    public void startCompressing(@Nonnull Deflater deflater) {
+        this.compressing = true;
+        this.unknown = true;
+    }
+    
+    /**
+     * Stops compressing, after which the size remains unknown.
+     */
+    @Impure
+    @Override
+    @Requires(condition = "isCompressing()", message = "The encoder has to be compressing.")
+    public void stopCompressing() {
+        Require.that(compressing).orThrow("The encoder has to be compressing.");
+        
+        this.compressing = false;
+    }
+    
+    /* -------------------------------------------------- Encrypting -------------------------------------------------- */
+    
+    private @Nullable Cipher cipher;
+    
+    private long sizeBeforeEncrypting;
+    
+    @Pure
+    @Override
+    public boolean isEncrypting() {
+        return cipher != null;
+    }
+    
+    /**
+     * Remembers the given cipher, which has to be initialized, in order to determine the size of the ciphertext when the encryption is stopped.
+     */
+    @Impure
+    @Override
+    @Ensures(condition = "isEncrypting()", message = "The encoder has to be encrypting.")
+    public void startEncrypting(@Nonnull Cipher cipher) {
+        this.cipher = cipher;
+        this.sizeBeforeEncrypting = size;
+    }
+    
+    /**
+     * Replaces the size of the plaintext with the size of the ciphertext as reported by the cipher.
+     */
+    @Impure
+    @Override
+    @Requires(condition = "isEncrypting()", message = "The encoder has to be encrypting.")
+    public void stopEncrypting() {
+        Require.that(cipher != null).orThrow("The encoder has to be encrypting.");
+        
+        final long plaintextSize = size - sizeBeforeEncrypting;
+        Require.that(unknown || plaintextSize <= Integer.MAX_VALUE).orThrow("The size of the encrypted values has to fit into an int but was $.", plaintextSize);
+        if (!unknown) { this.size = sizeBeforeEncrypting + cipher.getOutputSize((int) plaintextSize); }
+        this.cipher = null;
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void close() {}
+    
+}
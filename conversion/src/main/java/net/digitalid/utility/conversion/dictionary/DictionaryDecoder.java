@@ -0,0 +1,457 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.dictionary;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.conversion.enumerations.Representation;
+import net.digitalid.utility.conversion.exceptions.ConnectionException;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.conversion.interfaces.Decoder;
+import net.digitalid.utility.conversion.recovery.Check;
+import net.digitalid.utility.functional.failable.FailableCollector;
+import net.digitalid.utility.functional.interfaces.UnaryFunction;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.method.Ensures;
+import net.digitalid.utility.validation.annotations.method.Requires;
+import net.digitalid.utility.validation.annotations.size.MaxSize;
+import net.digitalid.utility.validation.annotations.size.Size;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A dictionary decoder wraps another decoder and decodes the values that were encoded by a {@link DictionaryEncoder dictionary encoder}.
+ * Strings that are referenced repeatedly are decoded only once, and all references to them return the same string instance.
+ * The capacity of the decoder has to match the capacity of the encoder.
+ * 
+ * @see DictionaryEncoder
+ */
+@Mutable
+public class DictionaryDecoder<@Unspecifiable EXCEPTION extends ConnectionException> implements Decoder<EXCEPTION> {
+    
+    /* -------------------------------------------------- Decoder -------------------------------------------------- */
+    
+    private final @Nonnull Decoder<EXCEPTION> decoder;
+    
+    /**
+     * Returns the wrapped decoder.
+     */
+    @Pure
+    public @Nonnull Decoder<EXCEPTION> getDecoder() {
+        return decoder;
+    }
+    
+    /* -------------------------------------------------- Dictionary -------------------------------------------------- */
+    
+    private final @Positive int capacity;
+    
+    /**
+     * Returns the number of strings that the dictionary can hold.
+     */
+    @Pure
+    public @Positive int getCapacity() {
+        return capacity;
+    }
+    
+    private final @Nonnull List<@Nonnull String> strings = new ArrayList<>();
+    
+    /**
+     * Returns the number of strings in the dictionary.
+     */
+    @Pure
+    public @NonNegative int getDictionarySize() {
+        return strings.size();
+    }
+    
+    /**
+     * Removes all strings from the dictionary.
+     * The dictionary of the corresponding encoder has to be cleared at the same position in the stream.
+     */
+    @Impure
+    public void clearDictionary() {
+        strings.clear();
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected DictionaryDecoder(@Captured @Nonnull Decoder<EXCEPTION> decoder, @Positive int capacity) {
+        Require.that(capacity > 0).orThrow("The capacity has to be positive but was $.", capacity);
+        
+        this.decoder = decoder;
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Returns a new dictionary decoder that wraps the given decoder and holds at most the given number of strings in its dictionary.
+     */
+    @Pure
+    public static <@Unspecifiable EXCEPTION extends ConnectionException> @Nonnull DictionaryDecoder<EXCEPTION> with(@Captured @Nonnull Decoder<EXCEPTION> decoder, @Positive int capacity) {
+        return new DictionaryDecoder<>(decoder, capacity);
+    }
+    
+    /**
+     * Returns a new dictionary decoder that wraps the given decoder and holds at most the {@link DictionaryEncoder#DEFAULT_CAPACITY default number} of strings in its dictionary.
+     */
+    @Pure
+    public static <@Unspecifiable EXCEPTION extends ConnectionException> @Nonnull DictionaryDecoder<EXCEPTION> with(@Captured @Nonnull Decoder<EXCEPTION> decoder) {
+        return new DictionaryDecoder<>(decoder, DictionaryEncoder.DEFAULT_CAPACITY);
+    }
+    
+    /* -------------------------------------------------- References -------------------------------------------------- */
+    
+    /**
+     * Decodes a reference that was encoded in as few bytes as the current size of the dictionary allows.
+     */
+    @Impure
+    protected @NonNegative int decodeReference() throws EXCEPTION, RecoveryException {
+        final int size = strings.size();
+        final int reference;
+        if (size < 1 << Byte.SIZE) { reference = Byte.toUnsignedInt(decoder.decodeInteger08()); }
+        else if (size < 1 << Short.SIZE) { reference = Short.toUnsignedInt(decoder.decodeInteger16()); }
+        else { reference = decoder.decodeInteger32(); }
+        Check.that(reference >= 0 && reference <= size).orThrow("The decoded reference $ does not denote one of the $ strings in the dictionary.", reference, size);
+        return reference;
+    }
+    
+    /**
+     * Returns the referenced string or adds the given literal string to the dictionary if the reference is zero.
+     */
+    @Impure
+    protected @Nonnull String resolve(@NonNegative int reference, @Nullable String literal) {
+        if (reference > 0) { return strings.get(reference - 1); }
+        Require.that(literal != null).orThrow("The literal may not be null if the reference is zero.");
+        if (strings.size() < capacity) { strings.add(literal); }
+        return literal;
+    }
+    
+    /* -------------------------------------------------- Representation -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull Representation getRepresentation() {
+        return decoder.getRepresentation();
+    }
+    
+    /* -------------------------------------------------- Objects -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE, @Specifiable PROVIDED> @Nonnull TYPE decodeObject(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided) throws EXCEPTION, RecoveryException {
+        return converter.recover(this, provided);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE, @Specifiable PROVIDED> @Nullable TYPE decodeNullableObject(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided) throws EXCEPTION, RecoveryException {
+        return decoder.decodeBoolean() ? converter.recover(this, provided) : null;
+    }
+    
+    /* -------------------------------------------------- Values -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public boolean decodeBoolean() throws EXCEPTION {
+        return decoder.decodeBoolean();
+    }
+    
+    @Impure
+    @Override
+    public byte decodeInteger08() throws EXCEPTION {
+        return decoder.decodeInteger08();
+    }
+    
+    @Impure
+    @Override
+    public short decodeInteger16() throws EXCEPTION {
+        return decoder.decodeInteger16();
+    }
+    
+    @Impure
+    @Override
+    public int decodeInteger32() throws EXCEPTION {
+        return decoder.decodeInteger32();
+    }
+    
+    @Impure
+    @Override
+    public long decodeInteger64() throws EXCEPTION {
+        return decoder.decodeInteger64();
+    }
+    
+    @Impure
+    @Override
+    public @Nonnull BigInteger decodeInteger() throws EXCEPTION {
+        return decoder.decodeInteger();
+    }
+    
+    @Impure
+    @Override
+    public float decodeDecimal32() throws EXCEPTION {
+        return decoder.decodeDecimal32();
+    }
+    
+    @Impure
+    @Override
+    public double decodeDecimal64() throws EXCEPTION {
+        return decoder.decodeDecimal64();
+    }
+    
+    @Impure
+    @Override
+    public char decodeString01() throws EXCEPTION {
+        return decoder.decodeString01();
+    }
+    
+    @Impure
+    @Override
+    public @Nonnull @MaxSize(64) String decodeString64() throws EXCEPTION, RecoveryException {
+        final int reference = decodeReference();
+        return resolve(reference, reference == 0 ? decoder.decodeString64() : null);
+    }
+    
+    @Impure
+    @Override
+    public @Nonnull String decodeString() throws EXCEPTION, RecoveryException {
+        final int reference = decodeReference();
+        return resolve(reference, reference == 0 ? decoder.decodeString() : null);
+    }
+    
+    @Impure
+    @Override
+    public @Nonnull @Size(16) byte[] decodeBinary128() throws EXCEPTION {
+        return decoder.decodeBinary128();
+    }
+    
+    @Impure
+    @Override
+    public @Nonnull @Size(32) byte[] decodeBinary256() throws EXCEPTION {
+        return decoder.decodeBinary256();
+    }
+    
+    @Impure
+    @Override
+    public @Nonnull byte[] decodeBinary() throws EXCEPTION {
+        return decoder.decodeBinary();
+    }
+    
+    @Impure
+    @Override
+    public @Nonnull InputStream decodeBinaryStream() throws EXCEPTION {
+        return decoder.decodeBinaryStream();
+    }
+    
+    /* -------------------------------------------------- Primitive Arrays -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public @Capturable @Nonnull boolean[] decodeBooleanArray() throws EXCEPTION, RecoveryException {
+        return decoder.decodeBooleanArray();
+    }
+    
+    @Impure
+    @Override
+    public @Capturable @Nonnull short[] decodeInteger16Array() throws EXCEPTION, RecoveryException {
+        return decoder.decodeInteger16Array();
+    }
+    
+    @Impure
+    @Override
+    public @Capturable @Nonnull int[] decodeInteger32Array() throws EXCEPTION, RecoveryException {
+        return decoder.decodeInteger32Array();
+    }
+    
+    @Impure
+    @Override
+    public @Capturable @Nonnull long[] decodeInteger64Array() throws EXCEPTION, RecoveryException {
+        return decoder.decodeInteger64Array();
+    }
+    
+    @Impure
+    @Override
+    public @Capturable @Nonnull float[] decodeDecimal32Array() throws EXCEPTION, RecoveryException {
+        return decoder.decodeDecimal32Array();
+    }
+    
+    @Impure
+    @Override
+    public @Capturable @Nonnull double[] decodeDecimal64Array() throws EXCEPTION, RecoveryException {
+        return decoder.decodeDecimal64Array();
+    }
+    
+    /* -------------------------------------------------- Collections -------------------------------------------------- */
+    
+    /**
+     * Decodes the size of an iterable or map.
+     */
+    @Impure
+    protected @NonNegative int decodeSize() throws EXCEPTION, RecoveryException {
+        final int size = decoder.decodeInteger32();
+        Check.that(size >= 0).orThrow("The decoded size $ may not be negative.", size);
+        return size;
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE, @Specifiable PROVIDED, @Unspecifiable ITERABLE, @Unspecifiable COLLECTOR extends FailableCollector<@Nonnull TYPE, @Nonnull ITERABLE, RecoveryException, RecoveryException>> @Nonnull ITERABLE decodeOrderedIterable(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull COLLECTOR> constructor) throws EXCEPTION, RecoveryException {
+        final int size = decodeSize();
+        final @Nonnull COLLECTOR collector = constructor.evaluate(size);
+        for (int i = 0; i < size; i++) { collector.consume(decodeObject(converter, provided)); }
+        return collector.getResult();
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE, @Specifiable PROVIDED, @Unspecifiable ITERABLE, @Unspecifiable COLLECTOR extends FailableCollector<@Nullable TYPE, @Nonnull ITERABLE, RecoveryException, RecoveryException>> @Nonnull ITERABLE decodeOrderedIterableWithNullableElements(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull COLLECTOR> constructor) throws EXCEPTION, RecoveryException {
+        final int size = decodeSize();
+        final @Nonnull COLLECTOR collector = constructor.evaluate(size);
+        for (int i = 0; i < size; i++) { collector.consume(decodeNullableObject(converter, provided)); }
+        return collector.getResult();
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE, @Specifiable PROVIDED, @Unspecifiable ITERABLE, @Unspecifiable COLLECTOR extends FailableCollector<@Nonnull TYPE, @Nonnull ITERABLE, RecoveryException, RecoveryException>> @Nonnull ITERABLE decodeUnorderedIterable(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull COLLECTOR> constructor) throws EXCEPTION, RecoveryException {
+        return decodeOrderedIterable(converter, provided, constructor);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE, @Specifiable PROVIDED, @Unspecifiable ITERABLE, @Unspecifiable COLLECTOR extends FailableCollector<@Nullable TYPE, @Nonnull ITERABLE, RecoveryException, RecoveryException>> @Nonnull ITERABLE decodeUnorderedIterableWithNullableElements(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull COLLECTOR> constructor) throws EXCEPTION, RecoveryException {
+        return decodeOrderedIterableWithNullableElements(converter, provided, constructor);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE, @Unspecifiable MAP extends Map<@Nonnull KEY, @Nonnull VALUE>> @Nonnull MAP decodeMap(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull MAP> constructor) throws EXCEPTION, RecoveryException {
+        final int size = decodeSize();
+        final @Nonnull MAP map = constructor.evaluate(size);
+        for (int i = 0; i < size; i++) {
+            final @Nonnull KEY key = decodeObject(keyConverter, providedForKey);
+            Check.that(map.put(key, decodeObject(valueConverter, providedForValue)) == null).orThrow("The decoded map contains the key $ more than once.", key);
+        }
+        return map;
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE, @Unspecifiable MAP extends Map<@Nullable KEY, @Nullable VALUE>> @Nonnull MAP decodeMapWithNullableValues(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull MAP> constructor) throws EXCEPTION, RecoveryException {
+        final int size = decodeSize();
+        final @Nonnull MAP map = constructor.evaluate(size);
+        for (int i = 0; i < size; i++) {
+            final @Nullable KEY key = decodeNullableObject(keyConverter, providedForKey);
+            Check.that(!map.containsKey(key)).orThrow("The decoded map contains the key $ more than once.", key);
+            map.put(key, decodeNullableObject(valueConverter, providedForValue));
+        }
+        return map;
+    }
+    
+    /* -------------------------------------------------- Hashing -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isHashing() {
+        return decoder.isHashing();
+    }
+    
+    @Impure
+    @Override
+    @Ensures(condition = "isHashing()", message = "The decoder has to be hashing.")
+    public void startHashing(@Nonnull MessageDigest digest) {
+        decoder.startHashing(digest);
+    }
+    
+    @Impure
+    @Override
+    @Requires(condition = "isHashing()", message = "The decoder has to be hashing.")
+    public @Nonnull byte[] stopHashing() {
+        return decoder.stopHashing();
+    }
+    
+    /* -------------------------------------------------- Decompressing -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isDecompressing() {
+        return decoder.isDecompressing();
+    }
+    
+    @Impure
+    @Override
+    @Ensures(condition = "isDecompressing()", message = "The decoder has to be decompressing.")
+    public void startDecompressing(@Nonnull Inflater inflater) throws EXCEPTION {
+        decoder.startDecompressing(inflater);
+    }
+    
+    @Impure
+    @Override
+    @Requires(condition = "isDecompressing()", message = "The decoder has to be decompressing.")
+    public void stopDecompressing() throws EXCEPTION {
+        decoder.stopDecompressing();
+    }
+    
+    /* -------------------------------------------------- Decrypting -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isDecrypting() {
+        return decoder.isDecrypting();
+    }
+    
+    @Impure
+    @Override
+    @Ensures(condition = "isDecrypting()", message = "The decoder has to be decrypting.")
+    public void startDecrypting(@Nonnull Cipher cipher) {
+        decoder.startDecrypting(cipher);
+    }
+    
+    @Impure
+    @Override
+    @Requires(condition = "isDecrypting()", message = "The decoder has to be decrypting.")
+    public void stopDecrypting() throws EXCEPTION {
+        decoder.stopDecrypting();
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Closes the wrapped decoder.
+     */
+    @Impure
+    @Override
+    public void close() throws EXCEPTION {
+        decoder.close();
+    }
+    
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.dictionary;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.conversion.enumerations.Representation;
+import net.digitalid.utility.conversion.exceptions.ConnectionException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.conversion.interfaces.Encoder;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.method.Ensures;
+import net.digitalid.utility.validation.annotations.method.Requires;
+import net.digitalid.utility.validation.annotations.size.MaxSize;
+import net.digitalid.utility.validation.annotations.size.Size;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A dictionary encoder wraps another encoder and replaces strings that were already encoded with a reference into a dictionary of the previously encoded strings.
+ * Each string is preceded by a reference, which is zero if the string follows literally and the one-based index of the string in the dictionary otherwise.
+ * The reference is encoded in one, two or four bytes depending on the current size of the dictionary, which the {@link DictionaryDecoder dictionary decoder} tracks as well.
+ * Literal strings are added to the dictionary until it reaches its capacity, after which new strings are always encoded literally.
+ * <p>
+ * The dictionary lasts as long as the encoder so that strings are shared across all the objects of a stream.
+ * For a dictionary per message, {@link #clearDictionary() clear the dictionary} of both the encoder and the decoder at the message boundaries.
+ * <p>
+ * In order to intercept the strings of nested objects, this encoder converts objects with itself and encodes nullable objects with a preceding boolean and iterables and maps with a preceding int for their size.
+ * All other values are encoded by the wrapped encoder.
+ * 
+ * @see DictionaryDecoder
+ */
+@Mutable
+public class DictionaryEncoder<@Unspecifiable EXCEPTION extends ConnectionException> implements Encoder<EXCEPTION> {
+    
+    /* -------------------------------------------------- Default Capacity -------------------------------------------------- */
+    
+    /**
+     * Stores the number of strings that a dictionary can hold by default.
+     */
+    public static final int DEFAULT_CAPACITY = 4_096;
+    
+    /* -------------------------------------------------- Encoder -------------------------------------------------- */
+    
+    private final @Nonnull Encoder<EXCEPTION> encoder;
+    
+    /**
+     * Returns the wrapped encoder.
+     */
+    @Pure
+    public @Nonnull Encoder<EXCEPTION> getEncoder() {
+        return encoder;
+    }
+    
+    /* -------------------------------------------------- Dictionary -------------------------------------------------- */
+    
+    private final @Positive int capacity;
+    
+    /**
+     * Returns the number of strings that the dictionary can hold.
+     */
+    @Pure
+    public @Positive int getCapacity() {
+        return capacity;
+    }
+    
+    private final @Nonnull Map<@Nonnull String, @Nonnull Integer> indexes = new HashMap<>();
+    
+    /**
+     * Returns the number of strings in the dictionary.
+     */
+    @Pure
+    public @NonNegative int getDictionarySize() {
+        return indexes.size();
+    }
+    
+    /**
+     * Removes all strings from the dictionary.
+     * The dictionary of the corresponding decoder has to be cleared at the same position in the stream.
+     */
+    @Impure
+    public void clearDictionary() {
+        indexes.clear();
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected DictionaryEncoder(@Captured @Nonnull Encoder<EXCEPTION> encoder, @Positive int capacity) {
+        Require.that(capacity > 0).orThrow("The capacity has to be positive but was $.", capacity);
+        
+        this.encoder = encoder;
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Returns a new dictionary encoder that wraps the given encoder and holds at most the given number of strings in its dictionary.
+     */
+    @Pure
+    public static <@Unspecifiable EXCEPTION extends ConnectionException> @Nonnull DictionaryEncoder<EXCEPTION> with(@Captured @Nonnull Encoder<EXCEPTION> encoder, @Positive int capacity) {
+        return new DictionaryEncoder<>(encoder, capacity);
+    }
+    
+    /**
+     * Returns a new dictionary encoder that wraps the given encoder and holds at most the {@link #DEFAULT_CAPACITY default number} of strings in its dictionary.
+     */
+    @Pure
+    public static <@Unspecifiable EXCEPTION extends ConnectionException> @Nonnull DictionaryEncoder<EXCEPTION> with(@Captured @Nonnull Encoder<EXCEPTION> encoder) {
+        return new DictionaryEncoder<>(encoder, DEFAULT_CAPACITY);
+    }
+    
+    /* -------------------------------------------------- References -------------------------------------------------- */
+    
+    /**
+     * Encodes the given reference in as few bytes as the current size of the dictionary allows.
+     */
+    @Impure
+    protected void encodeReference(@NonNegative int reference) throws EXCEPTION {
+        final int size = indexes.size();
+        if (size < 1 << Byte.SIZE) { encoder.encodeInteger08((byte) reference); }
+        else if (size < 1 << Short.SIZE) { encoder.encodeInteger16((short) reference); }
+        else { encoder.encodeInteger32(reference); }
+    }
+    
+    /**
+     * Encodes a reference to the given string and returns whether the string has to be encoded literally.
+     */
+    @Impure
+    protected boolean encodeReference(@Nonnull String string) throws EXCEPTION {
+        final @Nullable Integer index = indexes.get(string);
+        if (index != null) {
+            encodeReference(index + 1);
+            return false;
+        } else {
+            encodeReference(0);
+            if (indexes.size() < capacity) { indexes.put(string, indexes.size()); }
+            return true;
+        }
+    }
+    
+    /* -------------------------------------------------- Representation -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull Representation getRepresentation() {
+        return encoder.getRepresentation();
+    }
+    
+    /* -------------------------------------------------- Objects -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeObject(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nonnull TYPE object) throws EXCEPTION {
+        converter.convert(object, this);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeNullableObject(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nullable TYPE object) throws EXCEPTION {
+        encoder.encodeBoolean(object != null);
+        if (object != null) { converter.convert(object, this); }
+    }
+    
+    /* -------------------------------------------------- Values -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void encodeBoolean(boolean value) throws EXCEPTION {
+        encoder.encodeBoolean(value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger08(byte value) throws EXCEPTION {
+        encoder.encodeInteger08(value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger16(short value) throws EXCEPTION {
+        encoder.encodeInteger16(value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger32(int value) throws EXCEPTION {
+        encoder.encodeInteger32(value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger64(long value) throws EXCEPTION {
+        encoder.encodeInteger64(value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger(@Nonnull BigInteger value) throws EXCEPTION {
+        encoder.encodeInteger(value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal32(float value) throws EXCEPTION {
+        encoder.encodeDecimal32(value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal64(double value) throws EXCEPTION {
+        encoder.encodeDecimal64(value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeString01(char value) throws EXCEPTION {
+        encoder.encodeString01(value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeString64(@Nonnull @MaxSize(64) String string) throws EXCEPTION {
+        if (encodeReference(string)) { encoder.encodeString64(string); }
+    }
+    
+    @Impure
+    @Override
+    public void encodeString(@Nonnull String string) throws EXCEPTION {
+        if (encodeReference(string)) { encoder.encodeString(string); }
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary128(@Nonnull @Size(16) byte[] bytes) throws EXCEPTION {
+        encoder.encodeBinary128(bytes);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary256(@Nonnull @Size(32) byte[] bytes) throws EXCEPTION {
+        encoder.encodeBinary256(bytes);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary(@Nonnull byte[] bytes) throws EXCEPTION {
+        encoder.encodeBinary(bytes);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinaryStream(@Nonnull InputStream inputStream, int length) throws EXCEPTION {
+        encoder.encodeBinaryStream(inputStream, length);
+    }
+    
+    /* -------------------------------------------------- Primitive Arrays -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void encodeBooleanArray(@NonCaptured @Unmodified @Nonnull boolean[] values) throws EXCEPTION {
+        encoder.encodeBooleanArray(values);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger16Array(@NonCaptured @Unmodified @Nonnull short[] values) throws EXCEPTION {
+        encoder.encodeInteger16Array(values);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger32Array(@NonCaptured @Unmodified @Nonnull int[] values) throws EXCEPTION {
+        encoder.encodeInteger32Array(values);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger64Array(@NonCaptured @Unmodified @Nonnull long[] values) throws EXCEPTION {
+        encoder.encodeInteger64Array(values);
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal32Array(@NonCaptured @Unmodified @Nonnull float[] values) throws EXCEPTION {
+        encoder.encodeDecimal32Array(values);
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal64Array(@NonCaptured @Unmodified @Nonnull double[] values) throws EXCEPTION {
+        encoder.encodeDecimal64Array(values);
+    }
+    
+    /* -------------------------------------------------- Collections -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeOrderedIterable(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nonnull TYPE> iterable) throws EXCEPTION {
+        encoder.encodeInteger32(iterable.size());
+        for (@Nonnull TYPE element : iterable) { encodeObject(converter, element); }
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeOrderedIterableWithNullableElements(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nullable TYPE> iterable) throws EXCEPTION {
+        encoder.encodeInteger32(iterable.size());
+        for (@Nullable TYPE element : iterable) { encodeNullableObject(converter, element); }
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeUnorderedIterable(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nonnull TYPE> iterable) throws EXCEPTION {
+        encodeOrderedIterable(converter, iterable);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeUnorderedIterableWithNullableElements(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nullable TYPE> iterable) throws EXCEPTION {
+        encodeOrderedIterableWithNullableElements(converter, iterable);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable KEY, @Unspecifiable VALUE> void encodeMap(@Nonnull Converter<KEY, ?> keyConverter, @Nonnull Converter<VALUE, ?> valueConverter, @Nonnull Map<@Nonnull KEY, @Nonnull VALUE> map) throws EXCEPTION {
+        encoder.encodeInteger32(map.size());
+        for (Map.@Nonnull Entry<@Nonnull KEY, @Nonnull VALUE> entry : map.entrySet()) {
+            encodeObject(keyConverter, entry.getKey());
+            encodeObject(valueConverter, entry.getValue());
+        }
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable KEY, @Unspecifiable VALUE> void encodeMapWithNullableValues(@Nonnull Converter<KEY, ?> keyConverter, @Nonnull Converter<VALUE, ?> valueConverter, @Nonnull Map<@Nullable KEY, @Nullable VALUE> map) throws EXCEPTION {
+        encoder.encodeInteger32(map.size());
+        for (Map.@Nonnull Entry<@Nullable KEY, @Nullable VALUE> entry : map.entrySet()) {
+            encodeNullableObject(keyConverter, entry.getKey());
+            encodeNullableObject(valueConverter, entry.getValue());
+        }
+    }
+    
+    /* -------------------------------------------------- Hashing -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isHashing() {
+        return encoder.isHashing();
+    }
+    
+    @Impure
+    @Override
+    @Ensures(condition = "isHashing()", message = "The encoder has to be hashing.")
+    public void startHashing(@Nonnull MessageDigest digest) {
+        encoder.startHashing(digest);
+    }
+    
+    @Impure
+    @Override
+    @Requires(condition = "isHashing()", message = "The encoder has to be hashing.")
+    public @Nonnull byte[] stopHashing() {
+        return encoder.stopHashing();
+    }
+    
+    /* -------------------------------------------------- Compressing -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isCompressing() {
+        return encoder.isCompressing();
+    }
+    
+    @Impure
+    @Override
+    @Ensures(condition = "isCompressing()", message = "The encoder has to be compressing.")
+    public void startCompressing(@Nonnull Deflater deflater) throws EXCEPTION {
+        encoder.startCompressing(deflater);
+    }
+    
+    @Impure
+    @Override
+    @Requires(condition = "isCompressing()", message = "The encoder has to be compressing.")
+    public void stopCompressing() throws EXCEPTION {
+        encoder.stopCompressing();
+    }
+    
+    /* -------------------------------------------------- Encrypting -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isEncrypting() {
+        return encoder.isEncrypting();
+    }
+    
+    @Impure
+    @Override
+    @Ensures(condition = "isEncrypting()", message = "The encoder has to be encrypting.")
+    public void startEncrypting(@Nonnull Cipher cipher) {
+        encoder.startEncrypting(cipher);
+    }
+    
+    @Impure
+    @Override
+    @Requires(condition = "isEncrypting()", message = "The encoder has to be encrypting.")
+    public void stopEncrypting() throws EXCEPTION {
+        encoder.stopEncrypting();
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Closes the wrapped encoder.
+     */
+    @Impure
+    @Override
+    public void close() throws EXCEPTION {
+        encoder.close();
+    }
+    
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.dispatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.conversion.exceptions.ConnectionException;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.conversion.interfaces.Decoder;
+import net.digitalid.utility.conversion.interfaces.Encoder;
+import net.digitalid.utility.conversion.recovery.Check;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * A subtype dispatch table maps the runtime classes of polymorphic objects to the converters of a root converter and its transitive {@link Converter#getSubtypeConverters() subtype converters}.
+ * Each of these converters is identified by a compact numeric tag, which is its position in a depth-first traversal of the hierarchy with the root converter at position zero.
+ * The tag is encoded in as few bytes as the number of converters allows so that the decoder can dispatch on it without searching the subtype converters.
+ * Since the tags depend on the order of the subtype converters, the encoding and the decoding side have to use the same hierarchy.
+ * 
+ * @see Converter#getSubtypeDispatchTable()
+ */
+@Immutable
+public class SubtypeDispatchTable<@Unspecifiable TYPE, @Specifiable PROVIDED> {
+    
+    /* -------------------------------------------------- Tags -------------------------------------------------- */
+    
+    /**
+     * The tag that is returned for classes which none of the converters can convert.
+     */
+    public static final int NO_TAG = -1;
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull Converter<TYPE, PROVIDED> rootConverter;
+    
+    private final @Nonnull ImmutableList<@Nonnull Converter<? extends TYPE, PROVIDED>> converters;
+    
+    /**
+     * Stores the tags of the classes that the converters model.
+     */
+    private final @Nonnull Map<@Nonnull Class<?>, @Nonnull Integer> tagsOfModeledTypes = new HashMap<>();
+    
+    /**
+     * Caches the tags of the runtime classes that have been looked up so far, which can be subclasses of the modeled types.
+     */
+    private final @Nonnull ConcurrentHashMap<@Nonnull Class<?>, @Nonnull Integer> tagsOfRuntimeClasses = new ConcurrentHashMap<>();
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected SubtypeDispatchTable(@Nonnull Converter<TYPE, PROVIDED> rootConverter) {
+        this.rootConverter = rootConverter;
+        final @Nonnull List<@Nonnull Converter<? extends TYPE, PROVIDED>> converters = new ArrayList<>();
+        addConverters(rootConverter, converters);
+        this.converters = ImmutableList.withElementsOfCollection(converters);
+    }
+    
+    /**
+     * Adds the given converter and its transitive subtype converters in depth-first order to the given list unless a converter for the same type has already been added.
+     */
+    @Impure
+    private void addConverters(@Nonnull Converter<? extends TYPE, PROVIDED> converter, @NonCaptured @Modified @Nonnull List<@Nonnull Converter<? extends TYPE, PROVIDED>> converters) {
+        if (tagsOfModeledTypes.containsKey(converter.getType())) { return; }
+        tagsOfModeledTypes.put(converter.getType(), converters.size());
+        converters.add(converter);
+        final @Nullable ImmutableList<? extends Converter<? extends TYPE, PROVIDED>> subtypeConverters = converter.getSubtypeConverters();
+        if (subtypeConverters != null) {
+            for (@Nonnull Converter<? extends TYPE, PROVIDED> subtypeConverter : subtypeConverters) {
+                addConverters(subtypeConverter, converters);
+            }
+        }
+    }
+    
+    /* -------------------------------------------------- Cache -------------------------------------------------- */
+    
+    private static final @Nonnull ConcurrentHashMap<@Nonnull Converter<?, ?>, @Nonnull SubtypeDispatchTable<?, ?>> TABLES = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the dispatch table of the given root converter, which is built on the first call and cached afterwards.
+     */
+    @Pure
+    @SuppressWarnings("unchecked")
+    public static <@Unspecifiable TYPE, @Specifiable PROVIDED> @Nonnull SubtypeDispatchTable<TYPE, PROVIDED> of(@Nonnull Converter<TYPE, PROVIDED> rootConverter) {
+        return (SubtypeDispatchTable<TYPE, PROVIDED>) TABLES.computeIfAbsent(rootConverter, key -> new SubtypeDispatchTable<>(rootConverter));
+    }
+    
+    /* -------------------------------------------------- Getters -------------------------------------------------- */
+    
+    /**
+     * Returns the root converter of this dispatch table.
+     */
+    @Pure
+    public @Nonnull Converter<TYPE, PROVIDED> getRootConverter() {
+        return rootConverter;
+    }
+    
+    /**
+     * Returns the number of converters in this dispatch table.
+     */
+    @Pure
+    public @Positive int size() {
+        return converters.size();
+    }
+    
+    /**
+     * Returns the converter with the given tag.
+     */
+    @Pure
+    public @Nonnull Converter<? extends TYPE, PROVIDED> getConverter(@NonNegative int tag) {
+        Require.that(tag >= 0 && tag < converters.size()).orThrow("The tag $ has to denote one of the $ converters of $.", tag, converters.size(), rootConverter.getTypeName());
+        
+        return converters.get(tag);
+    }
+    
+    /**
+     * Returns the tag of the most specific converter that can convert instances of the given class or {@link #NO_TAG} if there is no such converter.
+     * The lookup searches the converters only the first time a class is encountered and is answered from a cache afterwards.
+     */
+    @Pure
+    public int getTag(@Nonnull Class<?> runtimeClass) {
+        final @Nullable Integer cachedTag = tagsOfRuntimeClasses.get(runtimeClass);
+        if (cachedTag != null) { return cachedTag; }
+        
+        final @Nullable Integer modeledTag = tagsOfModeledTypes.get(runtimeClass);
+        int tag = modeledTag != null ? modeledTag : NO_TAG;
+        if (tag == NO_TAG) {
+            for (int i = 0; i < converters.size(); i++) {
+                final @Nonnull Class<?> type = converters.get(i).getType();
+                if (type.isAssignableFrom(runtimeClass) && (tag == NO_TAG || converters.get(tag).getType().isAssignableFrom(type))) { tag = i; }
+            }
+        }
+        tagsOfRuntimeClasses.put(runtimeClass, tag);
+        return tag;
+    }
+    
+    /**
+     * Returns the most specific converter that can convert instances of the given class or null if there is no such converter.
+     */
+    @Pure
+    public @Nullable Converter<? extends TYPE, PROVIDED> getConverter(@Nonnull Class<?> runtimeClass) {
+        final int tag = getTag(runtimeClass);
+        return tag == NO_TAG ? null : converters.get(tag);
+    }
+    
+    /* -------------------------------------------------- Tag Coding -------------------------------------------------- */
+    
+    /**
+     * Encodes the given tag with one byte if there are at most 256 converters, with two bytes if there are at most 65536 converters and with four bytes otherwise.
+     */
+    @Pure
+    public <@Unspecifiable EXCEPTION extends ConnectionException> void encodeTag(@NonNegative int tag, @NonCaptured @Modified @Nonnull Encoder<EXCEPTION> encoder) throws EXCEPTION {
+        Require.that(tag >= 0 && tag < converters.size()).orThrow("The tag $ has to denote one of the $ converters of $.", tag, converters.size(), rootConverter.getTypeName());
+        
+        if (converters.size() <= 1 << Byte.SIZE) { encoder.encodeInteger08((byte) tag); }
+        else if (converters.size() <= 1 << Short.SIZE) { encoder.encodeInteger16((short) tag); }
+        else { encoder.encodeInteger32(tag); }
+    }
+    
+    /**
+     * Decodes a tag that was encoded with {@link #encodeTag(int, Encoder)}.
+     */
+    @Pure
+    public <@Unspecifiable EXCEPTION extends ConnectionException> @NonNegative int decodeTag(@NonCaptured @Modified @Nonnull Decoder<EXCEPTION> decoder) throws EXCEPTION, RecoveryException {
+        final int tag;
+        if (converters.size() <= 1 << Byte.SIZE) { tag = Byte.toUnsignedInt(decoder.decodeInteger08()); }
+        else if (converters.size() <= 1 << Short.SIZE) { tag = Short.toUnsignedInt(decoder.decodeInteger16()); }
+        else { tag = decoder.decodeInteger32(); }
+        Check.that(tag >= 0 && tag < converters.size()).orThrow("The decoded tag $ does not denote one of the $ converters of $.", tag, converters.size(), rootConverter.getTypeName());
+        return tag;
+    }
+    
+    /* -------------------------------------------------- Convert -------------------------------------------------- */
+    
+    /**
+     * Encodes the tag of the runtime class of the given object followed by the object itself with the converter of that tag.
+     */
+    @Pure
+    @SuppressWarnings("unchecked")
+    public <@Unspecifiable EXCEPTION extends ConnectionException> void convert(@NonCaptured @Unmodified @Nonnull TYPE object, @NonCaptured @Modified @Nonnull Encoder<EXCEPTION> encoder) throws EXCEPTION {
+        final int tag = getTag(object.getClass());
+        Require.that(tag != NO_TAG).orThrow("None of the converters of $ can convert an instance of $.", rootConverter.getTypeName(), object.getClass().getName());
+        
+        encodeTag(tag, encoder);
+        encoder.encodeObject((Converter<TYPE, ?>) converters.get(tag), object);
+    }
+    
+    /* -------------------------------------------------- Recover -------------------------------------------------- */
+    
+    /**
+     * Decodes a tag and recovers an object with the converter of that tag and the given provided object.
+     */
+    @Pure
+    public @Capturable <@Unspecifiable EXCEPTION extends ConnectionException> @Nonnull TYPE recover(@NonCaptured @Modified @Nonnull Decoder<EXCEPTION> decoder, @Shared PROVIDED provided) throws EXCEPTION, RecoveryException {
+        return decoder.decodeObject(converters.get(decodeTag(decoder)), provided);
+    }
+    
+}
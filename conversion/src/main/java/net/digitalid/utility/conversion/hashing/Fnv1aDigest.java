@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.hashing;
+
+import java.security.MessageDigest;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This message digest computes the 64-bit FNV-1a hash, which is fast but not cryptographically secure.
+ * It is meant for deduplication and hash tables and not for signatures or other purposes where collisions can be exploited.
+ * Unlike the digests of the installed providers, instances of this class are created with the constructor instead of {@link MessageDigest#getInstance(String)}.
+ * The {@link net.digitalid.utility.conversion.pool.ResourcePools#DIGESTS digest pool} nonetheless leases instances of this class for the {@link #ALGORITHM algorithm} of this class.
+ */
+@Mutable
+public class Fnv1aDigest extends MessageDigest implements Cloneable {
+    
+    /* -------------------------------------------------- Constants -------------------------------------------------- */
+    
+    /**
+     * Stores the name of the algorithm.
+     */
+    public static final @Nonnull String ALGORITHM = "FNV-1a-64";
+    
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    
+    private static final long PRIME = 0x100000001b3L;
+    
+    /* -------------------------------------------------- State -------------------------------------------------- */
+    
+    private long hash = OFFSET_BASIS;
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    public Fnv1aDigest() {
+        super(ALGORITHM);
+    }
+    
+    /* -------------------------------------------------- Engine -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    protected int engineGetDigestLength() {
+        return Long.BYTES;
+    }
+    
+    @Impure
+    @Override
+    protected void engineUpdate(byte input) {
+        hash = (hash ^ (input & 0xFF)) * PRIME;
+    }
+    
+    @Impure
+    @Override
+    protected void engineUpdate(@NonCaptured @Unmodified @Nonnull byte[] input, int offset, int length) {
+        long hash = this.hash;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (input[i] & 0xFF)) * PRIME;
+        }
+        this.hash = hash;
+    }
+    
+    @Impure
+    @Override
+    protected @Capturable @Nonnull byte[] engineDigest() {
+        final @Nonnull byte[] digest = new byte[Long.BYTES];
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            digest[i] = (byte) hash;
+            hash >>>= Byte.SIZE;
+        }
+        engineReset();
+        return digest;
+    }
+    
+    @Impure
+    @Override
+    protected void engineReset() {
+        hash = OFFSET_BASIS;
+    }
+    
+}
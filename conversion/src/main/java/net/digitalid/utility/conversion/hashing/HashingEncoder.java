@@ -0,0 +1,686 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.hashing;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.conversion.buffer.BufferCoding;
+import net.digitalid.utility.conversion.enumerations.Representation;
+import net.digitalid.utility.conversion.exceptions.ConnectionException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.conversion.interfaces.Encoder;
+import net.digitalid.utility.conversion.pool.Lease;
+import net.digitalid.utility.conversion.pool.ResourcePools;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.method.Ensures;
+import net.digitalid.utility.validation.annotations.method.Requires;
+import net.digitalid.utility.validation.annotations.size.MaxSize;
+import net.digitalid.utility.validation.annotations.size.Size;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * The hashing encoder feeds a canonical encoding of the encoded values directly into a message digest without writing them to a buffer.
+ * The canonical encoding follows the layout of the {@link net.digitalid.utility.conversion.counting.CountingEncoder counting encoder} with big-endian numbers and UTF-8 strings,
+ * except that the elements of unordered iterables and the entries of maps are hashed individually and their digests are fed in ascending order so that equal collections result in the same digest regardless of their iteration order.
+ * Any message digest can be used, including the {@link Fnv1aDigest non-cryptographic one} for deduplication, but it has to support {@link MessageDigest#clone() cloning} in order to hash collections.
+ * <p>
+ * In the tree-hashing mode, ordered iterables with more elements than the chunk size are split into chunks whose digests are computed in parallel and then fed in order instead of the elements.
+ * The chunk size is part of the canonical encoding, which is why digests are only comparable if they were computed with the same chunk size.
+ * Chunks that are nested in other chunks are hashed sequentially in the thread of the outer chunk.
+ * <p>
+ * Since nothing is transmitted, compression and encryption are ignored and the digest covers the values before they would be compressed or encrypted.
+ */
+@Mutable
+public class HashingEncoder implements Encoder<ConnectionException> {
+    
+    /* -------------------------------------------------- Digest -------------------------------------------------- */
+    
+    private final @Nonnull MessageDigest digest;
+    
+    /**
+     * Completes the computation of the digest of the values encoded so far and resets the encoder afterwards.
+     */
+    @Impure
+    public @Capturable @Nonnull byte[] digest() {
+        return digest.digest();
+    }
+    
+    /**
+     * Returns a new and reset digest of the same algorithm as the digest of this encoder.
+     */
+    @Pure
+    protected @Capturable @Nonnull MessageDigest newDigest() {
+        try {
+            final @Nonnull MessageDigest newDigest = (MessageDigest) digest.clone();
+            newDigest.reset();
+            return newDigest;
+        } catch (@Nonnull CloneNotSupportedException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /* -------------------------------------------------- Representation -------------------------------------------------- */
+    
+    private final @Nonnull Representation representation;
+    
+    @Pure
+    @Override
+    public @Nonnull Representation getRepresentation() {
+        return representation;
+    }
+    
+    /* -------------------------------------------------- Tree Hashing -------------------------------------------------- */
+    
+    private final @NonNegative int chunkSize;
+    
+    /**
+     * Returns the number of elements above which ordered iterables are hashed as a tree of chunks or zero if the tree-hashing mode is disabled.
+     */
+    @Pure
+    public @NonNegative int getChunkSize() {
+        return chunkSize;
+    }
+    
+    private final @Nullable Executor executor;
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected HashingEncoder(@Nonnull Representation representation, @Captured @Nonnull MessageDigest digest, @NonNegative int chunkSize, @Nullable Executor executor) {
+        Require.that(chunkSize >= 0).orThrow("The chunk size may not be negative but was $.", chunkSize);
+        
+        this.representation = representation;
+        this.digest = digest;
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+    }
+    
+    /**
+     * Returns a new hashing encoder that feeds the encoded values in the given representation into the given digest.
+     */
+    @Pure
+    public static @Capturable @Nonnull HashingEncoder with(@Nonnull Representation representation, @Captured @Nonnull MessageDigest digest) {
+        return new HashingEncoder(representation, digest, 0, null);
+    }
+    
+    /**
+     * Returns a new hashing encoder that feeds the encoded values in the given representation into the given digest and hashes ordered iterables with more elements than the given chunk size as a tree of chunks with the given executor.
+     */
+    @Pure
+    public static @Capturable @Nonnull HashingEncoder withTreeHashing(@Nonnull Representation representation, @Captured @Nonnull MessageDigest digest, int chunkSize, @Nonnull Executor executor) {
+        Require.that(chunkSize > 0).orThrow("The chunk size has to be positive but was $.", chunkSize);
+        
+        return new HashingEncoder(representation, digest, chunkSize, executor);
+    }
+    
+    /**
+     * Returns a new hashing encoder that feeds the encoded values in the given representation into the given digest and hashes ordered iterables with more elements than the given chunk size as a tree of chunks in the common fork-join pool.
+     */
+    @Pure
+    public static @Capturable @Nonnull HashingEncoder withTreeHashing(@Nonnull Representation representation, @Captured @Nonnull MessageDigest digest, int chunkSize) {
+        return withTreeHashing(representation, digest, chunkSize, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Returns a new hashing encoder with the same representation and chunk size as this encoder that feeds the encoded values into a new digest and hashes its chunks in parallel only if this encoder does and the given flag is set.
+     */
+    @Pure
+    protected @Capturable @Nonnull HashingEncoder fork(boolean parallel) {
+        return new HashingEncoder(representation, newDigest(), chunkSize, parallel ? executor : null);
+    }
+    
+    /* -------------------------------------------------- Hashing Objects -------------------------------------------------- */
+    
+    /**
+     * Returns the digest of the canonical encoding of the given object with the given converter in the given representation.
+     */
+    @Pure
+    public static <@Unspecifiable TYPE> @Capturable @Nonnull byte[] hash(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nonnull TYPE object, @Nonnull Representation representation, @Captured @Nonnull MessageDigest digest) {
+        final @Nonnull HashingEncoder encoder = with(representation, digest);
+        try {
+            encoder.encodeObject(converter, object);
+        } catch (@Nonnull ConnectionException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+        return encoder.digest();
+    }
+    
+    /**
+     * Returns the digest of the canonical encoding of the given object with the given converter in the given representation with a digest of the given algorithm that is leased from the {@link ResourcePools#DIGESTS digest pool}.
+     */
+    @Pure
+    public static <@Unspecifiable TYPE> @Capturable @Nonnull byte[] hash(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nonnull TYPE object, @Nonnull Representation representation, @Nonnull String algorithm) {
+        try (@Nonnull Lease<@Nonnull MessageDigest> lease = ResourcePools.DIGESTS.lease(algorithm)) {
+            return hash(converter, object, representation, lease.get());
+        }
+    }
+    
+    /* -------------------------------------------------- Updating -------------------------------------------------- */
+    
+    private final @Nonnull byte[] scratch = new byte[64];
+    
+    /**
+     * Feeds the given bytes into the digest and the digest of the current hashing section, if any.
+     */
+    @Impure
+    protected void update(@NonCaptured @Unmodified @Nonnull byte[] bytes, int offset, int length) {
+        digest.update(bytes, offset, length);
+        if (sectionDigest != null) { sectionDigest.update(bytes, offset, length); }
+    }
+    
+    /**
+     * Feeds the given number of low-order bytes of the given value in big-endian order into the digest.
+     */
+    @Impure
+    protected void update(long value, int bytes) {
+        for (int i = bytes - 1; i >= 0; i--) {
+            scratch[i] = (byte) value;
+            value >>>= Byte.SIZE;
+        }
+        update(scratch, 0, bytes);
+    }
+    
+    /**
+     * Feeds the UTF-8 encoding of the given string into the digest, replacing unpaired surrogates with a question mark like {@link String#getBytes(java.nio.charset.Charset)}.
+     */
+    @Impure
+    protected void updateUTF8(@Nonnull String string) {
+        final int length = string.length();
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            if (position > scratch.length - 4) {
+                update(scratch, 0, position);
+                position = 0;
+            }
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                scratch[position++] = (byte) c;
+            } else if (c < 0x800) {
+                scratch[position++] = (byte) (0xC0 | c >> 6);
+                scratch[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                scratch[position++] = (byte) (0xF0 | codePoint >> 18);
+                scratch[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                scratch[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                scratch[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                scratch[position++] = '?';
+            } else {
+                scratch[position++] = (byte) (0xE0 | c >> 12);
+                scratch[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                scratch[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        update(scratch, 0, position);
+    }
+    
+    /* -------------------------------------------------- Objects -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeObject(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nonnull TYPE object) throws ConnectionException {
+        converter.convert(object, this);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeNullableObject(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nullable TYPE object) throws ConnectionException {
+        encodeBoolean(object != null);
+        if (object != null) { converter.convert(object, this); }
+    }
+    
+    /* -------------------------------------------------- Values -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void encodeBoolean(boolean value) {
+        update(value ? 1 : 0, 1);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger08(byte value) {
+        update(value, Byte.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger16(short value) {
+        update(value, Short.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger32(int value) {
+        update(value, Integer.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger64(long value) {
+        update(value, Long.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger(@Nonnull BigInteger value) {
+        encodeBinary(value.toByteArray());
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal32(float value) {
+        update(Float.floatToIntBits(value), Float.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal64(double value) {
+        update(Double.doubleToLongBits(value), Double.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeString01(char value) {
+        update(value, Character.BYTES);
+    }
+    
+    @Impure
+    @Override
+    public void encodeString64(@Nonnull @MaxSize(64) String string) {
+        encodeString(string);
+    }
+    
+    @Impure
+    @Override
+    public void encodeString(@Nonnull String string) {
+        update(BufferCoding.getUTF8Length(string), Integer.BYTES);
+        updateUTF8(string);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary128(@Nonnull @Size(16) byte[] bytes) {
+        update(bytes, 0, bytes.length);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary256(@Nonnull @Size(32) byte[] bytes) {
+        update(bytes, 0, bytes.length);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary(@Nonnull byte[] bytes) {
+        update(bytes.length, Integer.BYTES);
+        update(bytes, 0, bytes.length);
+    }
+    
+    /**
+     * Feeds the given number of bytes from the given input stream into the digest without buffering them.
+     */
+    @Impure
+    @Override
+    public void encodeBinaryStream(@Nonnull InputStream inputStream, int length) {
+        update(length, Integer.BYTES);
+        try {
+            int remaining = length;
+            while (remaining > 0) {
+                final int read = inputStream.read(scratch, 0, Math.min(remaining, scratch.length));
+                if (read < 0) { throw new EOFException("The input stream ended " + remaining + " bytes before the given length of " + length + " bytes."); }
+                update(scratch, 0, read);
+                remaining -= read;
+            }
+        } catch (@Nonnull IOException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /* -------------------------------------------------- Primitive Arrays -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void encodeBooleanArray(@NonCaptured @Unmodified @Nonnull boolean[] values) {
+        update(values.length, Integer.BYTES);
+        update((values.length + 7) >>> 3, Integer.BYTES);
+        for (int i = 0; i < values.length; i += Byte.SIZE) {
+            int bits = 0;
+            for (int j = 0; j < Byte.SIZE && i + j < values.length; j++) {
+                if (values[i + j]) { bits |= 1 << j; }
+            }
+            update(bits, 1);
+        }
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger16Array(@NonCaptured @Unmodified @Nonnull short[] values) {
+        update(values.length * Short.BYTES, Integer.BYTES);
+        for (short value : values) { update(value, Short.BYTES); }
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger32Array(@NonCaptured @Unmodified @Nonnull int[] values) {
+        update(values.length * Integer.BYTES, Integer.BYTES);
+        for (int value : values) { update(value, Integer.BYTES); }
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger64Array(@NonCaptured @Unmodified @Nonnull long[] values) {
+        update(values.length * Long.BYTES, Integer.BYTES);
+        for (long value : values) { update(value, Long.BYTES); }
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal32Array(@NonCaptured @Unmodified @Nonnull float[] values) {
+        update(values.length * Float.BYTES, Integer.BYTES);
+        for (float value : values) { update(Float.floatToIntBits(value), Float.BYTES); }
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal64Array(@NonCaptured @Unmodified @Nonnull double[] values) {
+        update(values.length * Double.BYTES, Integer.BYTES);
+        for (double value : values) { update(Double.doubleToLongBits(value), Double.BYTES); }
+    }
+    
+    /* -------------------------------------------------- Ordered Collections -------------------------------------------------- */
+    
+    /**
+     * Encodes the given element with the given encoder as a nullable or non-nullable object.
+     */
+    @Impure
+    private static <@Unspecifiable TYPE> void encodeElement(@Nonnull HashingEncoder encoder, @Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified TYPE element, boolean nullable) throws ConnectionException {
+        if (nullable) { encoder.encodeNullableObject(converter, element); }
+        else { encoder.encodeObject(converter, element); }
+    }
+    
+    /**
+     * Returns the digest of the elements with the given indexes, which are encoded with the given encoder.
+     */
+    @Impure
+    private static <@Unspecifiable TYPE> @Capturable @Nonnull byte[] hashChunk(@Nonnull HashingEncoder encoder, @Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nonnull List<TYPE> elements, int from, int to, boolean nullable) {
+        try {
+            for (int i = from; i < to; i++) { encodeElement(encoder, converter, elements.get(i), nullable); }
+        } catch (@Nonnull ConnectionException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+        return encoder.digest();
+    }
+    
+    /**
+     * Waits for the given future and rethrows the exception with which it completed, if any.
+     */
+    @Impure
+    private static @Capturable @Nonnull byte[] join(@Nonnull CompletableFuture<@Nonnull byte[]> future) {
+        try {
+            return future.join();
+        } catch (@Nonnull CompletionException exception) {
+            final @Nullable Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+            if (cause instanceof Error) { throw (Error) cause; }
+            throw exception;
+        }
+    }
+    
+    /**
+     * Encodes the size of the given iterable followed by its elements or, in the tree-hashing mode and if the iterable has more elements than the chunk size, by the digests of its chunks.
+     */
+    @Impure
+    protected <@Unspecifiable TYPE> void encodeOrderedElements(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<TYPE> iterable, boolean nullable) throws ConnectionException {
+        final int size = iterable.size();
+        encodeInteger32(size);
+        if (chunkSize == 0 || size <= chunkSize) {
+            for (TYPE element : iterable) { encodeElement(this, converter, element, nullable); }
+        } else {
+            final @Nonnull List<TYPE> elements = new ArrayList<>(size);
+            for (TYPE element : iterable) { elements.add(element); }
+            final int chunks = (size - 1) / chunkSize + 1;
+            if (executor != null) {
+                final @Nonnull List<@Nonnull CompletableFuture<@Nonnull byte[]>> futures = new ArrayList<>(chunks);
+                for (int from = 0; from < size; from += chunkSize) {
+                    final @Nonnull HashingEncoder encoder = fork(false);
+                    final int start = from;
+                    final int end = Math.min(from + chunkSize, size);
+                    futures.add(CompletableFuture.supplyAsync(() -> hashChunk(encoder, converter, elements, start, end, nullable), executor));
+                }
+                for (@Nonnull CompletableFuture<@Nonnull byte[]> future : futures) {
+                    final @Nonnull byte[] chunkDigest = join(future);
+                    update(chunkDigest, 0, chunkDigest.length);
+                }
+            } else {
+                for (int from = 0; from < size; from += chunkSize) {
+                    final @Nonnull byte[] chunkDigest = hashChunk(fork(false), converter, elements, from, Math.min(from + chunkSize, size), nullable);
+                    update(chunkDigest, 0, chunkDigest.length);
+                }
+            }
+        }
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeOrderedIterable(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nonnull TYPE> iterable) throws ConnectionException {
+        encodeOrderedElements(converter, iterable, false);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeOrderedIterableWithNullableElements(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nullable TYPE> iterable) throws ConnectionException {
+        encodeOrderedElements(converter, iterable, true);
+    }
+    
+    /* -------------------------------------------------- Unordered Collections -------------------------------------------------- */
+    
+    /**
+     * Compares the given digests lexicographically as unsigned bytes.
+     */
+    @Pure
+    private static int compare(@Nonnull byte[] digest1, @Nonnull byte[] digest2) {
+        final int length = Math.min(digest1.length, digest2.length);
+        for (int i = 0; i < length; i++) {
+            final int comparison = Integer.compare(digest1[i] & 0xFF, digest2[i] & 0xFF);
+            if (comparison != 0) { return comparison; }
+        }
+        return Integer.compare(digest1.length, digest2.length);
+    }
+    
+    /**
+     * Encodes the number of the given digests followed by the digests in ascending order.
+     */
+    @Impure
+    protected void encodeDigestsInOrder(@NonCaptured @Modified @Nonnull List<@Nonnull byte[]> digests) {
+        digests.sort(HashingEncoder::compare);
+        encodeInteger32(digests.size());
+        for (@Nonnull byte[] elementDigest : digests) { update(elementDigest, 0, elementDigest.length); }
+    }
+    
+    /**
+     * Encodes the elements of the given iterable individually and their digests in ascending order.
+     */
+    @Impure
+    protected <@Unspecifiable TYPE> void encodeUnorderedElements(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<TYPE> iterable, boolean nullable) throws ConnectionException {
+        final @Nonnull List<@Nonnull byte[]> digests = new ArrayList<>(iterable.size());
+        for (TYPE element : iterable) {
+            final @Nonnull HashingEncoder encoder = fork(true);
+            encodeElement(encoder, converter, element, nullable);
+            digests.add(encoder.digest());
+        }
+        encodeDigestsInOrder(digests);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeUnorderedIterable(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nonnull TYPE> iterable) throws ConnectionException {
+        encodeUnorderedElements(converter, iterable, false);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE> void encodeUnorderedIterableWithNullableElements(@Nonnull Converter<TYPE, ?> converter, @Nonnull FiniteIterable<@Nullable TYPE> iterable) throws ConnectionException {
+        encodeUnorderedElements(converter, iterable, true);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable KEY, @Unspecifiable VALUE> void encodeMap(@Nonnull Converter<KEY, ?> keyConverter, @Nonnull Converter<VALUE, ?> valueConverter, @Nonnull Map<@Nonnull KEY, @Nonnull VALUE> map) throws ConnectionException {
+        final @Nonnull List<@Nonnull byte[]> digests = new ArrayList<>(map.size());
+        for (Map.@Nonnull Entry<@Nonnull KEY, @Nonnull VALUE> entry : map.entrySet()) {
+            final @Nonnull HashingEncoder encoder = fork(true);
+            encoder.encodeObject(keyConverter, entry.getKey());
+            encoder.encodeObject(valueConverter, entry.getValue());
+            digests.add(encoder.digest());
+        }
+        encodeDigestsInOrder(digests);
+    }
+    
+    @Impure
+    @Override
+    public <@Unspecifiable KEY, @Unspecifiable VALUE> void encodeMapWithNullableValues(@Nonnull Converter<KEY, ?> keyConverter, @Nonnull Converter<VALUE, ?> valueConverter, @Nonnull Map<@Nullable KEY, @Nullable VALUE> map) throws ConnectionException {
+        final @Nonnull List<@Nonnull byte[]> digests = new ArrayList<>(map.size());
+        for (Map.@Nonnull Entry<@Nullable KEY, @Nullable VALUE> entry : map.entrySet()) {
+            final @Nonnull HashingEncoder encoder = fork(true);
+            encoder.encodeNullableObject(keyConverter, entry.getKey());
+            encoder.encodeNullableObject(valueConverter, entry.getValue());
+            digests.add(encoder.digest());
+        }
+        encodeDigestsInOrder(digests);
+    }
+    
+    /* -------------------------------------------------- Hashing -------------------------------------------------- */
+    
+    private @Nullable MessageDigest sectionDigest;
+    
+    @Pure
+    @Override
+    public boolean isHashing() {
+        return sectionDigest != null;
+    }
+    
+    /**
+     * Starts feeding the encoded values also into the given digest, which allows to compute the digest of a section of the encoded values.
+     */
+    @Impure
+    @Override
+    @Ensures(condition = "isHashing()", message = "The encoder has to be hashing.")
+    public void startHashing(@Nonnull MessageDigest digest) {
+        Require.that(sectionDigest == null).orThrow("The encoder may not already be hashing a section.");
+        
+        this.sectionDigest = digest;
+    }
+    
+    @Impure
+    @Override
+    @Requires(condition = "isHashing()", message = "The encoder has to be hashing.")
+    public @Nonnull byte[] stopHashing() {
+        Require.that(sectionDigest != null).orThrow("The encoder has to be hashing.");
+        
+        final @Nonnull byte[] hash = sectionDigest.digest();
+        this.sectionDigest = null;
+        return hash;
+    }
+    
+    /* -------------------------------------------------- Compressing -------------------------------------------------- */
+    
+    private boolean compressing = false;
+    
+    @Pure
+    @Override
+    public boolean isCompressing() {
+        return compressing;
+    }
+    
+    /**
+     * Marks the encoder as compressing without compressing anything, since the digest covers the uncompressed values.
+     */
+    @Impure
+    @Override
+    @Ensures(condition = "isCompressing()", message = "The encoder has to be compressing.")
+    public void startCompressing(@Nonnull Deflater deflater) {
+        this.compressing = true;
+    }
+    
+    @Impure
+    @Override
+    @Requires(condition = "isCompressing()", message = "The encoder has to be compressing.")
+    public void stopCompressing() {
+        this.compressing = false;
+    }
+    
+    /* -------------------------------------------------- Encrypting -------------------------------------------------- */
+    
+    private boolean encrypting = false;
+    
+    @Pure
+    @Override
+    public boolean isEncrypting() {
+        return encrypting;
+    }
+    
+    /**
+     * Marks the encoder as encrypting without encrypting anything, since the digest covers the plaintext.
+     */
+    @Impure
+    @Override
+    @Ensures(condition = "isEncrypting()", message = "The encoder has to be encrypting.")
+    public void startEncrypting(@Nonnull Cipher cipher) {
+        this.encrypting = true;
+    }
+    
+    @Impure
+    @Override
+    @Requires(condition = "isEncrypting()", message = "The encoder has to be encrypting.")
+    public void stopEncrypting() {
+        this.encrypting = false;
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void close() {}
+    
+}
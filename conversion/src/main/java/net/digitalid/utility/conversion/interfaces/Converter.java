@@ -26,6 +26,7 @@ import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.ownership.Shared;
 import net.digitalid.utility.annotations.parameter.Modified;
 import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.conversion.dispatch.SubtypeDispatchTable;
 import net.digitalid.utility.conversion.enumerations.Representation;
 import net.digitalid.utility.conversion.exceptions.ConnectionException;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
@@ -101,6 +102,15 @@ public interface Converter<@Unspecifiable TYPE, @Specifiable PROVIDED> {
     @Pure
     public default @Nullable @NonNullableElements @NonEmpty ImmutableList<Converter<? extends TYPE, PROVIDED>> getSubtypeConverters() { return null; }
     
+    /**
+     * Returns the dispatch table of this converter and its transitive subtype converters, which is built on the first call and cached afterwards.
+     * Encoders and decoders use the table to find the converter for the runtime type of a polymorphic object without searching the subtype converters.
+     */
+    @Pure
+    public default @Nonnull SubtypeDispatchTable<TYPE, PROVIDED> getSubtypeDispatchTable() {
+        return SubtypeDispatchTable.of(this);
+    }
+    
     /* -------------------------------------------------- Convert -------------------------------------------------- */
     
     /**
@@ -109,6 +119,15 @@ public interface Converter<@Unspecifiable TYPE, @Specifiable PROVIDED> {
     @Pure
     public <@Unspecifiable EXCEPTION extends ConnectionException> void convert(@NonCaptured @Unmodified @Nonnull TYPE object, @NonCaptured @Modified @Nonnull Encoder<EXCEPTION> encoder) throws EXCEPTION;
     
+    /**
+     * Returns the exact number of bytes that the given object takes in the layout of the {@link net.digitalid.utility.conversion.counting.CountingEncoder counting encoder} or -1 if the object has to be traversed to determine its size.
+     * Converters of types whose encoding has a fixed size can return a constant so that the counting encoder does not have to convert the object.
+     */
+    @Pure
+    public default long estimateSize(@NonCaptured @Unmodified @Nonnull TYPE object) {
+        return -1;
+    }
+    
     /* -------------------------------------------------- Recover -------------------------------------------------- */
     
     /**
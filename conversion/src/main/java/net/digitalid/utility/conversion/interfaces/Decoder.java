@@ -17,7 +17,12 @@ package net.digitalid.utility.conversion.interfaces;
 
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
 import java.security.MessageDigest;
+import java.security.spec.AlgorithmParameterSpec;
 import java.util.Map;
 import java.util.zip.Inflater;
 
@@ -29,14 +34,16 @@ import net.digitalid.utility.annotations.generics.Specifiable;
 import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.ownership.Shared;
 import net.digitalid.utility.annotations.parameter.Modified;
-import net.digitalid.utility.collaboration.annotations.TODO;
-import net.digitalid.utility.collaboration.enumerations.Author;
 import net.digitalid.utility.conversion.enumerations.Representation;
 import net.digitalid.utility.conversion.exceptions.ConnectionException;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.pool.Lease;
+import net.digitalid.utility.conversion.pool.ResourcePools;
+import net.digitalid.utility.conversion.recovery.Check;
 import net.digitalid.utility.functional.failable.FailableCollector;
 import net.digitalid.utility.functional.interfaces.UnaryFunction;
 import net.digitalid.utility.validation.annotations.method.Ensures;
@@ -76,6 +83,16 @@ public interface Decoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Impure
     public <@Unspecifiable TYPE, @Specifiable PROVIDED> @Nullable TYPE decodeNullableObject(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided) throws EXCEPTION, RecoveryException;
     
+    /**
+     * Decodes a non-nullable object that was encoded with {@link Encoder#encodePolymorphicObject(Converter, Object)} with the converter of the decoded tag and the given provided object.
+     * 
+     * @see Converter#getSubtypeDispatchTable()
+     */
+    @Impure
+    public default <@Unspecifiable TYPE, @Specifiable PROVIDED> @Nonnull TYPE decodePolymorphicObject(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided) throws EXCEPTION, RecoveryException {
+        return converter.getSubtypeDispatchTable().recover(this, provided);
+    }
+    
     /* -------------------------------------------------- Values -------------------------------------------------- */
     
     /**
@@ -134,15 +151,19 @@ public interface Decoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     
     /**
      * Decodes and returns a string of at most 64 characters.
+     * 
+     * @throws RecoveryException if the decoder references strings that were decoded before and the reference is invalid.
      */
     @Impure
-    public @Nonnull @MaxSize(64) String decodeString64() throws EXCEPTION;
+    public @Nonnull @MaxSize(64) String decodeString64() throws EXCEPTION, RecoveryException;
     
     /**
      * Decodes and returns a string.
+     * 
+     * @throws RecoveryException if the decoder references strings that were decoded before and the reference is invalid.
      */
     @Impure
-    public @Nonnull String decodeString() throws EXCEPTION;
+    public @Nonnull String decodeString() throws EXCEPTION, RecoveryException;
     
     /**
      * Decodes and returns a byte array of size 16.
@@ -168,6 +189,89 @@ public interface Decoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Impure
     public @Nonnull InputStream decodeBinaryStream() throws EXCEPTION;
     
+    /* -------------------------------------------------- Primitive Arrays -------------------------------------------------- */
+    
+    /**
+     * Decodes and returns a boolean array.
+     * By default, the length is decoded as an int followed by the values packed as a bitset into a byte array.
+     */
+    @Impure
+    public default @Capturable @Nonnull boolean[] decodeBooleanArray() throws EXCEPTION, RecoveryException {
+        final int length = decodeInteger32();
+        final @Nonnull byte[] bytes = decodeBinary();
+        Check.that(length >= 0 && bytes.length == (length + 7) >>> 3).orThrow("The $ bytes cannot contain exactly $ packed booleans.", bytes.length, length);
+        final @Nonnull boolean[] values = new boolean[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (bytes[i >>> 3] & 1 << (i & 7)) != 0;
+        }
+        return values;
+    }
+    
+    /**
+     * Decodes and returns a short array.
+     * By default, the values are decoded in big-endian order from a single byte array.
+     */
+    @Impure
+    public default @Capturable @Nonnull short[] decodeInteger16Array() throws EXCEPTION, RecoveryException {
+        final @Nonnull byte[] bytes = decodeBinary();
+        Check.that(bytes.length % Short.BYTES == 0).orThrow("The $ bytes cannot contain a whole number of shorts.", bytes.length);
+        final @Nonnull short[] values = new short[bytes.length / Short.BYTES];
+        ByteBuffer.wrap(bytes).asShortBuffer().get(values);
+        return values;
+    }
+    
+    /**
+     * Decodes and returns an int array.
+     * By default, the values are decoded in big-endian order from a single byte array.
+     */
+    @Impure
+    public default @Capturable @Nonnull int[] decodeInteger32Array() throws EXCEPTION, RecoveryException {
+        final @Nonnull byte[] bytes = decodeBinary();
+        Check.that(bytes.length % Integer.BYTES == 0).orThrow("The $ bytes cannot contain a whole number of ints.", bytes.length);
+        final @Nonnull int[] values = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return values;
+    }
+    
+    /**
+     * Decodes and returns a long array.
+     * By default, the values are decoded in big-endian order from a single byte array.
+     */
+    @Impure
+    public default @Capturable @Nonnull long[] decodeInteger64Array() throws EXCEPTION, RecoveryException {
+        final @Nonnull byte[] bytes = decodeBinary();
+        Check.that(bytes.length % Long.BYTES == 0).orThrow("The $ bytes cannot contain a whole number of longs.", bytes.length);
+        final @Nonnull long[] values = new long[bytes.length / Long.BYTES];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(values);
+        return values;
+    }
+    
+    /**
+     * Decodes and returns a float array.
+     * By default, the values are decoded in big-endian order from a single byte array.
+     */
+    @Impure
+    public default @Capturable @Nonnull float[] decodeDecimal32Array() throws EXCEPTION, RecoveryException {
+        final @Nonnull byte[] bytes = decodeBinary();
+        Check.that(bytes.length % Float.BYTES == 0).orThrow("The $ bytes cannot contain a whole number of floats.", bytes.length);
+        final @Nonnull float[] values = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(values);
+        return values;
+    }
+    
+    /**
+     * Decodes and returns a double array.
+     * By default, the values are decoded in big-endian order from a single byte array.
+     */
+    @Impure
+    public default @Capturable @Nonnull double[] decodeDecimal64Array() throws EXCEPTION, RecoveryException {
+        final @Nonnull byte[] bytes = decodeBinary();
+        Check.that(bytes.length % Double.BYTES == 0).orThrow("The $ bytes cannot contain a whole number of doubles.", bytes.length);
+        final @Nonnull double[] values = new double[bytes.length / Double.BYTES];
+        ByteBuffer.wrap(bytes).asDoubleBuffer().get(values);
+        return values;
+    }
+    
     /* -------------------------------------------------- Collections -------------------------------------------------- */
     
     /**
@@ -194,19 +298,35 @@ public interface Decoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Impure
     public <@Unspecifiable TYPE, @Specifiable PROVIDED, @Unspecifiable ITERABLE, @Unspecifiable COLLECTOR extends FailableCollector<@Nullable TYPE, @Nonnull ITERABLE, RecoveryException, RecoveryException>> @Nonnull ITERABLE decodeUnorderedIterableWithNullableElements(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull COLLECTOR> constructor) throws EXCEPTION, RecoveryException;
     
+    /**
+     * Decodes non-nullable key-value pairs with the given converters and provided objects and returns the map created by the given constructor, which receives the number of key-value pairs, with the decoded key-value pairs.
+     */
+    @Impure
+    public <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE, @Unspecifiable MAP extends Map<@Nonnull KEY, @Nonnull VALUE>> @Nonnull MAP decodeMap(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull MAP> constructor) throws EXCEPTION, RecoveryException;
+    
+    /**
+     * Decodes nullable key-value pairs with the given converters and provided objects and returns the map created by the given constructor, which receives the number of key-value pairs, with the decoded key-value pairs.
+     */
+    @Impure
+    public <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE, @Unspecifiable MAP extends Map<@Nullable KEY, @Nullable VALUE>> @Nonnull MAP decodeMapWithNullableValues(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull MAP> constructor) throws EXCEPTION, RecoveryException;
+    
     /**
      * Decodes non-nullable key-value pairs with the given converters and provided objects and returns the given empty map with the decoded key-value pairs.
+     * Prefer {@link #decodeMap(Converter, Object, Converter, Object, UnaryFunction) the variant with a constructor} so that the map can be created with a suitable initial capacity.
      */
     @Impure
-    @TODO(task = "Use also a constructor function instead of the empty map to have a suitable initial capacity.", date = "2017-01-27", author = Author.KASPAR_ETTER)
-    public <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE> @Nonnull Map<@Nonnull KEY, @Nonnull VALUE> decodeMap(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @NonCaptured @Modified @Nonnull @Empty Map<@Nonnull KEY, @Nonnull VALUE> emptyMap) throws EXCEPTION, RecoveryException;
+    public default <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE> @Nonnull Map<@Nonnull KEY, @Nonnull VALUE> decodeMap(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @NonCaptured @Modified @Nonnull @Empty Map<@Nonnull KEY, @Nonnull VALUE> emptyMap) throws EXCEPTION, RecoveryException {
+        return decodeMap(keyConverter, providedForKey, valueConverter, providedForValue, size -> emptyMap);
+    }
     
     /**
      * Decodes nullable key-value pairs with the given converters and provided objects and returns the given empty map with the decoded key-value pairs.
+     * Prefer {@link #decodeMapWithNullableValues(Converter, Object, Converter, Object, UnaryFunction) the variant with a constructor} so that the map can be created with a suitable initial capacity.
      */
     @Impure
-    @TODO(task = "Use also a constructor function instead of the empty map to have a suitable initial capacity.", date = "2017-01-27", author = Author.KASPAR_ETTER)
-    public <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE> @Nonnull Map<@Nullable KEY, @Nullable VALUE> decodeMapWithNullableValues(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @NonCaptured @Modified @Nonnull @Empty Map<@Nullable KEY, @Nullable VALUE> emptyMap) throws EXCEPTION, RecoveryException;
+    public default <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE> @Nonnull Map<@Nullable KEY, @Nullable VALUE> decodeMapWithNullableValues(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @NonCaptured @Modified @Nonnull @Empty Map<@Nullable KEY, @Nullable VALUE> emptyMap) throws EXCEPTION, RecoveryException {
+        return decodeMapWithNullableValues(keyConverter, providedForKey, valueConverter, providedForValue, size -> emptyMap);
+    }
     
     /* -------------------------------------------------- Hashing -------------------------------------------------- */
     
@@ -223,6 +343,24 @@ public interface Decoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Ensures(condition = "isHashing()", message = "The decoder has to be hashing.")
     public void startHashing(@Nonnull MessageDigest digest);
     
+    /**
+     * Starts hashing all decodings with a digest for the given algorithm that is leased from the {@link ResourcePools#DIGESTS digest pool} until you {@link #stopHashing() stop hashing}.
+     * Close the returned lease after you stopped hashing in order to return the digest to the pool.
+     */
+    @Impure
+    @Ensures(condition = "isHashing()", message = "The decoder has to be hashing.")
+    public default @Capturable @Nonnull Lease<@Nonnull MessageDigest> startHashing(@Nonnull String algorithm) {
+        final @Nonnull Lease<@Nonnull MessageDigest> lease = ResourcePools.DIGESTS.lease(algorithm);
+        boolean started = false;
+        try {
+            startHashing(lease.get());
+            started = true;
+        } finally {
+            if (!started) { lease.close(); }
+        }
+        return lease;
+    }
+    
     /**
      * Stops hashing and returns the hash.
      */
@@ -245,6 +383,24 @@ public interface Decoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Ensures(condition = "isDecompressing()", message = "The decoder has to be decompressing.")
     public void startDecompressing(@Nonnull Inflater inflater) throws EXCEPTION;
     
+    /**
+     * Starts decompressing all decodings with an inflater for the ZLIB format that is leased from the {@link ResourcePools#INFLATERS inflater pool} until you {@link #stopDecompressing() stop decompressing}.
+     * Close the returned lease after you stopped decompressing in order to return the inflater to the pool.
+     */
+    @Impure
+    @Ensures(condition = "isDecompressing()", message = "The decoder has to be decompressing.")
+    public default @Capturable @Nonnull Lease<@Nonnull Inflater> startDecompressing() throws EXCEPTION {
+        final @Nonnull Lease<@Nonnull Inflater> lease = ResourcePools.INFLATERS.lease(false);
+        boolean started = false;
+        try {
+            startDecompressing(lease.get());
+            started = true;
+        } finally {
+            if (!started) { lease.close(); }
+        }
+        return lease;
+    }
+    
     /**
      * Stops decompressing.
      */
@@ -267,6 +423,25 @@ public interface Decoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Ensures(condition = "isDecrypting()", message = "The decoder has to be decrypting.")
     public void startDecrypting(@Nonnull Cipher cipher);
     
+    /**
+     * Starts decrypting all decodings with a cipher for the given transformation that is leased from the {@link ResourcePools#CIPHERS cipher pool} and initialized with the given key and parameters until you {@link #stopDecrypting() stop decrypting}.
+     * Close the returned lease after you stopped decrypting in order to return the cipher to the pool.
+     */
+    @Impure
+    @Ensures(condition = "isDecrypting()", message = "The decoder has to be decrypting.")
+    public default @Capturable @Nonnull Lease<@Nonnull Cipher> startDecrypting(@Nonnull String transformation, @Nonnull Key key, @Nullable AlgorithmParameterSpec parameters) throws InvalidKeyException, InvalidAlgorithmParameterException {
+        final @Nonnull Lease<@Nonnull Cipher> lease = ResourcePools.CIPHERS.lease(transformation);
+        boolean started = false;
+        try {
+            lease.get().init(Cipher.DECRYPT_MODE, key, parameters);
+            startDecrypting(lease.get());
+            started = true;
+        } finally {
+            if (!started) { lease.close(); }
+        }
+        return lease;
+    }
+    
     /**
      * Stops decrypting.
      */
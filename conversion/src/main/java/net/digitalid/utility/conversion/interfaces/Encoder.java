@@ -17,7 +17,12 @@ package net.digitalid.utility.conversion.interfaces;
 
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
 import java.security.MessageDigest;
+import java.security.spec.AlgorithmParameterSpec;
 import java.util.Map;
 import java.util.zip.Deflater;
 
@@ -28,10 +33,13 @@ import javax.crypto.Cipher;
 import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.conversion.enumerations.Representation;
 import net.digitalid.utility.conversion.exceptions.ConnectionException;
+import net.digitalid.utility.conversion.pool.Lease;
+import net.digitalid.utility.conversion.pool.ResourcePools;
 import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.validation.annotations.method.Ensures;
 import net.digitalid.utility.validation.annotations.method.Requires;
@@ -69,6 +77,16 @@ public interface Encoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Impure
     public <@Unspecifiable TYPE> void encodeNullableObject(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nullable TYPE object) throws EXCEPTION;
     
+    /**
+     * Encodes the given non-nullable object, whose runtime type can be a subtype of the type of the given converter, together with the tag of the converter for its runtime type.
+     * 
+     * @see Converter#getSubtypeDispatchTable()
+     */
+    @Impure
+    public default <@Unspecifiable TYPE> void encodePolymorphicObject(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nonnull TYPE object) throws EXCEPTION {
+        converter.getSubtypeDispatchTable().convert(object, this);
+    }
+    
     /* -------------------------------------------------- Values -------------------------------------------------- */
     
     /**
@@ -161,6 +179,77 @@ public interface Encoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Impure
     public void encodeBinaryStream(@Nonnull InputStream inputStream, int length) throws EXCEPTION;
     
+    /* -------------------------------------------------- Primitive Arrays -------------------------------------------------- */
+    
+    /**
+     * Encodes the given boolean array.
+     * By default, the length is encoded as an int followed by the values packed as a bitset into a byte array.
+     */
+    @Impure
+    public default void encodeBooleanArray(@NonCaptured @Unmodified @Nonnull boolean[] values) throws EXCEPTION {
+        final @Nonnull byte[] bytes = new byte[(values.length + 7) >>> 3];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i]) { bytes[i >>> 3] |= 1 << (i & 7); }
+        }
+        encodeInteger32(values.length);
+        encodeBinary(bytes);
+    }
+    
+    /**
+     * Encodes the given short array.
+     * By default, the values are encoded in big-endian order as a single byte array.
+     */
+    @Impure
+    public default void encodeInteger16Array(@NonCaptured @Unmodified @Nonnull short[] values) throws EXCEPTION {
+        final @Nonnull ByteBuffer buffer = ByteBuffer.allocate(values.length * Short.BYTES);
+        buffer.asShortBuffer().put(values);
+        encodeBinary(buffer.array());
+    }
+    
+    /**
+     * Encodes the given int array.
+     * By default, the values are encoded in big-endian order as a single byte array.
+     */
+    @Impure
+    public default void encodeInteger32Array(@NonCaptured @Unmodified @Nonnull int[] values) throws EXCEPTION {
+        final @Nonnull ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+        buffer.asIntBuffer().put(values);
+        encodeBinary(buffer.array());
+    }
+    
+    /**
+     * Encodes the given long array.
+     * By default, the values are encoded in big-endian order as a single byte array.
+     */
+    @Impure
+    public default void encodeInteger64Array(@NonCaptured @Unmodified @Nonnull long[] values) throws EXCEPTION {
+        final @Nonnull ByteBuffer buffer = ByteBuffer.allocate(values.length * Long.BYTES);
+        buffer.asLongBuffer().put(values);
+        encodeBinary(buffer.array());
+    }
+    
+    /**
+     * Encodes the given float array.
+     * By default, the values are encoded in big-endian order as a single byte array.
+     */
+    @Impure
+    public default void encodeDecimal32Array(@NonCaptured @Unmodified @Nonnull float[] values) throws EXCEPTION {
+        final @Nonnull ByteBuffer buffer = ByteBuffer.allocate(values.length * Float.BYTES);
+        buffer.asFloatBuffer().put(values);
+        encodeBinary(buffer.array());
+    }
+    
+    /**
+     * Encodes the given double array.
+     * By default, the values are encoded in big-endian order as a single byte array.
+     */
+    @Impure
+    public default void encodeDecimal64Array(@NonCaptured @Unmodified @Nonnull double[] values) throws EXCEPTION {
+        final @Nonnull ByteBuffer buffer = ByteBuffer.allocate(values.length * Double.BYTES);
+        buffer.asDoubleBuffer().put(values);
+        encodeBinary(buffer.array());
+    }
+    
     /* -------------------------------------------------- Collections -------------------------------------------------- */
     
     /**
@@ -214,6 +303,24 @@ public interface Encoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Ensures(condition = "isHashing()", message = "The encoder has to be hashing.")
     public void startHashing(@Nonnull MessageDigest digest);
     
+    /**
+     * Starts hashing all encodings with a digest for the given algorithm that is leased from the {@link ResourcePools#DIGESTS digest pool} until you {@link #stopHashing() stop hashing}.
+     * Close the returned lease after you stopped hashing in order to return the digest to the pool.
+     */
+    @Impure
+    @Ensures(condition = "isHashing()", message = "The encoder has to be hashing.")
+    public default @Capturable @Nonnull Lease<@Nonnull MessageDigest> startHashing(@Nonnull String algorithm) {
+        final @Nonnull Lease<@Nonnull MessageDigest> lease = ResourcePools.DIGESTS.lease(algorithm);
+        boolean started = false;
+        try {
+            startHashing(lease.get());
+            started = true;
+        } finally {
+            if (!started) { lease.close(); }
+        }
+        return lease;
+    }
+    
     /**
      * Stops hashing and returns the hash.
      */
@@ -236,6 +343,24 @@ public interface Encoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Ensures(condition = "isCompressing()", message = "The encoder has to be compressing.")
     public void startCompressing(@Nonnull Deflater deflater) throws EXCEPTION;
     
+    /**
+     * Starts compressing all encodings with a deflater for the given compression level that is leased from the {@link ResourcePools#DEFLATERS deflater pool} until you {@link #stopCompressing() stop compressing}.
+     * Close the returned lease after you stopped compressing in order to return the deflater to the pool.
+     */
+    @Impure
+    @Ensures(condition = "isCompressing()", message = "The encoder has to be compressing.")
+    public default @Capturable @Nonnull Lease<@Nonnull Deflater> startCompressing(int level) throws EXCEPTION {
+        final @Nonnull Lease<@Nonnull Deflater> lease = ResourcePools.DEFLATERS.lease(level);
+        boolean started = false;
+        try {
+            startCompressing(lease.get());
+            started = true;
+        } finally {
+            if (!started) { lease.close(); }
+        }
+        return lease;
+    }
+    
     /**
      * Stops compressing.
      */
@@ -258,6 +383,25 @@ public interface Encoder<@Unspecifiable EXCEPTION extends ConnectionException> e
     @Ensures(condition = "isEncrypting()", message = "The encoder has to be encrypting.")
     public void startEncrypting(@Nonnull Cipher cipher);
     
+    /**
+     * Starts encrypting all encodings with a cipher for the given transformation that is leased from the {@link ResourcePools#CIPHERS cipher pool} and initialized with the given key and parameters until you {@link #stopEncrypting() stop encrypting}.
+     * Close the returned lease after you stopped encrypting in order to return the cipher to the pool.
+     */
+    @Impure
+    @Ensures(condition = "isEncrypting()", message = "The encoder has to be encrypting.")
+    public default @Capturable @Nonnull Lease<@Nonnull Cipher> startEncrypting(@Nonnull String transformation, @Nonnull Key key, @Nullable AlgorithmParameterSpec parameters) throws InvalidKeyException, InvalidAlgorithmParameterException {
+        final @Nonnull Lease<@Nonnull Cipher> lease = ResourcePools.CIPHERS.lease(transformation);
+        boolean started = false;
+        try {
+            lease.get().init(Cipher.ENCRYPT_MODE, key, parameters);
+            startEncrypting(lease.get());
+            started = true;
+        } finally {
+            if (!started) { lease.close(); }
+        }
+        return lease;
+    }
+    
     /**
      * Stops encrypting.
      */
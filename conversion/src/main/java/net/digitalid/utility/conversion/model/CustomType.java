@@ -261,6 +261,18 @@ public class CustomType {
     
     public static final CustomType BINARYSTREAM = new CustomType(fieldTypeSignature -> fieldTypeSignature.isAssignable(InputStream.class), "BINARYSTREAM");
     
+    public static final CustomType BOOLEAN_ARRAY = new CustomType(fieldTypeSignature -> fieldTypeSignature.isAssignable(boolean[].class), "BOOLEAN_ARRAY");
+    
+    public static final CustomType INTEGER16_ARRAY = new CustomType(fieldTypeSignature -> fieldTypeSignature.isAssignable(short[].class), "INTEGER16_ARRAY");
+    
+    public static final CustomType INTEGER32_ARRAY = new CustomType(fieldTypeSignature -> fieldTypeSignature.isAssignable(int[].class), "INTEGER32_ARRAY");
+    
+    public static final CustomType INTEGER64_ARRAY = new CustomType(fieldTypeSignature -> fieldTypeSignature.isAssignable(long[].class), "INTEGER64_ARRAY");
+    
+    public static final CustomType DECIMAL32_ARRAY = new CustomType(fieldTypeSignature -> fieldTypeSignature.isAssignable(float[].class), "DECIMAL32_ARRAY");
+    
+    public static final CustomType DECIMAL64_ARRAY = new CustomType(fieldTypeSignature -> fieldTypeSignature.isAssignable(double[].class), "DECIMAL64_ARRAY");
+    
     public static final IterableType SET = new IterableType(fieldTypeSignature -> ProcessingUtility.isRawSubtype(fieldTypeSignature.getTypeMirror(), Set.class), "SET");
     
     public static final IterableType LIST = new IterableType(fieldTypeSignature -> ProcessingUtility.isRawSubtype(fieldTypeSignature.getTypeMirror(), List.class) || ProcessingUtility.isRawSubtype(fieldTypeSignature.getTypeMirror(), FiniteIterable.class), "LIST");
@@ -274,7 +286,7 @@ public class CustomType {
     /**
      * A list of custom types that are statically defined in this class.
      */
-    private static final @Nonnull FiniteIterable<@Nonnull CustomType> customTypes = FiniteIterable.of(BOOLEAN, INTEGER08, INTEGER16, INTEGER32, INTEGER64, INTEGER, DECIMAL32, DECIMAL64, STRING1, STRING64, STRING128, STRING, BINARY128, BINARY256, BINARY, SET, LIST, ARRAY, MAP, TUPLE);
+    private static final @Nonnull FiniteIterable<@Nonnull CustomType> customTypes = FiniteIterable.of(BOOLEAN, INTEGER08, INTEGER16, INTEGER32, INTEGER64, INTEGER, DECIMAL32, DECIMAL64, STRING1, STRING64, STRING128, STRING, BINARY128, BINARY256, BINARY, BOOLEAN_ARRAY, INTEGER16_ARRAY, INTEGER32_ARRAY, INTEGER64_ARRAY, DECIMAL32_ARRAY, DECIMAL64_ARRAY, SET, LIST, ARRAY, MAP, TUPLE);
     
     /* -------------------------------------------------- Predicate -------------------------------------------------- */
     
@@ -314,6 +326,13 @@ public class CustomType {
         return false;
     }
     
+    /**
+     * Returns whether the custom type is an array of primitive values other than bytes, which is encoded as a contiguous block.
+     */
+    public boolean isPrimitiveArrayType() {
+        return this == BOOLEAN_ARRAY || this == INTEGER16_ARRAY || this == INTEGER32_ARRAY || this == INTEGER64_ARRAY || this == DECIMAL32_ARRAY || this == DECIMAL64_ARRAY;
+    }
+    
     /**
      * Always returns false, unless the custom type is a {@link MapType}.
      */
@@ -414,7 +433,7 @@ public class CustomType {
             final @Nullable List<TypeMirror> componentTypes = ProcessingUtility.getComponentTypes(representingFieldType);
             Require.that(componentTypes.size() == 2).orThrow("Map type does not have 2 component types.");
             return typeImporter.importStaticallyIfPossible(CustomType.class.getCanonicalName() + "." + customType.getTypeName()) + ".of" + Brackets.inRound(getTypeName(componentTypes.get(0), FiniteIterable.of(), typeImporter) + ", " + getTypeName(componentTypes.get(1), FiniteIterable.of(), typeImporter));
-        } else if (representingFieldType.getKind().isPrimitive() || customType == BINARY || customType == BINARY128 || customType == BINARY256) {
+        } else if (representingFieldType.getKind().isPrimitive() || customType == BINARY || customType == BINARY128 || customType == BINARY256 || customType.isPrimitiveArrayType()) {
             return typeImporter.importStaticallyIfPossible(CustomType.class.getCanonicalName() + "." + customType.getTypeName());
         } else {
             @Nonnull String typeName = customType.getTypeName();
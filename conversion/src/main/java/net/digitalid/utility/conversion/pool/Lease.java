@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.pool;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCapturable;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.functional.interfaces.Consumer;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A lease grants the exclusive use of a resource from a {@link ResourcePool resource pool} until it is closed.
+ * Closing a lease resets the resource and returns it to the pool, which is why the resource must no longer be used afterwards.
+ */
+@Mutable
+public class Lease<@Unspecifiable RESOURCE> implements AutoCloseable {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull RESOURCE resource;
+    
+    private final @Nonnull Consumer<? super RESOURCE> releaser;
+    
+    private boolean closed = false;
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected Lease(@Nonnull RESOURCE resource, @Nonnull Consumer<? super RESOURCE> releaser) {
+        this.resource = resource;
+        this.releaser = releaser;
+    }
+    
+    /* -------------------------------------------------- Resource -------------------------------------------------- */
+    
+    /**
+     * Returns whether this lease has been closed.
+     */
+    @Pure
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    /**
+     * Returns the leased resource.
+     */
+    @Pure
+    public @NonCapturable @Nonnull RESOURCE get() {
+        Require.that(!closed).orThrow("The resource may no longer be used after the lease has been closed.");
+        
+        return resource;
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Returns the resource to its pool unless this lease has already been closed.
+     */
+    @Impure
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            releaser.consume(resource);
+        }
+    }
+    
+}
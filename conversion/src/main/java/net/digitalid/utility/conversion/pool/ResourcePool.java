@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.pool;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.functional.interfaces.Consumer;
+import net.digitalid.utility.functional.interfaces.UnaryFunction;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A resource pool {@link #lease(Object) leases} resources that are costly to create, such as deflaters whose native memory is only freed when they are ended.
+ * The resources are grouped by a key that determines how they are created, and at most a bounded number of idle resources is kept for each key.
+ * A resource that is returned to a full pool is disposed of instead.
+ * The pool counts how often a lease could be served by an idle resource, how often a resource had to be created and how often one had to be disposed of.
+ * 
+ * @see ResourcePools
+ */
+@Mutable
+@ThreadSafe
+public class ResourcePool<@Unspecifiable KEY, @Unspecifiable RESOURCE> {
+    
+    /* -------------------------------------------------- Functions -------------------------------------------------- */
+    
+    private final @NonNegative int capacity;
+    
+    private final @Nonnull UnaryFunction<? super KEY, ? extends RESOURCE> factory;
+    
+    private final @Nonnull Consumer<? super RESOURCE> resetter;
+    
+    private final @Nonnull Consumer<? super RESOURCE> disposer;
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected ResourcePool(@NonNegative int capacity, @Captured @Nonnull UnaryFunction<? super KEY, ? extends RESOURCE> factory, @Captured @Nonnull Consumer<? super RESOURCE> resetter, @Captured @Nonnull Consumer<? super RESOURCE> disposer) {
+        this.capacity = capacity;
+        this.factory = factory;
+        this.resetter = resetter;
+        this.disposer = disposer;
+    }
+    
+    /**
+     * Returns a new resource pool that keeps at most the given number of idle resources per key.
+     * A pool without capacity creates a new resource for each lease and disposes of it when the lease is closed.
+     * The factory creates a resource for a key, the resetter prepares a returned resource for its next lease and the disposer releases a resource that does not fit into the pool.
+     */
+    @Pure
+    public static @Capturable <@Unspecifiable KEY, @Unspecifiable RESOURCE> @Nonnull ResourcePool<KEY, RESOURCE> with(@NonNegative int capacity, @Captured @Nonnull UnaryFunction<? super KEY, ? extends RESOURCE> factory, @Captured @Nonnull Consumer<? super RESOURCE> resetter, @Captured @Nonnull Consumer<? super RESOURCE> disposer) {
+        return new ResourcePool<>(capacity, factory, resetter, disposer);
+    }
+    
+    /* -------------------------------------------------- Idle Resources -------------------------------------------------- */
+    
+    private final @Nonnull ConcurrentHashMap<@Nonnull KEY, @Nonnull ArrayBlockingQueue<@Nonnull RESOURCE>> idleResources = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the number of idle resources that are kept for the given key.
+     */
+    @Pure
+    public @NonNegative int getIdleCount(@Nonnull KEY key) {
+        final @Nullable ArrayBlockingQueue<@Nonnull RESOURCE> queue = idleResources.get(key);
+        return queue == null ? 0 : queue.size();
+    }
+    
+    /* -------------------------------------------------- Leasing -------------------------------------------------- */
+    
+    /**
+     * Leases an idle resource for the given key or a newly created one if there is no idle resource.
+     * The returned lease has to be closed once the resource is no longer used, ideally with a try-with-resources statement.
+     */
+    @Impure
+    public @Capturable @Nonnull Lease<RESOURCE> lease(@Nonnull KEY key) {
+        final @Nullable ArrayBlockingQueue<@Nonnull RESOURCE> queue = idleResources.get(key);
+        @Nullable RESOURCE resource = queue == null ? null : queue.poll();
+        if (resource != null) {
+            hits.increment();
+        } else {
+            resource = factory.evaluate(key);
+            creations.increment();
+        }
+        return new Lease<>(resource, released -> release(key, released));
+    }
+    
+    /**
+     * Resets the given resource and keeps it for the given key or disposes of it if the pool is full for that key.
+     */
+    @Impure
+    private void release(@Nonnull KEY key, @Captured @Nonnull RESOURCE resource) {
+        resetter.consume(resource);
+        if (capacity == 0 || !idleResources.computeIfAbsent(key, k -> new ArrayBlockingQueue<>(capacity)).offer(resource)) {
+            disposer.consume(resource);
+            disposals.increment();
+        }
+    }
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private final @Nonnull LongAdder hits = new LongAdder();
+    
+    private final @Nonnull LongAdder creations = new LongAdder();
+    
+    private final @Nonnull LongAdder disposals = new LongAdder();
+    
+    /**
+     * Returns how many leases were served by an idle resource.
+     */
+    @Pure
+    public @NonNegative long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * Returns how many resources were created because there was no idle resource for the requested key.
+     */
+    @Pure
+    public @NonNegative long getCreations() {
+        return creations.sum();
+    }
+    
+    /**
+     * Returns how many returned resources were disposed of because the pool was full for their key.
+     */
+    @Pure
+    public @NonNegative long getDisposals() {
+        return disposals.sum();
+    }
+    
+    /**
+     * Resets the metrics of this pool.
+     */
+    @Impure
+    public void resetMetrics() {
+        hits.reset();
+        creations.reset();
+        disposals.reset();
+    }
+    
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.conversion.pool;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nonnull;
+import javax.crypto.Cipher;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.conversion.hashing.Fnv1aDigest;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * This utility class provides the resource pools for the objects that encoders and decoders need for compressing, hashing and encrypting.
+ * 
+ * @see net.digitalid.utility.conversion.interfaces.Encoder
+ * @see net.digitalid.utility.conversion.interfaces.Decoder
+ */
+@Utility
+public abstract class ResourcePools {
+    
+    /* -------------------------------------------------- Capacity -------------------------------------------------- */
+    
+    /**
+     * Stores the number of idle resources that each pool keeps per key.
+     */
+    public static final int CAPACITY = 16;
+    
+    /* -------------------------------------------------- Compression -------------------------------------------------- */
+    
+    /**
+     * Stores the pool of deflaters, which are keyed by their compression level and produce the ZLIB format.
+     */
+    public static final @Nonnull ResourcePool<@Nonnull Integer, @Nonnull Deflater> DEFLATERS = ResourcePool.with(CAPACITY, level -> new Deflater(level), Deflater::reset, Deflater::end);
+    
+    /**
+     * Stores the pool of inflaters, which are keyed by whether they expect the raw deflate format instead of the ZLIB format.
+     */
+    public static final @Nonnull ResourcePool<@Nonnull Boolean, @Nonnull Inflater> INFLATERS = ResourcePool.with(CAPACITY, nowrap -> new Inflater(nowrap), Inflater::reset, Inflater::end);
+    
+    /* -------------------------------------------------- Hashing -------------------------------------------------- */
+    
+    /**
+     * Returns a new message digest for the given algorithm, which can also be the {@link Fnv1aDigest#ALGORITHM FNV-1a algorithm} that no provider offers.
+     */
+    @Pure
+    private static @Nonnull MessageDigest createDigest(@Nonnull String algorithm) {
+        if (algorithm.equals(Fnv1aDigest.ALGORITHM)) { return new Fnv1aDigest(); }
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (@Nonnull GeneralSecurityException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Stores the pool of message digests, which are keyed by their algorithm.
+     */
+    public static final @Nonnull ResourcePool<@Nonnull String, @Nonnull MessageDigest> DIGESTS = ResourcePool.with(CAPACITY, ResourcePools::createDigest, MessageDigest::reset, digest -> {});
+    
+    /* -------------------------------------------------- Encryption -------------------------------------------------- */
+    
+    @Pure
+    private static @Nonnull Cipher createCipher(@Nonnull String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (@Nonnull GeneralSecurityException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Stores the pool of ciphers, which are keyed by their transformation and have to be initialized before they are used.
+     * Since a cipher cannot be cleared of its key and initialization vector, the pool keeps no idle ciphers and creates a new one for each lease.
+     */
+    public static final @Nonnull ResourcePool<@Nonnull String, @Nonnull Cipher> CIPHERS = ResourcePool.with(0, ResourcePools::createCipher, cipher -> {}, cipher -> {});
+    
+}
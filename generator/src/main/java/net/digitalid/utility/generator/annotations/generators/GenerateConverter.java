@@ -35,4 +35,13 @@ import net.digitalid.utility.validation.annotations.meta.TypeValidator;
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 @TypeValidator(GenerateAnnotationValidator.class)
-public @interface GenerateConverter {}
+public @interface GenerateConverter {
+    
+    /**
+     * Returns whether the generated converter shall also implement the {@link net.digitalid.utility.conversion.buffer.BufferCodec buffer codec} interface.
+     * The buffer codec writes the fields directly into a byte buffer, which is faster than the portable path through an encoder but supports only
+     * primitive values, strings, byte arrays and objects whose converter also has a buffer codec.
+     */
+    boolean generateBufferCodec() default false;
+    
+}
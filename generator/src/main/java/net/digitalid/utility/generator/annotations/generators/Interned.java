@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.generator.annotations.generators;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.generator.generators.SubclassGenerator;
+import net.digitalid.utility.generator.interning.InternTable;
+import net.digitalid.utility.processing.logging.ErrorLogger;
+import net.digitalid.utility.processing.logging.SourcePosition;
+import net.digitalid.utility.processing.utility.ProcessingUtility;
+import net.digitalid.utility.validation.annotations.meta.TypeValidator;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+import net.digitalid.utility.validation.annotations.type.Stateless;
+import net.digitalid.utility.validation.validator.TypeAnnotationValidator;
+
+/**
+ * Marks an immutable class such that equal instances are shared.
+ * The {@link SubclassGenerator subclass generator} then adds a static intern method backed by an {@link InternTable intern table} to the generated subclass,
+ * which the generated builder and converter use to return the canonical instance instead of a new one.
+ * This reduces the heap usage of highly repetitive values and lets the generated equals method succeed on its reference comparison.
+ * 
+ * @see GenerateSubclass
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@TypeValidator(Interned.Validator.class)
+public @interface Interned {
+    
+    /* -------------------------------------------------- Validator -------------------------------------------------- */
+    
+    /**
+     * This class checks the use of the surrounding annotation.
+     */
+    @Stateless
+    public static class Validator implements TypeAnnotationValidator {
+        
+        @Pure
+        @Override
+        public void checkUsage(@Nonnull Element element, @Nonnull AnnotationMirror annotationMirror, @NonCaptured @Modified @Nonnull ErrorLogger errorLogger) {
+            if (!ProcessingUtility.hasAnnotation(element, GenerateSubclass.class)) {
+                errorLogger.log("Only types with a generated subclass can be interned.", SourcePosition.of(element, annotationMirror));
+            }
+            if (element.getAnnotation(Immutable.class) == null) {
+                errorLogger.log("Only immutable types can be interned.", SourcePosition.of(element, annotationMirror));
+            }
+            if (!((TypeElement) element).getTypeParameters().isEmpty()) {
+                errorLogger.log("Generic types cannot be interned.", SourcePosition.of(element, annotationMirror));
+            }
+        }
+        
+    }
+    
+}
@@ -16,14 +16,21 @@
 package net.digitalid.utility.generator.generators;
 
 import java.lang.annotation.Annotation;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -45,7 +52,10 @@ import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.circumfixes.Brackets;
 import net.digitalid.utility.circumfixes.Quotes;
 import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.conversion.buffer.BufferCodec;
+import net.digitalid.utility.conversion.buffer.BufferCoding;
 import net.digitalid.utility.conversion.collectors.ArrayCollector;
+import net.digitalid.utility.conversion.collectors.Capacities;
 import net.digitalid.utility.conversion.collectors.CollectionCollector;
 import net.digitalid.utility.conversion.enumerations.Representation;
 import net.digitalid.utility.conversion.exceptions.ConnectionException;
@@ -59,6 +69,7 @@ import net.digitalid.utility.conversion.model.CustomField;
 import net.digitalid.utility.conversion.model.CustomType;
 import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.generator.GeneratorProcessor;
+import net.digitalid.utility.generator.annotations.generators.GenerateConverter;
 import net.digitalid.utility.generator.annotations.generators.GenerateTableConverter;
 import net.digitalid.utility.generator.exceptions.FailedClassGenerationException;
 import net.digitalid.utility.generator.information.field.FieldInformation;
@@ -68,7 +79,10 @@ import net.digitalid.utility.generator.information.method.MethodInformation;
 import net.digitalid.utility.generator.information.type.EnumInformation;
 import net.digitalid.utility.generator.information.type.TypeInformation;
 import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.immutable.ImmutableListCollector;
 import net.digitalid.utility.immutable.ImmutableMap;
+import net.digitalid.utility.immutable.ImmutableSet;
+import net.digitalid.utility.immutable.ImmutableSetCollector;
 import net.digitalid.utility.processing.logging.ProcessingLog;
 import net.digitalid.utility.processing.logging.SourcePosition;
 import net.digitalid.utility.processing.utility.ProcessingUtility;
@@ -233,6 +247,22 @@ public class ConverterGenerator extends JavaFileGenerator {
 //        }
 //    }
     
+    /**
+     * Returns the name of the encoder and decoder methods for arrays of the given primitive type or null if arrays of this type are encoded element by element.
+     */
+    @Pure
+    private static @Nullable String getPrimitiveArrayTypeName(@Nonnull TypeKind componentKind) {
+        switch (componentKind) {
+            case BOOLEAN: return "Boolean";
+            case SHORT: return "Integer16";
+            case INT: return "Integer32";
+            case LONG: return "Integer64";
+            case FLOAT: return "Decimal32";
+            case DOUBLE: return "Decimal64";
+            default: return null;
+        }
+    }
+    
     @Impure
     private void addEncodingStatement(@Nonnull FieldInformation field) {
         final @Nonnull TypeMirror type = field.getType();
@@ -256,6 +286,8 @@ public class ConverterGenerator extends JavaFileGenerator {
             if (componentType != null) {
                 if (componentType.getKind() == TypeKind.BYTE) {
                     addStatement("encoder.encodeBinary(" + access + ")");
+                } else if (type.getKind() == TypeKind.ARRAY && getPrimitiveArrayTypeName(componentType.getKind()) != null) {
+                    addStatement("encoder.encode" + getPrimitiveArrayTypeName(componentType.getKind()) + "Array(" + access + ")");
                 } else {
                     final boolean unordered = ProcessingUtility.isRawSubtype(type, Set.class);
                     final boolean nullable = !field.hasAnnotation(NonNullableElements.class);
@@ -285,6 +317,26 @@ public class ConverterGenerator extends JavaFileGenerator {
         endMethod();
     }
     
+    /**
+     * Generates the estimate size method if all representing fields are primitive so that the counting encoder does not have to convert objects whose encoding has a fixed size.
+     */
+    @Impure
+    private void generateEstimateSizeMethod() {
+        final @Nonnull FiniteIterable<@Nonnull FieldInformation> fields = filterNonExternallyProvidedFields(typeInformation.getRepresentingFieldInformation());
+        if (!fields.matchAll(field -> field.getType().getKind().isPrimitive())) { return; }
+        
+        int size = 0;
+        for (@Nonnull FieldInformation field : fields) {
+            size += getSizeOfPrimitiveType(field.getType().getKind());
+        }
+        
+        addAnnotation(Pure.class);
+        addAnnotation(Override.class);
+        beginMethod("public long estimateSize(@" + importIfPossible(NonCaptured.class) + " @" + importIfPossible(Unmodified.class) + " @" + importIfPossible(Nonnull.class) + " " + typeInformation.getName() + " " + getObjectVariableName() + ")");
+        addStatement("return " + size);
+        endMethod();
+    }
+    
     /* -------------------------------------------------- Recovery -------------------------------------------------- */
     
     /**
@@ -345,6 +397,61 @@ public class ConverterGenerator extends JavaFileGenerator {
         }
     }
     
+    /**
+     * Returns whether the given type is one of the freezable or read-only collections, which cannot be referenced as the generator is below the collections module.
+     */
+    @Pure
+    private static boolean isFreezableCollection(@Nonnull TypeMirror type) {
+        final @Nonnull String typeName = ProcessingUtility.getSimpleName(type);
+        return typeName.startsWith("Freezable") || typeName.startsWith("ReadOnly");
+    }
+    
+    /**
+     * Returns the expression that creates an empty map of the given declared type with a suitable initial capacity for the number of key-value pairs in the variable {@code size}.
+     */
+    @Pure
+    private @Nonnull String getMapConstructor(@Nonnull TypeMirror type) {
+        final @Nonnull String capacity = importIfPossible(Capacities.class) + ".forHashing(size)";
+        if (isFreezableCollection(type)) {
+            final @Nonnull String builder = ProcessingUtility.getSimpleName(type).equals("FreezableHashMap") ? "FreezableHashMapBuilder" : "FreezableLinkedHashMapBuilder";
+            return importIfPossible("net.digitalid.utility.collections.map." + builder) + ".buildWithInitialCapacity(" + capacity + ")";
+        } else if (ProcessingUtility.isRawSubtype(type, SortedMap.class)) {
+            return "new " + importIfPossible(TreeMap.class) + "<>()";
+        } else if (ProcessingUtility.correspond(type, HashMap.class)) {
+            return "new " + importIfPossible(HashMap.class) + "<>(" + capacity + ")";
+        } else {
+            return "new " + importIfPossible(LinkedHashMap.class) + "<>(" + capacity + ")";
+        }
+    }
+    
+    /**
+     * Returns the expression that maps the number of elements in the variable {@code size} to a collector for the given declared iterable type or the literal {@code null} if the type is not supported.
+     */
+    @Pure
+    private @Nonnull String getCollectorConstructor(@Nonnull TypeMirror type) {
+        final @Nonnull String collection;
+        if (type.getKind() == TypeKind.ARRAY) {
+            return importIfPossible(ArrayCollector.class) + "::with";
+        } else if (ProcessingUtility.isRawSubtype(type, Set.class)) {
+            final @Nonnull String capacity = importIfPossible(Capacities.class) + ".forHashing(size)";
+            if (ProcessingUtility.correspond(type, ImmutableSet.class)) { return "size -> " + importIfPossible(ImmutableSetCollector.class) + ".withExpectedSize(size)"; }
+            else if (isFreezableCollection(type)) { collection = importIfPossible("net.digitalid.utility.collections.set." + (ProcessingUtility.getSimpleName(type).equals("FreezableHashSet") ? "FreezableHashSetBuilder" : "FreezableLinkedHashSetBuilder")) + ".buildWithInitialCapacity(" + capacity + ")"; }
+            else if (ProcessingUtility.isRawSubtype(type, SortedSet.class)) { collection = "new " + importIfPossible(TreeSet.class) + "<>()"; }
+            else if (ProcessingUtility.correspond(type, HashSet.class)) { collection = "new " + importIfPossible(HashSet.class) + "<>(" + capacity + ")"; }
+            else { collection = "new " + importIfPossible(LinkedHashSet.class) + "<>(" + capacity + ")"; }
+        // SORRY: The problem with checking if the type is a FiniteIterable instead of ReadOnlyList is, that it also matches the ReadOnlySet type.
+        // TODO: Use ReadOnlyList instead of FiniteIterable as soon as the generator can be above collections or introduce intermediate types of FiniteIterable below.
+        } else if (ProcessingUtility.isRawSubtype(type, List.class) || ProcessingUtility.isRawSubtype(type, FiniteIterable.class)) {
+            if (ProcessingUtility.correspond(type, ImmutableList.class) || ProcessingUtility.correspond(type, FiniteIterable.class)) { return "size -> " + importIfPossible(ImmutableListCollector.class) + ".withExpectedSize(size)"; }
+            else if (isFreezableCollection(type)) { collection = importIfPossible("net.digitalid.utility.collections.list.FreezableArrayList") + ".withInitialCapacity(size)"; }
+            else if (ProcessingUtility.correspond(type, LinkedList.class)) { collection = "new " + importIfPossible(LinkedList.class) + "<>()"; }
+            else { collection = "new " + importIfPossible(ArrayList.class) + "<>(size)"; }
+        } else {
+            return "null";
+        }
+        return "size -> " + importIfPossible(CollectionCollector.class) + ".with(" + collection + ")";
+    }
+    
     @Impure
     private void addDecodingStatement(@Nonnull FieldInformation field) {
         final @Nonnull TypeMirror type = field.getType();
@@ -357,33 +464,22 @@ public class ConverterGenerator extends JavaFileGenerator {
             if (supertype != null) {
                 final boolean nullable = !field.hasAnnotation(NonNullableElements.class);
                 final @Nonnull List<@Nonnull ? extends TypeMirror> typeArguments = supertype.getTypeArguments();
-                addStatement("final " + importIfPossible(field.getType()) + " " + field.getName() + " = decoder.decodeMap" + (nullable ? "WithNullableValues" : "") + "(" + importConverterType(typeArguments.get(0), FiniteIterable.of()) + ", " + provided + ", " + importConverterType(typeArguments.get(1), FiniteIterable.of()) + ", " + provided + ", new " + importIfPossible(LinkedHashMap.class) + "<>())"); // TODO: Find a way to be more flexible than hard-coding LinkedHashMap.
+                final @Nonnull String decoding = "decoder.decodeMap" + (nullable ? "WithNullableValues" : "") + "(" + importConverterType(typeArguments.get(0), FiniteIterable.of()) + ", " + provided + ", " + importConverterType(typeArguments.get(1), FiniteIterable.of()) + ", " + provided + ", size -> " + getMapConstructor(type) + ")";
+                // Immutable maps cannot be filled by the decoder, which is why their mappings are copied from a presized linked hash map.
+                if (ProcessingUtility.correspond(type, ImmutableMap.class)) { addStatement("final " + importIfPossible(field.getType()) + " " + field.getName() + " = " + importIfPossible(ImmutableMap.class) + ".withMappingsOf(" + decoding + ")"); }
+                else { addStatement("final " + importIfPossible(field.getType()) + " " + field.getName() + " = " + decoding); }
             }
         } else if (type.getKind() == TypeKind.ARRAY || ProcessingUtility.isRawSubtype(type, Iterable.class)) {
             final @Nullable TypeMirror componentType = ProcessingUtility.getComponentType(type);
             if (componentType != null) {
                 if (componentType.getKind() == TypeKind.BYTE) {
                     addStatement("final @" + importIfPossible(Nonnull.class) + " byte[] " + field.getName() + " = decoder.decodeBinary()");
+                } else if (type.getKind() == TypeKind.ARRAY && getPrimitiveArrayTypeName(componentType.getKind()) != null) {
+                    addStatement("final @" + importIfPossible(Nonnull.class) + " " + importIfPossible(type) + " " + field.getName() + " = decoder.decode" + getPrimitiveArrayTypeName(componentType.getKind()) + "Array()");
                 } else {
                     final boolean unordered = ProcessingUtility.isRawSubtype(type, Set.class);
                     final boolean nullable = !field.hasAnnotation(NonNullableElements.class);
-                    final @Nonnull String collector;
-                    final @Nonnull String typeName = ProcessingUtility.getSimpleName(type);
-                    if (type.getKind() == TypeKind.ARRAY) {
-                        collector = importIfPossible(ArrayCollector.class) + "::with";
-                    } else if (ProcessingUtility.isRawSubtype(type, Set.class)) {
-                        final @Nonnull String collection;
-                        if (!typeName.startsWith("Freezable") && !typeName.startsWith("ReadOnly")) { collection = "new " + importIfPossible(LinkedHashSet.class) + "<>(size)"; }
-                        else { collection = importIfPossible("net.digitalid.utility.collections.set.FreezableLinkedHashSetBuilder") + ".buildWithInitialCapacity(size)"; }
-                        collector = "size -> " + importIfPossible(CollectionCollector.class) + ".with(" + collection + ")";
-                    // SORRY: The problem with checking if the type is a FiniteIterable instead of ReadOnlyList is, that it also matches the ReadOnlySet type.
-                    // TODO: Use ReadOnlyList instead of FiniteIterable as soon as the generator can be above collections or introduce intermediate types of FiniteIterable below.
-                    } else if (ProcessingUtility.isRawSubtype(type, List.class) || ProcessingUtility.isRawSubtype(type, FiniteIterable.class)) {
-                        final @Nonnull String collection;
-                        if (!typeName.startsWith("Freezable") && !typeName.startsWith("ReadOnly")) { collection = "new " + importIfPossible(ArrayList.class) + "<>(size)"; }
-                        else { collection = importIfPossible("net.digitalid.utility.collections.list.FreezableArrayList") + ".withInitialCapacity(size)"; }
-                        collector = "size -> " + importIfPossible(CollectionCollector.class) + ".with(" + collection + ")";
-                    } else { collector = "null"; }
+                    final @Nonnull String collector = getCollectorConstructor(type);
                     addStatement("final " + importIfPossible(field.getType()) + " " + field.getName() + " = decoder.decode" + (unordered ? "Unordered" : "Ordered") + "Iterable" + (nullable ? "WithNullableElements" : "") + "(" + importConverterType(componentType, FiniteIterable.of()) + ", " + provided + ", " + collector + ")");
                 }
             }
@@ -432,9 +528,19 @@ public class ConverterGenerator extends JavaFileGenerator {
 //        }
         
         fields.doForEach(this::addDecodingStatement);
+        addInstantiationStatement(externallyProvidedFields.combine(fields));
+        endMethod();
+    }
+    
+    /**
+     * Adds the statement that returns a new instance of the type from the given fields, which have to be available as local variables.
+     * Exceptions that are thrown by the recover method or the initialize method are wrapped in a recovery exception.
+     */
+    @Impure
+    private void addInstantiationStatement(@Nonnull FiniteIterable<@Nonnull FieldInformation> fields) {
         final @Nullable ExecutableInformation recoverConstructorOrMethod = typeInformation.getRecoverConstructorOrMethod();
         if (!getThrownTypesOfInitializeMethod().isEmpty() || recoverConstructorOrMethod != null && recoverConstructorOrMethod.throwsExceptions()) { beginTry(); }
-        addStatement(typeInformation.getInstantiationCode(true, true, true, externallyProvidedFields.combine(fields)));
+        addStatement(typeInformation.getInstantiationCode(true, true, true, fields));
         if (!getThrownTypesOfInitializeMethod().isEmpty() || recoverConstructorOrMethod != null && recoverConstructorOrMethod.throwsExceptions()) {
             if (recoverConstructorOrMethod != null && recoverConstructorOrMethod.throwsExceptions()) {
                 endTryOrCatchBeginCatch(recoverConstructorOrMethod.getElement().getThrownTypes());
@@ -444,6 +550,187 @@ public class ConverterGenerator extends JavaFileGenerator {
             addStatement("throw " + importIfPossible(RecoveryExceptionBuilder.class) + ".withMessage(\"Could not recover " + Strings.prependWithIndefiniteArticle(Strings.decamelize(typeInformation.getName())) + ".\").withCause(exception).build()");
             endCatch();
         }
+    }
+    
+    /* -------------------------------------------------- Buffer Codec -------------------------------------------------- */
+    
+    /**
+     * Returns whether a buffer codec shall be generated for the type.
+     */
+    @Pure
+    private boolean shouldGenerateBufferCodec() {
+        final @Nullable GenerateConverter generateConverterAnnotation = typeInformation.getAnnotationOrNull(GenerateConverter.class);
+        return generateConverterAnnotation != null && generateConverterAnnotation.generateBufferCodec();
+    }
+    
+    /**
+     * Returns the number of bytes that the given primitive type takes in a byte buffer and in the layout of the counting encoder.
+     */
+    @Pure
+    private static int getSizeOfPrimitiveType(@Nonnull TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN: return 1;
+            case BYTE: return 1;
+            case SHORT: return 2;
+            case CHAR: return 2;
+            case INT: return 4;
+            case LONG: return 8;
+            case FLOAT: return 4;
+            case DOUBLE: return 8;
+            default: throw FailedClassGenerationException.with("The type " + kind + " is not primitive.");
+        }
+    }
+    
+    /**
+     * Returns the name of the converter of the given type if it has a buffer codec or null otherwise.
+     */
+    @Pure
+    private @Nullable String getBufferCodecConverter(@Nonnull TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED || !((DeclaredType) type).getTypeArguments().isEmpty()) { return null; }
+        final @Nullable GenerateConverter generateConverterAnnotation = ((DeclaredType) type).asElement().getAnnotation(GenerateConverter.class);
+        if (generateConverterAnnotation == null || !generateConverterAnnotation.generateBufferCodec()) { return null; }
+        return importIfPossible(ProcessingUtility.getQualifiedName(type) + "Converter");
+    }
+    
+    /**
+     * Returns whether the buffer codec supports the given field and logs an error otherwise.
+     */
+    @Pure
+    private boolean isSupportedByBufferCodec(@Nonnull FieldInformation field) {
+        final @Nonnull TypeMirror type = field.getType();
+        if (type.getKind().isPrimitive() || ProcessingUtility.isRawSubtype(type, String.class) || getBufferCodecConverter(type) != null) { return true; }
+        if (type.getKind() == TypeKind.ARRAY && ProcessingUtility.getComponentType(type).getKind() == TypeKind.BYTE && !field.hasAnnotation(Nullable.class)) { return true; }
+        ProcessingLog.error("The buffer codec supports only primitive values, strings, non-nullable byte arrays and objects whose converter has a buffer codec.", SourcePosition.of(field.getElement()));
+        return false;
+    }
+    
+    /**
+     * Generates static methods that compute the size of an object and encode and decode it with a byte buffer as well as instance methods that implement the buffer codec interface with them.
+     * The fixed-width part of the encoding is computed during generation so that only strings, byte arrays and nested objects need to be measured at runtime.
+     * The encoding method checks the remaining bytes of the buffer once instead of for every field and nested buffer codecs are called statically.
+     */
+    @Impure
+    private void generateBufferCodec() {
+        final @Nonnull FiniteIterable<@Nonnull FieldInformation> fields = filterNonExternallyProvidedFields(typeInformation.getRepresentingFieldInformation());
+        if (!filterExternallyProvidedFields(typeInformation.getRepresentingFieldInformation()).isEmpty() || !typeInformation.getTypeArguments().isEmpty() || typeInformation instanceof EnumInformation) {
+            ProcessingLog.error("A buffer codec can only be generated for non-generic classes without provided fields.", SourcePosition.of(typeInformation.getElement()));
+            return;
+        }
+        if (!fields.matchAll(this::isSupportedByBufferCodec)) { return; }
+        
+        final @Nonnull String object = getObjectVariableName();
+        final @Nonnull String type = typeInformation.getName();
+        
+        int fixedSize = 0;
+        final @Nonnull List<@Nonnull String> variableSizes = new ArrayList<>();
+        for (@Nonnull FieldInformation field : fields) {
+            final @Nonnull TypeMirror fieldType = field.getType();
+            final @Nonnull String access = object + "." + field.getAccessCode();
+            if (fieldType.getKind().isPrimitive()) {
+                fixedSize += getSizeOfPrimitiveType(fieldType.getKind());
+            } else {
+                final @Nullable String converter = getBufferCodecConverter(fieldType);
+                final @Nonnull String size = converter != null ? converter + ".getEncodedSizeOf(" + access + ")" : importIfPossible(BufferCoding.class) + ".getEncodedSize(" + access + ")";
+                if (field.hasAnnotation(Nullable.class)) {
+                    fixedSize += 1;
+                    variableSizes.add("(" + access + " == null ? 0 : " + size + ")");
+                } else {
+                    variableSizes.add(size);
+                }
+            }
+        }
+        
+        addField("public static final int FIXED_ENCODED_SIZE = " + fixedSize);
+        
+        beginJavadoc();
+        addJavadoc("Returns the number of bytes that are needed to encode the given object into a byte buffer.");
+        endJavadoc();
+        addAnnotation(Pure.class);
+        beginMethod("public static int getEncodedSizeOf(@" + importIfPossible(NonCaptured.class) + " @" + importIfPossible(Unmodified.class) + " @" + importIfPossible(Nonnull.class) + " " + type + " " + object + ")");
+        addStatement("return FIXED_ENCODED_SIZE" + FiniteIterable.of(variableSizes).map(size -> " + " + size).join(""));
+        endMethod();
+        
+        beginJavadoc();
+        addJavadoc("Encodes the given object into the given byte buffer at its current position.");
+        endJavadoc();
+        addAnnotation(Pure.class);
+        beginMethod("public static void encodeInto(@" + importIfPossible(NonCaptured.class) + " @" + importIfPossible(Unmodified.class) + " @" + importIfPossible(Nonnull.class) + " " + type + " " + object + ", @" + importIfPossible(NonCaptured.class) + " @" + importIfPossible(Modified.class) + " @" + importIfPossible(Nonnull.class) + " " + importIfPossible(ByteBuffer.class) + " buffer)");
+        addStatement(importIfPossible(BufferCoding.class) + ".requireRemaining(buffer, " + (variableSizes.isEmpty() ? "FIXED_ENCODED_SIZE" : "getEncodedSizeOf(" + object + ")") + ")");
+        for (@Nonnull FieldInformation field : fields) {
+            final @Nonnull TypeMirror fieldType = field.getType();
+            final @Nonnull String access = object + "." + field.getAccessCode();
+            switch (fieldType.getKind()) {
+                case BOOLEAN: addStatement("buffer.put(" + access + " ? (byte) 1 : (byte) 0)"); break;
+                case BYTE: addStatement("buffer.put(" + access + ")"); break;
+                case SHORT: addStatement("buffer.putShort(" + access + ")"); break;
+                case CHAR: addStatement("buffer.putChar(" + access + ")"); break;
+                case INT: addStatement("buffer.putInt(" + access + ")"); break;
+                case LONG: addStatement("buffer.putLong(" + access + ")"); break;
+                case FLOAT: addStatement("buffer.putFloat(" + access + ")"); break;
+                case DOUBLE: addStatement("buffer.putDouble(" + access + ")"); break;
+                default:
+                    final @Nullable String converter = getBufferCodecConverter(fieldType);
+                    final @Nonnull String statement = converter != null ? converter + ".encodeInto(" + access + ", buffer)" : importIfPossible(BufferCoding.class) + (fieldType.getKind() == TypeKind.ARRAY ? ".putBytes(" : ".putString(") + access + ", buffer)";
+                    if (field.hasAnnotation(Nullable.class)) {
+                        beginIf(access + " == null");
+                        addStatement("buffer.put((byte) 0)");
+                        endIfBeginElse();
+                        addStatement("buffer.put((byte) 1)");
+                        addStatement(statement);
+                        endElse();
+                    } else {
+                        addStatement(statement);
+                    }
+            }
+        }
+        endMethod();
+        
+        beginJavadoc();
+        addJavadoc("Decodes an object from the given byte buffer at its current position.");
+        endJavadoc();
+        addAnnotation(Pure.class);
+        beginMethod("public static @" + importIfPossible(Capturable.class) + " @" + importIfPossible(Nonnull.class) + " " + type + " decodeFrom(@" + importIfPossible(NonCaptured.class) + " @" + importIfPossible(Modified.class) + " @" + importIfPossible(Nonnull.class) + " " + importIfPossible(ByteBuffer.class) + " buffer) throws " + importIfPossible(RecoveryException.class));
+        beginTry();
+        for (@Nonnull FieldInformation field : fields) {
+            final @Nonnull TypeMirror fieldType = field.getType();
+            final @Nonnull String declaration = "final " + importIfPossible(fieldType) + " " + field.getName() + " = ";
+            switch (fieldType.getKind()) {
+                case BOOLEAN: addStatement(declaration + "buffer.get() != 0"); break;
+                case BYTE: addStatement(declaration + "buffer.get()"); break;
+                case SHORT: addStatement(declaration + "buffer.getShort()"); break;
+                case CHAR: addStatement(declaration + "buffer.getChar()"); break;
+                case INT: addStatement(declaration + "buffer.getInt()"); break;
+                case LONG: addStatement(declaration + "buffer.getLong()"); break;
+                case FLOAT: addStatement(declaration + "buffer.getFloat()"); break;
+                case DOUBLE: addStatement(declaration + "buffer.getDouble()"); break;
+                default:
+                    final @Nullable String converter = getBufferCodecConverter(fieldType);
+                    final @Nonnull String expression = converter != null ? converter + ".decodeFrom(buffer)" : importIfPossible(BufferCoding.class) + (fieldType.getKind() == TypeKind.ARRAY ? ".getBytes(buffer)" : ".getString(buffer)");
+                    addStatement(declaration + (field.hasAnnotation(Nullable.class) ? "buffer.get() == 0 ? null : " : "") + expression);
+            }
+        }
+        addInstantiationStatement(fields);
+        endTryOrCatchBeginCatch(BufferUnderflowException.class);
+        addStatement("throw " + importIfPossible(RecoveryExceptionBuilder.class) + ".withMessage(\"The buffer ended before " + Strings.prependWithIndefiniteArticle(Strings.decamelize(typeInformation.getName())) + " could be decoded.\").withCause(exception).build()");
+        endCatch();
+        endMethod();
+        
+        addAnnotation(Pure.class);
+        addAnnotation(Override.class);
+        beginMethod("public int getEncodedSize(@" + importIfPossible(NonCaptured.class) + " @" + importIfPossible(Unmodified.class) + " @" + importIfPossible(Nonnull.class) + " " + type + " " + object + ")");
+        addStatement("return getEncodedSizeOf(" + object + ")");
+        endMethod();
+        
+        addAnnotation(Pure.class);
+        addAnnotation(Override.class);
+        beginMethod("public void encode(@" + importIfPossible(NonCaptured.class) + " @" + importIfPossible(Unmodified.class) + " @" + importIfPossible(Nonnull.class) + " " + type + " " + object + ", @" + importIfPossible(NonCaptured.class) + " @" + importIfPossible(Modified.class) + " @" + importIfPossible(Nonnull.class) + " " + importIfPossible(ByteBuffer.class) + " buffer)");
+        addStatement("encodeInto(" + object + ", buffer)");
+        endMethod();
+        
+        addAnnotation(Pure.class);
+        addAnnotation(Override.class);
+        beginMethod("public @" + importIfPossible(Capturable.class) + " @" + importIfPossible(Nonnull.class) + " " + type + " decode(@" + importIfPossible(NonCaptured.class) + " @" + importIfPossible(Modified.class) + " @" + importIfPossible(Nonnull.class) + " " + importIfPossible(ByteBuffer.class) + " buffer) throws " + importIfPossible(RecoveryException.class));
+        addStatement("return decodeFrom(buffer)");
         endMethod();
     }
     
@@ -717,7 +1004,8 @@ public class ConverterGenerator extends JavaFileGenerator {
         
         final @Nullable GenerateTableConverter generateTableConverterAnnotation = typeInformation.getAnnotationOrNull(GenerateTableConverter.class);
         final @Nonnull String superType = generateTableConverterAnnotation != null ? " extends " + importIfPossible(TableImplementation.class) : " implements " + importIfPossible(Converter.class);
-        beginClass("public class " + typeInformation.getSimpleNameOfGeneratedConverter() + importWithBounds(typeInformation.getTypeArguments()) + superType + "<" + typeInformation.getName() + ", " + getExternallyProvidedParameterDeclarationsAsString("") + ">");
+        final @Nonnull String bufferCodec = shouldGenerateBufferCodec() ? (generateTableConverterAnnotation != null ? " implements " : ", ") + importIfPossible(BufferCodec.class) + "<" + typeInformation.getName() + ">" : "";
+        beginClass("public class " + typeInformation.getSimpleNameOfGeneratedConverter() + importWithBounds(typeInformation.getTypeArguments()) + superType + "<" + typeInformation.getName() + ", " + getExternallyProvidedParameterDeclarationsAsString("") + ">" + bufferCodec);
         
         if (generateTableConverterAnnotation != null) {
             generateGetParentModule(generateTableConverterAnnotation);
@@ -736,7 +1024,11 @@ public class ConverterGenerator extends JavaFileGenerator {
         generateFields();
         generateGetFields();
         generateConvertMethod();
+        generateEstimateSizeMethod();
         generateRecoverMethod();
+        if (shouldGenerateBufferCodec()) {
+            generateBufferCodec();
+        }
     
         final @Nonnull ProcessingEnvironment processingEnvironment = StaticProcessingEnvironment.environment.get();
         this.javaVersion = processingEnvironment.getSourceVersion().ordinal();
@@ -15,16 +15,23 @@
  */
 package net.digitalid.utility.generator.generators;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.circumfixes.Brackets;
 import net.digitalid.utility.circumfixes.Quotes;
@@ -32,6 +39,8 @@ import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.generator.GeneratorProcessor;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.generator.annotations.generators.Interned;
+import net.digitalid.utility.generator.exceptions.FailedClassGenerationException;
 import net.digitalid.utility.generator.information.ElementInformation;
 import net.digitalid.utility.generator.information.ElementInformationImplementation;
 import net.digitalid.utility.generator.information.field.DirectlyAccessibleFieldInformation;
@@ -46,6 +55,7 @@ import net.digitalid.utility.generator.information.type.InterfaceInformation;
 import net.digitalid.utility.generator.information.type.TypeInformation;
 import net.digitalid.utility.generator.interceptor.MethodInterceptor;
 import net.digitalid.utility.generator.interceptor.MethodUtility;
+import net.digitalid.utility.generator.interning.InternTable;
 import net.digitalid.utility.generator.typevisitors.GenerateComparisonTypeVisitor;
 import net.digitalid.utility.generator.typevisitors.GenerateHashCodeTypeVisitor;
 import net.digitalid.utility.generator.typevisitors.GenerateToStringTypeVisitor;
@@ -60,6 +70,7 @@ import net.digitalid.utility.tuples.Quartet;
 import net.digitalid.utility.tuples.Triplet;
 import net.digitalid.utility.validation.annotations.generation.Derive;
 import net.digitalid.utility.validation.annotations.generation.Normalize;
+import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.utility.validation.processing.AnnotationHandlerUtility;
 import net.digitalid.utility.validation.validator.MethodAnnotationValidator;
@@ -81,6 +92,11 @@ public class SubclassGenerator extends JavaFileGenerator {
      */
     protected final @Nonnull TypeInformation typeInformation;
     
+    /**
+     * Stores whether the generated subclass caches its hash code.
+     */
+    protected final boolean cachesHashCode;
+    
     /* -------------------------------------------------- Generating Methods -------------------------------------------------- */
     
     private void generateMethodWithStatement(@Nonnull MethodInformation method, @Nonnull String statement) {
@@ -155,6 +171,94 @@ public class SubclassGenerator extends JavaFileGenerator {
                 generateMethodWithStatement(setter, statement);
             }
         }
+        
+        if (cachesHashCode) {
+            addSection("Cached Hash Code");
+            addComment("Zero denotes that the hash code has not yet been computed. Races are benign as every thread computes the same value.");
+            addField("private int cachedHashCode = 0");
+        }
+    }
+    
+    /* -------------------------------------------------- Hash Code Caching -------------------------------------------------- */
+    
+    /**
+     * Returns whether the hash code of the given type never changes once an instance has been constructed.
+     * This is the case for primitive types, their wrapper classes, strings and enums.
+     * Other immutable types qualify only if their subclass is generated as well and can itself cache its hash code.
+     * Arrays never qualify, since their elements can be replaced after construction.
+     * 
+     * @param visitedElements the generated types whose stability is already being determined, which guards against cycles.
+     */
+    @Pure
+    private static boolean hasStableHashCode(@Nonnull TypeMirror type, @Nonnull Set<TypeElement> visitedElements) {
+        if (type.getKind().isPrimitive()) { return true; }
+        if (type.getKind() != TypeKind.DECLARED) { return false; }
+        final @Nonnull TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        if (element.getKind() == ElementKind.ENUM) { return true; }
+        switch (element.getQualifiedName().toString()) {
+            case "java.lang.Boolean":
+            case "java.lang.Byte":
+            case "java.lang.Short":
+            case "java.lang.Character":
+            case "java.lang.Integer":
+            case "java.lang.Long":
+            case "java.lang.Float":
+            case "java.lang.Double":
+            case "java.lang.String":
+                return true;
+            default:
+                if (element.getAnnotation(Immutable.class) == null || element.getAnnotation(GenerateSubclass.class) == null) { return false; }
+                if (!visitedElements.add(element)) { return false; }
+                try {
+                    final @Nonnull TypeInformation nestedTypeInformation;
+                    if (element.getKind() == ElementKind.CLASS) {
+                        nestedTypeInformation = ClassInformation.of(element, (DeclaredType) type);
+                    } else if (element.getKind() == ElementKind.INTERFACE) {
+                        nestedTypeInformation = InterfaceInformation.of(element, (DeclaredType) type);
+                    } else {
+                        return false;
+                    }
+                    return canCacheHashCode(nestedTypeInformation, visitedElements);
+                } catch (@Nonnull FailedClassGenerationException exception) {
+                    // The generation of the nested type reports this problem itself.
+                    return false;
+                } finally {
+                    visitedElements.remove(element);
+                }
+        }
+    }
+    
+    /**
+     * Returns whether the subclass generated for the given type can cache its hash code.
+     * This requires that the type is immutable, that the hash code and equals methods are generated and that all representing fields are final with a stable hash code.
+     */
+    @Pure
+    private static boolean canCacheHashCode(@Nonnull TypeInformation typeInformation, @Nonnull Set<TypeElement> visitedElements) {
+        if (typeInformation.getElement().getAnnotation(Immutable.class) == null) { return false; }
+        if (typeInformation instanceof ClassInformation && (((ClassInformation) typeInformation).hashCodeMethod != null || ((ClassInformation) typeInformation).equalsMethod != null)) { return false; }
+        final @Nonnull FiniteIterable<FieldInformation> representingFieldInformation = typeInformation.getRepresentingFieldInformation();
+        return !representingFieldInformation.isEmpty() && representingFieldInformation.matchAll(field -> !field.isMutable() && hasStableHashCode(field.getType(), visitedElements));
+    }
+    
+    /* -------------------------------------------------- Interning -------------------------------------------------- */
+    
+    /**
+     * Generates an intern table and a static method that returns the canonical instance for a given instance if the type is interned.
+     */
+    protected void generateInterning() {
+        if (!typeInformation.hasAnnotation(Interned.class)) {
+            return;
+        }
+        final @Nonnull String subclass = typeInformation.getSimpleNameOfGeneratedSubclass();
+        addSection("Interning");
+        addField("private static final @" + importIfPossible(Nonnull.class) + " " + importIfPossible(InternTable.class) + "<@" + importIfPossible(Nonnull.class) + " " + subclass + "> internTable = InternTable.withNoEntries()");
+        beginJavadoc();
+        addJavadoc("Returns the canonical instance that is equal to the given instance.");
+        endJavadoc();
+        addAnnotation(Impure.class);
+        beginMethod((typeInformation.getAnnotation(GenerateSubclass.class).makePublic() ? "public " : "") + "static @" + importIfPossible(Nonnull.class) + " " + subclass + " intern(@" + importIfPossible(Nonnull.class) + " " + subclass + " instance)");
+        addStatement("return internTable.intern(instance)");
+        endMethod();
     }
     
     /* -------------------------------------------------- Constructors -------------------------------------------------- */
@@ -338,13 +442,20 @@ public class SubclassGenerator extends JavaFileGenerator {
         addAnnotation(Pure.class);
         addAnnotation(Override.class);
         beginMethod("public int hashCode()");
+        if (cachesHashCode) {
+            beginIf("cachedHashCode != 0");
+            addStatement("return cachedHashCode");
+            endIf();
+        }
         addStatement("int prime = 92_821");
         addStatement("int result = 46_411");
-        // TODO: Primitive types are auto-boxed right now. Is the hash of an auto-boxed value always the same?
         final @Nonnull FiniteIterable<FieldInformation> representingFieldInformation = typeInformation.getRepresentingFieldInformation();
         for (@Nonnull FieldInformation field : representingFieldInformation) {
             generateHashCodeTypeVisitor.visit(field.getType(), Triplet.of(field.getAccessCode(), this, "result"));
         }
+        if (cachesHashCode) {
+            addStatement("cachedHashCode = result");
+        }
         addStatement("return result");
         endMethod();
     }
@@ -373,12 +484,20 @@ public class SubclassGenerator extends JavaFileGenerator {
         beginIf("object == null || !(object instanceof " + typeInformation.getName() + ")");
         addStatement("return false");
         endIf();
+        if (cachesHashCode) {
+            final @Nonnull String subclass = typeInformation.getSimpleNameOfGeneratedSubclass() + typeInformation.getTypeArguments().map(argument -> "?").join(Brackets.POINTY, "");
+            beginIf("object instanceof " + subclass);
+            addStatement("final int thatHashCode = ((" + subclass + ") object).cachedHashCode");
+            beginIf("cachedHashCode != 0 && thatHashCode != 0 && cachedHashCode != thatHashCode");
+            addStatement("return false");
+            endIf();
+            endIf();
+        }
         addStatement("final @" + importIfPossible(Nonnull.class)+ " " + typeInformation.getName() + " that = (" + typeInformation.getName() + ") object");
         addStatement("boolean result = true");
         final @Nonnull FiniteIterable<FieldInformation> representingFieldInformation = typeInformation.getRepresentingFieldInformation();
         for (@Nonnull FieldInformation field : representingFieldInformation) {
             final @Nonnull String accessCode = field.getAccessCode();
-            // TODO: Maybe we should compare primitive values directly instead of boxing them.
             generateComparisonTypeVisitor.visit(field.getType(), Quartet.of("this." + accessCode, "that." + accessCode, this, "result"));
         }
         addStatement("return result");
@@ -436,6 +555,7 @@ public class SubclassGenerator extends JavaFileGenerator {
         super(typeInformation.getQualifiedNameOfGeneratedSubclass(), typeInformation.getElement());
         
         this.typeInformation = typeInformation;
+        this.cachesHashCode = canCacheHashCode(typeInformation, new HashSet<>(Collections.singleton(typeInformation.getElement())));
         Require.that(typeInformation.getAnnotation(GenerateSubclass.class) != null).orThrow("The SubclassGenerator should not have been called if the annotation @GenerateSubclass is missing.");
         @Nonnull String modifier = "";
         if (typeInformation.getAnnotation(GenerateSubclass.class).makePublic()) {
@@ -445,6 +565,7 @@ public class SubclassGenerator extends JavaFileGenerator {
 
         generateFields();
         generateConstructors();
+        generateInterning();
         overrideMethods();
         implementMethods();
         generateMethods();
@@ -34,6 +34,7 @@ import net.digitalid.utility.collaboration.enumerations.Author;
 import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.generator.annotations.generators.Interned;
 import net.digitalid.utility.generator.exceptions.FailedClassGenerationException;
 import net.digitalid.utility.generator.generators.BuilderGenerator;
 import net.digitalid.utility.generator.generators.ConverterGenerator;
@@ -309,6 +310,9 @@ public abstract class TypeInformation extends ElementInformationImplementation {
             final @Nonnull String nameOfConstructor;
             if (useSubclassIfAvailable && hasAnnotation(GenerateSubclass.class)) {
                 nameOfConstructor = getSimpleNameOfGeneratedSubclass();
+                if (hasAnnotation(Interned.class)) {
+                    return "return " + nameOfConstructor + ".intern(new " + nameOfConstructor + getConstructorParameters().map(ElementInformation::getName).join(Brackets.ROUND) + ")";
+                }
             } else {
                 nameOfConstructor = getName();
             }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.generator.interning;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * An intern table maps values to a canonical instance that is equal to them.
+ * The canonical instances are only weakly referenced so that they can be garbage collected once they are no longer used elsewhere.
+ * Values have to be immutable since changing their hash code or equality after they have been interned corrupts the table.
+ * 
+ * @see net.digitalid.utility.generator.annotations.generators.Interned
+ */
+@Mutable
+@ThreadSafe
+public class InternTable<@Specifiable VALUE> {
+    
+    /* -------------------------------------------------- Entry -------------------------------------------------- */
+    
+    /**
+     * An entry references a value weakly and stores its hash code, which is needed to remove the entry after the value has been collected.
+     */
+    private static class Entry<@Specifiable VALUE> extends WeakReference<VALUE> {
+        
+        private final int hashCode;
+        
+        private Entry(@Nonnull VALUE value, @Nonnull ReferenceQueue<? super VALUE> queue) {
+            super(value, queue);
+            
+            this.hashCode = value.hashCode();
+        }
+        
+        @Pure
+        @Override
+        public boolean equals(@Nullable Object object) {
+            if (object == this) { return true; }
+            if (!(object instanceof Entry)) { return false; }
+            final @Nonnull Entry<?> that = (Entry<?>) object;
+            if (hashCode != that.hashCode) { return false; }
+            final @Nullable VALUE value = get();
+            return value != null && value.equals(that.get());
+        }
+        
+        @Pure
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull ConcurrentHashMap<@Nonnull Entry<VALUE>, @Nonnull Entry<VALUE>> entries = new ConcurrentHashMap<>();
+    
+    private final @Nonnull ReferenceQueue<VALUE> queue = new ReferenceQueue<>();
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected InternTable() {}
+    
+    /**
+     * Returns a new intern table without entries.
+     */
+    @Pure
+    public static @Nonnull <@Specifiable VALUE> InternTable<VALUE> withNoEntries() {
+        return new InternTable<>();
+    }
+    
+    /* -------------------------------------------------- Interning -------------------------------------------------- */
+    
+    /**
+     * Returns the canonical instance that is equal to the given value.
+     * If no such instance exists yet, the given value becomes the canonical instance.
+     */
+    @Impure
+    public @Nonnull VALUE intern(@Nonnull VALUE value) {
+        removeCollectedEntries();
+        final @Nonnull Entry<VALUE> entry = new Entry<>(value, queue);
+        while (true) {
+            final @Nullable Entry<VALUE> existingEntry = entries.putIfAbsent(entry, entry);
+            if (existingEntry == null) { return value; }
+            final @Nullable VALUE existingValue = existingEntry.get();
+            if (existingValue != null) {
+                entry.clear();
+                return existingValue;
+            }
+            // The existing value was collected after it has been found equal to the given value.
+            entries.remove(existingEntry, existingEntry);
+        }
+    }
+    
+    /**
+     * Returns the number of canonical instances in this table, which may include instances that have been collected recently.
+     */
+    @Pure
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Removes the entries whose values have been garbage collected.
+     */
+    @Impure
+    public void removeCollectedEntries() {
+        @Nullable Reference<? extends VALUE> reference;
+        while ((reference = queue.poll()) != null) {
+            entries.remove(reference, reference);
+        }
+    }
+    
+}
@@ -21,6 +21,7 @@ import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.SimpleTypeVisitor7;
 
@@ -68,4 +69,23 @@ public class GenerateComparisonTypeVisitor extends SimpleTypeVisitor7<Object, Qu
         return null;
     }
     
+    @Override
+    public Object visitPrimitive(@Nonnull PrimitiveType t, @Nullable Quartet<@Nonnull String, @Nonnull String, @Nonnull JavaFileGenerator, String> quartet) {
+        Require.that(quartet != null).orThrow("The java file generator is a required parameter and cannot be generated on the fly. Please call visit(TypeMirror, Quartet<String, String, JavaFileGenerator, String>) instead.");
+        assert quartet != null;
+        
+        final @Nonnull String leftReference = quartet.get0();
+        final @Nonnull String rightReference = quartet.get1();
+        final @Nonnull JavaFileGenerator fileGenerator = quartet.get2();
+        final @Nonnull String result = quartet.get3();
+        
+        // Floating-point values are compared like their boxed counterparts so that NaN equals itself and 0.0 differs from -0.0.
+        switch (t.getKind()) {
+            case FLOAT: fileGenerator.addStatement(result + " = " + result + " && Float.compare(" + leftReference + ", " + rightReference + ") == 0"); break;
+            case DOUBLE: fileGenerator.addStatement(result + " = " + result + " && Double.compare(" + leftReference + ", " + rightReference + ") == 0"); break;
+            default: fileGenerator.addStatement(result + " = " + result + " && " + leftReference + " == " + rightReference);
+        }
+        return null;
+    }
+    
 }
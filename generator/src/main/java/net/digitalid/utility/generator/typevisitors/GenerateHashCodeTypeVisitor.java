@@ -21,6 +21,7 @@ import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.SimpleTypeVisitor7;
 
@@ -67,4 +68,29 @@ public class GenerateHashCodeTypeVisitor extends SimpleTypeVisitor7<@Nonnull Obj
         return null;
     }
     
+    @Pure
+    @Override
+    public Object visitPrimitive(@Nonnull PrimitiveType t, @Nullable @Modified Triplet<@Nonnull String, @Nonnull JavaFileGenerator, @Nonnull String> triplet) {
+        Require.that(triplet != null).orThrow("The java file generator is a required parameter and cannot be generated on the fly. Please call visit(TypeMirror, Triplet<String, JavaFileGenerator, String>) instead.");
+        assert triplet != null;
+        
+        final @Nonnull String object = triplet.get0();
+        final @Nonnull JavaFileGenerator fileGenerator = triplet.get1();
+        final @Nonnull String result = triplet.get2();
+        
+        // The static hash methods of the wrapper classes return the same value as the hash code of the boxed value.
+        switch (t.getKind()) {
+            case BOOLEAN: fileGenerator.addStatement(result + " = prime * " + result + " + Boolean.hashCode(" + object + ")"); break;
+            case BYTE: fileGenerator.addStatement(result + " = prime * " + result + " + Byte.hashCode(" + object + ")"); break;
+            case SHORT: fileGenerator.addStatement(result + " = prime * " + result + " + Short.hashCode(" + object + ")"); break;
+            case CHAR: fileGenerator.addStatement(result + " = prime * " + result + " + Character.hashCode(" + object + ")"); break;
+            case INT: fileGenerator.addStatement(result + " = prime * " + result + " + " + object); break;
+            case LONG: fileGenerator.addStatement(result + " = prime * " + result + " + Long.hashCode(" + object + ")"); break;
+            case FLOAT: fileGenerator.addStatement(result + " = prime * " + result + " + Float.hashCode(" + object + ")"); break;
+            case DOUBLE: fileGenerator.addStatement(result + " = prime * " + result + " + Double.hashCode(" + object + ")"); break;
+            default: return defaultAction(t, triplet);
+        }
+        return null;
+    }
+    
 }
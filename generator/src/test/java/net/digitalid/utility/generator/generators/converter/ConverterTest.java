@@ -15,17 +15,53 @@
  */
 package net.digitalid.utility.generator.generators.converter;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.spec.SecretKeySpec;
 
+import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.collaboration.annotations.TODO;
 import net.digitalid.utility.collaboration.enumerations.Author;
+import net.digitalid.utility.conversion.converters.Integer32Converter;
+import net.digitalid.utility.conversion.converters.StringConverter;
+import net.digitalid.utility.conversion.counting.CountingEncoder;
+import net.digitalid.utility.conversion.dictionary.DictionaryDecoder;
+import net.digitalid.utility.conversion.dictionary.DictionaryEncoder;
+import net.digitalid.utility.conversion.dispatch.SubtypeDispatchTable;
+import net.digitalid.utility.conversion.enumerations.Representation;
+import net.digitalid.utility.conversion.exceptions.ConnectionException;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
 import net.digitalid.utility.conversion.exceptions.RecoveryExceptionBuilder;
+import net.digitalid.utility.conversion.hashing.Fnv1aDigest;
+import net.digitalid.utility.conversion.hashing.HashingEncoder;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.conversion.interfaces.Decoder;
+import net.digitalid.utility.conversion.interfaces.Encoder;
+import net.digitalid.utility.conversion.model.CustomField;
+import net.digitalid.utility.conversion.pool.Lease;
+import net.digitalid.utility.conversion.pool.ResourcePool;
+import net.digitalid.utility.conversion.pool.ResourcePools;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.generator.annotations.generators.GenerateConverter;
+import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.string.Strings;
 import net.digitalid.utility.testing.UtilityTest;
 import net.digitalid.utility.tuples.Pair;
@@ -37,7 +73,11 @@ import net.digitalid.utility.validation.annotations.value.Valid;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 @Immutable
 @GenerateConverter
@@ -114,6 +154,39 @@ class ProvideValue {
     
 }
 
+@Immutable
+@GenerateConverter(generateBufferCodec = true)
+class BufferCodecFields {
+    
+    public final boolean flag;
+    
+    public final long number;
+    
+    public final @Nullable String text;
+    
+    protected BufferCodecFields(boolean flag, long number, @Nullable String text) {
+        this.flag = flag;
+        this.number = number;
+        this.text = text;
+    }
+    
+}
+
+@Immutable
+@GenerateConverter
+class PrimitiveArrayFields {
+    
+    public final @Nonnull int[] numbers;
+    
+    public final @Nonnull boolean[] flags;
+    
+    protected PrimitiveArrayFields(@Nonnull int[] numbers, @Nonnull boolean[] flags) {
+        this.numbers = numbers;
+        this.flags = flags;
+    }
+    
+}
+
 @GenerateConverter
 enum SimpleEnum {
     
@@ -206,6 +279,58 @@ class ClassContainingEnum {
     
 }
 
+/**
+ * This converter models objects whose runtime class is modeled by one of its subtype converters.
+ */
+@Immutable
+class PolymorphicConverter implements Converter<Object, Void> {
+    
+    public static final @Nonnull PolymorphicConverter INSTANCE = new PolymorphicConverter();
+    
+    @Pure
+    @Override
+    public @Nonnull Class<Object> getType() {
+        return Object.class;
+    }
+    
+    @Pure
+    @Override
+    public @Nonnull String getTypeName() {
+        return "Object";
+    }
+    
+    @Pure
+    @Override
+    public @Nonnull String getTypePackage() {
+        return "java.lang";
+    }
+    
+    @Pure
+    @Override
+    public @Nonnull ImmutableList<@Nonnull CustomField> getFields(@Nonnull Representation representation) {
+        return ImmutableList.withElements();
+    }
+    
+    @Pure
+    @Override
+    public @Nonnull ImmutableList<Converter<?, Void>> getSubtypeConverters() {
+        return ImmutableList.withElements(VariousFieldsConverter.INSTANCE, SimpleEnumConverter.INSTANCE);
+    }
+    
+    @Pure
+    @Override
+    public <@Unspecifiable EXCEPTION extends ConnectionException> void convert(@NonCaptured @Unmodified @Nonnull Object object, @NonCaptured @Modified @Nonnull Encoder<EXCEPTION> encoder) throws EXCEPTION {
+        throw new UnsupportedOperationException("Only the subtypes can be converted.");
+    }
+    
+    @Pure
+    @Override
+    public @Capturable <@Unspecifiable EXCEPTION extends ConnectionException> @Nonnull Object recover(@NonCaptured @Modified @Nonnull Decoder<EXCEPTION> decoder, Void provided) throws EXCEPTION, RecoveryException {
+        throw RecoveryExceptionBuilder.withMessage("Only the subtypes can be recovered.").build();
+    }
+    
+}
+
 @TODO(task = "The TestDeclaration type no longer exists. Rewrite those tests.", date = "2017-10-26", author = Author.KASPAR_ETTER)
 public class ConverterTest extends UtilityTest {
     
@@ -260,6 +385,262 @@ public class ConverterTest extends UtilityTest {
 //        assertEquals(CustomField.with(TUPLE.of(StringConverter.INSTANCE), "SimpleEnum", ImmutableList.withElements()), testDeclaration.collectedFields.get(0));
 //    }
     
+    @Test
+    public void testPrimitiveArrays() throws Exception {
+        final @Nonnull PrimitiveArrayFields object = new PrimitiveArrayFields(new int[] {1, -2, 3}, new boolean[] {true, false, false, true, true, false, true, false, true});
+        final @Nonnull TestEncoder testEncoder = new TestEncoder();
+        PrimitiveArrayFieldsConverter.INSTANCE.convert(object, testEncoder);
+        assertEquals(3, testEncoder.encodedValues.size());
+        assertEquals(12, ((byte[]) testEncoder.encodedValues.get(0).get0()).length);
+        assertEquals(2, ((byte[]) testEncoder.encodedValues.get(2).get0()).length);
+        
+        final Queue<@Nonnull Object> testQueue = new LinkedList<>();
+        for (@Nonnull Pair<@Nonnull Object, @Nonnull Class<?>> encodedValue : testEncoder.encodedValues) {
+            testQueue.add(encodedValue.get0());
+        }
+        final @Nonnull PrimitiveArrayFields recoveredObject = PrimitiveArrayFieldsConverter.INSTANCE.recover(new TestDecoder(testQueue), null);
+        assertArrayEquals(object.numbers, recoveredObject.numbers);
+        assertArrayEquals(object.flags, recoveredObject.flags);
+    }
+    
+    @Test
+    public void testBufferCodec() throws Exception {
+        final @Nonnull BufferCodecFields object = new BufferCodecFields(true, 42L, "bl\u00E4");
+        assertEquals(BufferCodecFieldsConverter.FIXED_ENCODED_SIZE + 8, BufferCodecFieldsConverter.INSTANCE.getEncodedSize(object));
+        final @Nonnull ByteBuffer buffer = ByteBuffer.allocate(BufferCodecFieldsConverter.INSTANCE.getEncodedSize(object));
+        BufferCodecFieldsConverter.INSTANCE.encode(object, buffer);
+        assertEquals(0, buffer.remaining());
+        buffer.flip();
+        final @Nonnull BufferCodecFields recoveredObject = BufferCodecFieldsConverter.INSTANCE.decode(buffer);
+        assertEquals(true, recoveredObject.flag);
+        assertEquals(42L, recoveredObject.number);
+        assertEquals("bl\u00E4", recoveredObject.text);
+    }
+    
+    @Test(expected = BufferOverflowException.class)
+    public void testBufferCodecWithInsufficientSpace() {
+        BufferCodecFieldsConverter.INSTANCE.encode(new BufferCodecFields(false, 0L, null), ByteBuffer.allocate(BufferCodecFieldsConverter.FIXED_ENCODED_SIZE - 1));
+    }
+    
+    @Test
+    public void testCountingEncoder() {
+        assertEquals(-1, VariousFieldsConverter.INSTANCE.estimateSize(new VariousFields(true, 5, "bla")));
+        assertEquals(12, CountingEncoder.getEncodedSize(VariousFieldsConverter.INSTANCE, new VariousFields(true, 5, "bla"), Representation.EXTERNAL));
+        assertEquals(1, EnumWithRecoverMethodAndNonDirectlyAccessibleFieldConverter.INSTANCE.estimateSize(EnumWithRecoverMethodAndNonDirectlyAccessibleField.ONE));
+        assertEquals(1, CountingEncoder.getEncodedSize(EnumWithRecoverMethodAndNonDirectlyAccessibleFieldConverter.INSTANCE, EnumWithRecoverMethodAndNonDirectlyAccessibleField.ONE, Representation.EXTERNAL));
+        
+        final @Nonnull BufferCodecFields object = new BufferCodecFields(true, 42L, "bl\u00E4");
+        assertEquals(BufferCodecFieldsConverter.INSTANCE.getEncodedSize(object), CountingEncoder.getEncodedSize(BufferCodecFieldsConverter.INSTANCE, object, Representation.EXTERNAL));
+        
+        final @Nonnull CountingEncoder encoder = CountingEncoder.with(Representation.EXTERNAL);
+        encoder.encodeInteger32(5);
+        assertEquals(4, encoder.getSize());
+        encoder.startCompressing(new Deflater());
+        encoder.encodeInteger32(5);
+        encoder.stopCompressing();
+        assertEquals(-1, encoder.getSize());
+    }
+    
+    @Test
+    public void testDictionaryEncoding() throws Exception {
+        final @Nonnull TestEncoder testEncoder = new TestEncoder();
+        final @Nonnull DictionaryEncoder<ConnectionException> encoder = DictionaryEncoder.with(testEncoder, 300);
+        for (int i = 0; i < 301; i++) {
+            if (i % 2 == 0) { encoder.encodeString64("s" + i); }
+            else { encoder.encodeString("s" + i); }
+        }
+        assertEquals(300, encoder.getDictionarySize());
+        encoder.encodeString64("s0");
+        encoder.encodeString("s299");
+        encoder.encodeString("s300");
+        assertEquals(Pair.of((byte) 0, byte.class), testEncoder.encodedValues.get(2 * 255));
+        assertEquals(Pair.of((short) 0, short.class), testEncoder.encodedValues.get(2 * 256));
+        assertEquals(Pair.of((short) 1, short.class), testEncoder.encodedValues.get(2 * 301));
+        
+        final Queue<@Nonnull Object> testQueue = new LinkedList<>();
+        for (@Nonnull Pair<@Nonnull Object, @Nonnull Class<?>> encodedValue : testEncoder.encodedValues) {
+            testQueue.add(encodedValue.get0() instanceof String ? new String((String) encodedValue.get0()) : encodedValue.get0());
+        }
+        final @Nonnull DictionaryDecoder<ConnectionException> decoder = DictionaryDecoder.with(new TestDecoder(testQueue), 300);
+        final @Nonnull String[] strings = new String[301];
+        for (int i = 0; i < 301; i++) {
+            strings[i] = i % 2 == 0 ? decoder.decodeString64() : decoder.decodeString();
+            assertEquals("s" + i, strings[i]);
+        }
+        assertEquals(300, decoder.getDictionarySize());
+        assertSame(strings[0], decoder.decodeString64());
+        assertSame(strings[299], decoder.decodeString());
+        final @Nonnull String literal = decoder.decodeString();
+        assertEquals(strings[300], literal);
+        assertNotSame(strings[300], literal);
+    }
+    
+    @Test
+    public void testHashingEncoder() throws Exception {
+        final @Nonnull byte[] digest = HashingEncoder.hash(VariousFieldsConverter.INSTANCE, new VariousFields(true, 5, "bla"), Representation.EXTERNAL, new Fnv1aDigest());
+        assertArrayEquals(digest, HashingEncoder.hash(VariousFieldsConverter.INSTANCE, new VariousFields(true, 5, "bla"), Representation.EXTERNAL, new Fnv1aDigest()));
+        
+        final @Nonnull HashingEncoder encoder = HashingEncoder.with(Representation.EXTERNAL, new Fnv1aDigest());
+        encoder.encodeBoolean(true);
+        encoder.encodeInteger32(5);
+        encoder.encodeString("bla");
+        assertArrayEquals(digest, encoder.digest());
+        assertArrayEquals(digest, HashingEncoder.hash(VariousFieldsConverter.INSTANCE, new VariousFields(true, 5, "bla"), Representation.EXTERNAL, Fnv1aDigest.ALGORITHM));
+        
+        final @Nonnull HashingEncoder firstSetEncoder = HashingEncoder.with(Representation.EXTERNAL, new Fnv1aDigest());
+        firstSetEncoder.encodeUnorderedIterable(StringConverter.INSTANCE, FiniteIterable.of("a", "b", "c"));
+        final @Nonnull HashingEncoder secondSetEncoder = HashingEncoder.with(Representation.EXTERNAL, new Fnv1aDigest());
+        secondSetEncoder.encodeUnorderedIterable(StringConverter.INSTANCE, FiniteIterable.of("c", "a", "b"));
+        assertArrayEquals(firstSetEncoder.digest(), secondSetEncoder.digest());
+        
+        final @Nonnull Map<@Nonnull String, @Nonnull Integer> firstMap = new LinkedHashMap<>();
+        firstMap.put("a", 1);
+        firstMap.put("b", 2);
+        firstMap.put("c", 3);
+        final @Nonnull Map<@Nonnull String, @Nonnull Integer> secondMap = new LinkedHashMap<>();
+        secondMap.put("c", 3);
+        secondMap.put("a", 1);
+        secondMap.put("b", 2);
+        final @Nonnull HashingEncoder firstMapEncoder = HashingEncoder.with(Representation.EXTERNAL, new Fnv1aDigest());
+        firstMapEncoder.encodeMap(StringConverter.INSTANCE, Integer32Converter.INSTANCE, firstMap);
+        final @Nonnull HashingEncoder secondMapEncoder = HashingEncoder.with(Representation.EXTERNAL, new Fnv1aDigest());
+        secondMapEncoder.encodeMap(StringConverter.INSTANCE, Integer32Converter.INSTANCE, secondMap);
+        assertArrayEquals(firstMapEncoder.digest(), secondMapEncoder.digest());
+        
+        final @Nonnull List<@Nonnull Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) { numbers.add(i); }
+        final @Nonnull HashingEncoder sequentialEncoder = HashingEncoder.withTreeHashing(Representation.EXTERNAL, new Fnv1aDigest(), 16);
+        sequentialEncoder.encodeOrderedIterable(Integer32Converter.INSTANCE, FiniteIterable.of(numbers));
+        final @Nonnull HashingEncoder parallelEncoder = HashingEncoder.withTreeHashing(Representation.EXTERNAL, new Fnv1aDigest(), 16, ForkJoinPool.commonPool());
+        parallelEncoder.encodeOrderedIterable(Integer32Converter.INSTANCE, FiniteIterable.of(numbers));
+        assertArrayEquals(sequentialEncoder.digest(), parallelEncoder.digest());
+        
+        final @Nonnull HashingEncoder plainEncoder = HashingEncoder.with(Representation.EXTERNAL, new Fnv1aDigest());
+        plainEncoder.encodeOrderedIterable(Integer32Converter.INSTANCE, FiniteIterable.of(numbers.subList(0, 16)));
+        final @Nonnull HashingEncoder smallTreeEncoder = HashingEncoder.withTreeHashing(Representation.EXTERNAL, new Fnv1aDigest(), 16, ForkJoinPool.commonPool());
+        smallTreeEncoder.encodeOrderedIterable(Integer32Converter.INSTANCE, FiniteIterable.of(numbers.subList(0, 16)));
+        assertArrayEquals(plainEncoder.digest(), smallTreeEncoder.digest());
+    }
+    
+    @Test
+    public void testResourcePool() {
+        final @Nonnull List<@Nonnull StringBuilder> disposedResources = new ArrayList<>();
+        final @Nonnull ResourcePool<@Nonnull String, @Nonnull StringBuilder> pool = ResourcePool.with(1, key -> new StringBuilder(key), builder -> builder.setLength(0), disposedResources::add);
+        
+        final @Nonnull Lease<@Nonnull StringBuilder> firstLease = pool.lease("a");
+        final @Nonnull StringBuilder resource = firstLease.get();
+        assertEquals("a", resource.toString());
+        firstLease.close();
+        assertTrue(firstLease.isClosed());
+        assertEquals(1, pool.getIdleCount("a"));
+        assertEquals(0, pool.getIdleCount("b"));
+        
+        final @Nonnull Lease<@Nonnull StringBuilder> secondLease = pool.lease("a");
+        assertSame(resource, secondLease.get());
+        assertEquals("", resource.toString());
+        final @Nonnull Lease<@Nonnull StringBuilder> thirdLease = pool.lease("a");
+        assertNotSame(resource, thirdLease.get());
+        secondLease.close();
+        thirdLease.close();
+        thirdLease.close();
+        assertEquals(1, pool.getIdleCount("a"));
+        assertEquals(1, disposedResources.size());
+        assertNotSame(resource, disposedResources.get(0));
+        assertEquals(1, pool.getHits());
+        assertEquals(2, pool.getCreations());
+        assertEquals(1, pool.getDisposals());
+        
+        pool.resetMetrics();
+        assertEquals(0, pool.getHits() + pool.getCreations() + pool.getDisposals());
+        
+        final @Nonnull ResourcePool<@Nonnull String, @Nonnull StringBuilder> emptyPool = ResourcePool.with(0, key -> new StringBuilder(key), builder -> builder.setLength(0), builder -> {});
+        for (int i = 0; i < 3; i++) {
+            try (@Nonnull Lease<@Nonnull StringBuilder> lease = emptyPool.lease("a")) {
+                assertEquals("a", lease.get().toString());
+            }
+        }
+        assertEquals(0, emptyPool.getIdleCount("a"));
+        assertEquals(0, emptyPool.getHits());
+        assertEquals(3, emptyPool.getCreations());
+        assertEquals(3, emptyPool.getDisposals());
+    }
+    
+    @Test
+    public void testLeaseIsClosedIfStartingFails() throws Exception {
+        final @Nonnull TestEncoder encoder = new TestEncoder() {
+            
+            @Override
+            public void startHashing(@Nonnull MessageDigest digest) {
+                throw new IllegalStateException("The encoder cannot hash.");
+            }
+            
+            @Override
+            public void startCompressing(@Nonnull Deflater deflater) {
+                throw new IllegalStateException("The encoder cannot compress.");
+            }
+            
+        };
+        
+        // A leased resource that is returned to its pool is either kept as an idle resource or replaces the idle resource that was leased.
+        final int idleDigests = ResourcePools.DIGESTS.getIdleCount("SHA-256");
+        try {
+            encoder.startHashing("SHA-256");
+            fail("The encoder should not have started hashing.");
+        } catch (@Nonnull IllegalStateException exception) {
+            assertEquals(Math.max(idleDigests, 1), ResourcePools.DIGESTS.getIdleCount("SHA-256"));
+        }
+        
+        final int idleDeflaters = ResourcePools.DEFLATERS.getIdleCount(Deflater.BEST_SPEED);
+        try {
+            encoder.startCompressing(Deflater.BEST_SPEED);
+            fail("The encoder should not have started compressing.");
+        } catch (@Nonnull IllegalStateException exception) {
+            assertEquals(Math.max(idleDeflaters, 1), ResourcePools.DEFLATERS.getIdleCount(Deflater.BEST_SPEED));
+        }
+        
+        // The cipher pool keeps no idle ciphers, so a cipher whose initialization fails is disposed of.
+        final long disposedCiphers = ResourcePools.CIPHERS.getDisposals();
+        try {
+            new TestEncoder().startEncrypting("AES/CBC/PKCS5Padding", new SecretKeySpec(new byte[3], "AES"), null);
+            fail("A key with an invalid length should have been rejected.");
+        } catch (@Nonnull InvalidKeyException exception) {
+            assertEquals(disposedCiphers + 1, ResourcePools.CIPHERS.getDisposals());
+        }
+    }
+    
+    @Test
+    public void testPolymorphicObjects() throws Exception {
+        final @Nonnull SubtypeDispatchTable<Object, Void> table = PolymorphicConverter.INSTANCE.getSubtypeDispatchTable();
+        assertEquals(3, table.size());
+        assertEquals(1, table.getTag(VariousFields.class));
+        assertEquals(2, table.getTag(SimpleEnum.class));
+        
+        final @Nonnull TestEncoder testEncoder = new TestEncoder();
+        testEncoder.encodePolymorphicObject(PolymorphicConverter.INSTANCE, new VariousFields(true, 5, "bla"));
+        testEncoder.encodePolymorphicObject(PolymorphicConverter.INSTANCE, SimpleEnum.COMET);
+        assertEquals(6, testEncoder.encodedValues.size());
+        assertEquals(Pair.of((byte) 1, byte.class), testEncoder.encodedValues.get(0));
+        assertEquals(Pair.of((byte) 2, byte.class), testEncoder.encodedValues.get(4));
+        
+        final Queue<@Nonnull Object> testQueue = new LinkedList<>();
+        for (@Nonnull Pair<@Nonnull Object, @Nonnull Class<?>> encodedValue : testEncoder.encodedValues) {
+            testQueue.add(encodedValue.get0());
+        }
+        final @Nonnull TestDecoder testDecoder = new TestDecoder(testQueue);
+        final @Nonnull VariousFields recoveredObject = (VariousFields) testDecoder.decodePolymorphicObject(PolymorphicConverter.INSTANCE, null);
+        assertEquals(true, recoveredObject.flag);
+        assertEquals(5, recoveredObject.size);
+        assertEquals("bla", recoveredObject.text);
+        assertEquals(SimpleEnum.COMET, testDecoder.decodePolymorphicObject(PolymorphicConverter.INSTANCE, null));
+    }
+    
+    @Test(expected = RecoveryException.class)
+    public void testPolymorphicObjectWithUnknownSubtype() throws Exception {
+        final Queue<@Nonnull Object> testQueue = new LinkedList<>();
+        testQueue.add((byte) 3);
+        new TestDecoder(testQueue).decodePolymorphicObject(PolymorphicConverter.INSTANCE, null);
+    }
+    
     @Test
     public void testEncodingOfEnum() throws Exception {
         final @Nonnull TestEncoder testEncoder = new TestEncoder();
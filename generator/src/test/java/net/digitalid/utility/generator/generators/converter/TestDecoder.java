@@ -40,7 +40,6 @@ import net.digitalid.utility.functional.failable.FailableCollector;
 import net.digitalid.utility.functional.interfaces.UnaryFunction;
 import net.digitalid.utility.validation.annotations.method.Ensures;
 import net.digitalid.utility.validation.annotations.method.Requires;
-import net.digitalid.utility.validation.annotations.size.Empty;
 import net.digitalid.utility.validation.annotations.size.MaxSize;
 import net.digitalid.utility.validation.annotations.size.Size;
 
@@ -205,15 +204,15 @@ public class TestDecoder implements Decoder<ConnectionException> {
     @Impure
     @Override
     @SuppressWarnings("unchecked")
-    public <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE> @Nonnull Map<@Nonnull KEY, @Nonnull VALUE> decodeMap(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @Nonnull @Empty Map<@Nonnull KEY, @Nonnull VALUE> emptyMap) throws ConnectionException, RecoveryException {
-        return (Map<KEY, VALUE>) decodedValues.poll();
+    public <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE, @Unspecifiable MAP extends Map<@Nonnull KEY, @Nonnull VALUE>> @Nonnull MAP decodeMap(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull MAP> constructor) throws ConnectionException, RecoveryException {
+        return (MAP) decodedValues.poll();
     }
     
     @Impure
     @Override
     @SuppressWarnings("unchecked")
-    public <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE> @Nonnull Map<@Nullable KEY, @Nullable VALUE> decodeMapWithNullableValues(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @Nonnull @Empty Map<@Nullable KEY, @Nullable VALUE> emptyMap) throws ConnectionException, RecoveryException {
-        return (Map<KEY, VALUE>) decodedValues.poll();
+    public <@Unspecifiable KEY, @Specifiable PROVIDED_FOR_KEY, @Unspecifiable VALUE, @Specifiable PROVIDED_FOR_VALUE, @Unspecifiable MAP extends Map<@Nullable KEY, @Nullable VALUE>> @Nonnull MAP decodeMapWithNullableValues(@Nonnull Converter<KEY, PROVIDED_FOR_KEY> keyConverter, @Shared PROVIDED_FOR_KEY providedForKey, @Nonnull Converter<VALUE, PROVIDED_FOR_VALUE> valueConverter, @Shared PROVIDED_FOR_VALUE providedForValue, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull MAP> constructor) throws ConnectionException, RecoveryException {
+        return (MAP) decodedValues.poll();
     }
     
     /* -------------------------------------------------- Hashing -------------------------------------------------- */
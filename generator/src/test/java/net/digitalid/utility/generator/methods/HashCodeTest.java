@@ -15,11 +15,141 @@
  */
 package net.digitalid.utility.generator.methods;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.testing.UtilityTest;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@Immutable
+@GenerateSubclass
+interface PrimitiveValues {
+    
+    @Pure
+    public boolean isFlag();
+    
+    @Pure
+    public long getNumber();
+    
+    @Pure
+    public double getValue();
+    
+    @Pure
+    public String getText();
+    
+}
+
+@Immutable
+@GenerateSubclass
+interface CollectionValue {
+    
+    @Pure
+    public List<String> getStrings();
+    
+}
+
+@Immutable
+@GenerateSubclass
+interface ArrayValue {
+    
+    @Pure
+    public int[] getNumbers();
+    
+}
+
+@Immutable
+@GenerateSubclass
+interface NestedValues {
+    
+    @Pure
+    public PrimitiveValues getPrimitiveValues();
+    
+    @Pure
+    public CollectionValue getCollectionValue();
+    
+}
+
 /**
- * Description.
+ * This class tests the generated hash code and equals methods.
  */
-public class HashCodeTest {
+public class HashCodeTest extends UtilityTest {
+    
+    @Test
+    public void testCachedHashCode() {
+        final @Nonnull PrimitiveValuesSubclass object = new PrimitiveValuesSubclass(true, 1234L, 0.5, "hi");
+        final int hashCode = object.hashCode();
+        assertEquals(hashCode, object.hashCode());
+        assertEquals(hashCode, new PrimitiveValuesSubclass(true, 1234L, 0.5, "hi").hashCode());
+    }
+    
+    @Test
+    public void testEquals() {
+        final @Nonnull PrimitiveValuesSubclass object = new PrimitiveValuesSubclass(true, 1234L, 0.5, "hi");
+        object.hashCode();
+        assertEquals(object, new PrimitiveValuesSubclass(true, 1234L, 0.5, "hi"));
+        assertNotEquals(object, new PrimitiveValuesSubclass(true, 1234L, 0.25, "hi"));
+        assertNotEquals(object, new PrimitiveValuesSubclass(false, 1234L, 0.5, "hi"));
+    }
+    
+    @Test
+    public void testFloatingPointValuesBehaveLikeBoxedValues() {
+        assertEquals(new PrimitiveValuesSubclass(true, 0L, Double.NaN, ""), new PrimitiveValuesSubclass(true, 0L, Double.NaN, ""));
+        assertNotEquals(new PrimitiveValuesSubclass(true, 0L, 0.0, ""), new PrimitiveValuesSubclass(true, 0L, -0.0, ""));
+    }
+    
+    @Test
+    public void testEqualsReturnsEarlyIfTheCachedHashCodesDiffer() throws Exception {
+        final @Nonnull PrimitiveValuesSubclass object = new PrimitiveValuesSubclass(true, 1234L, 0.5, "hi");
+        final @Nonnull PrimitiveValuesSubclass other = new PrimitiveValuesSubclass(true, 1234L, 0.5, "hi");
+        other.hashCode();
+        final @Nonnull Field cachedHashCode = PrimitiveValuesSubclass.class.getDeclaredField("cachedHashCode");
+        cachedHashCode.setAccessible(true);
+        cachedHashCode.setInt(object, other.hashCode() + 1);
+        // The fields are equal, so only the comparison of the cached hash codes can make the objects differ.
+        assertNotEquals(object, other);
+        assertNotEquals(other, object);
+        cachedHashCode.setInt(object, 0);
+        assertEquals(object, other);
+    }
     
+    private static boolean cachesHashCode(@Nonnull Class<?> subclass) {
+        for (@Nonnull Field field : subclass.getDeclaredFields()) {
+            if (field.getName().equals("cachedHashCode")) { return true; }
+        }
+        return false;
+    }
     
+    @Test
+    public void testHashCodeIsNotCachedForUnstableFields() {
+        assertTrue(cachesHashCode(PrimitiveValuesSubclass.class));
+        assertFalse(cachesHashCode(CollectionValueSubclass.class));
+        assertFalse(cachesHashCode(ArrayValueSubclass.class));
+        assertFalse(cachesHashCode(NestedValuesSubclass.class));
+        
+        final @Nonnull List<String> strings = new ArrayList<>();
+        final @Nonnull CollectionValueSubclass object = new CollectionValueSubclass(strings);
+        final int hashCode = object.hashCode();
+        strings.add("changed");
+        assertNotEquals(hashCode, object.hashCode());
+        assertEquals(new CollectionValueSubclass(new ArrayList<>(strings)), object);
+        
+        final @Nonnull int[] numbers = {1, 2, 3};
+        final @Nonnull ArrayValueSubclass array = new ArrayValueSubclass(numbers);
+        final int arrayHashCode = array.hashCode();
+        numbers[0] = 4;
+        assertNotEquals(arrayHashCode, array.hashCode());
+    }
     
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.generator.special;
+
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.generator.annotations.generators.Interned;
+import net.digitalid.utility.testing.UtilityTest;
+import net.digitalid.utility.validation.annotations.generation.Recover;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import org.junit.Test;
+
+@Immutable
+@Interned
+@GenerateBuilder
+@GenerateSubclass
+abstract class InternedValue {
+    
+    final int number;
+    
+    @Recover
+    InternedValue(int number) {
+        this.number = number;
+    }
+    
+}
+
+public class InternedTest extends UtilityTest {
+    
+    @Test
+    public void testEqualValuesAreShared() {
+        final InternedValue value = InternedValueBuilder.withNumber(1).build();
+        assertThat(InternedValueBuilder.withNumber(1).build()).isSameAs(value);
+        assertThat(InternedValueBuilder.withNumber(2).build()).isNotSameAs(value);
+    }
+    
+    @Test
+    public void testConstructedValuesCanBeInterned() {
+        final InternedValueSubclass value = new InternedValueSubclass(3);
+        assertThat(InternedValueSubclass.intern(value)).isSameAs(InternedValueBuilder.withNumber(3).build());
+    }
+    
+}
@@ -25,6 +25,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.Capturable;
 import net.digitalid.utility.annotations.ownership.Captured;
@@ -55,6 +56,13 @@ public class ImmutableList<@Specifiable ELEMENT> extends ArrayList<ELEMENT> impl
         }
     }
     
+    /**
+     * Creates an empty immutable list with the given initial capacity, which only an {@link ImmutableListCollector} can fill.
+     */
+    protected ImmutableList(@NonNegative int initialCapacity) {
+        super(initialCapacity);
+    }
+    
     /**
      * Returns an immutable list with the elements of the given array in the same order or null if the given array is null.
      * The given array is not captured as its elements are copied to the immutable list.
@@ -82,6 +90,16 @@ public class ImmutableList<@Specifiable ELEMENT> extends ArrayList<ELEMENT> impl
         return collection == null ? null : new ImmutableList<>(collection);
     }
     
+    /* -------------------------------------------------- Collection -------------------------------------------------- */
+    
+    /**
+     * Adds the given element while this list is still being collected and thus not yet shared.
+     */
+    @Impure
+    void addDuringCollection(@Captured ELEMENT element) {
+        super.add(element);
+    }
+    
     /* -------------------------------------------------- Modified Operations -------------------------------------------------- */
     
     @Pure
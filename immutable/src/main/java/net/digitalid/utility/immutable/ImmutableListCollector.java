@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.immutable;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.functional.failable.FailableCollector;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This class collects elements directly into an {@link ImmutableList immutable list} without copying them from an intermediate collection.
+ * The exception type parameter allows the collector to be used wherever a collector with a particular exception type is expected even though it never throws one.
+ */
+@Mutable
+public class ImmutableListCollector<@Specifiable ELEMENT, @Unspecifiable EXCEPTION extends Exception> implements FailableCollector<ELEMENT, ImmutableList<ELEMENT>, EXCEPTION, EXCEPTION> {
+    
+    /* -------------------------------------------------- List -------------------------------------------------- */
+    
+    private final @Nonnull ImmutableList<ELEMENT> list;
+    
+    private boolean collected = false;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected ImmutableListCollector(@NonNegative int expectedSize) {
+        this.list = new ImmutableList<>(expectedSize);
+    }
+    
+    /**
+     * Returns a new collector whose list has room for the given number of elements.
+     */
+    @Pure
+    public static <@Specifiable ELEMENT, @Unspecifiable EXCEPTION extends Exception> @Nonnull ImmutableListCollector<ELEMENT, EXCEPTION> withExpectedSize(@NonNegative int expectedSize) {
+        return new ImmutableListCollector<>(expectedSize);
+    }
+    
+    /* -------------------------------------------------- Collector -------------------------------------------------- */
+    
+    /**
+     * @throws UnsupportedOperationException if the result of this collector has already been retrieved.
+     */
+    @Impure
+    @Override
+    public void consume(@Captured ELEMENT element) {
+        if (collected) { throw new UnsupportedOperationException("The immutable list has already been retrieved."); }
+        list.addDuringCollection(element);
+    }
+    
+    @Impure
+    @Override
+    public @Capturable @Nonnull ImmutableList<ELEMENT> getResult() {
+        collected = true;
+        return list;
+    }
+    
+}
@@ -22,6 +22,7 @@ import java.util.LinkedHashSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.Capturable;
 import net.digitalid.utility.annotations.ownership.Captured;
@@ -31,6 +32,7 @@ import net.digitalid.utility.functional.iterables.CollectionIterable;
 import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.functional.iterators.ReadOnlyIterableIterator;
 import net.digitalid.utility.functional.iterators.ReadOnlyIterator;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
 /**
@@ -47,6 +49,13 @@ public class ImmutableSet<E> extends LinkedHashSet<E> implements CollectionItera
         }
     }
     
+    /**
+     * Creates an empty immutable set with the given initial capacity, which only an {@link ImmutableSetCollector} can fill.
+     */
+    protected ImmutableSet(@NonNegative int initialCapacity) {
+        super(initialCapacity);
+    }
+    
     /**
      * Returns an immutable set with the elements of the given array or null if the given array is null.
      * The given array is not captured as its elements are copied to the immutable set.
@@ -74,6 +83,16 @@ public class ImmutableSet<E> extends LinkedHashSet<E> implements CollectionItera
         return collection == null ? null : new ImmutableSet<>(collection);
     }
     
+    /* -------------------------------------------------- Collection -------------------------------------------------- */
+    
+    /**
+     * Adds the given element while this set is still being collected and thus not yet shared.
+     */
+    @Impure
+    void addDuringCollection(@Captured E element) {
+        super.add(element);
+    }
+    
     /* -------------------------------------------------- Modified Operations -------------------------------------------------- */
     
     @Pure
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.immutable;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.functional.failable.FailableCollector;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This class collects elements directly into an {@link ImmutableSet immutable set} without copying them from an intermediate collection.
+ * The exception type parameter allows the collector to be used wherever a collector with a particular exception type is expected even though it never throws one.
+ */
+@Mutable
+public class ImmutableSetCollector<@Specifiable ELEMENT, @Unspecifiable EXCEPTION extends Exception> implements FailableCollector<ELEMENT, ImmutableSet<ELEMENT>, EXCEPTION, EXCEPTION> {
+    
+    /* -------------------------------------------------- Set -------------------------------------------------- */
+    
+    private final @Nonnull ImmutableSet<ELEMENT> set;
+    
+    private boolean collected = false;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected ImmutableSetCollector(@NonNegative int expectedSize) {
+        this.set = new ImmutableSet<>(expectedSize < 3 ? expectedSize + 1 : (int) (expectedSize / 0.75f) + 1);
+    }
+    
+    /**
+     * Returns a new collector whose set can hold the given number of elements without rehashing.
+     */
+    @Pure
+    public static <@Specifiable ELEMENT, @Unspecifiable EXCEPTION extends Exception> @Nonnull ImmutableSetCollector<ELEMENT, EXCEPTION> withExpectedSize(@NonNegative int expectedSize) {
+        return new ImmutableSetCollector<>(expectedSize);
+    }
+    
+    /* -------------------------------------------------- Collector -------------------------------------------------- */
+    
+    /**
+     * @throws UnsupportedOperationException if the result of this collector has already been retrieved.
+     */
+    @Impure
+    @Override
+    public void consume(@Captured ELEMENT element) {
+        if (collected) { throw new UnsupportedOperationException("The immutable set has already been retrieved."); }
+        set.addDuringCollection(element);
+    }
+    
+    @Impure
+    @Override
+    public @Capturable @Nonnull ImmutableSet<ELEMENT> getResult() {
+        collected = true;
+        return set;
+    }
+    
+}
@@ -54,4 +54,20 @@ public class ImmutableListTest {
         assertTrue(listIterator.hasNext());
     }
     
+    @Test
+    public void testImmutableListCollector() {
+        final @Nonnull ImmutableListCollector<@Nonnull String, RuntimeException> collector = ImmutableListCollector.withExpectedSize(2);
+        collector.consume("hello");
+        collector.consume("world");
+        final @Nonnull ImmutableList<@Nonnull String> list = collector.getResult();
+        assertEquals(ImmutableList.withElements("hello", "world"), list);
+        
+        try {
+            collector.consume("again");
+            fail("The collector should not accept elements after its result has been retrieved.");
+        } catch (@Nonnull UnsupportedOperationException exception) {
+            assertEquals(2, list.size());
+        }
+    }
+    
 }
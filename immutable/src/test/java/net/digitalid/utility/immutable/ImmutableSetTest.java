@@ -36,4 +36,21 @@ public class ImmutableSetTest {
         assertFalse(iterator.hasNext());
     }
     
+    @Test
+    public void testImmutableSetCollector() {
+        final @Nonnull ImmutableSetCollector<@Nonnull String, RuntimeException> collector = ImmutableSetCollector.withExpectedSize(3);
+        collector.consume("hello");
+        collector.consume("world");
+        collector.consume("hello");
+        final @Nonnull ImmutableSet<@Nonnull String> set = collector.getResult();
+        assertEquals(ImmutableSet.withElements("hello", "world"), set);
+        
+        try {
+            collector.consume("again");
+            fail("The collector should not accept elements after its result has been retrieved.");
+        } catch (@Nonnull UnsupportedOperationException exception) {
+            assertEquals(2, set.size());
+        }
+    }
+    
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.binary;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * This class describes the binary format in which the {@link net.digitalid.utility.logging.logger.BinaryFileLogger} writes its segments.
+ * <p>
+ * Each segment starts with a header consisting of the {@link #MAGIC magic number}, the {@link #VERSION format version},
+ * the creation time as a long and the library version as a string. The header is followed by a sequence of entries,
+ * which each start with a tag byte. A {@link #DEFINITION definition} assigns an integer identifier to a caller or thread string
+ * so that events only have to reference it. An {@link #EVENT event} stores the length of its remaining bytes as an integer
+ * (which allows readers to skip it without parsing the message), the timestamp as a long, the level as a byte,
+ * the identifiers of the caller and the thread as integers, the message as a string and the throwable as a nullable string.
+ * Strings are encoded as the number of bytes in an integer followed by their UTF-8 bytes, where a length of -1 denotes null.
+ * The remainder of a segment after the last entry is filled with zeros, which corresponds to the {@link #END end} tag.
+ */
+@Utility
+public abstract class BinaryLogFormat {
+    
+    /* -------------------------------------------------- Header -------------------------------------------------- */
+    
+    /**
+     * Stores the magic number at the beginning of each segment.
+     */
+    public static final int MAGIC = 0x44494C47;
+    
+    /**
+     * Stores the version of the binary format.
+     */
+    public static final byte VERSION = 1;
+    
+    /* -------------------------------------------------- Tags -------------------------------------------------- */
+    
+    /**
+     * Stores the tag which marks the end of the entries in a segment.
+     */
+    public static final byte END = 0;
+    
+    /**
+     * Stores the tag of an entry which defines a caller or thread string.
+     */
+    public static final byte DEFINITION = 1;
+    
+    /**
+     * Stores the tag of an entry which contains a logged event.
+     */
+    public static final byte EVENT = 2;
+    
+    /* -------------------------------------------------- Sizes -------------------------------------------------- */
+    
+    /**
+     * Stores the number of bytes of an event entry before its message.
+     */
+    public static final int EVENT_OVERHEAD = 1 + 4 + 8 + 1 + 4 + 4;
+    
+    /* -------------------------------------------------- Charset -------------------------------------------------- */
+    
+    /**
+     * Stores the charset with which strings are encoded.
+     */
+    public static final @Nonnull Charset CHARSET = StandardCharsets.UTF_8;
+    
+    /* -------------------------------------------------- Files -------------------------------------------------- */
+    
+    /**
+     * Stores the extension of segment files.
+     */
+    public static final @Nonnull String EXTENSION = ".dlog";
+    
+    /**
+     * Returns the segment file with the given index in the given directory.
+     */
+    @Pure
+    public static @Nonnull File getSegmentFile(@Nonnull File directory, @NonNegative long index) {
+        return new File(directory, String.format("segment-%010d", index) + EXTENSION);
+    }
+    
+    /**
+     * Returns the index of the given segment file or -1 if the file is not a segment file.
+     */
+    @Pure
+    public static long getSegmentIndex(@Nonnull File file) {
+        final @Nonnull String name = file.getName();
+        if (name.startsWith("segment-") && name.endsWith(EXTENSION)) {
+            try {
+                return Long.parseLong(name.substring(8, name.length() - EXTENSION.length()));
+            } catch (@Nonnull NumberFormatException exception) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+    
+}
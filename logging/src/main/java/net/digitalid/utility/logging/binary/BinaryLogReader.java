@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.binary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.functional.interfaces.Consumer;
+import net.digitalid.utility.logging.Level;
+import net.digitalid.utility.string.Strings;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.file.existence.Existent;
+import net.digitalid.utility.validation.annotations.file.kind.Directory;
+import net.digitalid.utility.validation.annotations.file.kind.Normal;
+import net.digitalid.utility.validation.annotations.file.permission.Readable;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * A binary log reader reads the events that match its criteria from segments in the {@link BinaryLogFormat binary format}.
+ * The level, time and caller of an event are checked before its message is parsed so that rejected events are skipped cheaply.
+ * When run as a program, it converts the given segments or directories of segments back to text.
+ */
+@Immutable
+public class BinaryLogReader {
+    
+    /* -------------------------------------------------- Levels -------------------------------------------------- */
+    
+    private static final @Nonnull Level[] levels = Level.values();
+    
+    /* -------------------------------------------------- Threshold -------------------------------------------------- */
+    
+    private final @Nonnull Level threshold;
+    
+    /**
+     * Returns the threshold at and above which events are read.
+     */
+    @Pure
+    public @Nonnull Level getThreshold() {
+        return threshold;
+    }
+    
+    /* -------------------------------------------------- Caller Prefix -------------------------------------------------- */
+    
+    private final @Nullable String callerPrefix;
+    
+    /**
+     * Returns the prefix that the caller has to have in order to be read.
+     */
+    @Pure
+    public @Nullable String getCallerPrefix() {
+        return callerPrefix;
+    }
+    
+    /* -------------------------------------------------- Time Range -------------------------------------------------- */
+    
+    private final long startTime;
+    
+    /**
+     * Returns the time in milliseconds since the epoch at and after which events are read.
+     */
+    @Pure
+    public long getStartTime() {
+        return startTime;
+    }
+    
+    private final long endTime;
+    
+    /**
+     * Returns the time in milliseconds since the epoch before which events are read.
+     */
+    @Pure
+    public long getEndTime() {
+        return endTime;
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected BinaryLogReader(@Nonnull Level threshold, @Nullable String callerPrefix, long startTime, long endTime) {
+        this.threshold = threshold;
+        this.callerPrefix = callerPrefix;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+    
+    /**
+     * Returns a binary log reader with the given threshold, caller prefix and time range.
+     */
+    @Pure
+    public static @Nonnull BinaryLogReader with(@Nonnull Level threshold, @Nullable String callerPrefix, long startTime, long endTime) {
+        return new BinaryLogReader(threshold, callerPrefix, startTime, endTime);
+    }
+    
+    /**
+     * Returns a binary log reader with the given threshold and caller prefix.
+     */
+    @Pure
+    public static @Nonnull BinaryLogReader with(@Nonnull Level threshold, @Nullable String callerPrefix) {
+        return new BinaryLogReader(threshold, callerPrefix, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+    
+    /**
+     * Returns a binary log reader with the given threshold.
+     */
+    @Pure
+    public static @Nonnull BinaryLogReader with(@Nonnull Level threshold) {
+        return new BinaryLogReader(threshold, null, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+    
+    /* -------------------------------------------------- Decoding -------------------------------------------------- */
+    
+    /**
+     * Reads a nullable string from the given buffer.
+     */
+    @Impure
+    private static @Nullable String readString(@NonCaptured @Modified @Nonnull MappedByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) { return null; }
+        final @Nonnull byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, BinaryLogFormat.CHARSET);
+    }
+    
+    /**
+     * Reads a non-nullable string from the given buffer.
+     * 
+     * @throws IOException if the string is null.
+     */
+    @Impure
+    private static @Nonnull String readNonNullString(@NonCaptured @Modified @Nonnull MappedByteBuffer buffer) throws IOException {
+        final @Nullable String string = readString(buffer);
+        if (string == null) { throw new IOException("A non-nullable string in the segment was null."); }
+        return string;
+    }
+    
+    /* -------------------------------------------------- Reading -------------------------------------------------- */
+    
+    /**
+     * Reads the events that match the criteria of this reader from the given segment and passes them to the given consumer.
+     * 
+     * @throws IOException if the segment cannot be read or is not in the binary format.
+     */
+    @Pure
+    public void read(@Nonnull @Existent @Normal @Readable File segment, @Nonnull Consumer<? super @Nonnull BinaryLogRecord> consumer) throws IOException {
+        try (@Nonnull FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            final @Nonnull MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 5 || buffer.getInt() != BinaryLogFormat.MAGIC) { throw new IOException(Strings.format("The file $ is not a binary log segment.", segment.getPath())); }
+            final byte formatVersion = buffer.get();
+            if (formatVersion != BinaryLogFormat.VERSION) { throw new IOException(Strings.format("The segment $ has the unsupported format version $.", segment.getPath(), formatVersion)); }
+            buffer.getLong(); // The creation time of the segment is not needed.
+            final @Nonnull String version = readNonNullString(buffer);
+            
+            final @Nonnull List<@Nonnull String> strings = new ArrayList<>();
+            final @Nonnull BitSet acceptedCallers = new BitSet();
+            while (buffer.hasRemaining()) {
+                final byte tag = buffer.get();
+                if (tag == BinaryLogFormat.END) {
+                    break;
+                } else if (tag == BinaryLogFormat.DEFINITION) {
+                    final int identifier = buffer.getInt();
+                    final @Nonnull String string = readNonNullString(buffer);
+                    if (identifier != strings.size()) { throw new IOException(Strings.format("The segment $ defines the identifier $ out of order.", segment.getPath(), identifier)); }
+                    strings.add(string);
+                    if (callerPrefix == null || string.startsWith(callerPrefix)) { acceptedCallers.set(identifier); }
+                } else if (tag == BinaryLogFormat.EVENT) {
+                    final int length = buffer.getInt();
+                    final int end = buffer.position() + length;
+                    final long time = buffer.getLong();
+                    final byte level = buffer.get();
+                    final int caller = buffer.getInt();
+                    if (time >= startTime && time < endTime && level >= threshold.getValue() && acceptedCallers.get(caller)) {
+                        final int thread = buffer.getInt();
+                        final @Nonnull String message = readNonNullString(buffer);
+                        final @Nullable String throwable = readString(buffer);
+                        consumer.consume(BinaryLogRecord.with(time, version, levels[level], strings.get(caller), strings.get(thread), message, throwable));
+                    }
+                    buffer.position(end);
+                } else {
+                    throw new IOException(Strings.format("The segment $ contains the unknown tag $.", segment.getPath(), tag));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Reads the events that match the criteria of this reader from the segments in the given directory in the order in which they were written.
+     * 
+     * @throws IOException if a segment cannot be read or is not in the binary format.
+     */
+    @Pure
+    public void readDirectory(@Nonnull @Existent @Directory File directory, @Nonnull Consumer<? super @Nonnull BinaryLogRecord> consumer) throws IOException {
+        final @Nullable File[] files = directory.listFiles(file -> BinaryLogFormat.getSegmentIndex(file) >= 0);
+        if (files == null) { throw new IOException(Strings.format("The directory $ cannot be listed.", directory.getPath())); }
+        Arrays.sort(files, (file1, file2) -> Long.compare(BinaryLogFormat.getSegmentIndex(file1), BinaryLogFormat.getSegmentIndex(file2)));
+        for (@Nonnull File file : files) {
+            read(file, consumer);
+        }
+    }
+    
+    /* -------------------------------------------------- Program -------------------------------------------------- */
+    
+    /**
+     * Converts the given segments or directories of segments to text on the standard output.
+     * The arguments can start with the options {@code -level LEVEL}, {@code -caller PREFIX},
+     * {@code -from MILLISECONDS} and {@code -to MILLISECONDS} to filter the events.
+     * 
+     * @throws IOException if a segment cannot be read or is not in the binary format.
+     * @throws IllegalArgumentException if an option is unknown or has an invalid value.
+     */
+    @Impure
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    public static void main(@Nonnull @NonNullableElements String[] arguments) throws IOException, IllegalArgumentException {
+        @Nonnull Level threshold = Level.VERBOSE;
+        @Nullable String callerPrefix = null;
+        long startTime = Long.MIN_VALUE;
+        long endTime = Long.MAX_VALUE;
+        int index = 0;
+        while (index + 1 < arguments.length && arguments[index].startsWith("-")) {
+            final @Nonnull String option = arguments[index];
+            final @Nonnull String value = arguments[index + 1];
+            switch (option) {
+                case "-level": threshold = Level.valueOf(value.toUpperCase()); break;
+                case "-caller": callerPrefix = value; break;
+                case "-from": startTime = Long.parseLong(value); break;
+                case "-to": endTime = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException(Strings.format("The option $ is unknown.", option));
+            }
+            index += 2;
+        }
+        if (index >= arguments.length) { throw new IllegalArgumentException("Usage: [-level LEVEL] [-caller PREFIX] [-from MILLISECONDS] [-to MILLISECONDS] SEGMENT_OR_DIRECTORY..."); }
+        
+        final @Nonnull BinaryLogReader reader = BinaryLogReader.with(threshold, callerPrefix, startTime, endTime);
+        final @Nonnull PrintStream output = System.out;
+        final @Nonnull Consumer<@Nonnull BinaryLogRecord> printer = record -> output.println(record);
+        for (; index < arguments.length; index++) {
+            final @Nonnull File file = new File(arguments[index]);
+            if (file.isDirectory()) { reader.readDirectory(file, printer); }
+            else { reader.read(file, printer); }
+        }
+        output.flush();
+    }
+    
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.binary;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.logging.Level;
+import net.digitalid.utility.logging.format.TimestampFormatter;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * A binary log record represents an event that was read from a segment in the {@link BinaryLogFormat binary format}.
+ */
+@Immutable
+public class BinaryLogRecord {
+    
+    /* -------------------------------------------------- Time Format -------------------------------------------------- */
+    
+    private static final @Nonnull TimestampFormatter timestampFormatter = TimestampFormatter.withNoArguments();
+    
+    /* -------------------------------------------------- Time -------------------------------------------------- */
+    
+    private final long time;
+    
+    /**
+     * Returns the time in milliseconds since the epoch at which the event was logged.
+     */
+    @Pure
+    public long getTime() {
+        return time;
+    }
+    
+    /* -------------------------------------------------- Version -------------------------------------------------- */
+    
+    private final @Nonnull String version;
+    
+    /**
+     * Returns the version of the library which logged the event.
+     */
+    @Pure
+    public @Nonnull String getVersion() {
+        return version;
+    }
+    
+    /* -------------------------------------------------- Level -------------------------------------------------- */
+    
+    private final @Nonnull Level level;
+    
+    /**
+     * Returns the level of the event.
+     */
+    @Pure
+    public @Nonnull Level getLevel() {
+        return level;
+    }
+    
+    /* -------------------------------------------------- Caller -------------------------------------------------- */
+    
+    private final @Nonnull String caller;
+    
+    /**
+     * Returns the caller which logged the event.
+     */
+    @Pure
+    public @Nonnull String getCaller() {
+        return caller;
+    }
+    
+    /* -------------------------------------------------- Thread -------------------------------------------------- */
+    
+    private final @Nonnull String thread;
+    
+    /**
+     * Returns the name of the thread which logged the event.
+     */
+    @Pure
+    public @Nonnull String getThread() {
+        return thread;
+    }
+    
+    /* -------------------------------------------------- Message -------------------------------------------------- */
+    
+    private final @Nonnull String message;
+    
+    /**
+     * Returns the message of the event.
+     */
+    @Pure
+    public @Nonnull String getMessage() {
+        return message;
+    }
+    
+    /* -------------------------------------------------- Throwable -------------------------------------------------- */
+    
+    private final @Nullable String throwable;
+    
+    /**
+     * Returns the stack trace of the throwable that was logged with the event or null if there was none.
+     */
+    @Pure
+    public @Nullable String getThrowable() {
+        return throwable;
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected BinaryLogRecord(long time, @Nonnull String version, @Nonnull Level level, @Nonnull String caller, @Nonnull String thread, @Nonnull String message, @Nullable String throwable) {
+        this.time = time;
+        this.version = version;
+        this.level = level;
+        this.caller = caller;
+        this.thread = thread;
+        this.message = message;
+        this.throwable = throwable;
+    }
+    
+    /**
+     * Returns a binary log record with the given time, version, level, caller, thread, message and throwable.
+     */
+    @Pure
+    public static @Nonnull BinaryLogRecord with(long time, @Nonnull String version, @Nonnull Level level, @Nonnull String caller, @Nonnull String thread, @Nonnull String message, @Nullable String throwable) {
+        return new BinaryLogRecord(time, version, level, caller, thread, message, throwable);
+    }
+    
+    /* -------------------------------------------------- Object -------------------------------------------------- */
+    
+    /**
+     * Returns this record in the same textual format as the {@link net.digitalid.utility.logging.logger.PrintStreamLogger}.
+     */
+    @Pure
+    @Override
+    public @Nonnull String toString() {
+        final @Nonnull StringBuilder result = new StringBuilder();
+        timestampFormatter.format(time, result);
+        result.append(version.isEmpty() ? "" : " in " + version).append(" [").append(thread).append("] (").append(level).append(") <").append(caller).append(">: ").append(message);
+        if (throwable != null) { result.append(System.lineSeparator()).append(System.lineSeparator()).append(throwable); }
+        return result.toString();
+    }
+    
+}
@@ -61,7 +61,7 @@ public class ConfigurationBasedLoggingFilter extends RuleBasedLoggingFilter {
     /**
      * Stores the comments at the beginning of each configuration file.
      */
-    private final @Nonnull FiniteIterable<@Nonnull String> comments = FiniteIterable.of("# Only messages that match one of the following rules are logged.", "# There is one rule per line written in the following format:", "# Level-Threshold; Caller-Prefix; Thread-Prefix; Message-Regex", "# When skipping all subsequent tokens, the semicolons are optional.");
+    private final @Nonnull FiniteIterable<@Nonnull String> comments = FiniteIterable.of("# Only messages that match one of the following rules are logged.", "# There is one rule per line written in the following format:", "# Level-Threshold [rate=Messages-Per-Second] [sample=Probability]; Caller-Prefix; Thread-Prefix; Message-Regex", "# When skipping all subsequent tokens, the semicolons are optional.");
     
     protected ConfigurationBasedLoggingFilter(@Nonnull File file, @Nonnull @NonNullableElements LoggingRule... defaultRules) throws IllegalArgumentException {
         super(defaultRules);
@@ -21,6 +21,7 @@ import javax.annotation.Nullable;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.configuration.Configuration;
 import net.digitalid.utility.logging.Level;
+import net.digitalid.utility.logging.metrics.LevelCounter;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 /**
@@ -53,4 +54,26 @@ public abstract class LoggingFilter {
     @Pure
     public abstract boolean isLogged(@Nonnull Level level, @Nonnull String caller, @Nonnull String thread, @Nonnull String message, @Nullable Throwable throwable);
     
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private final @Nonnull LevelCounter potentiallyRejectedMessages = LevelCounter.withNoEvents();
+    
+    /**
+     * Returns the counter of the messages that were rejected by {@link #isPotentiallyLogged(net.digitalid.utility.logging.Level)}.
+     */
+    @Pure
+    public @Nonnull LevelCounter getPotentiallyRejectedMessages() {
+        return potentiallyRejectedMessages;
+    }
+    
+    private final @Nonnull LevelCounter rejectedMessages = LevelCounter.withNoEvents();
+    
+    /**
+     * Returns the counter of the messages that were potentially logged but then rejected by {@link #isLogged(net.digitalid.utility.logging.Level, java.lang.String, java.lang.String, java.lang.String, java.lang.Throwable)}.
+     */
+    @Pure
+    public @Nonnull LevelCounter getRejectedMessages() {
+        return rejectedMessages;
+    }
+    
 }
@@ -16,6 +16,7 @@
 package net.digitalid.utility.logging.filter;
 
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -24,8 +25,10 @@ import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.circumfixes.Quotes;
+import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.logging.Level;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
 /**
@@ -82,6 +85,39 @@ public class LoggingRule {
         return messageRegex;
     }
     
+    /* -------------------------------------------------- Rate Limit -------------------------------------------------- */
+    
+    private final @NonNegative double rateLimit;
+    
+    /**
+     * Returns the maximum number of accepted messages per second or zero if the rate is not limited.
+     * Up to one second worth of messages can be logged in a burst.
+     */
+    @Pure
+    public @NonNegative double getRateLimit() {
+        return rateLimit;
+    }
+    
+    /* -------------------------------------------------- Sampling Probability -------------------------------------------------- */
+    
+    private final double samplingProbability;
+    
+    /**
+     * Returns the probability with which an accepted message is logged.
+     */
+    @Pure
+    public double getSamplingProbability() {
+        return samplingProbability;
+    }
+    
+    /**
+     * Returns whether an accepted message is sampled according to the sampling probability of this rule.
+     */
+    @Pure
+    public boolean isSampled() {
+        return samplingProbability >= 1 || ThreadLocalRandom.current().nextDouble() < samplingProbability;
+    }
+    
     /* -------------------------------------------------- Acceptance -------------------------------------------------- */
     
     /**
@@ -97,11 +133,24 @@ public class LoggingRule {
     
     /* -------------------------------------------------- Constructors -------------------------------------------------- */
     
-    protected LoggingRule(@Nonnull Level threshold, @Nullable String callerPrefix, @Nullable String threadPrefix, @Nullable String messageRegex) {
+    protected LoggingRule(@Nonnull Level threshold, @Nullable String callerPrefix, @Nullable String threadPrefix, @Nullable String messageRegex, @NonNegative double rateLimit, double samplingProbability) {
+        Require.that(rateLimit >= 0).orThrow("The rate limit may not be negative but was $.", rateLimit);
+        Require.that(samplingProbability > 0 && samplingProbability <= 1).orThrow("The sampling probability has to be greater than 0 and at most 1 but was $.", samplingProbability);
+        
         this.threshold = threshold;
         this.callerPrefix = callerPrefix;
         this.threadPrefix = threadPrefix;
         this.messageRegex = messageRegex;
+        this.rateLimit = rateLimit;
+        this.samplingProbability = samplingProbability;
+    }
+    
+    /**
+     * Returns a logging rule with the given threshold, caller prefix, thread prefix, message regex, rate limit and sampling probability.
+     */
+    @Pure
+    public static @Nonnull LoggingRule with(@Nonnull Level threshold, @Nullable String callerPrefix, @Nullable String threadPrefix, @Nullable String messageRegex, @NonNegative double rateLimit, double samplingProbability) {
+        return new LoggingRule(threshold, callerPrefix, threadPrefix, messageRegex, rateLimit, samplingProbability);
     }
     
     /**
@@ -109,7 +158,7 @@ public class LoggingRule {
      */
     @Pure
     public static @Nonnull LoggingRule with(@Nonnull Level threshold, @Nullable String callerPrefix, @Nullable String threadPrefix, @Nullable String messageRegex) {
-        return new LoggingRule(threshold, callerPrefix, threadPrefix, messageRegex);
+        return new LoggingRule(threshold, callerPrefix, threadPrefix, messageRegex, 0, 1);
     }
     
     /**
@@ -117,7 +166,7 @@ public class LoggingRule {
      */
     @Pure
     public static @Nonnull LoggingRule with(@Nonnull Level threshold, @Nullable String callerPrefix, @Nullable String threadPrefix) {
-        return new LoggingRule(threshold, callerPrefix, threadPrefix, null);
+        return new LoggingRule(threshold, callerPrefix, threadPrefix, null, 0, 1);
     }
     
     /**
@@ -125,7 +174,7 @@ public class LoggingRule {
      */
     @Pure
     public static @Nonnull LoggingRule with(@Nonnull Level threshold, @Nullable String callerPrefix) {
-        return new LoggingRule(threshold, callerPrefix, null, null);
+        return new LoggingRule(threshold, callerPrefix, null, null, 0, 1);
     }
     
     /**
@@ -133,17 +182,20 @@ public class LoggingRule {
      */
     @Pure
     public static @Nonnull LoggingRule with(@Nonnull Level threshold) {
-        return new LoggingRule(threshold, null, null, null);
+        return new LoggingRule(threshold, null, null, null, 0, 1);
     }
     
     /* -------------------------------------------------- Encoding and Decoding -------------------------------------------------- */
     
     /**
      * Encodes this logging rule.
+     * The rate limit and the sampling probability follow the threshold as {@code rate=N} and {@code sample=P}.
      */
     @Pure
     public @Nonnull String encode() {
         final @Nonnull StringBuilder result = new StringBuilder(threshold.toString());
+        if (rateLimit > 0) { result.append(" rate=").append(rateLimit); }
+        if (samplingProbability < 1) { result.append(" sample=").append(samplingProbability); }
         if (callerPrefix != null || threadPrefix != null || messageRegex != null) {
             result.append(";");
             if (callerPrefix != null) { result.append(" ").append(callerPrefix); }
@@ -171,16 +223,27 @@ public class LoggingRule {
     /**
      * Decodes the given line and returns the corresponding rule.
      * 
-     * @throws IllegalArgumentException if a rule has an invalid level.
+     * @throws IllegalArgumentException if a rule has an invalid level, option or option value.
      */
     @Pure
     public static @Nonnull LoggingRule decode(@Nonnull String line) throws IllegalArgumentException {
         final @Nonnull @NonNullableElements String[] tokens = line.split(";", 4);
-        final @Nonnull Level threshold = Level.valueOf(tokens[0].trim().toUpperCase());
+        final @Nonnull @NonNullableElements String[] options = tokens[0].trim().split("\\s+");
+        final @Nonnull Level threshold = Level.valueOf(options[0].toUpperCase());
+        double rateLimit = 0;
+        double samplingProbability = 1;
+        for (int i = 1; i < options.length; i++) {
+            final @Nonnull String option = options[i];
+            if (option.startsWith("rate=")) { rateLimit = Double.parseDouble(option.substring(5)); }
+            else if (option.startsWith("sample=")) { samplingProbability = Double.parseDouble(option.substring(7)); }
+            else { throw new IllegalArgumentException("The option " + Quotes.inSingle(option) + " of a logging rule is unknown."); }
+        }
+        if (rateLimit < 0) { throw new IllegalArgumentException("The rate limit of a logging rule may not be negative."); }
+        if (!(samplingProbability > 0 && samplingProbability <= 1)) { throw new IllegalArgumentException("The sampling probability of a logging rule has to be greater than 0 and at most 1."); }
         final @Nullable String callerPrefix = getNonEmpty(tokens, 1);
         final @Nullable String threadPrefix = getNonEmpty(tokens, 2);
         final @Nullable String messageRegex = getNonEmpty(tokens, 3);
-        return new LoggingRule(threshold, callerPrefix, threadPrefix, messageRegex);
+        return new LoggingRule(threshold, callerPrefix, threadPrefix, messageRegex, rateLimit, samplingProbability);
     }
     
     /* -------------------------------------------------- Object -------------------------------------------------- */
@@ -191,7 +254,7 @@ public class LoggingRule {
         if (object == this) { return true; }
         if (object == null || !(object instanceof LoggingRule)) { return false; }
         final @Nonnull LoggingRule that = (LoggingRule) object;
-        return this.threshold == that.threshold && Objects.equals(this.callerPrefix, that.callerPrefix) && Objects.equals(this.threadPrefix, that.threadPrefix) && Objects.equals(this.messageRegex, that.messageRegex);
+        return this.threshold == that.threshold && Objects.equals(this.callerPrefix, that.callerPrefix) && Objects.equals(this.threadPrefix, that.threadPrefix) && Objects.equals(this.messageRegex, that.messageRegex) && this.rateLimit == that.rateLimit && this.samplingProbability == that.samplingProbability;
     }
     
     @Pure
@@ -202,13 +265,15 @@ public class LoggingRule {
         hash = 83 * hash + Objects.hashCode(callerPrefix);
         hash = 83 * hash + Objects.hashCode(threadPrefix);
         hash = 83 * hash + Objects.hashCode(messageRegex);
+        hash = 83 * hash + Double.hashCode(rateLimit);
+        hash = 83 * hash + Double.hashCode(samplingProbability);
         return hash;
     }
     
     @Pure
     @Override
     public @Nonnull String toString() {
-        return "LoggingRule(threshold: " + threshold + ", callerPrefix: " + Quotes.inCode(callerPrefix) + ", threadPrefix: " + Quotes.inCode(threadPrefix) + ", messageRegex: " + Quotes.inCode(messageRegex) + ")";
+        return "LoggingRule(threshold: " + threshold + ", callerPrefix: " + Quotes.inCode(callerPrefix) + ", threadPrefix: " + Quotes.inCode(threadPrefix) + ", messageRegex: " + Quotes.inCode(messageRegex) + ", rateLimit: " + rateLimit + ", samplingProbability: " + samplingProbability + ")";
     }
     
 }
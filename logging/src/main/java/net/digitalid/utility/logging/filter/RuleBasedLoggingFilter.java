@@ -15,24 +15,177 @@
  */
 package net.digitalid.utility.logging.filter;
 
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
 import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.logging.Level;
+import net.digitalid.utility.logging.format.Clock;
+import net.digitalid.utility.logging.logger.Logger;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 /**
  * This logging filter accepts a message if any of its rules matches.
+ * A message that is accepted by a rule is only logged if it is also sampled and within the rate limit of this rule.
+ * The number of messages that each rule suppressed is periodically logged as a warning on a background thread without being filtered.
  * 
  * @see ConfigurationBasedLoggingFilter
  */
 @Mutable
 public class RuleBasedLoggingFilter extends LoggingFilter {
     
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores the interval in milliseconds after which the number of suppressed messages is logged.
+     */
+    public static final @Nonnull Configuration<@Positive Long> summaryInterval = Configuration.with(60_000L);
+    
+    /* -------------------------------------------------- Rule State -------------------------------------------------- */
+    
+    /**
+     * This class stores the state of the rate limit and the number of suppressed messages of a rule.
+     * The rate limit is implemented as a token bucket in the form of the generic cell rate algorithm,
+     * which requires only a single compare-and-set operation per admitted message.
+     */
+    @Mutable
+    private static class RuleState {
+        
+        private final @Nonnull LoggingRule rule;
+        
+        /**
+         * Stores the number of nanoseconds between two messages at the rate limit.
+         */
+        private final long emissionInterval;
+        
+        /**
+         * Stores the number of nanoseconds by which a message may arrive early so that one second worth of messages can be logged in a burst.
+         */
+        private final long burstTolerance;
+        
+        /**
+         * Stores the theoretical arrival time of the next message in nanoseconds.
+         */
+        private final @Nonnull AtomicLong theoreticalArrivalTime = new AtomicLong(Long.MIN_VALUE / 2);
+        
+        private final @Nonnull LongAdder suppressedMessages = new LongAdder();
+        
+        private RuleState(@Nonnull LoggingRule rule) {
+            this.rule = rule;
+            this.emissionInterval = rule.getRateLimit() > 0 ? Math.max(1, (long) (1_000_000_000 / rule.getRateLimit())) : 0;
+            this.burstTolerance = Math.max(0, 1_000_000_000 - emissionInterval);
+        }
+        
+        /**
+         * Returns whether an accepted message is sampled and within the rate limit at the given time in nanoseconds.
+         */
+        @Impure
+        private boolean admits(long time) {
+            if (!rule.isSampled()) { return false; }
+            if (emissionInterval == 0) { return true; }
+            while (true) {
+                final long currentArrivalTime = theoreticalArrivalTime.get();
+                final long arrivalTime = Math.max(currentArrivalTime, time);
+                if (arrivalTime - time > burstTolerance) { return false; }
+                if (theoreticalArrivalTime.compareAndSet(currentArrivalTime, arrivalTime + emissionInterval)) { return true; }
+            }
+        }
+        
+    }
+    
+    /**
+     * Stores the states of the rules in the same order as the rules.
+     */
+    private volatile @Nonnull RuleState[] states;
+    
+    /**
+     * Stores whether any of the rules samples or limits the messages.
+     */
+    private volatile boolean restricting;
+    
+    /**
+     * Creates the states of the given rules.
+     */
+    @Impure
+    private void setStates(@Nonnull FiniteIterable<@Nonnull LoggingRule> rules) {
+        final @Nonnull RuleState[] states = new RuleState[rules.size()];
+        int index = 0;
+        boolean restricting = false;
+        for (@Nonnull LoggingRule rule : rules) {
+            states[index++] = new RuleState(rule);
+            restricting |= rule.getRateLimit() > 0 || rule.getSamplingProbability() < 1;
+        }
+        this.states = states;
+        this.restricting = restricting;
+    }
+    
+    /* -------------------------------------------------- Summary -------------------------------------------------- */
+    
+    /**
+     * Stores the executor which logs the summaries of all rule-based logging filters.
+     * The filters cannot use the timers of the time module, which depends on this module.
+     */
+    private static final @Nonnull ScheduledExecutorService summarizer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final @Nonnull Thread thread = new Thread(runnable, "Logging Summary");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Stores the time in milliseconds at which the suppressed messages were last summarized or {@link Long#MIN_VALUE} if no summary has been scheduled yet.
+     */
+    private final @Nonnull AtomicLong lastSummary = new AtomicLong(Long.MIN_VALUE);
+    
+    /**
+     * Schedules the periodic summary of the suppressed messages unless it has already been scheduled.
+     */
+    @Impure
+    private void scheduleSummary() {
+        if (lastSummary.get() == Long.MIN_VALUE && lastSummary.compareAndSet(Long.MIN_VALUE, Clock.clock.get().getTime())) {
+            scheduleSummary(new WeakReference<>(this));
+        }
+    }
+    
+    /**
+     * Schedules the next summary of the referenced filter, which is no longer summarized once it has been garbage collected.
+     */
+    @Impure
+    private static void scheduleSummary(@Nonnull WeakReference<RuleBasedLoggingFilter> reference) {
+        summarizer.schedule(() -> {
+            final @Nullable RuleBasedLoggingFilter filter = reference.get();
+            if (filter != null) {
+                filter.summarize();
+                scheduleSummary(reference);
+            }
+        }, summaryInterval.get(), TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Logs the number of messages that each rule suppressed since the last summary.
+     * The summary is written directly to the configured logger so that it is not subject to this filter.
+     */
+    @Impure
+    private void summarize() {
+        final long time = Clock.clock.get().getTime();
+        final long elapsedSeconds = (time - lastSummary.getAndSet(time)) / 1000;
+        for (@Nonnull RuleState state : states) {
+            final long suppressedMessages = state.suppressedMessages.sumThenReset();
+            if (suppressedMessages > 0) { Logger.logUnfiltered(Level.WARNING, "The logging rule $ suppressed $ messages in the last $ seconds.", state.rule.encode(), suppressedMessages, elapsedSeconds); }
+        }
+    }
+    
     /* -------------------------------------------------- Rules -------------------------------------------------- */
     
     private @Nonnull FiniteIterable<@Nonnull LoggingRule> rules;
@@ -50,6 +203,7 @@ public class RuleBasedLoggingFilter extends LoggingFilter {
      */
     @Impure
     protected void setRules(@Nonnull FiniteIterable<@Nonnull LoggingRule> rules) {
+        setStates(rules);
         this.rules = rules;
     }
     
@@ -57,6 +211,7 @@ public class RuleBasedLoggingFilter extends LoggingFilter {
     
     protected RuleBasedLoggingFilter(@Nonnull @NonNullableElements LoggingRule... rules) {
         this.rules = FiniteIterable.of(rules);
+        setStates(this.rules);
     }
     
     /**
@@ -78,7 +233,21 @@ public class RuleBasedLoggingFilter extends LoggingFilter {
     @Pure
     @Override
     public boolean isLogged(@Nonnull Level level, @Nonnull String caller, @Nonnull String thread, @Nonnull String message, @Nullable Throwable throwable) {
-        return rules.matchAny(rule -> rule.accepts(level, caller, thread, message));
+        if (!restricting) { return rules.matchAny(rule -> rule.accepts(level, caller, thread, message)); }
+        
+        final long time = Clock.clock.get().getTime() * 1_000_000;
+        @Nullable RuleState suppressingState = null;
+        for (@Nonnull RuleState state : states) {
+            if (state.rule.accepts(level, caller, thread, message)) {
+                if (state.admits(time)) { return true; }
+                if (suppressingState == null) { suppressingState = state; }
+            }
+        }
+        if (suppressingState != null) {
+            suppressingState.suppressedMessages.increment();
+            scheduleSummary();
+        }
+        return false;
     }
     
 }
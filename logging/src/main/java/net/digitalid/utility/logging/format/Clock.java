@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.format;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.validation.annotations.type.Functional;
+import net.digitalid.utility.validation.annotations.type.Stateless;
+
+/**
+ * A clock provides the current time to the loggers so that tests can inject a deterministic time.
+ */
+@Stateless
+@Functional
+public interface Clock {
+    
+    /* -------------------------------------------------- Time -------------------------------------------------- */
+    
+    /**
+     * Returns the current time in milliseconds since the epoch.
+     */
+    @Impure
+    public long getTime();
+    
+    /* -------------------------------------------------- Constants -------------------------------------------------- */
+    
+    /**
+     * Stores a clock that returns the current time of the system.
+     */
+    public static final @Nonnull Clock SYSTEM = System::currentTimeMillis;
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores the clock which is used by the loggers.
+     */
+    public static final @Nonnull Configuration<Clock> clock = Configuration.with(SYSTEM);
+    
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.format;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A timestamp formatter formats times as 'yyyy-MM-dd at HH:mm:ss.SSS' in the default time zone.
+ * The part up to the seconds is cached so that only the milliseconds have to be rendered for subsequent times within the same second.
+ */
+@Mutable
+@ThreadSafe
+public class TimestampFormatter {
+    
+    /* -------------------------------------------------- Cache -------------------------------------------------- */
+    
+    /**
+     * Stores the rendered prefix of a second.
+     */
+    private static class Prefix {
+        
+        private final long second;
+        
+        private final @Nonnull char[] characters;
+        
+        private Prefix(long second, @Nonnull char[] characters) {
+            this.second = second;
+            this.characters = characters;
+        }
+        
+    }
+    
+    /**
+     * Stores the prefix of the most recently formatted second.
+     */
+    private volatile @Nonnull Prefix prefix = new Prefix(Long.MIN_VALUE, new char[0]);
+    
+    /* -------------------------------------------------- Rendering -------------------------------------------------- */
+    
+    /**
+     * Appends the given value with at least the given number of digits to the given builder.
+     */
+    @Impure
+    private static void appendPadded(@NonCaptured @Modified @Nonnull StringBuilder builder, int value, int digits) {
+        for (int limit = 10; digits > 1; digits--, limit *= 10) {
+            if (value < limit) { builder.append('0'); }
+        }
+        builder.append(value);
+    }
+    
+    /**
+     * Renders the prefix of the given second.
+     */
+    @Pure
+    private static @Nonnull Prefix render(long second) {
+        final @Nonnull LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault());
+        final @Nonnull StringBuilder builder = new StringBuilder(24);
+        appendPadded(builder, dateTime.getYear(), 4);
+        builder.append('-');
+        appendPadded(builder, dateTime.getMonthValue(), 2);
+        builder.append('-');
+        appendPadded(builder, dateTime.getDayOfMonth(), 2);
+        builder.append(" at ");
+        appendPadded(builder, dateTime.getHour(), 2);
+        builder.append(':');
+        appendPadded(builder, dateTime.getMinute(), 2);
+        builder.append(':');
+        appendPadded(builder, dateTime.getSecond(), 2);
+        builder.append('.');
+        final @Nonnull char[] characters = new char[builder.length()];
+        builder.getChars(0, characters.length, characters, 0);
+        return new Prefix(second, characters);
+    }
+    
+    /* -------------------------------------------------- Formatting -------------------------------------------------- */
+    
+    /**
+     * Appends the given time in milliseconds since the epoch to the given builder.
+     */
+    @Impure
+    public void format(long time, @NonCaptured @Modified @Nonnull StringBuilder builder) {
+        final long second = Math.floorDiv(time, 1000);
+        final int milliseconds = (int) Math.floorMod(time, 1000);
+        @Nonnull Prefix prefix = this.prefix;
+        if (prefix.second != second) {
+            prefix = render(second);
+            this.prefix = prefix;
+        }
+        builder.append(prefix.characters);
+        builder.append((char) ('0' + milliseconds / 100));
+        builder.append((char) ('0' + milliseconds / 10 % 10));
+        builder.append((char) ('0' + milliseconds % 10));
+    }
+    
+    /**
+     * Returns the given time in milliseconds since the epoch as a string.
+     */
+    @Pure
+    public @Nonnull String format(long time) {
+        final @Nonnull StringBuilder builder = new StringBuilder(27);
+        format(time, builder);
+        return builder.toString();
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected TimestampFormatter() {}
+    
+    /**
+     * Returns a new timestamp formatter.
+     */
+    @Pure
+    public static @Nonnull TimestampFormatter withNoArguments() {
+        return new TimestampFormatter();
+    }
+    
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
+import net.digitalid.utility.file.Files;
+import net.digitalid.utility.logging.Level;
+import net.digitalid.utility.logging.Version;
+import net.digitalid.utility.logging.binary.BinaryLogFormat;
+import net.digitalid.utility.logging.binary.BinaryLogReader;
+import net.digitalid.utility.logging.format.Clock;
+import net.digitalid.utility.string.Strings;
+import net.digitalid.utility.validation.annotations.file.existence.Existent;
+import net.digitalid.utility.validation.annotations.file.kind.Directory;
+import net.digitalid.utility.validation.annotations.file.permission.Writable;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This class implements a logger that appends the messages in the {@link BinaryLogFormat binary format} to memory-mapped segments in a directory.
+ * Callers and threads are written only once per segment and then referenced by their identifier.
+ * The segments can be converted back to text and filtered with the {@link BinaryLogReader}.
+ * <p>
+ * <em>Warning:</em> Logging from different processes to the same directory may fail!
+ */
+@Mutable
+public class BinaryFileLogger extends Logger {
+    
+    /* -------------------------------------------------- Directory -------------------------------------------------- */
+    
+    private final @Nonnull @Existent @Directory File directory;
+    
+    /**
+     * Returns the directory in which the segments are stored.
+     */
+    @Pure
+    public @Nonnull @Existent @Directory File getDirectory() {
+        return directory;
+    }
+    
+    /* -------------------------------------------------- Segment Size -------------------------------------------------- */
+    
+    /**
+     * Stores the default size of a segment in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    
+    private final @Positive int segmentSize;
+    
+    /**
+     * Returns the size of a segment in bytes unless an event does not fit into a segment of this size.
+     */
+    @Pure
+    public @Positive int getSegmentSize() {
+        return segmentSize;
+    }
+    
+    /* -------------------------------------------------- Segment -------------------------------------------------- */
+    
+    private long segmentIndex;
+    
+    private @Nullable FileChannel channel;
+    
+    private @Nullable MappedByteBuffer buffer;
+    
+    /**
+     * Stores the identifiers of the callers and threads that have been defined in the current segment.
+     */
+    private final @Nonnull Map<@Nonnull String, @Nonnull Integer> identifiers = new HashMap<>();
+    
+    /**
+     * Forces the current segment to the storage device and closes its channel.
+     */
+    @Impure
+    private void closeSegment() throws IOException {
+        if (buffer != null) { buffer.force(); }
+        if (channel != null) { channel.close(); }
+        buffer = null;
+        channel = null;
+    }
+    
+    /**
+     * Closes the current segment and opens a new segment with at least the given number of bytes after the header.
+     */
+    @Impure
+    private @Nonnull MappedByteBuffer openSegment(int minimumSize) throws IOException {
+        closeSegment();
+        identifiers.clear();
+        
+        final @Nonnull byte[] version = Version.string.get().getBytes(BinaryLogFormat.CHARSET);
+        final int headerSize = 4 + 1 + 8 + 4 + version.length;
+        final @Nonnull File file = BinaryLogFormat.getSegmentFile(directory, ++segmentIndex);
+        final @Nonnull FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final @Nonnull MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize + Math.max(segmentSize, minimumSize + 1));
+        buffer.putInt(BinaryLogFormat.MAGIC).put(BinaryLogFormat.VERSION).putLong(Clock.clock.get().getTime()).putInt(version.length).put(version);
+        
+        this.channel = channel;
+        this.buffer = buffer;
+        return buffer;
+    }
+    
+    /* -------------------------------------------------- Encoding -------------------------------------------------- */
+    
+    /**
+     * Returns the number of bytes that the definition of the given string requires or zero if it is already defined.
+     */
+    @Pure
+    private int getDefinitionSize(@Nonnull String string) {
+        return identifiers.containsKey(string) ? 0 : 1 + 4 + 4 + string.getBytes(BinaryLogFormat.CHARSET).length;
+    }
+    
+    /**
+     * Returns the identifier of the given string and defines it in the given buffer if necessary.
+     * The tag is written last so that concurrent readers never see a partially written entry.
+     */
+    @Impure
+    private int define(@NonCaptured @Unmodified @Nonnull MappedByteBuffer buffer, @Nonnull String string) {
+        final @Nullable Integer existing = identifiers.get(string);
+        if (existing != null) { return existing; }
+        
+        final int identifier = identifiers.size();
+        final @Nonnull byte[] bytes = string.getBytes(BinaryLogFormat.CHARSET);
+        final int start = buffer.position();
+        buffer.position(start + 1);
+        buffer.putInt(identifier).putInt(bytes.length).put(bytes);
+        buffer.put(start, BinaryLogFormat.DEFINITION);
+        identifiers.put(string, identifier);
+        return identifier;
+    }
+    
+    /**
+     * Returns the stack trace of the given throwable.
+     */
+    @Pure
+    private static @Nonnull String getStackTrace(@Nonnull Throwable throwable) {
+        final @Nonnull StringWriter writer = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    /**
+     * Creates a binary file logger that appends the messages to new segments of the given size in the given directory.
+     * 
+     * @throws IOException if the first segment cannot be created.
+     */
+    protected BinaryFileLogger(@Nonnull @Existent @Directory @Writable File directory, @Positive int segmentSize) throws IOException {
+        Require.that(directory.isDirectory()).orThrow("The directory $ has to exist.", directory.getPath());
+        Require.that(segmentSize > 0).orThrow("The segment size has to be positive but was $.", segmentSize);
+        
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        
+        long lastIndex = 0;
+        final @Nullable File[] files = directory.listFiles();
+        if (files != null) {
+            for (@Nonnull File file : files) { lastIndex = Math.max(lastIndex, BinaryLogFormat.getSegmentIndex(file)); }
+        }
+        this.segmentIndex = lastIndex;
+        openSegment(0);
+    }
+    
+    /**
+     * Returns a binary file logger that appends the messages to new segments of the given size in the given directory.
+     * 
+     * @throws IOException if the first segment cannot be created.
+     */
+    @Pure
+    public static @Capturable @Nonnull BinaryFileLogger with(@Nonnull @Existent @Directory @Writable File directory, @Positive int segmentSize) throws IOException {
+        return new BinaryFileLogger(directory, segmentSize);
+    }
+    
+    /**
+     * Returns a binary file logger that appends the messages to new segments of the default size in the given directory.
+     * 
+     * @throws IOException if the first segment cannot be created.
+     */
+    @Pure
+    public static @Capturable @Nonnull BinaryFileLogger with(@Nonnull @Existent @Directory @Writable File directory) throws IOException {
+        return new BinaryFileLogger(directory, DEFAULT_SEGMENT_SIZE);
+    }
+    
+    /**
+     * Returns a binary file logger that appends the messages to new segments of the default size in the default directory.
+     * 
+     * @throws IOException if the directory or the first segment cannot be created.
+     */
+    @Pure
+    public static @Capturable @Nonnull BinaryFileLogger withDefaultDirectory() throws IOException {
+        final @Nonnull File directory = Files.relativeToConfigurationDirectory("logs/binary");
+        if (!directory.isDirectory() && !directory.mkdir()) { throw new IOException(Strings.format("Could not create the directory $.", directory.getPath())); }
+        return new BinaryFileLogger(directory, DEFAULT_SEGMENT_SIZE);
+    }
+    
+    /* -------------------------------------------------- Flushing -------------------------------------------------- */
+    
+    /**
+     * Forces the current segment to the storage device.
+     */
+    @Impure
+    public synchronized void flush() {
+        if (buffer != null) { buffer.force(); }
+    }
+    
+    /* -------------------------------------------------- Logging -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    protected synchronized void log(@Nonnull Level level, @Nonnull String caller, @Nonnull String thread, @Nonnull String message, @Nullable Throwable throwable) {
+        final long time = Clock.clock.get().getTime();
+        final @Nonnull byte[] messageBytes = message.getBytes(BinaryLogFormat.CHARSET);
+        final @Nullable byte[] throwableBytes = throwable == null ? null : getStackTrace(throwable).getBytes(BinaryLogFormat.CHARSET);
+        final int eventSize = BinaryLogFormat.EVENT_OVERHEAD + 4 + messageBytes.length + 4 + (throwableBytes == null ? 0 : throwableBytes.length);
+        
+        try {
+            @Nullable MappedByteBuffer buffer = this.buffer;
+            if (buffer == null || eventSize + getDefinitionSize(caller) + getDefinitionSize(thread) >= buffer.remaining()) {
+                identifiers.clear();
+                buffer = openSegment(eventSize + getDefinitionSize(caller) + getDefinitionSize(thread));
+            }
+            
+            final int callerIdentifier = define(buffer, caller);
+            final int threadIdentifier = define(buffer, thread);
+            final int start = buffer.position();
+            buffer.position(start + 1);
+            buffer.putInt(eventSize - 1 - 4).putLong(time).put(level.getValue()).putInt(callerIdentifier).putInt(threadIdentifier);
+            buffer.putInt(messageBytes.length).put(messageBytes);
+            if (throwableBytes == null) { buffer.putInt(-1); }
+            else { buffer.putInt(throwableBytes.length).put(throwableBytes); }
+            buffer.put(start, BinaryLogFormat.EVENT);
+        } catch (@Nonnull IOException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+}
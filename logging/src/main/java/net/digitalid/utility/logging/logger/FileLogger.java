@@ -19,6 +19,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.Properties;
 
@@ -28,9 +31,12 @@ import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.Capturable;
 import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.validation.annotations.file.existence.ExistentParent;
 import net.digitalid.utility.validation.annotations.file.kind.Normal;
 import net.digitalid.utility.validation.annotations.file.permission.Writable;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 /**
@@ -41,6 +47,64 @@ import net.digitalid.utility.validation.annotations.type.Mutable;
 @Mutable
 public class FileLogger extends PrintStreamLogger {
     
+    /* -------------------------------------------------- Counting Stream -------------------------------------------------- */
+    
+    /**
+     * This class implements an output stream that counts the number of bytes which are written to the file.
+     */
+    @Mutable
+    private static class CountingOutputStream extends FilterOutputStream {
+        
+        private volatile long size;
+        
+        private CountingOutputStream(@Captured @Nonnull OutputStream outputStream, @NonNegative long size) {
+            super(outputStream);
+            
+            this.size = size;
+        }
+        
+        @Impure
+        @Override
+        @SuppressWarnings("NonAtomicOperationOnVolatileField")
+        public void write(int b) throws IOException {
+            out.write(b);
+            size += 1;
+        }
+        
+        @Impure
+        @Override
+        @SuppressWarnings("NonAtomicOperationOnVolatileField")
+        public void write(@NonCaptured @Unmodified @Nonnull byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            size += length;
+        }
+        
+    }
+    
+    /* -------------------------------------------------- File -------------------------------------------------- */
+    
+    private @Nonnull File file;
+    
+    /**
+     * Returns the file to which the messages are printed.
+     */
+    @Pure
+    public @Nonnull File getFile() {
+        return file;
+    }
+    
+    /* -------------------------------------------------- File Size -------------------------------------------------- */
+    
+    private @Nonnull CountingOutputStream countingOutputStream;
+    
+    /**
+     * Returns the size of the file to which the messages are printed without querying the file system.
+     */
+    @Pure
+    public @NonNegative long getFileSize() {
+        return countingOutputStream.size;
+    }
+    
     /* -------------------------------------------------- Print Stream -------------------------------------------------- */
     
     /**
@@ -51,7 +115,8 @@ public class FileLogger extends PrintStreamLogger {
     @Impure
     protected void setFile(@Captured @Nonnull @Normal @Writable @ExistentParent File file) throws FileNotFoundException {
         final boolean fileDidNotExist = !file.exists();
-        final @Nonnull PrintStream printStream = new PrintStream(new FileOutputStream(file, true));
+        final @Nonnull CountingOutputStream countingOutputStream = new CountingOutputStream(new FileOutputStream(file, true), file.length());
+        final @Nonnull PrintStream printStream = new PrintStream(countingOutputStream);
         
         if (fileDidNotExist) {
             final @Nonnull Properties properties = System.getProperties();
@@ -63,6 +128,8 @@ public class FileLogger extends PrintStreamLogger {
         }
         
         setPrintStream(printStream);
+        this.countingOutputStream = countingOutputStream;
+        this.file = file;
     }
     
     /* -------------------------------------------------- Constructors -------------------------------------------------- */
@@ -75,6 +142,8 @@ public class FileLogger extends PrintStreamLogger {
     protected FileLogger(@Captured @Nonnull @Normal @Writable @ExistentParent File file) throws FileNotFoundException {
         super(new PrintStream(new ByteArrayOutputStream(0))); // Dummy print stream because setPrintStream(file) cannot be called here.
         
+        this.file = file;
+        this.countingOutputStream = new CountingOutputStream(new ByteArrayOutputStream(0), 0);
         setFile(file);
     }
     
@@ -19,6 +19,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.configuration.Configuration;
@@ -26,6 +27,10 @@ import net.digitalid.utility.logging.Caller;
 import net.digitalid.utility.logging.Level;
 import net.digitalid.utility.logging.Version;
 import net.digitalid.utility.logging.filter.LoggingFilter;
+import net.digitalid.utility.logging.format.Clock;
+import net.digitalid.utility.logging.metrics.Histogram;
+import net.digitalid.utility.logging.metrics.LevelCounter;
+import net.digitalid.utility.logging.metrics.LoggingMetrics;
 import net.digitalid.utility.string.Strings;
 import net.digitalid.utility.validation.annotations.elements.NullableElements;
 import net.digitalid.utility.validation.annotations.type.Mutable;
@@ -52,7 +57,7 @@ public abstract class Logger {
     /**
      * Stores the logger which is used for logging.
      */
-    public static final @Nonnull Configuration<Logger> logger = Configuration.<Logger>with(StandardOutputLogger.withNoArguments()).addDependency(LoggingFilter.filter).addDependency(Caller.index).addDependency(Version.string);
+    public static final @Nonnull Configuration<Logger> logger = Configuration.<Logger>with(StandardOutputLogger.withNoArguments()).addDependency(LoggingFilter.filter).addDependency(Caller.index).addDependency(Version.string).addDependency(Clock.clock).addDependency(LoggingMetrics.enabled);
     
     /* -------------------------------------------------- Logging -------------------------------------------------- */
     
@@ -61,6 +66,16 @@ public abstract class Logger {
      */
     protected abstract void log(@Nonnull Level level, @Nonnull String caller, @Nonnull String thread, @Nonnull String message, @Nullable Throwable throwable);
     
+    /**
+     * Returns the given message with each dollar sign replaced with the corresponding argument and a period appended if necessary.
+     */
+    @Pure
+    private static @Nonnull String format(@Nonnull CharSequence message, @NonCaptured @Unmodified @Nonnull @NullableElements Object... arguments) {
+        final @Nonnull String originalMessage = message.toString();
+        final boolean addNoPeriod = originalMessage.endsWith(".") || originalMessage.endsWith(":") || originalMessage.endsWith("\n");
+        return Strings.format(originalMessage, arguments) + (addNoPeriod ? "" : ".");
+    }
+    
     /**
      * Logs the given message and throwable if the configured filter accepts them.
      * Each dollar sign in the message is replaced with the corresponding argument.
@@ -68,14 +83,74 @@ public abstract class Logger {
     @Impure
     public static void log(@Nonnull Level level, @Nonnull CharSequence message, @Nullable Throwable throwable, @NonCaptured @Unmodified @Nonnull @NullableElements Object... arguments) {
         final @Nonnull LoggingFilter filter = LoggingFilter.filter.get();
+        final boolean measured = LoggingMetrics.enabled.get();
         if (filter.isPotentiallyLogged(level)) {
+            final long start = measured ? System.nanoTime() : 0;
             final @Nonnull String caller = Caller.get();
             final @Nonnull String thread = Thread.currentThread().getName();
-            final @Nonnull String originalMessage = message.toString();
-            final boolean addNoPeriod = originalMessage.endsWith(".") || originalMessage.endsWith(":") || originalMessage.endsWith("\n");
-            final @Nonnull String formattedMessage = Strings.format(originalMessage, arguments) + (addNoPeriod ? "" : ".");
-            if (filter.isLogged(level, caller, thread, formattedMessage, throwable)) { logger.get().log(level, caller, thread, formattedMessage, throwable); }
+            final @Nonnull String formattedMessage = format(message, arguments);
+            if (filter.isLogged(level, caller, thread, formattedMessage, throwable)) {
+                final @Nonnull Logger instance = logger.get();
+                if (measured) {
+                    final long formatted = System.nanoTime();
+                    instance.log(level, caller, thread, formattedMessage, throwable);
+                    final long written = System.nanoTime();
+                    instance.writtenMessages.increment(level);
+                    instance.formattingTime.record(formatted - start);
+                    instance.writingTime.record(written - formatted);
+                } else {
+                    instance.log(level, caller, thread, formattedMessage, throwable);
+                }
+            } else if (measured) {
+                filter.getRejectedMessages().increment(level);
+            }
+        } else if (measured) {
+            filter.getPotentiallyRejectedMessages().increment(level);
         }
     }
     
+    /**
+     * Logs the given message with the configured logger without consulting the configured filter.
+     * This allows a filter to report on itself without its report being subject to the filter.
+     * Each dollar sign in the message is replaced with the corresponding argument.
+     */
+    @Impure
+    public static void logUnfiltered(@Nonnull Level level, @Nonnull CharSequence message, @NonCaptured @Unmodified @Nonnull @NullableElements Object... arguments) {
+        final @Nonnull Logger instance = logger.get();
+        instance.log(level, Caller.get(3), Thread.currentThread().getName(), format(message, arguments), null);
+        if (LoggingMetrics.enabled.get()) { instance.writtenMessages.increment(level); }
+    }
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private final @Nonnull LevelCounter writtenMessages = LevelCounter.withNoEvents();
+    
+    /**
+     * Returns the counter of the messages that were written by this logger.
+     */
+    @Pure
+    public @Nonnull LevelCounter getWrittenMessages() {
+        return writtenMessages;
+    }
+    
+    private final @Nonnull Histogram formattingTime = Histogram.withNoValues();
+    
+    /**
+     * Returns the histogram of the nanoseconds spent on determining the caller, formatting and filtering the messages that were written by this logger.
+     */
+    @Pure
+    public @Nonnull Histogram getFormattingTime() {
+        return formattingTime;
+    }
+    
+    private final @Nonnull Histogram writingTime = Histogram.withNoValues();
+    
+    /**
+     * Returns the histogram of the nanoseconds spent in {@link #log(net.digitalid.utility.logging.Level, java.lang.String, java.lang.String, java.lang.String, java.lang.Throwable)} of this logger.
+     */
+    @Pure
+    public @Nonnull Histogram getWritingTime() {
+        return writingTime;
+    }
+    
 }
@@ -15,10 +15,10 @@
  */
 package net.digitalid.utility.logging.logger;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.Writer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -28,8 +28,11 @@ import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.Capturable;
 import net.digitalid.utility.annotations.ownership.Captured;
 import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
 import net.digitalid.utility.logging.Level;
 import net.digitalid.utility.logging.Version;
+import net.digitalid.utility.logging.format.Clock;
+import net.digitalid.utility.logging.format.TimestampFormatter;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 /**
@@ -43,16 +46,54 @@ public abstract class PrintStreamLogger extends Logger {
     
     /* -------------------------------------------------- Time Format -------------------------------------------------- */
     
-    private static final @Nonnull ThreadLocal<@Nonnull DateFormat> timeFormat = new ThreadLocal<DateFormat>() {
-        @Pure @Override protected @Capturable @Nonnull DateFormat initialValue() {
-            return new SimpleDateFormat("yyyy-MM-dd 'at' HH:mm:ss.SSS");
+    private static final @Nonnull TimestampFormatter timestampFormatter = TimestampFormatter.withNoArguments();
+    
+    /* -------------------------------------------------- Line Builder -------------------------------------------------- */
+    
+    /**
+     * Stores the maximum capacity of a line builder that is retained between log calls.
+     */
+    private static final int MAXIMUM_RETAINED_CAPACITY = 8192;
+    
+    /**
+     * Stores a builder per thread into which the lines are rendered before they are printed.
+     */
+    private static final @Nonnull ThreadLocal<@Nonnull StringBuilder> lineBuilder = new ThreadLocal<StringBuilder>() {
+        @Pure @Override protected @Capturable @Nonnull StringBuilder initialValue() {
+            return new StringBuilder(256);
         }
     };
     
+    /**
+     * Stores an array per thread into which the characters of the line builder are copied so that they can be written without creating a string.
+     */
+    private static final @Nonnull ThreadLocal<@Nonnull char[]> lineCharacters = new ThreadLocal<char[]>() {
+        @Pure @Override protected @Capturable @Nonnull char[] initialValue() {
+            return new char[256];
+        }
+    };
+    
+    /**
+     * Returns an array of the current thread with at least the given length.
+     */
+    @Impure
+    private static @Nonnull char[] getLineCharacters(int length) {
+        final @Nonnull char[] characters = lineCharacters.get();
+        if (characters.length >= length) { return characters; }
+        final @Nonnull char[] result = new char[Math.max(length, characters.length * 2)];
+        if (result.length <= MAXIMUM_RETAINED_CAPACITY) { lineCharacters.set(result); }
+        return result;
+    }
+    
     /* -------------------------------------------------- Print Stream -------------------------------------------------- */
     
     private @Nonnull PrintStream printStream;
     
+    /**
+     * Stores a writer that encodes the characters of the lines into the print stream with the same charset.
+     */
+    private @Nonnull Writer writer;
+    
     /**
      * Sets the print stream to which the messages are printed.
      * This class uses the given print stream for synchronization.
@@ -65,6 +106,7 @@ public abstract class PrintStreamLogger extends Logger {
         synchronized (this.printStream) {
             this.printStream.close();
             this.printStream = printStream;
+            this.writer = new OutputStreamWriter(printStream);
         }
     }
     
@@ -78,6 +120,7 @@ public abstract class PrintStreamLogger extends Logger {
         Require.that(printStream != null).orThrow("The print stream may not be null.");
         
         this.printStream = printStream;
+        this.writer = new OutputStreamWriter(printStream);
     }
     
     /* -------------------------------------------------- Logging -------------------------------------------------- */
@@ -86,9 +129,24 @@ public abstract class PrintStreamLogger extends Logger {
     @Override
     @SuppressWarnings("SynchronizeOnNonFinalField")
     protected void log(@Nonnull Level level, @Nonnull String caller, @Nonnull String thread, @Nonnull String message, @Nullable Throwable throwable) {
+        final long time = Clock.clock.get().getTime();
         final @Nonnull String version = Version.string.get();
+        final @Nonnull StringBuilder builder = lineBuilder.get();
+        if (builder.capacity() > MAXIMUM_RETAINED_CAPACITY) { builder.setLength(0); builder.trimToSize(); }
+        builder.setLength(0);
+        timestampFormatter.format(time, builder);
+        if (!version.isEmpty()) { builder.append(" in ").append(version); }
+        builder.append(" [").append(thread).append("] (").append(level).append(") <").append(caller).append(">: ").append(message).append(System.lineSeparator());
+        final int length = builder.length();
+        final @Nonnull char[] characters = getLineCharacters(length);
+        builder.getChars(0, length, characters, 0);
         synchronized (printStream) {
-            printStream.println(timeFormat.get().format(new Date()) + (version.isEmpty() ? "" : " in " + version) + " [" + thread + "] (" + level + ") <" + caller + ">: " + message);
+            try {
+                writer.write(characters, 0, length);
+                writer.flush();
+            } catch (@Nonnull IOException exception) {
+                throw UncheckedExceptionBuilder.withCause(exception).build();
+            }
             if (throwable != null) {
                 printStream.println();
                 throwable.printStackTrace(printStream);
@@ -16,10 +16,21 @@
 package net.digitalid.utility.logging.logger;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -27,61 +38,227 @@ import javax.annotation.Nullable;
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
 import net.digitalid.utility.file.Files;
 import net.digitalid.utility.logging.Level;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.logging.format.Clock;
+import net.digitalid.utility.validation.annotations.file.existence.Existent;
 import net.digitalid.utility.validation.annotations.file.existence.ExistentParent;
 import net.digitalid.utility.validation.annotations.file.kind.Normal;
 import net.digitalid.utility.validation.annotations.file.path.Absolute;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 /**
  * This class implements a logger that logs the messages to a rotating file.
+ * The file is rotated when the configured time interval elapses or when the file reaches the configured size.
+ * Rotated files are compressed and pruned on a background thread so that logging threads are not paused.
  */
 @Mutable
 public class RotatingFileLogger extends FileLogger {
     
+    /* -------------------------------------------------- Constants -------------------------------------------------- */
+    
+    /**
+     * Stores the number of milliseconds in a day.
+     */
+    public static final long DAY = 24 * 60 * 60 * 1000L;
+    
+    /**
+     * Stores the default size in bytes at which a file is rotated.
+     */
+    public static final long DEFAULT_MAXIMUM_FILE_SIZE = 64 * 1024 * 1024L;
+    
     /* -------------------------------------------------- File Format -------------------------------------------------- */
     
     /**
-     * Stores the date format of the file name.
+     * Stores the date format of the file name for intervals of at least a day.
      */
-    private static final @Nonnull ThreadLocal<@Nonnull DateFormat> fileFormat = new ThreadLocal<DateFormat>() {
-        @Override protected @Nonnull DateFormat initialValue() {
-            return new SimpleDateFormat("yyyy-MM-dd");
-        }
-    };
+    private static final @Nonnull DateTimeFormatter dayFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    
+    /**
+     * Stores the date format of the file name for intervals of less than a day.
+     */
+    private static final @Nonnull DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    
+    /* -------------------------------------------------- Background Thread -------------------------------------------------- */
+    
+    /**
+     * Stores the executor which compresses and prunes the rotated files.
+     */
+    private static final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        final @Nonnull Thread thread = new Thread(runnable, "Logging");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     /* -------------------------------------------------- Current File -------------------------------------------------- */
     
     /**
-     * Returns the current file to log the messages to.
+     * Returns the start of the interval in which the given time lies, where intervals are aligned to the local midnight.
+     */
+    @Pure
+    private static long getIntervalStart(long time, @Positive long interval) {
+        final long offset = TimeZone.getDefault().getOffset(time);
+        return Math.floorDiv(time + offset, interval) * interval - offset;
+    }
+    
+    /**
+     * Returns the file to log the messages to in the interval starting at the given time.
+     * If the file of the interval has already reached the given size, the next file with a sequence number is returned.
+     */
+    @Pure
+    private static @Nonnull @Absolute @Normal @ExistentParent File getCurrentFile(long intervalStart, @Positive long interval, @Positive long maximumFileSize) {
+        final @Nonnull String name = "logs/" + (interval % DAY == 0 ? dayFormat : timeFormat).format(Instant.ofEpochMilli(intervalStart).atZone(ZoneId.systemDefault()));
+        for (int sequence = 0; ; sequence++) {
+            final @Nonnull File file = Files.relativeToConfigurationDirectory(name + (sequence == 0 ? "" : "." + sequence) + ".log");
+            if (!new File(file.getPath() + ".gz").exists() && (!file.exists() || file.length() < maximumFileSize)) { return file; }
+        }
+    }
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    private final @Positive long maximumFileSize;
+    
+    /**
+     * Returns the size in bytes at which the file is rotated.
+     */
+    @Pure
+    public @Positive long getMaximumFileSize() {
+        return maximumFileSize;
+    }
+    
+    private final @Positive long rotationInterval;
+    
+    /**
+     * Returns the interval in milliseconds after which the file is rotated.
+     */
+    @Pure
+    public @Positive long getRotationInterval() {
+        return rotationInterval;
+    }
+    
+    private final boolean compressed;
+    
+    /**
+     * Returns whether the rotated files are compressed with gzip.
+     */
+    @Pure
+    public boolean isCompressed() {
+        return compressed;
+    }
+    
+    private final @NonNegative int maximumFileCount;
+    
+    /**
+     * Returns the maximum number of files which are retained or zero if the number is not limited.
      */
     @Pure
-    private static @Nonnull @Absolute @Normal @ExistentParent File getCurrentFile() {
-        return Files.relativeToConfigurationDirectory("logs/" + fileFormat.get().format(new Date()) + ".log");
+    public @NonNegative int getMaximumFileCount() {
+        return maximumFileCount;
     }
     
-    /* -------------------------------------------------- Current Date -------------------------------------------------- */
+    private final @NonNegative long maximumTotalSize;
     
     /**
-     * Stores the date of the currently open log file.
+     * Returns the maximum number of bytes which are retained in all files or zero if the size is not limited.
      */
-    private @Nonnull Date currentDate;
+    @Pure
+    public @NonNegative long getMaximumTotalSize() {
+        return maximumTotalSize;
+    }
+    
+    /* -------------------------------------------------- Next Rotation -------------------------------------------------- */
+    
+    /**
+     * Stores the time at which the file is rotated next.
+     */
+    private volatile long nextRotation;
     
     /* -------------------------------------------------- Rotation -------------------------------------------------- */
     
     /**
-     * Rotates the log file.
+     * Rotates the log file and compresses and prunes the previous files on the background thread.
      */
     @Impure
-    private void rotate() {
-        this.currentDate = new Date();
+    private synchronized void rotate() {
+        final long intervalStart = getIntervalStart(Clock.clock.get().getTime(), rotationInterval);
+        final @Nonnull File previousFile = getFile();
         try {
-            setFile(getCurrentFile());
+            setFile(getCurrentFile(intervalStart, rotationInterval, maximumFileSize));
         } catch (@Nonnull FileNotFoundException exception) {
             throw UncheckedExceptionBuilder.withCause(exception).build();
         }
+        this.nextRotation = intervalStart + rotationInterval;
+        
+        final @Nonnull File currentFile = getFile();
+        if (!previousFile.equals(currentFile)) {
+            executor.execute(() -> {
+                if (compressed) { compress(previousFile); }
+                prune(currentFile);
+            });
+        }
+    }
+    
+    /**
+     * Rotates the log file if the current interval has elapsed or the file has reached the maximum size.
+     */
+    @Impure
+    private synchronized void rotateIfNecessary() {
+        if (Clock.clock.get().getTime() >= nextRotation || getFileSize() >= maximumFileSize) { rotate(); }
+    }
+    
+    /* -------------------------------------------------- Compression -------------------------------------------------- */
+    
+    /**
+     * Compresses the given file with gzip and deletes it afterwards.
+     */
+    @Impure
+    private static void compress(@Nonnull File file) {
+        if (!file.exists()) { return; }
+        final @Nonnull File target = new File(file.getPath() + ".gz");
+        try (@Nonnull InputStream input = new FileInputStream(file); @Nonnull OutputStream output = new GZIPOutputStream(new FileOutputStream(target))) {
+            final @Nonnull byte[] buffer = new byte[8192];
+            int length;
+            while ((length = input.read(buffer)) != -1) {
+                output.write(buffer, 0, length);
+            }
+        } catch (@Nonnull IOException exception) {
+            target.delete();
+            Log.error("Could not compress the log file $.", exception, file.getPath());
+            return;
+        }
+        if (!file.delete()) { Log.warning("Could not delete the log file $ after compressing it.", file.getPath()); }
+    }
+    
+    /* -------------------------------------------------- Retention -------------------------------------------------- */
+    
+    /**
+     * Deletes the oldest log files next to the given current file until the configured number and size of the files are respected.
+     */
+    @Impure
+    private void prune(@Nonnull File currentFile) {
+        if (maximumFileCount == 0 && maximumTotalSize == 0) { return; }
+        final @Nullable File directory = currentFile.getParentFile();
+        final @Nullable File[] files = directory == null ? null : directory.listFiles(file -> file.isFile() && !file.equals(currentFile) && (file.getName().endsWith(".log") || file.getName().endsWith(".log.gz")));
+        if (files == null) { return; }
+        
+        final @Nonnull List<@Nonnull @Existent File> sortedFiles = new ArrayList<>(files.length);
+        for (@Nonnull File file : files) { sortedFiles.add(file); }
+        sortedFiles.sort((file1, file2) -> Long.compare(file2.lastModified(), file1.lastModified()));
+        
+        int count = 1;
+        long totalSize = currentFile.length();
+        for (@Nonnull File file : sortedFiles) {
+            count += 1;
+            totalSize += file.length();
+            if (maximumFileCount > 0 && count > maximumFileCount || maximumTotalSize > 0 && totalSize > maximumTotalSize) {
+                if (!file.delete()) { Log.warning("Could not delete the old log file $.", file.getPath()); }
+            }
+        }
     }
     
     /* -------------------------------------------------- Constructors -------------------------------------------------- */
@@ -91,31 +268,54 @@ public class RotatingFileLogger extends FileLogger {
      * 
      * @throws FileNotFoundException if the current file cannot be opened or created.
      */
-    protected RotatingFileLogger() throws FileNotFoundException {
-        super(getCurrentFile());
+    protected RotatingFileLogger(@Positive long maximumFileSize, @Positive long rotationInterval, boolean compressed, @NonNegative int maximumFileCount, @NonNegative long maximumTotalSize) throws FileNotFoundException {
+        super(getCurrentFile(getIntervalStart(Clock.clock.get().getTime(), rotationInterval), rotationInterval, maximumFileSize));
+        
+        Require.that(maximumFileSize > 0).orThrow("The maximum file size has to be positive but was $.", maximumFileSize);
+        Require.that(rotationInterval > 0).orThrow("The rotation interval has to be positive but was $.", rotationInterval);
+        Require.that(maximumFileCount >= 0).orThrow("The maximum file count may not be negative but was $.", maximumFileCount);
+        Require.that(maximumTotalSize >= 0).orThrow("The maximum total size may not be negative but was $.", maximumTotalSize);
         
-        this.currentDate = new Date();
+        this.maximumFileSize = maximumFileSize;
+        this.rotationInterval = rotationInterval;
+        this.compressed = compressed;
+        this.maximumFileCount = maximumFileCount;
+        this.maximumTotalSize = maximumTotalSize;
+        this.nextRotation = getIntervalStart(Clock.clock.get().getTime(), rotationInterval) + rotationInterval;
         Files.directory.register((configuration, oldFile, newFile) -> rotate());
     }
     
     /**
      * Returns a rotating file logger that logs the messages to files in the default directory.
+     * The file is rotated after the given interval in milliseconds or when it reaches the given size in bytes.
+     * The rotated files are compressed if desired and the oldest files are deleted when more than the given number
+     * of files or bytes would be retained, where zero means no limit.
+     * 
+     * @throws FileNotFoundException if the current file cannot be opened or created.
+     */
+    @Pure
+    public static @Capturable @Nonnull RotatingFileLogger with(@Positive long maximumFileSize, @Positive long rotationInterval, boolean compressed, @NonNegative int maximumFileCount, @NonNegative long maximumTotalSize) throws FileNotFoundException {
+        return new RotatingFileLogger(maximumFileSize, rotationInterval, compressed, maximumFileCount, maximumTotalSize);
+    }
+    
+    /**
+     * Returns a rotating file logger that logs the messages to files in the default directory.
+     * The file is rotated daily or when it reaches the {@link #DEFAULT_MAXIMUM_FILE_SIZE default size},
+     * and the rotated files are compressed but never deleted.
      * 
      * @throws FileNotFoundException if the current file cannot be opened or created.
      */
     @Pure
     public static @Capturable @Nonnull RotatingFileLogger withDefaultDirectory() throws FileNotFoundException {
-        return new RotatingFileLogger();
+        return new RotatingFileLogger(DEFAULT_MAXIMUM_FILE_SIZE, DAY, true, 0, 0);
     }
     
     /* -------------------------------------------------- Logging -------------------------------------------------- */
     
     @Impure
     @Override
-    @SuppressWarnings("deprecation")
     protected void log(@Nonnull Level level, @Nonnull String caller, @Nonnull String thread, @Nonnull String message, @Nullable Throwable throwable) {
-        final Date date = new Date();
-        if (date.getDate() != this.currentDate.getDate()) { rotate(); }
+        if (Clock.clock.get().getTime() >= nextRotation || getFileSize() >= maximumFileSize) { rotateIfNecessary(); }
         super.log(level, caller, thread, message, throwable);
     }
     
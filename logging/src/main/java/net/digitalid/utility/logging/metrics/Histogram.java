@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A histogram records non-negative values such as latencies in nanoseconds with low overhead.
+ * Similar to the HdrHistogram, the values are counted in buckets whose width doubles with every power of two,
+ * where each power of two is divided into eight sub-buckets, which results in a relative error of at most 12.5 percent.
+ * The buckets are striped counters so that concurrent recordings do not contend with each other.
+ */
+@Mutable
+@ThreadSafe
+public class Histogram {
+    
+    /* -------------------------------------------------- Buckets -------------------------------------------------- */
+    
+    /**
+     * Stores the number of bits that determine the sub-bucket within a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    
+    /**
+     * Stores the number of sub-buckets within a power of two.
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    
+    /**
+     * Stores the number of buckets that are required to cover all non-negative long values.
+     */
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+    
+    private final @Nonnull LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    
+    /**
+     * Returns the index of the bucket in which the given value is counted.
+     */
+    @Pure
+    static int getIndex(@NonNegative long value) {
+        if (value < SUB_BUCKET_COUNT) { return (int) value; }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+    }
+    
+    /**
+     * Returns the largest value which is counted in the bucket with the given index.
+     */
+    @Pure
+    static long getUpperBound(@NonNegative int index) {
+        if (index < SUB_BUCKET_COUNT) { return index; }
+        final int exponent = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS;
+        final long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        final long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+    
+    /* -------------------------------------------------- Summary -------------------------------------------------- */
+    
+    private final @Nonnull LongAdder count = new LongAdder();
+    
+    /**
+     * Returns the number of recorded values.
+     */
+    @Pure
+    public @NonNegative long getCount() {
+        return count.sum();
+    }
+    
+    private final @Nonnull LongAdder total = new LongAdder();
+    
+    /**
+     * Returns the sum of the recorded values.
+     */
+    @Pure
+    public @NonNegative long getTotal() {
+        return total.sum();
+    }
+    
+    private final @Nonnull LongAccumulator maximum = new LongAccumulator(Long::max, 0);
+    
+    /**
+     * Returns the largest recorded value or zero if no value has been recorded.
+     */
+    @Pure
+    public @NonNegative long getMaximum() {
+        return maximum.get();
+    }
+    
+    /**
+     * Returns the mean of the recorded values or zero if no value has been recorded.
+     */
+    @Pure
+    public double getMean() {
+        final long count = getCount();
+        return count == 0 ? 0 : (double) getTotal() / count;
+    }
+    
+    /**
+     * Returns an upper bound of the value below which the given percentage of the recorded values lie.
+     */
+    @Pure
+    public @NonNegative long getValueAtPercentile(double percentile) {
+        Require.that(percentile >= 0 && percentile <= 100).orThrow("The percentile has to be between 0 and 100 but was $.", percentile);
+        
+        final long count = getCount();
+        if (count == 0) { return 0; }
+        final long threshold = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long cumulative = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            cumulative += buckets[index].sum();
+            if (cumulative >= threshold) { return Math.min(getUpperBound(index), getMaximum()); }
+        }
+        return getMaximum();
+    }
+    
+    /* -------------------------------------------------- Recording -------------------------------------------------- */
+    
+    /**
+     * Records the given value, where negative values are recorded as zero.
+     */
+    @Impure
+    public void record(long value) {
+        final long nonNegativeValue = Math.max(0, value);
+        buckets[getIndex(nonNegativeValue)].increment();
+        count.increment();
+        total.add(nonNegativeValue);
+        maximum.accumulate(nonNegativeValue);
+    }
+    
+    /**
+     * Resets all recorded values.
+     */
+    @Impure
+    public void reset() {
+        for (@Nonnull LongAdder bucket : buckets) { bucket.reset(); }
+        count.reset();
+        total.reset();
+        maximum.reset();
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected Histogram() {
+        for (int index = 0; index < BUCKET_COUNT; index++) { buckets[index] = new LongAdder(); }
+    }
+    
+    /**
+     * Returns a new histogram without recorded values.
+     */
+    @Pure
+    public static @Nonnull Histogram withNoValues() {
+        return new Histogram();
+    }
+    
+}
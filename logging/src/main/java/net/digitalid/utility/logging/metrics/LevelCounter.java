@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.logging.Level;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A level counter counts events separately for each {@link Level level} with striped counters.
+ */
+@Mutable
+@ThreadSafe
+public class LevelCounter {
+    
+    /* -------------------------------------------------- Counters -------------------------------------------------- */
+    
+    private final @Nonnull LongAdder[] counters = new LongAdder[Level.values().length];
+    
+    /* -------------------------------------------------- Counting -------------------------------------------------- */
+    
+    /**
+     * Increments the counter of the given level.
+     */
+    @Impure
+    public void increment(@Nonnull Level level) {
+        counters[level.ordinal()].increment();
+    }
+    
+    /**
+     * Resets the counters of all levels.
+     */
+    @Impure
+    public void reset() {
+        for (@Nonnull LongAdder counter : counters) { counter.reset(); }
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Returns the number of events with the given level.
+     */
+    @Pure
+    public @NonNegative long get(@Nonnull Level level) {
+        return counters[level.ordinal()].sum();
+    }
+    
+    /**
+     * Returns the number of events with any level.
+     */
+    @Pure
+    public @NonNegative long getTotal() {
+        long total = 0;
+        for (@Nonnull LongAdder counter : counters) { total += counter.sum(); }
+        return total;
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected LevelCounter() {
+        for (int index = 0; index < counters.length; index++) { counters[index] = new LongAdder(); }
+    }
+    
+    /**
+     * Returns a new level counter whose counters are zero.
+     */
+    @Pure
+    public static @Nonnull LevelCounter withNoEvents() {
+        return new LevelCounter();
+    }
+    
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.annotations.state.Modifiable;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.logging.Level;
+import net.digitalid.utility.logging.filter.LoggingFilter;
+import net.digitalid.utility.logging.logger.Logger;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * This class serves as the registry of the logging metrics, which are collected by the configured {@link LoggingFilter filter} and {@link Logger logger}.
+ * 
+ * @see LoggingMetricsBean
+ */
+@Utility
+public abstract class LoggingMetrics {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether the logging metrics are collected.
+     * If disabled, the logging methods neither measure the time nor count the messages.
+     */
+    public static final @Nonnull Configuration<Boolean> enabled = Configuration.with(Boolean.TRUE);
+    
+    /* -------------------------------------------------- Snapshot -------------------------------------------------- */
+    
+    /**
+     * Adds the counters of the given level counter to the given metrics.
+     */
+    @Impure
+    private static void add(@NonCaptured @Modified @Nonnull Map<@Nonnull String, @Nonnull Long> metrics, @Nonnull String prefix, @Nonnull LevelCounter counter) {
+        for (@Nonnull Level level : Level.values()) {
+            if (level != Level.OFF) { metrics.put(prefix + "." + level.name().toLowerCase(), counter.get(level)); }
+        }
+        metrics.put(prefix + ".total", counter.getTotal());
+    }
+    
+    /**
+     * Adds the summary of the given histogram to the given metrics.
+     */
+    @Impure
+    private static void add(@NonCaptured @Modified @Nonnull Map<@Nonnull String, @Nonnull Long> metrics, @Nonnull String prefix, @Nonnull Histogram histogram) {
+        metrics.put(prefix + ".count", histogram.getCount());
+        metrics.put(prefix + ".total", histogram.getTotal());
+        metrics.put(prefix + ".p50", histogram.getValueAtPercentile(50));
+        metrics.put(prefix + ".p99", histogram.getValueAtPercentile(99));
+        metrics.put(prefix + ".p999", histogram.getValueAtPercentile(99.9));
+        metrics.put(prefix + ".maximum", histogram.getMaximum());
+    }
+    
+    /**
+     * Returns the current values of the metrics of the configured filter and logger by their name.
+     * The times are given in nanoseconds.
+     */
+    @Pure
+    public static @Capturable @Modifiable @Nonnull Map<@Nonnull String, @Nonnull Long> getSnapshot() {
+        final @Nonnull Map<@Nonnull String, @Nonnull Long> metrics = new LinkedHashMap<>();
+        final @Nonnull LoggingFilter filter = LoggingFilter.filter.get();
+        add(metrics, "filter.rejected.potentially", filter.getPotentiallyRejectedMessages());
+        add(metrics, "filter.rejected", filter.getRejectedMessages());
+        final @Nonnull Logger logger = Logger.logger.get();
+        add(metrics, "logger.written", logger.getWrittenMessages());
+        add(metrics, "logger.formatting", logger.getFormattingTime());
+        add(metrics, "logger.writing", logger.getWritingTime());
+        return metrics;
+    }
+    
+    /* -------------------------------------------------- Reset -------------------------------------------------- */
+    
+    /**
+     * Resets the metrics of the configured filter and logger.
+     */
+    @Impure
+    public static void reset() {
+        final @Nonnull LoggingFilter filter = LoggingFilter.filter.get();
+        filter.getPotentiallyRejectedMessages().reset();
+        filter.getRejectedMessages().reset();
+        final @Nonnull Logger logger = Logger.logger.get();
+        logger.getWrittenMessages().reset();
+        logger.getFormattingTime().reset();
+        logger.getWritingTime().reset();
+    }
+    
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
+import net.digitalid.utility.validation.annotations.type.Stateless;
+
+/**
+ * This class implements the JMX bean which exposes the {@link LoggingMetrics logging metrics}.
+ * The bean is kept separate from the registry so that the management classes are only loaded when the bean is {@link #register() registered}.
+ */
+@Stateless
+public class LoggingMetricsBean implements LoggingMetricsMXBean {
+    
+    /* -------------------------------------------------- Name -------------------------------------------------- */
+    
+    /**
+     * Stores the name under which the bean is registered.
+     */
+    public static final @Nonnull String NAME = "net.digitalid.utility:type=LoggingMetrics";
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull Map<@Nonnull String, @Nonnull Long> getMetrics() {
+        return LoggingMetrics.getSnapshot();
+    }
+    
+    @Impure
+    @Override
+    public void reset() {
+        LoggingMetrics.reset();
+    }
+    
+    /* -------------------------------------------------- Enabled -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean isEnabled() {
+        return LoggingMetrics.enabled.get();
+    }
+    
+    @Impure
+    @Override
+    public void setEnabled(boolean enabled) {
+        LoggingMetrics.enabled.set(enabled);
+    }
+    
+    /* -------------------------------------------------- Registration -------------------------------------------------- */
+    
+    /**
+     * Registers the logging metrics bean with the platform MBean server unless it is already registered.
+     */
+    @Impure
+    public static void register() {
+        try {
+            final @Nonnull MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final @Nonnull ObjectName name = new ObjectName(NAME);
+            if (!server.isRegistered(name)) { server.registerMBean(new LoggingMetricsBean(), name); }
+        } catch (@Nonnull JMException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.logging.metrics;
+
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This interface exposes the {@link LoggingMetrics logging metrics} through JMX.
+ * 
+ * @see LoggingMetricsBean
+ */
+@Mutable
+public interface LoggingMetricsMXBean {
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    /**
+     * Returns the current values of the logging metrics by their name.
+     */
+    @Pure
+    public @Nonnull Map<@Nonnull String, @Nonnull Long> getMetrics();
+    
+    /**
+     * Resets the logging metrics.
+     */
+    @Impure
+    public void reset();
+    
+    /* -------------------------------------------------- Enabled -------------------------------------------------- */
+    
+    /**
+     * Returns whether the logging metrics are collected.
+     */
+    @Pure
+    public boolean isEnabled();
+    
+    /**
+     * Sets whether the logging metrics are collected.
+     */
+    @Impure
+    public void setEnabled(boolean enabled);
+    
+}
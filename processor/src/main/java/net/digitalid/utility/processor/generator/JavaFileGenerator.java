@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -72,6 +73,7 @@ import net.digitalid.utility.validation.annotations.size.NonEmpty;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.utility.validation.contract.Contract;
+import net.digitalid.utility.validation.matching.CompiledMatcher;
 
 import static net.digitalid.utility.processor.generator.JavaFileGenerator.CodeBlock.*;
 
@@ -464,9 +466,28 @@ public class JavaFileGenerator extends FileGenerator implements TypeImporter {
      */
     private final @Nonnull StringBuilder sourceCode = new StringBuilder();
     
+    /**
+     * Stores the position in the source code at which the static fields of the compiled matchers are inserted or -1 if no top-level class or interface has been begun yet.
+     */
+    private int matchersPosition = -1;
+    
+    /**
+     * Stores whether the top-level type is an interface, in which case the fields of the compiled matchers cannot be private.
+     */
+    private boolean matchersInInterface = false;
+    
     @Impure
     protected void printSourceCode(@Nonnull PrintWriter printWriter) {
-        printWriter.append(sourceCode);
+        if (matchers.isEmpty() || matchersPosition < 0) {
+            printWriter.append(sourceCode);
+        } else {
+            printWriter.append(sourceCode, 0, matchersPosition);
+            for (@Nonnull Map.Entry<@Nonnull String, @Nonnull String> matcher : matchers.entrySet()) {
+                printWriter.append(CLASS.getIndentation()).append(matchersInInterface ? "" : "private ").append("static final ").append(matcherType).append(" ").append(matcher.getValue()).append(" = ").append(matcherType).append(".with(").append(toStringLiteral(matcher.getKey())).append(");").append(System.lineSeparator());
+            }
+            printWriter.append(System.lineSeparator());
+            printWriter.append(sourceCode, matchersPosition, sourceCode.length());
+        }
     }
     
     /**
@@ -631,8 +652,13 @@ public class JavaFileGenerator extends FileGenerator implements TypeImporter {
             addAnnotation(Generated.class, "value = $, date = $", generator, date);
         }
         
+        final boolean topLevel = getCurrentCodeBlock() == NONE;
         beginBlock(declaration, classOrInterface, NONE, CLASS, INTERFACE);
         addEmptyLine();
+        if (topLevel && matchersPosition < 0) {
+            matchersPosition = sourceCode.length();
+            matchersInInterface = classOrInterface == INTERFACE;
+        }
     }
     
     @Impure
@@ -915,12 +941,56 @@ public class JavaFileGenerator extends FileGenerator implements TypeImporter {
     
     /* -------------------------------------------------- Contracts -------------------------------------------------- */
     
+    /**
+     * Maps the regular expressions of the generated contracts to the names of the static fields in which they are compiled.
+     */
+    private final @Nonnull @NonNullableElements Map<String, String> matchers = new LinkedHashMap<>();
+    
+    /**
+     * Stores the name with which the compiled matcher type was imported or null if no matcher has been requested yet.
+     */
+    private @Nullable String matcherType = null;
+    
+    /**
+     * Returns the name of the static field which holds the compiled matcher for the given regular expression.
+     */
+    @Impure
+    @NonWrittenRecipient
+    protected @Nonnull String getMatcherField(@Nonnull String regex) {
+        requireNotWritten();
+        
+        if (matcherType == null) { matcherType = importIfPossible(CompiledMatcher.class); }
+        return matchers.computeIfAbsent(regex, key -> "MATCHER_" + matchers.size());
+    }
+    
+    /**
+     * Returns the given string as a Java string literal with all special characters escaped.
+     */
+    @Pure
+    protected static @Nonnull String toStringLiteral(@Nonnull String string) {
+        final @Nonnull StringBuilder result = new StringBuilder(string.length() + 2).append('"');
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            switch (c) {
+                case '\\': result.append("\\\\"); break;
+                case '"': result.append("\\\""); break;
+                case '\n': result.append("\\n"); break;
+                case '\r': result.append("\\r"); break;
+                case '\t': result.append("\\t"); break;
+                default: if (c < ' ') { result.append(String.format("\\u%04x", (int) c)); } else { result.append(c); }
+            }
+        }
+        return result.append('"').toString();
+    }
+    
     @Impure
     @NonWrittenRecipient
     @OnlyPossibleIn()
     protected void addContract(@Nonnull Class<? extends Constraint> contractType, @Nullable Contract generatedContract) {
         if (generatedContract != null) {
-            addStatement(importIfPossible(contractType) + ".that(" + generatedContract.getCondition() + ").orThrow(" + Quotes.inDouble(generatedContract.getMessage()) + generatedContract.getArguments().join(", ", "", "") + ")");
+            final @Nullable String regex = generatedContract.getRegex();
+            final @Nonnull String condition = regex != null ? generatedContract.getCondition().replace(Contract.MATCHER, getMatcherField(regex)) : generatedContract.getCondition();
+            addStatement(importIfPossible(contractType) + ".that(" + condition + ").orThrow(" + Quotes.inDouble(generatedContract.getMessage()) + generatedContract.getArguments().join(", ", "", "") + ")");
         }
     }
     
@@ -15,9 +15,7 @@
  */
 package net.digitalid.utility.property;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Executor;
 
 import javax.annotation.Nonnull;
 
@@ -36,7 +34,8 @@ import net.digitalid.utility.property.map.ReadOnlyMapPropertyImplementation;
 import net.digitalid.utility.property.set.ReadOnlySetPropertyImplementation;
 import net.digitalid.utility.property.value.ReadOnlyValuePropertyImplementation;
 import net.digitalid.utility.rootclass.RootClass;
-import net.digitalid.utility.threading.NamedThreadFactory;
+import net.digitalid.utility.threading.execution.Execution;
+import net.digitalid.utility.threading.execution.SerialExecutor;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
@@ -54,14 +53,13 @@ public abstract class PropertyImplementation<@Unspecifiable OBSERVER extends Obs
     /* -------------------------------------------------- Asynchronous Observer -------------------------------------------------- */
     
     /**
-     * An asynchronous observer executes the notifications on a separate thread sequentially.
+     * An asynchronous observer executes the notifications sequentially on the {@link Execution#getExecutor() shared executor}.
+     * The shared executor is looked up whenever notifications are scheduled so that replacing it does not affect existing observers.
      */
     @Immutable
     public static class AsynchronousObserver<OBSERVER extends Observer> implements Observer {
         
-        private final static @Nonnull ThreadFactory threadFactory = NamedThreadFactory.with("Observer");
-        
-        protected final @Nonnull ExecutorService executorService = Executors.newSingleThreadExecutor(threadFactory);
+        protected final @Nonnull Executor executor = SerialExecutor.onSharedExecutor();
         
         protected final @Nonnull OBSERVER observer;
         
@@ -15,6 +15,8 @@
  */
 package net.digitalid.utility.property.map;
 
+import java.util.Map;
+
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.annotations.generics.Unspecifiable;
@@ -22,6 +24,7 @@ import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.collections.map.ReadOnlyMap;
+import net.digitalid.utility.freezable.annotations.Frozen;
 import net.digitalid.utility.property.Observer;
 import net.digitalid.utility.property.Property;
 import net.digitalid.utility.validation.annotations.type.Mutable;
@@ -43,4 +46,18 @@ public interface MapObserver<@Unspecifiable KEY, @Unspecifiable VALUE, @Unspecif
     @Impure
     public void notify(@Nonnull PROPERTY property, @NonCaptured @Unmodified @Nonnull @Valid("key") KEY key, @NonCaptured @Unmodified @Nonnull @Valid VALUE value, boolean added);
     
+    /**
+     * This method is called on {@link Property#isRegistered(net.digitalid.utility.property.Observer) registered} observers when several key-value pairs have been added to and removed from the given property at once.
+     * A key whose value was replaced appears with its old value in the removed and with its new value in the added pairs.
+     * Observers that can process such changes more efficiently as a whole should override this method, which notifies this observer about each removed and then about each added pair by default.
+     * 
+     * @param addedPairs the key-value pairs that have been added to the given property.
+     * @param removedPairs the key-value pairs that have been removed from the given property.
+     */
+    @Impure
+    public default void notify(@Nonnull PROPERTY property, @NonCaptured @Unmodified @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> addedPairs, @NonCaptured @Unmodified @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> removedPairs) {
+        for (Map.@Nonnull Entry<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> entry : removedPairs.entrySet()) { notify(property, entry.getKey(), entry.getValue(), false); }
+        for (Map.@Nonnull Entry<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> entry : addedPairs.entrySet()) { notify(property, entry.getKey(), entry.getValue(), true); }
+    }
+    
 }
@@ -25,6 +25,7 @@ import net.digitalid.utility.annotations.parameter.Modified;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
 import net.digitalid.utility.collections.map.ReadOnlyMap;
+import net.digitalid.utility.freezable.annotations.Frozen;
 import net.digitalid.utility.property.PropertyImplementation;
 import net.digitalid.utility.threading.Threading;
 import net.digitalid.utility.validation.annotations.type.Immutable;
@@ -55,7 +56,13 @@ public abstract class ReadOnlyMapPropertyImplementation<@Unspecifiable KEY, @Uns
         @Impure
         @Override
         public void notify(@Nonnull PROPERTY property, @NonCaptured @Unmodified @Nonnull @Valid("key") KEY key, @NonCaptured @Unmodified @Nonnull @Valid VALUE value, boolean added) {
-            executorService.submit(() -> observer.notify(property, key, value, added));
+            executor.execute(() -> observer.notify(property, key, value, added));
+        }
+        
+        @Impure
+        @Override
+        public void notify(@Nonnull PROPERTY property, @NonCaptured @Unmodified @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> addedPairs, @NonCaptured @Unmodified @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> removedPairs) {
+            executor.execute(() -> observer.notify(property, addedPairs, removedPairs));
         }
         
     }
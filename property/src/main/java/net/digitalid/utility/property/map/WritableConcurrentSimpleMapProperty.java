@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.property.map;
+
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.CallSuper;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.annotations.ownership.NonCapturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.collections.map.FreezableLinkedHashMap;
+import net.digitalid.utility.collections.map.FreezableLinkedHashMapBuilder;
+import net.digitalid.utility.collections.map.FreezableMap;
+import net.digitalid.utility.collections.map.ReadOnlyMap;
+import net.digitalid.utility.contracts.Validate;
+import net.digitalid.utility.freezable.annotations.Frozen;
+import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.functional.interfaces.Consumer;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.generation.Default;
+import net.digitalid.utility.validation.annotations.lock.LockNotHeldByCurrentThread;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+import net.digitalid.utility.validation.annotations.value.Valid;
+
+/**
+ * This writable property stores a map of key-value pairs in volatile memory and publishes each state of the map as a frozen snapshot.
+ * In contrast to {@link WritableVolatileSimpleMapProperty}, the map returned by {@link #get()} never changes afterwards,
+ * which means that readers never block and can iterate over it while other threads modify this property.
+ * Each modification copies the current snapshot under the lock of this property, which makes this variant suitable for maps that are read much more often than they are written.
+ * 
+ * @invariant !get().keySet().containsNull() : "None of the keys may be null.";
+ * @invariant !get().values().containsNull() : "None of the values may be null.";
+ * @invariant get().keySet().matchAll(getKeyValidator()) : "Each key has to be valid.";
+ * @invariant get().values().matchAll(getValueValidator()) : "Each value has to be valid.";
+ */
+@ThreadSafe
+@GenerateBuilder
+@GenerateSubclass
+@Mutable(ReadOnlyVolatileSimpleMapProperty.class)
+public abstract class WritableConcurrentSimpleMapProperty<@Unspecifiable KEY, @Unspecifiable VALUE> extends WritableMapPropertyImplementation<KEY, VALUE, ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>, RuntimeException, RuntimeException, VolatileMapObserver<KEY, VALUE, ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>>, ReadOnlyVolatileMapProperty<KEY, VALUE, ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>>> implements ReadOnlyVolatileSimpleMapProperty<KEY, VALUE> {
+    
+    /* -------------------------------------------------- Snapshot -------------------------------------------------- */
+    
+    private volatile @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> snapshot;
+    
+    /**
+     * Returns a frozen snapshot of the entries of this property, which is not affected by subsequent modifications.
+     */
+    @Pure
+    @Override
+    public @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> get() {
+        return snapshot;
+    }
+    
+    /* -------------------------------------------------- Getter -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @NonCapturable @Nullable @Valid VALUE get(@NonCaptured @Unmodified @Nonnull @Valid("key") KEY key) {
+        return snapshot.get(key);
+    }
+    
+    /* -------------------------------------------------- Operations -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public boolean add(@Captured @Nonnull @Valid("key") KEY key, @Captured @Nonnull @Valid VALUE value) {
+        lock.lock();
+        try {
+            final @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> current = snapshot;
+            if (current.containsKey(key)) { return false; }
+            final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> copy = FreezableLinkedHashMap.withMappingsOf(current);
+            copy.put(key, value);
+            this.snapshot = copy.freeze();
+            notifyObservers(key, value, true);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public @Capturable @Nullable @Valid VALUE remove(@NonCaptured @Unmodified @Nonnull @Valid("key") KEY key) {
+        lock.lock();
+        try {
+            final @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> current = snapshot;
+            if (!current.containsKey(key)) { return null; }
+            final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> copy = FreezableLinkedHashMap.withMappingsOf(current);
+            final @Nullable VALUE value = copy.remove(key);
+            this.snapshot = copy.freeze();
+            if (value != null) { notifyObservers(key, value, false); }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Bulk Operations -------------------------------------------------- */
+    
+    /**
+     * Publishes the given pairs, which have to be valid, as the new snapshot and notifies the observers once about the difference to the current snapshot.
+     */
+    @Impure
+    private void publish(@Nonnull @NonFrozen FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> pairs) {
+        final @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> current = snapshot;
+        final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> removedPairs = FreezableLinkedHashMapBuilder.build();
+        for (Map.@Nonnull Entry<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> entry : current.entrySet()) {
+            if (!entry.getValue().equals(pairs.get(entry.getKey()))) { removedPairs.put(entry.getKey(), entry.getValue()); }
+        }
+        final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> addedPairs = FreezableLinkedHashMapBuilder.build();
+        for (Map.@Nonnull Entry<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> entry : pairs.entrySet()) {
+            if (!entry.getValue().equals(current.get(entry.getKey()))) { addedPairs.put(entry.getKey(), entry.getValue()); }
+        }
+        if (!addedPairs.isEmpty() || !removedPairs.isEmpty()) {
+            this.snapshot = pairs.freeze();
+            notifyObservers(addedPairs.freeze(), removedPairs.freeze());
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public int addAll(@NonCaptured @Unmodified @Nonnull ReadOnlyMap<? extends KEY, ? extends VALUE> pairs) {
+        requireValid(pairs);
+        lock.lock();
+        try {
+            final int previousSize = snapshot.size();
+            final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> copy = FreezableLinkedHashMap.withMappingsOf(snapshot);
+            for (Map.@Nonnull Entry<? extends KEY, ? extends VALUE> entry : pairs.entrySet()) {
+                if (!copy.containsKey(entry.getKey())) { copy.put(entry.getKey(), entry.getValue()); }
+            }
+            publish(copy);
+            return snapshot.size() - previousSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public int removeAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends KEY> keys) {
+        lock.lock();
+        try {
+            final int previousSize = snapshot.size();
+            final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> copy = FreezableLinkedHashMap.withMappingsOf(snapshot);
+            for (@Nonnull @Valid("key") KEY key : keys) { copy.remove(key); }
+            publish(copy);
+            return previousSize - snapshot.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void replaceAll(@NonCaptured @Unmodified @Nonnull ReadOnlyMap<? extends KEY, ? extends VALUE> pairs) {
+        requireValid(pairs);
+        lock.lock();
+        try {
+            publish(FreezableLinkedHashMap.withMappingsOf(pairs));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void update(@Nonnull Consumer<? super FreezableMap<KEY, VALUE>> update) {
+        lock.lock();
+        try {
+            final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> copy = FreezableLinkedHashMap.withMappingsOf(snapshot);
+            update.consume(copy);
+            requireValid(copy);
+            publish(copy);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected WritableConcurrentSimpleMapProperty(@NonCaptured @Unmodified @Nonnull @Default("net.digitalid.utility.collections.map.FreezableLinkedHashMapBuilder.build()") ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> map) {
+        this.snapshot = FreezableLinkedHashMap.withMappingsOf(map).freeze();
+    }
+    
+    /* -------------------------------------------------- Validate -------------------------------------------------- */
+    
+    /**
+     * Stores the last snapshot whose entries were checked by {@link #validate()}.
+     * As snapshots are never modified, each snapshot has to be checked at most once.
+     */
+    private volatile @Nullable ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> validatedSnapshot = null;
+    
+    @Pure
+    @Override
+    @CallSuper
+    public void validate() {
+        super.validate();
+        final @Nonnull ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> current = snapshot;
+        if (current != validatedSnapshot) {
+            Validate.that(!current.keySet().containsNull()).orThrow("None of the keys may be null.");
+            Validate.that(!current.values().containsNull()).orThrow("None of the values may be null.");
+            Validate.that(current.keySet().matchAll(getKeyValidator())).orThrow("Each key has to be valid.");
+            Validate.that(current.values().matchAll(getValueValidator())).orThrow("Each value has to be valid.");
+            this.validatedSnapshot = current;
+        }
+    }
+    
+}
@@ -25,7 +25,11 @@ import net.digitalid.utility.annotations.ownership.Captured;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.collections.map.FreezableMap;
 import net.digitalid.utility.collections.map.ReadOnlyMap;
+import net.digitalid.utility.functional.interfaces.Consumer;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.lock.LockNotHeldByCurrentThread;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.utility.validation.annotations.value.Valid;
@@ -60,4 +64,40 @@ public interface WritableMapProperty<@Unspecifiable KEY, @Unspecifiable VALUE, @
     @LockNotHeldByCurrentThread
     public abstract @Capturable @Nullable @Valid VALUE remove(@NonCaptured @Unmodified @Nonnull @Valid("key") KEY key) throws EXCEPTION1, EXCEPTION2;
     
+    /* -------------------------------------------------- Bulk Operations -------------------------------------------------- */
+    
+    /**
+     * Adds the given key-value pairs whose keys are not yet in use to this property under a single lock acquisition and notifies the observers once about all added pairs.
+     * 
+     * @return the number of the given key-value pairs that were added.
+     */
+    @Impure
+    @LockNotHeldByCurrentThread
+    public abstract int addAll(@NonCaptured @Unmodified @Nonnull ReadOnlyMap<? extends KEY, ? extends VALUE> pairs) throws EXCEPTION1, EXCEPTION2;
+    
+    /**
+     * Removes the given keys with their values from this property under a single lock acquisition and notifies the observers once about all removed pairs.
+     * 
+     * @return the number of the given keys that were actually in use.
+     */
+    @Impure
+    @LockNotHeldByCurrentThread
+    public abstract int removeAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends KEY> keys) throws EXCEPTION1, EXCEPTION2;
+    
+    /**
+     * Replaces the key-value pairs of this property with the given pairs and notifies the observers once about the difference.
+     */
+    @Impure
+    @LockNotHeldByCurrentThread
+    public abstract void replaceAll(@NonCaptured @Unmodified @Nonnull ReadOnlyMap<? extends KEY, ? extends VALUE> pairs) throws EXCEPTION1, EXCEPTION2;
+    
+    /**
+     * Applies the given update to a copy of the key-value pairs of this property and stores the result only if the update completes and all resulting keys and values are valid.
+     * The observers are notified once about the difference between the previous and the updated pairs.
+     * The given update may not access this property.
+     */
+    @Impure
+    @LockNotHeldByCurrentThread
+    public abstract void update(@Nonnull Consumer<? super FreezableMap<KEY, VALUE>> update) throws EXCEPTION1, EXCEPTION2;
+    
 }
@@ -15,15 +15,19 @@
  */
 package net.digitalid.utility.property.map;
 
+import java.util.Map;
+
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
 import net.digitalid.utility.collections.map.ReadOnlyMap;
 import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.freezable.annotations.Frozen;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.utility.validation.annotations.value.Valid;
 
@@ -56,4 +60,31 @@ public abstract class WritableMapPropertyImplementation<@Unspecifiable KEY, @Uns
         }
     }
     
+    /**
+     * Notifies the registered observers that the given key-value pairs have been added to and removed from this property at once.
+     * Nothing happens if both the added and the removed pairs are empty.
+     */
+    @Impure
+    @SuppressWarnings("unchecked")
+    protected void notifyObservers(@NonCaptured @Unmodified @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> addedPairs, @NonCaptured @Unmodified @Nonnull @Frozen ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> removedPairs) throws EXCEPTION1, EXCEPTION2 {
+        if (!observers.isEmpty() && (!addedPairs.isEmpty() || !removedPairs.isEmpty())) {
+            for (@Nonnull MapObserver<KEY, VALUE, READONLY_MAP, EXCEPTION1, EXCEPTION2, OBSERVER, PROPERTY> observer : observers.values()) {
+                observer.notify((PROPERTY) this, addedPairs, removedPairs);
+            }
+        }
+    }
+    
+    /**
+     * Requires that each of the given keys and values is non-null and valid.
+     * 
+     * @throws net.digitalid.utility.contracts.exceptions.PreconditionViolationException if this is not the case.
+     */
+    @Pure
+    protected void requireValid(@NonCaptured @Unmodified @Nonnull ReadOnlyMap<? extends KEY, ? extends VALUE> pairs) {
+        for (Map.@Nonnull Entry<? extends KEY, ? extends VALUE> entry : pairs.entrySet()) {
+            Require.that(entry.getKey() != null && isValidKey(entry.getKey())).orThrow("Each key has to be non-null and valid but $ is not.", entry.getKey());
+            Require.that(entry.getValue() != null && isValid(entry.getValue())).orThrow("Each value has to be non-null and valid but $ is not.", entry.getValue());
+        }
+    }
+    
 }
@@ -15,6 +15,8 @@
  */
 package net.digitalid.utility.property.map;
 
+import java.util.Map;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -28,12 +30,17 @@ import net.digitalid.utility.annotations.ownership.NonCapturable;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.collections.map.FreezableLinkedHashMap;
+import net.digitalid.utility.collections.map.FreezableLinkedHashMapBuilder;
 import net.digitalid.utility.collections.map.FreezableMap;
 import net.digitalid.utility.collections.map.ReadOnlyMap;
 import net.digitalid.utility.contracts.Validate;
 import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.functional.interfaces.Consumer;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.lock.LockNotHeldByCurrentThread;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.utility.validation.annotations.value.Valid;
@@ -75,6 +82,39 @@ public abstract class WritableVolatileMapProperty<@Unspecifiable KEY, @Unspecifi
         return getMap().get(key);
     }
     
+    /* -------------------------------------------------- Validation State -------------------------------------------------- */
+    
+    /**
+     * Stores the number of modifications that the operations of this property made to the map.
+     * The counter is only incremented while the lock is held.
+     */
+    private volatile long modifications = 0;
+    
+    /**
+     * Stores the number of modifications after which all keys and values of the map were last known to be non-null and valid or -1 if the map has to be rescanned.
+     * The operations of this property maintain this state incrementally so that {@link #validate()} rescans the map only if an operation could have made it invalid.
+     * Subclasses that change the map without the operations of this property have to call {@link #invalidateValidationState()}.
+     */
+    private volatile long validatedModifications = -1;
+    
+    /**
+     * Records a modification of the map, after which the map is valid only if it was valid before and the given flag is set.
+     */
+    @Impure
+    private void recordModification(boolean valid) {
+        final long previousModifications = modifications;
+        this.modifications = previousModifications + 1;
+        if (valid && validatedModifications == previousModifications) { this.validatedModifications = previousModifications + 1; }
+    }
+    
+    /**
+     * Forces the next {@link #validate() validation} to rescan the map.
+     */
+    @Impure
+    protected void invalidateValidationState() {
+        this.validatedModifications = -1;
+    }
+    
     /* -------------------------------------------------- Operations -------------------------------------------------- */
     
     @Impure
@@ -87,6 +127,7 @@ public abstract class WritableVolatileMapProperty<@Unspecifiable KEY, @Unspecifi
                 return false;
             } else {
                 getMap().put(key, value);
+                recordModification(key != null && value != null && isValidKey(key) && isValid(value));
                 notifyObservers(key, value, true);
                 return true;
             }
@@ -102,13 +143,110 @@ public abstract class WritableVolatileMapProperty<@Unspecifiable KEY, @Unspecifi
         lock.lock();
         try {
             final @Nullable VALUE value = getMap().remove(key);
-            if (value != null) { notifyObservers(key, value, false); }
+            if (value != null) {
+                recordModification(true);
+                notifyObservers(key, value, false);
+            }
             return value;
         } finally {
             lock.unlock();
         }
     }
     
+    /* -------------------------------------------------- Bulk Operations -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public int addAll(@NonCaptured @Unmodified @Nonnull ReadOnlyMap<? extends KEY, ? extends VALUE> pairs) {
+        requireValid(pairs);
+        lock.lock();
+        try {
+            final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> addedPairs = FreezableLinkedHashMapBuilder.build();
+            for (Map.@Nonnull Entry<? extends KEY, ? extends VALUE> entry : pairs.entrySet()) {
+                if (!getMap().containsKey(entry.getKey())) {
+                    getMap().put(entry.getKey(), entry.getValue());
+                    addedPairs.put(entry.getKey(), entry.getValue());
+                }
+            }
+            recordModification(true);
+            notifyObservers(addedPairs.freeze(), FreezableLinkedHashMapBuilder.<KEY, VALUE>build().freeze());
+            return addedPairs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public int removeAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends KEY> keys) {
+        lock.lock();
+        try {
+            final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> removedPairs = FreezableLinkedHashMapBuilder.build();
+            for (@Nonnull @Valid("key") KEY key : keys) {
+                final @Nullable VALUE value = getMap().remove(key);
+                if (value != null) { removedPairs.put(key, value); }
+            }
+            recordModification(true);
+            notifyObservers(FreezableLinkedHashMapBuilder.<KEY, VALUE>build().freeze(), removedPairs.freeze());
+            return removedPairs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Replaces the key-value pairs of the map with the given pairs, which have to be valid, and notifies the observers once about the difference.
+     */
+    @Impure
+    private void replaceWith(@NonCaptured @Unmodified @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> pairs) {
+        final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> removedPairs = FreezableLinkedHashMapBuilder.build();
+        for (Map.@Nonnull Entry<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> entry : getMap().entrySet()) {
+            if (!entry.getValue().equals(pairs.get(entry.getKey()))) { removedPairs.put(entry.getKey(), entry.getValue()); }
+        }
+        final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> addedPairs = FreezableLinkedHashMapBuilder.build();
+        for (Map.@Nonnull Entry<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> entry : pairs.entrySet()) {
+            if (!entry.getValue().equals(getMap().get(entry.getKey()))) { addedPairs.put(entry.getKey(), entry.getValue()); }
+        }
+        for (@Nonnull @Valid("key") KEY key : removedPairs.keySet()) {
+            if (!pairs.containsKey(key)) { getMap().remove(key); }
+        }
+        for (Map.@Nonnull Entry<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> entry : addedPairs.entrySet()) {
+            getMap().put(entry.getKey(), entry.getValue());
+        }
+        recordModification(true);
+        notifyObservers(addedPairs.freeze(), removedPairs.freeze());
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void replaceAll(@NonCaptured @Unmodified @Nonnull ReadOnlyMap<? extends KEY, ? extends VALUE> pairs) {
+        requireValid(pairs);
+        lock.lock();
+        try {
+            replaceWith(FreezableLinkedHashMap.withMappingsOf(pairs));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void update(@Nonnull Consumer<? super FreezableMap<KEY, VALUE>> update) {
+        lock.lock();
+        try {
+            final @Nonnull FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE> pairs = FreezableLinkedHashMap.withMappingsOf(getMap());
+            update.consume(pairs);
+            requireValid(pairs);
+            replaceWith(pairs);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
     /* -------------------------------------------------- Validate -------------------------------------------------- */
     
     @Pure
@@ -116,10 +254,14 @@ public abstract class WritableVolatileMapProperty<@Unspecifiable KEY, @Unspecifi
     @CallSuper
     public void validate() {
         super.validate();
-        Validate.that(!get().keySet().containsNull()).orThrow("None of the keys may be null.");
-        Validate.that(!get().values().containsNull()).orThrow("None of the values may be null.");
-        Validate.that(get().keySet().matchAll(getKeyValidator())).orThrow("Each key has to be valid.");
-        Validate.that(get().values().matchAll(getValueValidator())).orThrow("Each value has to be valid.");
+        final long currentModifications = modifications;
+        if (validatedModifications != currentModifications) {
+            Validate.that(!get().keySet().containsNull()).orThrow("None of the keys may be null.");
+            Validate.that(!get().values().containsNull()).orThrow("None of the values may be null.");
+            Validate.that(get().keySet().matchAll(getKeyValidator())).orThrow("Each key has to be valid.");
+            Validate.that(get().values().matchAll(getValueValidator())).orThrow("Each value has to be valid.");
+            this.validatedModifications = currentModifications;
+        }
     }
     
 }
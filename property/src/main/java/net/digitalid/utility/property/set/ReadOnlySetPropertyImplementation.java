@@ -25,6 +25,7 @@ import net.digitalid.utility.annotations.parameter.Modified;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
 import net.digitalid.utility.collections.set.ReadOnlySet;
+import net.digitalid.utility.freezable.annotations.Frozen;
 import net.digitalid.utility.property.PropertyImplementation;
 import net.digitalid.utility.threading.Threading;
 import net.digitalid.utility.validation.annotations.type.Immutable;
@@ -55,7 +56,13 @@ public abstract class ReadOnlySetPropertyImplementation<@Unspecifiable VALUE, @U
         @Impure
         @Override
         public void notify(@Nonnull PROPERTY property, @NonCaptured @Unmodified @Nonnull @Valid VALUE value, boolean added){
-            executorService.submit(() -> observer.notify(property, value, added));
+            executor.execute(() -> observer.notify(property, value, added));
+        }
+        
+        @Impure
+        @Override
+        public void notify(@Nonnull PROPERTY property, @NonCaptured @Unmodified @Nonnull @Frozen ReadOnlySet<@Nonnull @Valid VALUE> addedValues, @NonCaptured @Unmodified @Nonnull @Frozen ReadOnlySet<@Nonnull @Valid VALUE> removedValues) {
+            executor.execute(() -> observer.notify(property, addedValues, removedValues));
         }
         
     }
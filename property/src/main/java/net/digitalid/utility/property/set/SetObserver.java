@@ -22,6 +22,7 @@ import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.collections.set.ReadOnlySet;
+import net.digitalid.utility.freezable.annotations.Frozen;
 import net.digitalid.utility.property.Observer;
 import net.digitalid.utility.property.Property;
 import net.digitalid.utility.validation.annotations.type.Functional;
@@ -45,4 +46,17 @@ public interface SetObserver<@Unspecifiable VALUE, @Unspecifiable READONLY_SET e
     @Impure
     public void notify(@Nonnull PROPERTY property, @NonCaptured @Unmodified @Nonnull @Valid VALUE value, boolean added);
     
+    /**
+     * This method is called on {@link Property#isRegistered(net.digitalid.utility.property.Observer) registered} observers when several values have been added to and removed from the given property at once.
+     * Observers that can process such changes more efficiently as a whole should override this method, which notifies this observer about each removed and then about each added value by default.
+     * 
+     * @param addedValues the values that have been added to the given property.
+     * @param removedValues the values that have been removed from the given property.
+     */
+    @Impure
+    public default void notify(@Nonnull PROPERTY property, @NonCaptured @Unmodified @Nonnull @Frozen ReadOnlySet<@Nonnull @Valid VALUE> addedValues, @NonCaptured @Unmodified @Nonnull @Frozen ReadOnlySet<@Nonnull @Valid VALUE> removedValues) {
+        for (@Nonnull @Valid VALUE value : removedValues) { notify(property, value, false); }
+        for (@Nonnull @Valid VALUE value : addedValues) { notify(property, value, true); }
+    }
+    
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.property.set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.CallSuper;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.collections.set.FreezableLinkedHashSet;
+import net.digitalid.utility.collections.set.FreezableLinkedHashSetBuilder;
+import net.digitalid.utility.collections.set.FreezableSet;
+import net.digitalid.utility.collections.set.ReadOnlySet;
+import net.digitalid.utility.contracts.Validate;
+import net.digitalid.utility.freezable.annotations.Frozen;
+import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.functional.interfaces.Consumer;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.generation.Default;
+import net.digitalid.utility.validation.annotations.lock.LockNotHeldByCurrentThread;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+import net.digitalid.utility.validation.annotations.value.Valid;
+
+/**
+ * This writable property stores a set of values in volatile memory and publishes each state of the set as a frozen snapshot.
+ * In contrast to {@link WritableVolatileSimpleSetProperty}, the set returned by {@link #get()} never changes afterwards,
+ * which means that readers never block and can iterate over it while other threads modify this property.
+ * Each modification copies the current snapshot under the lock of this property, which makes this variant suitable for sets that are read much more often than they are written.
+ * 
+ * @invariant !get().containsNull() : "None of the values may be null.";
+ * @invariant get().matchAll(getValidator()) : "Each value has to be valid.";
+ */
+@ThreadSafe
+@GenerateBuilder
+@GenerateSubclass
+@Mutable(ReadOnlyVolatileSimpleSetProperty.class)
+public abstract class WritableConcurrentSimpleSetProperty<@Unspecifiable VALUE> extends WritableSetPropertyImplementation<VALUE, ReadOnlySet<@Nonnull @Valid VALUE>, RuntimeException, RuntimeException, VolatileSetObserver<VALUE, ReadOnlySet<@Nonnull @Valid VALUE>>, ReadOnlyVolatileSetProperty<VALUE, ReadOnlySet<@Nonnull @Valid VALUE>>> implements ReadOnlyVolatileSimpleSetProperty<VALUE> {
+    
+    /* -------------------------------------------------- Snapshot -------------------------------------------------- */
+    
+    private volatile @Nonnull @Frozen @NonNullableElements ReadOnlySet<@Nonnull @Valid VALUE> snapshot;
+    
+    /**
+     * Returns a frozen snapshot of the values of this property, which is not affected by subsequent modifications.
+     */
+    @Pure
+    @Override
+    public @Nonnull @Frozen @NonNullableElements ReadOnlySet<@Nonnull @Valid VALUE> get() {
+        return snapshot;
+    }
+    
+    /* -------------------------------------------------- Operations -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public boolean add(@Captured @Nonnull @Valid VALUE value) {
+        lock.lock();
+        try {
+            final @Nonnull @Frozen ReadOnlySet<@Nonnull @Valid VALUE> current = snapshot;
+            if (current.contains(value)) { return false; }
+            final @Nonnull FreezableSet<@Nonnull @Valid VALUE> copy = FreezableLinkedHashSet.withElementsOf(current);
+            copy.add(value);
+            this.snapshot = copy.freeze();
+            notifyObservers(value, true);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public boolean remove(@NonCaptured @Unmodified @Nonnull @Valid VALUE value) {
+        lock.lock();
+        try {
+            final @Nonnull @Frozen ReadOnlySet<@Nonnull @Valid VALUE> current = snapshot;
+            if (!current.contains(value)) { return false; }
+            final @Nonnull FreezableSet<@Nonnull @Valid VALUE> copy = FreezableLinkedHashSet.withElementsOf(current);
+            copy.remove(value);
+            this.snapshot = copy.freeze();
+            notifyObservers(value, false);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Bulk Operations -------------------------------------------------- */
+    
+    /**
+     * Publishes the given values, which have to be valid, as the new snapshot and notifies the observers once about the difference to the current snapshot.
+     */
+    @Impure
+    private void publish(@Nonnull @NonFrozen FreezableSet<@Nonnull @Valid VALUE> values) {
+        final @Nonnull @Frozen ReadOnlySet<@Nonnull @Valid VALUE> current = snapshot;
+        final @Nonnull FreezableSet<@Nonnull @Valid VALUE> removedValues = FreezableLinkedHashSetBuilder.build();
+        for (@Nonnull @Valid VALUE value : current) {
+            if (!values.contains(value)) { removedValues.add(value); }
+        }
+        final @Nonnull FreezableSet<@Nonnull @Valid VALUE> addedValues = FreezableLinkedHashSetBuilder.build();
+        for (@Nonnull @Valid VALUE value : values) {
+            if (!current.contains(value)) { addedValues.add(value); }
+        }
+        if (!addedValues.isEmpty() || !removedValues.isEmpty()) {
+            this.snapshot = values.freeze();
+            notifyObservers(addedValues.freeze(), removedValues.freeze());
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public int addAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends VALUE> values) {
+        requireValid(values);
+        lock.lock();
+        try {
+            final int previousSize = snapshot.size();
+            final @Nonnull FreezableSet<@Nonnull @Valid VALUE> copy = FreezableLinkedHashSet.withElementsOf(snapshot);
+            for (@Nonnull @Valid VALUE value : values) { copy.add(value); }
+            publish(copy);
+            return snapshot.size() - previousSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public int removeAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends VALUE> values) {
+        lock.lock();
+        try {
+            final int previousSize = snapshot.size();
+            final @Nonnull FreezableSet<@Nonnull @Valid VALUE> copy = FreezableLinkedHashSet.withElementsOf(snapshot);
+            for (@Nonnull @Valid VALUE value : values) { copy.remove(value); }
+            publish(copy);
+            return previousSize - snapshot.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void replaceAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends VALUE> values) {
+        requireValid(values);
+        lock.lock();
+        try {
+            publish(FreezableLinkedHashSet.withElementsOf(values));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void update(@Nonnull Consumer<? super FreezableSet<VALUE>> update) {
+        lock.lock();
+        try {
+            final @Nonnull FreezableSet<@Nonnull @Valid VALUE> copy = FreezableLinkedHashSet.withElementsOf(snapshot);
+            update.consume(copy);
+            requireValid(copy);
+            publish(copy);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected WritableConcurrentSimpleSetProperty(@NonCaptured @Unmodified @Nonnull @NonNullableElements @Default("net.digitalid.utility.collections.set.FreezableLinkedHashSetBuilder.build()") ReadOnlySet<@Nonnull @Valid VALUE> set) {
+        this.snapshot = FreezableLinkedHashSet.withElementsOf(set).freeze();
+    }
+    
+    /* -------------------------------------------------- Validate -------------------------------------------------- */
+    
+    /**
+     * Stores the last snapshot whose values were checked by {@link #validate()}.
+     * As snapshots are never modified, each snapshot has to be checked at most once.
+     */
+    private volatile @Nullable ReadOnlySet<@Nonnull @Valid VALUE> validatedSnapshot = null;
+    
+    @Pure
+    @Override
+    @CallSuper
+    public void validate() {
+        super.validate();
+        final @Nonnull ReadOnlySet<@Nonnull @Valid VALUE> current = snapshot;
+        if (current != validatedSnapshot) {
+            Validate.that(!current.containsNull()).orThrow("None of the values may be null.");
+            Validate.that(current.matchAll(getValueValidator())).orThrow("Each value has to be valid.");
+            this.validatedSnapshot = current;
+        }
+    }
+    
+}
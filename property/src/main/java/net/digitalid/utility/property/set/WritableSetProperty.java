@@ -23,7 +23,11 @@ import net.digitalid.utility.annotations.ownership.Captured;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.collections.set.FreezableSet;
 import net.digitalid.utility.collections.set.ReadOnlySet;
+import net.digitalid.utility.functional.interfaces.Consumer;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.lock.LockNotHeldByCurrentThread;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.utility.validation.annotations.value.Valid;
@@ -58,4 +62,40 @@ public interface WritableSetProperty<@Unspecifiable VALUE, @Unspecifiable READON
     @LockNotHeldByCurrentThread
     public abstract boolean remove(@NonCaptured @Unmodified @Nonnull @Valid VALUE value) throws EXCEPTION1, EXCEPTION2;
     
+    /* -------------------------------------------------- Bulk Operations -------------------------------------------------- */
+    
+    /**
+     * Adds the given values to the values of this property under a single lock acquisition and notifies the observers once about all newly added values.
+     * 
+     * @return the number of the given values that were not already stored.
+     */
+    @Impure
+    @LockNotHeldByCurrentThread
+    public abstract int addAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends VALUE> values) throws EXCEPTION1, EXCEPTION2;
+    
+    /**
+     * Removes the given values from the values of this property under a single lock acquisition and notifies the observers once about all actually removed values.
+     * 
+     * @return the number of the given values that were actually stored.
+     */
+    @Impure
+    @LockNotHeldByCurrentThread
+    public abstract int removeAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends VALUE> values) throws EXCEPTION1, EXCEPTION2;
+    
+    /**
+     * Replaces the values of this property with the given values and notifies the observers once about the difference.
+     */
+    @Impure
+    @LockNotHeldByCurrentThread
+    public abstract void replaceAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends VALUE> values) throws EXCEPTION1, EXCEPTION2;
+    
+    /**
+     * Applies the given update to a copy of the values of this property and stores the result only if the update completes and all resulting values are valid.
+     * The observers are notified once about the difference between the previous and the updated values.
+     * The given update may not access this property.
+     */
+    @Impure
+    @LockNotHeldByCurrentThread
+    public abstract void update(@Nonnull Consumer<? super FreezableSet<VALUE>> update) throws EXCEPTION1, EXCEPTION2;
+    
 }
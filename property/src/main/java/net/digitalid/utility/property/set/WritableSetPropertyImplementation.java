@@ -16,14 +16,17 @@
 package net.digitalid.utility.property.set;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
 import net.digitalid.utility.collections.set.ReadOnlySet;
 import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.freezable.annotations.Frozen;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.utility.validation.annotations.value.Valid;
 
@@ -59,4 +62,30 @@ public abstract class WritableSetPropertyImplementation<@Unspecifiable VALUE, @U
         }
     }
     
+    /**
+     * Notifies the registered observers that the given values have been added to and removed from this property at once.
+     * Nothing happens if both the added and the removed values are empty.
+     */
+    @Impure
+    @SuppressWarnings("unchecked")
+    protected void notifyObservers(@NonCaptured @Unmodified @Nonnull @Frozen ReadOnlySet<@Nonnull @Valid VALUE> addedValues, @NonCaptured @Unmodified @Nonnull @Frozen ReadOnlySet<@Nonnull @Valid VALUE> removedValues) throws EXCEPTION1, EXCEPTION2 {
+        if (!observers.isEmpty() && (!addedValues.isEmpty() || !removedValues.isEmpty())) {
+            for (@Nonnull SetObserver<VALUE, READONLY_SET, EXCEPTION1, EXCEPTION2, OBSERVER, PROPERTY> observer : observers.values()) {
+                observer.notify((PROPERTY) this, addedValues, removedValues);
+            }
+        }
+    }
+    
+    /**
+     * Requires that each of the given values is non-null and valid.
+     * 
+     * @throws net.digitalid.utility.contracts.exceptions.PreconditionViolationException if this is not the case.
+     */
+    @Pure
+    protected void requireValid(@NonCaptured @Unmodified @Nonnull Iterable<? extends VALUE> values) {
+        for (@Nullable VALUE value : values) {
+            Require.that(value != null && isValid(value)).orThrow("Each value has to be non-null and valid but $ is not.", value);
+        }
+    }
+    
 }
@@ -25,10 +25,14 @@ import net.digitalid.utility.annotations.ownership.Captured;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.collections.set.FreezableLinkedHashSet;
+import net.digitalid.utility.collections.set.FreezableLinkedHashSetBuilder;
 import net.digitalid.utility.collections.set.FreezableSet;
 import net.digitalid.utility.collections.set.ReadOnlySet;
 import net.digitalid.utility.contracts.Validate;
 import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.functional.interfaces.Consumer;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
@@ -65,6 +69,39 @@ public abstract class WritableVolatileSetProperty<@Unspecifiable VALUE, @Unspeci
         return (READONLY_SET) getSet();
     }
     
+    /* -------------------------------------------------- Validation State -------------------------------------------------- */
+    
+    /**
+     * Stores the number of modifications that the operations of this property made to the set.
+     * The counter is only incremented while the lock is held.
+     */
+    private volatile long modifications = 0;
+    
+    /**
+     * Stores the number of modifications after which all values of the set were last known to be non-null and valid or -1 if the set has to be rescanned.
+     * The operations of this property maintain this state incrementally so that {@link #validate()} rescans the set only if an operation could have made it invalid.
+     * Subclasses that change the set without the operations of this property have to call {@link #invalidateValidationState()}.
+     */
+    private volatile long validatedModifications = -1;
+    
+    /**
+     * Records a modification of the set, after which the set is valid only if it was valid before and the given flag is set.
+     */
+    @Impure
+    private void recordModification(boolean valid) {
+        final long previousModifications = modifications;
+        this.modifications = previousModifications + 1;
+        if (valid && validatedModifications == previousModifications) { this.validatedModifications = previousModifications + 1; }
+    }
+    
+    /**
+     * Forces the next {@link #validate() validation} to rescan the set.
+     */
+    @Impure
+    protected void invalidateValidationState() {
+        this.validatedModifications = -1;
+    }
+    
     /* -------------------------------------------------- Operations -------------------------------------------------- */
     
     @Impure
@@ -74,7 +111,10 @@ public abstract class WritableVolatileSetProperty<@Unspecifiable VALUE, @Unspeci
         lock.lock();
         try {
             final boolean notAlreadyContained = getSet().add(value);
-            if (notAlreadyContained) { notifyObservers(value, true); }
+            if (notAlreadyContained) {
+                recordModification(value != null && isValid(value));
+                notifyObservers(value, true);
+            }
             return notAlreadyContained;
         } finally {
             lock.unlock();
@@ -88,13 +128,102 @@ public abstract class WritableVolatileSetProperty<@Unspecifiable VALUE, @Unspeci
         lock.lock();
         try {
             final boolean contained = getSet().remove(value);
-            if (contained) { notifyObservers(value, false); }
+            if (contained) {
+                recordModification(true);
+                notifyObservers(value, false);
+            }
             return contained;
         } finally {
             lock.unlock();
         }
     }
     
+    /* -------------------------------------------------- Bulk Operations -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public int addAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends VALUE> values) {
+        requireValid(values);
+        lock.lock();
+        try {
+            final @Nonnull FreezableSet<@Nonnull @Valid VALUE> addedValues = FreezableLinkedHashSetBuilder.build();
+            for (@Nonnull @Valid VALUE value : values) {
+                if (getSet().add(value)) { addedValues.add(value); }
+            }
+            recordModification(true);
+            notifyObservers(addedValues.freeze(), FreezableLinkedHashSetBuilder.<VALUE>build().freeze());
+            return addedValues.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public int removeAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends VALUE> values) {
+        lock.lock();
+        try {
+            final @Nonnull FreezableSet<@Nonnull @Valid VALUE> removedValues = FreezableLinkedHashSetBuilder.build();
+            for (@Nonnull @Valid VALUE value : values) {
+                if (getSet().remove(value)) { removedValues.add(value); }
+            }
+            recordModification(true);
+            notifyObservers(FreezableLinkedHashSetBuilder.<VALUE>build().freeze(), removedValues.freeze());
+            return removedValues.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Replaces the values of the set with the given values, which have to be valid, and notifies the observers once about the difference.
+     */
+    @Impure
+    private void replaceWith(@NonCaptured @Unmodified @Nonnull FreezableSet<@Nonnull @Valid VALUE> values) {
+        final @Nonnull FreezableSet<@Nonnull @Valid VALUE> removedValues = FreezableLinkedHashSetBuilder.build();
+        for (@Nonnull @Valid VALUE value : getSet()) {
+            if (!values.contains(value)) { removedValues.add(value); }
+        }
+        final @Nonnull FreezableSet<@Nonnull @Valid VALUE> addedValues = FreezableLinkedHashSetBuilder.build();
+        for (@Nonnull @Valid VALUE value : values) {
+            if (!getSet().contains(value)) { addedValues.add(value); }
+        }
+        getSet().removeAll(removedValues);
+        getSet().addAll(addedValues);
+        recordModification(true);
+        notifyObservers(addedValues.freeze(), removedValues.freeze());
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void replaceAll(@NonCaptured @Unmodified @Nonnull @NonNullableElements FiniteIterable<? extends VALUE> values) {
+        requireValid(values);
+        lock.lock();
+        try {
+            replaceWith(FreezableLinkedHashSet.withElementsOf(values));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Impure
+    @Override
+    @LockNotHeldByCurrentThread
+    public void update(@Nonnull Consumer<? super FreezableSet<VALUE>> update) {
+        lock.lock();
+        try {
+            final @Nonnull FreezableSet<@Nonnull @Valid VALUE> values = FreezableLinkedHashSet.withElementsOf(getSet());
+            update.consume(values);
+            requireValid(values);
+            replaceWith(values);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
     /* -------------------------------------------------- Validate -------------------------------------------------- */
     
     @Pure
@@ -102,8 +231,12 @@ public abstract class WritableVolatileSetProperty<@Unspecifiable VALUE, @Unspeci
     @CallSuper
     public void validate() {
         super.validate();
-        Validate.that(!get().containsNull()).orThrow("None of the values may be null.");
-        Validate.that(get().matchAll(getValueValidator())).orThrow("Each value has to be valid.");
+        final long currentModifications = modifications;
+        if (validatedModifications != currentModifications) {
+            Validate.that(!get().containsNull()).orThrow("None of the values may be null.");
+            Validate.that(get().matchAll(getValueValidator())).orThrow("Each value has to be valid.");
+            this.validatedModifications = currentModifications;
+        }
     }
     
 }
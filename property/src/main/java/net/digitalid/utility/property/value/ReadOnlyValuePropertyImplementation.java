@@ -55,7 +55,7 @@ public abstract class ReadOnlyValuePropertyImplementation<@Specifiable VALUE, @U
         @Impure
         @Override
         public void notify(@Nonnull PROPERTY property, @NonCaptured @Unmodified @Valid VALUE oldValue, @NonCaptured @Unmodified @Valid VALUE newValue) {
-            executorService.submit(() -> observer.notify(property, oldValue, newValue));
+            executor.execute(() -> observer.notify(property, oldValue, newValue));
         }
         
     }
@@ -42,10 +42,16 @@ public class NamedThreadFactory implements ThreadFactory {
      */
     private final @Nonnull AtomicInteger number = new AtomicInteger(1);
     
+    /**
+     * Stores whether the created threads are daemon threads.
+     */
+    private final boolean daemon;
+    
     /* -------------------------------------------------- Constructors -------------------------------------------------- */
     
-    protected NamedThreadFactory(@Nonnull String prefix) {
+    protected NamedThreadFactory(@Nonnull String prefix, boolean daemon) {
         this.prefix = prefix + "-";
+        this.daemon = daemon;
     }
     
     /**
@@ -55,7 +61,17 @@ public class NamedThreadFactory implements ThreadFactory {
      */
     @Pure
     public static @Nonnull NamedThreadFactory with(@Nonnull String prefix) {
-        return new NamedThreadFactory(prefix);
+        return new NamedThreadFactory(prefix, false);
+    }
+    
+    /**
+     * Returns a new thread factory with the given name prefix whose threads do not prevent the virtual machine from exiting.
+     * 
+     * @param prefix the prefix of the threads created by this factory.
+     */
+    @Pure
+    public static @Nonnull NamedThreadFactory withDaemonThreads(@Nonnull String prefix) {
+        return new NamedThreadFactory(prefix, true);
     }
     
     /* -------------------------------------------------- Method -------------------------------------------------- */
@@ -63,7 +79,9 @@ public class NamedThreadFactory implements ThreadFactory {
     @Impure
     @Override
     public @Nonnull Thread newThread(@Nonnull Runnable runnable) {
-        return new Thread(runnable, prefix + number.getAndIncrement());
+        final @Nonnull Thread thread = new Thread(runnable, prefix + number.getAndIncrement());
+        if (daemon) { thread.setDaemon(true); }
+        return thread;
     }
     
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.threading.execution;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * This class provides the executor that is shared by the asynchronous tasks of the library.
+ * Sharing a single executor keeps the number of threads bounded and allows it to be observed in one place.
+ */
+@Utility
+public abstract class Execution {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores the shared executor, which is a pool with one thread per available processor and an unbounded queue by default so that no notifications are lost.
+     * When the executor is replaced, the previous executor is shut down after its queued tasks have completed.
+     * Users of the shared executor therefore have to {@link #getExecutor() look it up} whenever they schedule a task instead of storing it.
+     */
+    public static final @Nonnull Configuration<ManagedExecutor> executor = Configuration.with(ManagedExecutor.withFixedPool("Utility", Runtime.getRuntime().availableProcessors()));
+    
+    static {
+        executor.register((configuration, oldExecutor, newExecutor) -> {
+            if (oldExecutor != null) { oldExecutor.shutdown(); }
+        });
+    }
+    
+    /* -------------------------------------------------- Static Access -------------------------------------------------- */
+    
+    /**
+     * Returns the executor that is shared by the asynchronous tasks of the library.
+     */
+    @Pure
+    public static @Nonnull ManagedExecutor getExecutor() {
+        return executor.get();
+    }
+    
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.threading.execution;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.threading.NamedThreadFactory;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A managed executor names its threads, counts its tasks and is shut down gracefully when the virtual machine exits.
+ * All managed executors that have not been shut down are {@link #getAllExecutors() registered} so that they can be observed.
+ * <p>
+ * The threads of managed executors are daemon threads so that they do not prevent the virtual machine from exiting.
+ * Tasks that are still queued when the virtual machine exits are given a {@link #SHUTDOWN_GRACE_PERIOD grace period} to complete.
+ * 
+ * @see Execution
+ */
+@Mutable
+@ThreadSafe
+public class ManagedExecutor extends AbstractExecutorService {
+    
+    /* -------------------------------------------------- Kind -------------------------------------------------- */
+    
+    /**
+     * This type enumerates the kinds of managed executors.
+     */
+    public static enum Kind {
+        
+        /**
+         * A pool with a fixed maximum number of platform threads and a bounded or unbounded queue.
+         */
+        BOUNDED,
+        
+        /**
+         * A work-stealing pool whose threads take tasks from each other's queues.
+         */
+        WORK_STEALING,
+        
+        /**
+         * An executor which starts a new virtual thread for each task.
+         */
+        VIRTUAL,
+        
+        /**
+         * An executor which reuses idle platform threads or starts new ones, which replaces virtual threads on older runtimes.
+         */
+        UNBOUNDED;
+        
+    }
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull String name;
+    
+    /**
+     * Returns the name of this executor, which prefixes the names of its threads.
+     */
+    @Pure
+    public @Nonnull String getName() {
+        return name;
+    }
+    
+    private final @Nonnull Kind kind;
+    
+    /**
+     * Returns the kind of this executor.
+     */
+    @Pure
+    public @Nonnull Kind getKind() {
+        return kind;
+    }
+    
+    private final @Nonnull ExecutorService delegate;
+    
+    /* -------------------------------------------------- Counters -------------------------------------------------- */
+    
+    private final @Nonnull LongAdder queued = new LongAdder();
+    
+    private final @Nonnull LongAdder active = new LongAdder();
+    
+    private final @Nonnull LongAdder completed = new LongAdder();
+    
+    private final @Nonnull LongAdder failed = new LongAdder();
+    
+    private final @Nonnull LongAdder rejected = new LongAdder();
+    
+    /**
+     * Returns the number of tasks that have been accepted but not yet started.
+     */
+    @Pure
+    public @NonNegative long getQueuedCount() {
+        return queued.sum();
+    }
+    
+    /**
+     * Returns the number of tasks that are currently running.
+     */
+    @Pure
+    public @NonNegative long getActiveCount() {
+        return active.sum();
+    }
+    
+    /**
+     * Returns the number of tasks that have finished, including the ones that failed.
+     */
+    @Pure
+    public @NonNegative long getCompletedCount() {
+        return completed.sum();
+    }
+    
+    /**
+     * Returns the number of tasks that have finished with an exception or error.
+     * Tasks that are submitted as futures capture their exceptions and are therefore not counted as failed.
+     */
+    @Pure
+    public @NonNegative long getFailedCount() {
+        return failed.sum();
+    }
+    
+    /**
+     * Returns the number of tasks that have been rejected because the executor was saturated or shut down.
+     */
+    @Pure
+    public @NonNegative long getRejectedCount() {
+        return rejected.sum();
+    }
+    
+    /* -------------------------------------------------- Registry -------------------------------------------------- */
+    
+    /**
+     * Stores the time that running and queued tasks are given to complete when the virtual machine exits.
+     */
+    public static final long SHUTDOWN_GRACE_PERIOD = 5_000;
+    
+    private static final @Nonnull List<@Nonnull ManagedExecutor> executors = new CopyOnWriteArrayList<>();
+    
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdownAll(SHUTDOWN_GRACE_PERIOD, TimeUnit.MILLISECONDS), "ExecutorShutdown"));
+    }
+    
+    /**
+     * Returns all managed executors that have not been shut down.
+     */
+    @Pure
+    public static @Nonnull List<@Nonnull ManagedExecutor> getAllExecutors() {
+        return Collections.unmodifiableList(executors);
+    }
+    
+    /**
+     * Shuts down all managed executors and waits for at most the given time in total until their tasks have completed.
+     * The tasks of executors that do not terminate in time are interrupted.
+     * 
+     * @return whether all executors terminated in time.
+     */
+    @Impure
+    public static boolean shutdownAll(long timeout, @Nonnull TimeUnit unit) {
+        final @Nonnull List<@Nonnull ManagedExecutor> executors = new ArrayList<>(ManagedExecutor.executors);
+        for (@Nonnull ManagedExecutor executor : executors) { executor.shutdown(); }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean terminated = true;
+        for (@Nonnull ManagedExecutor executor : executors) {
+            terminated &= executor.awaitTerminationOrShutdownNow(deadline - System.nanoTime());
+        }
+        return terminated;
+    }
+    
+    /* -------------------------------------------------- Execution -------------------------------------------------- */
+    
+    /**
+     * Wraps a task in order to count it.
+     */
+    private final class CountingTask implements Runnable {
+        
+        private final @Nonnull Runnable task;
+        
+        private CountingTask(@Nonnull Runnable task) {
+            this.task = task;
+        }
+        
+        @Impure
+        @Override
+        public void run() {
+            queued.decrement();
+            active.increment();
+            try {
+                task.run();
+            } catch (@Nonnull RuntimeException | Error throwable) {
+                failed.increment();
+                throw throwable;
+            } finally {
+                active.decrement();
+                completed.increment();
+            }
+        }
+        
+    }
+    
+    @Impure
+    @Override
+    public void execute(@Nonnull Runnable command) {
+        queued.increment();
+        try {
+            delegate.execute(new CountingTask(command));
+        } catch (@Nonnull RejectedExecutionException exception) {
+            queued.decrement();
+            rejected.increment();
+            throw exception;
+        }
+    }
+    
+    /* -------------------------------------------------- Shutdown -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void shutdown() {
+        executors.remove(this);
+        delegate.shutdown();
+    }
+    
+    @Impure
+    @Override
+    public @Nonnull List<@Nonnull Runnable> shutdownNow() {
+        executors.remove(this);
+        return delegate.shutdownNow();
+    }
+    
+    @Pure
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+    
+    @Pure
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+    
+    @Impure
+    @Override
+    public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+    
+    /**
+     * Waits for at most the given number of nanoseconds until this executor has terminated and interrupts its tasks otherwise.
+     * 
+     * @return whether this executor terminated in time.
+     */
+    @Impure
+    private boolean awaitTerminationOrShutdownNow(long nanoseconds) {
+        try {
+            if (delegate.awaitTermination(Math.max(0, nanoseconds), TimeUnit.NANOSECONDS)) { return true; }
+        } catch (@Nonnull InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.shutdownNow();
+        return false;
+    }
+    
+    /**
+     * Shuts down this executor and waits for at most the given time until its tasks have completed.
+     * If the tasks do not complete in time, they are interrupted.
+     * 
+     * @return whether this executor terminated in time.
+     */
+    @Impure
+    public boolean shutdownGracefully(long timeout, @Nonnull TimeUnit unit) {
+        shutdown();
+        return awaitTerminationOrShutdownNow(unit.toNanos(timeout));
+    }
+    
+    /* -------------------------------------------------- Object -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull String toString() {
+        return name + " (" + kind + "): " + getActiveCount() + " active, " + getQueuedCount() + " queued, " + getCompletedCount() + " completed, " + getFailedCount() + " failed, " + getRejectedCount() + " rejected";
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected ManagedExecutor(@Nonnull String name, @Nonnull Kind kind, @Nonnull ExecutorService delegate) {
+        this.name = name;
+        this.kind = kind;
+        this.delegate = delegate;
+        executors.add(this);
+    }
+    
+    /**
+     * Returns a new executor with at most the given number of platform threads, which rejects tasks if the given number of tasks are already queued.
+     * Idle threads are terminated after a minute.
+     */
+    @Pure
+    public static @Nonnull ManagedExecutor withBoundedPool(@Nonnull String name, @Positive int threads, @Positive int queueCapacity) {
+        final @Nonnull ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(queueCapacity), NamedThreadFactory.withDaemonThreads(name));
+        pool.allowCoreThreadTimeOut(true);
+        return new ManagedExecutor(name, Kind.BOUNDED, pool);
+    }
+    
+    /**
+     * Returns a new executor with at most the given number of platform threads, which queues tasks without limit while all threads are busy.
+     * Tasks are therefore only rejected after the executor has been shut down.
+     * Idle threads are terminated after a minute.
+     */
+    @Pure
+    public static @Nonnull ManagedExecutor withFixedPool(@Nonnull String name, @Positive int threads) {
+        final @Nonnull ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), NamedThreadFactory.withDaemonThreads(name));
+        pool.allowCoreThreadTimeOut(true);
+        return new ManagedExecutor(name, Kind.BOUNDED, pool);
+    }
+    
+    /**
+     * Returns a new work-stealing executor with the given parallelism, which is suited for tasks that spawn further tasks.
+     */
+    @Pure
+    public static @Nonnull ManagedExecutor withWorkStealingPool(@Nonnull String name, @Positive int parallelism) {
+        final @Nonnull AtomicInteger number = new AtomicInteger(1);
+        final @Nonnull ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            final @Nonnull ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName(name + "-" + number.getAndIncrement());
+            return thread;
+        }, null, true);
+        return new ManagedExecutor(name, Kind.WORK_STEALING, pool);
+    }
+    
+    /**
+     * Returns a new executor which reuses idle platform threads or starts new ones without limit.
+     * Idle threads are terminated after a minute.
+     */
+    @Pure
+    public static @Nonnull ManagedExecutor withUnboundedPool(@Nonnull String name) {
+        return new ManagedExecutor(name, Kind.UNBOUNDED, new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1, TimeUnit.MINUTES, new SynchronousQueue<>(), NamedThreadFactory.withDaemonThreads(name)));
+    }
+    
+    /* -------------------------------------------------- Virtual Threads -------------------------------------------------- */
+    
+    /**
+     * Returns a factory for named virtual threads or null if the runtime does not support virtual threads.
+     * The factory is looked up reflectively so that this class can be compiled and used on older runtimes.
+     */
+    @Pure
+    private static @Nullable ThreadFactory getVirtualThreadFactory(@Nonnull String name) {
+        try {
+            final @Nonnull Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final @Nonnull Method nameMethod = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class, long.class);
+            final @Nonnull Object namedBuilder = nameMethod.invoke(builder, name + "-", 1L);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(namedBuilder);
+        } catch (@Nonnull ReflectiveOperationException | ClassCastException exception) {
+            return null;
+        }
+    }
+    
+    /**
+     * Returns whether the runtime supports virtual threads.
+     */
+    @Pure
+    public static boolean isVirtualThreadSupported() {
+        return getVirtualThreadFactory("Test") != null;
+    }
+    
+    /**
+     * Returns a new executor which starts a named virtual thread for each task if the runtime supports virtual threads.
+     * Otherwise, an {@link #withUnboundedPool(java.lang.String) unbounded pool} of platform threads is returned.
+     */
+    @Pure
+    public static @Nonnull ManagedExecutor withVirtualThreads(@Nonnull String name) {
+        final @Nullable ThreadFactory factory = getVirtualThreadFactory(name);
+        if (factory != null) {
+            try {
+                final @Nonnull ExecutorService executor = (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+                return new ManagedExecutor(name, Kind.VIRTUAL, executor);
+            } catch (@Nonnull ReflectiveOperationException | ClassCastException exception) {
+                // Fall back to platform threads below.
+            }
+        }
+        return withUnboundedPool(name);
+    }
+    
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.threading.execution;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A serial executor runs its tasks one after the other in the order they were submitted on a shared executor.
+ * Unlike a single-thread executor, it does not occupy a thread while it has no tasks.
+ */
+@Mutable
+@ThreadSafe
+public class SerialExecutor implements Executor {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    /**
+     * Stores the executor on which the tasks are run or null if they are run on the {@link Execution#getExecutor() shared executor}.
+     */
+    private final @Nullable Executor executor;
+    
+    /**
+     * Returns the executor on which the next drain of the tasks is scheduled.
+     * The shared executor is looked up each time so that tasks keep running after it has been replaced.
+     */
+    @Pure
+    protected @Nonnull Executor getExecutor() {
+        return executor != null ? executor : Execution.getExecutor();
+    }
+    
+    private final @Nonnull Queue<@Nonnull Runnable> tasks = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * Stores whether a drain of the tasks is scheduled or running on the shared executor.
+     */
+    private final @Nonnull AtomicBoolean scheduled = new AtomicBoolean(false);
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected SerialExecutor(@Nullable Executor executor) {
+        this.executor = executor;
+    }
+    
+    /**
+     * Returns a new serial executor which runs its tasks on the given executor.
+     */
+    @Pure
+    public static @Nonnull SerialExecutor on(@Nonnull Executor executor) {
+        return new SerialExecutor(executor);
+    }
+    
+    /**
+     * Returns a new serial executor which runs its tasks on the {@link Execution#getExecutor() shared executor}.
+     * The shared executor is looked up whenever tasks are scheduled and can therefore be replaced in the meantime.
+     */
+    @Pure
+    public static @Nonnull SerialExecutor onSharedExecutor() {
+        return new SerialExecutor(null);
+    }
+    
+    /* -------------------------------------------------- Execution -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void execute(@Nonnull Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+    
+    /**
+     * Schedules a drain of the tasks on the executor unless one is already scheduled.
+     */
+    @Impure
+    private void schedule() {
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            try {
+                getExecutor().execute(this::drain);
+            } catch (@Nonnull RuntimeException exception) {
+                scheduled.set(false);
+                throw exception;
+            }
+        }
+    }
+    
+    /**
+     * Runs the queued tasks and reschedules itself if further tasks were submitted in the meantime.
+     * Exceptions of individual tasks do not prevent the subsequent tasks from running.
+     */
+    @Impure
+    private void drain() {
+        try {
+            for (@Nonnull Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+                try {
+                    task.run();
+                } catch (@Nonnull RuntimeException exception) {
+                    Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), exception);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            schedule();
+        }
+    }
+    
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.time.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.threading.execution.Execution;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A hashed wheel timer runs tasks after a delay with constant costs for scheduling and cancelling them.
+ * <p>
+ * The timer advances a wheel of buckets by one bucket per tick on a single daemon thread.
+ * Each timeout is hashed into the bucket of the tick in which it expires and additionally stores how many rotations of the wheel remain.
+ * New and cancelled timeouts are queued by the scheduling threads and only applied to the buckets by the worker thread,
+ * so that scheduling and cancelling never block.
+ * As a consequence, timeouts expire with a precision of one tick, which makes the timer suited for many coarse-grained timeouts
+ * such as the expiration of cache entries, the periodic flushing of loggers or the replenishment of rate limiters.
+ * <p>
+ * The tasks are run on the configured executor, which is the {@link Execution#getExecutor() shared executor} by default.
+ */
+@Mutable
+@ThreadSafe
+public class HashedWheelTimer {
+    
+    /* -------------------------------------------------- Bucket -------------------------------------------------- */
+    
+    /**
+     * A bucket stores the timeouts of a tick in a doubly-linked list, which is only accessed by the worker thread.
+     */
+    static final class Bucket {
+        
+        private @Nullable Timeout head;
+        
+        private @Nullable Timeout tail;
+        
+        private void add(@Nonnull Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) { head = timeout; } else { tail.next = timeout; }
+            tail = timeout;
+        }
+        
+        private void remove(@Nonnull Timeout timeout) {
+            final @Nullable Timeout previous = timeout.previous;
+            final @Nullable Timeout next = timeout.next;
+            if (previous == null) { head = next; } else { previous.next = next; }
+            if (next == null) { tail = previous; } else { next.previous = previous; }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    /**
+     * Stores the maximum number of new timeouts that are added to the buckets per tick so that a burst of timeouts cannot delay the wheel arbitrarily.
+     */
+    private static final int MAXIMUM_TRANSFERS_PER_TICK = 100_000;
+    
+    private final @Nonnull String name;
+    
+    private final long tickNanos;
+    
+    private final @Nonnull Bucket[] wheel;
+    
+    /**
+     * Stores the executor on which the tasks are run or null if they are run on the {@link Execution#getExecutor() shared executor}.
+     */
+    private final @Nullable Executor executor;
+    
+    /**
+     * Returns the executor on which the next task is run.
+     * The shared executor is looked up for each task so that tasks keep running after it has been replaced.
+     */
+    @Pure
+    private @Nonnull Executor getExecutor() {
+        return executor != null ? executor : Execution.getExecutor();
+    }
+    
+    private final @Nonnull Queue<@Nonnull Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    
+    private final @Nonnull Queue<@Nonnull Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    
+    private final @Nonnull AtomicLong pendingTimeouts = new AtomicLong();
+    
+    /**
+     * Returns the number of timeouts that are neither expired nor cancelled.
+     */
+    @Pure
+    public @NonNegative long getPendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+    
+    /* -------------------------------------------------- Lifecycle -------------------------------------------------- */
+    
+    private static final int INITIAL = 0;
+    
+    private static final int STARTED = 1;
+    
+    private static final int STOPPED = 2;
+    
+    private final @Nonnull AtomicInteger workerState = new AtomicInteger(INITIAL);
+    
+    /**
+     * Stores the value of {@link System#nanoTime()} when the worker thread started, which is written before the worker thread is started.
+     */
+    private volatile long startTime = 0;
+    
+    private final @Nonnull Thread workerThread;
+    
+    /**
+     * Starts the worker thread unless it has already been started.
+     * 
+     * @throws IllegalStateException if this timer has been stopped.
+     */
+    @Impure
+    private void start() {
+        if (workerState.get() == INITIAL && workerState.compareAndSet(INITIAL, STARTED)) {
+            final long now = System.nanoTime();
+            startTime = now == 0 ? 1 : now;
+            workerThread.start();
+        }
+        if (workerState.get() == STOPPED) { throw new IllegalStateException("The timer " + name + " has already been stopped."); }
+        while (startTime == 0) { Thread.yield(); }
+    }
+    
+    /**
+     * Stores the number of timeouts that the worker thread cancelled when it stopped.
+     */
+    private volatile long cancelledOnStop = 0;
+    
+    /**
+     * Stops this timer and cancels the timeouts that are still pending so that none of them expires anymore.
+     * Unless this method is called by a task that runs on the worker thread, it waits until the worker thread has cancelled the pending timeouts.
+     * 
+     * @return the number of timeouts that were pending.
+     */
+    @Impure
+    public long stop() {
+        if (workerState.getAndSet(STOPPED) != STARTED) { return 0; }
+        workerThread.interrupt();
+        if (Thread.currentThread() == workerThread) { return pendingTimeouts.get(); }
+        boolean interrupted = false;
+        while (workerThread.isAlive()) {
+            try {
+                workerThread.join();
+            } catch (@Nonnull InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) { Thread.currentThread().interrupt(); }
+        return cancelledOnStop;
+    }
+    
+    /* -------------------------------------------------- Scheduling -------------------------------------------------- */
+    
+    /**
+     * Returns the given time in nanoseconds, which saturates instead of overflowing.
+     */
+    @Pure
+    private static long toNanos(@Nonnull Time time) {
+        return TimeUnit.MILLISECONDS.toNanos(time.getValue());
+    }
+    
+    /**
+     * Schedules the given task, whose first expiration is after the given delay.
+     * 
+     * @throws IllegalStateException if this timer has been stopped.
+     */
+    @Impure
+    private @Nonnull Timeout schedule(@Nonnull Runnable task, @Nonnull Time delay, long period) {
+        Require.that(delay.getValue() >= 0).orThrow("The delay may not be negative but was $.", delay);
+        
+        start();
+        final long offset = System.nanoTime() - startTime;
+        final long nanos = toNanos(delay);
+        final @Nonnull Timeout timeout = new Timeout(this, task, nanos > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + nanos, period);
+        pendingTimeouts.incrementAndGet();
+        newTimeouts.add(timeout);
+        if (workerState.get() == STOPPED) {
+            // The worker thread might have drained the new timeouts before this timeout was added.
+            newTimeouts.remove(timeout);
+            if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.CANCELLED)) { pendingTimeouts.decrementAndGet(); }
+            throw new IllegalStateException("The timer " + name + " has already been stopped.");
+        }
+        return timeout;
+    }
+    
+    /**
+     * Schedules the given task to run once after the given delay.
+     */
+    @Impure
+    public @Nonnull Timeout schedule(@Nonnull Runnable task, @Nonnull Time delay) {
+        return schedule(task, delay, 0);
+    }
+    
+    /**
+     * Schedules the given task to run after the given initial delay and then repeatedly with the given period until the returned timeout is cancelled.
+     * The next run is scheduled when the previous run is handed to the executor, so runs may overlap if they take longer than the period.
+     */
+    @Impure
+    public @Nonnull Timeout scheduleAtFixedRate(@Nonnull Runnable task, @Nonnull Time initialDelay, @Nonnull Time period) {
+        Require.that(period.getValue() > 0).orThrow("The period has to be positive but was $.", period);
+        
+        return schedule(task, initialDelay, toNanos(period));
+    }
+    
+    /**
+     * Queues the given timeout for removal from its bucket.
+     */
+    @Impure
+    void cancelled(@Nonnull Timeout timeout) {
+        pendingTimeouts.decrementAndGet();
+        if (workerState.get() != STOPPED) { cancelledTimeouts.add(timeout); }
+    }
+    
+    /* -------------------------------------------------- Worker -------------------------------------------------- */
+    
+    /**
+     * Advances the wheel by one bucket per tick until this timer is stopped.
+     */
+    @Impure
+    private void run() {
+        long tick = 0;
+        while (workerState.get() == STARTED) {
+            final long deadline = waitForNextTick(tick);
+            if (deadline < 0) { break; }
+            removeCancelledTimeouts();
+            transferNewTimeouts(tick);
+            expireTimeouts(wheel[(int) (tick & (wheel.length - 1))], deadline);
+            tick++;
+        }
+        cancelledOnStop = cancelRemainingTimeouts();
+    }
+    
+    /**
+     * Waits until the end of the given tick and returns the current time since the start or -1 if this timer was stopped.
+     */
+    @Impure
+    private long waitForNextTick(long tick) {
+        final long deadline = tickNanos * (tick + 1);
+        while (true) {
+            final long currentTime = System.nanoTime() - startTime;
+            final long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - currentTime + 999_999);
+            if (sleepMillis <= 0) { return currentTime; }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (@Nonnull InterruptedException exception) {
+                if (workerState.get() == STOPPED) { return -1; }
+            }
+        }
+    }
+    
+    /**
+     * Removes the cancelled timeouts from their buckets.
+     */
+    @Impure
+    private void removeCancelledTimeouts() {
+        for (@Nullable Timeout timeout = cancelledTimeouts.poll(); timeout != null; timeout = cancelledTimeouts.poll()) {
+            final @Nullable Bucket bucket = timeout.bucket;
+            if (bucket != null) { bucket.remove(timeout); }
+        }
+    }
+    
+    /**
+     * Adds the given timeout to the bucket of the tick in which it expires, which is at least the given current tick.
+     */
+    @Impure
+    private void add(@Nonnull Timeout timeout, long currentTick) {
+        final long expirationTick = Math.max(timeout.deadline / tickNanos, currentTick);
+        timeout.remainingRounds = (expirationTick - currentTick) / wheel.length;
+        wheel[(int) (expirationTick & (wheel.length - 1))].add(timeout);
+    }
+    
+    /**
+     * Adds a bounded number of new timeouts to the buckets in which they expire.
+     */
+    @Impure
+    private void transferNewTimeouts(long tick) {
+        for (int i = 0; i < MAXIMUM_TRANSFERS_PER_TICK; i++) {
+            final @Nullable Timeout timeout = newTimeouts.poll();
+            if (timeout == null) { break; }
+            if (timeout.state.get() == Timeout.PENDING) { add(timeout, tick); }
+        }
+    }
+    
+    /**
+     * Cancels the timeouts that are still pending after this timer was stopped and returns their number.
+     * The timeouts are cancelled with the same transition as {@link Timeout#cancel()} so that cancelling them again later does not change the number of pending timeouts.
+     */
+    @Impure
+    private long cancelRemainingTimeouts() {
+        long cancelled = 0;
+        for (@Nonnull Bucket bucket : wheel) {
+            for (@Nullable Timeout timeout = bucket.head; timeout != null; timeout = bucket.head) {
+                bucket.remove(timeout);
+                if (cancelOnStop(timeout)) { cancelled++; }
+            }
+        }
+        for (@Nullable Timeout timeout = newTimeouts.poll(); timeout != null; timeout = newTimeouts.poll()) {
+            if (cancelOnStop(timeout)) { cancelled++; }
+        }
+        cancelledTimeouts.clear();
+        return cancelled;
+    }
+    
+    /**
+     * Cancels the given timeout if it is still pending and returns whether it was.
+     */
+    @Impure
+    private boolean cancelOnStop(@Nonnull Timeout timeout) {
+        if (!timeout.state.compareAndSet(Timeout.PENDING, Timeout.CANCELLED)) { return false; }
+        pendingTimeouts.decrementAndGet();
+        return true;
+    }
+    
+    /**
+     * Expires the timeouts of the given bucket whose rounds have elapsed and decrements the rounds of the others.
+     */
+    @Impure
+    private void expireTimeouts(@Nonnull Bucket bucket, long deadline) {
+        @Nullable Timeout timeout = bucket.head;
+        while (timeout != null) {
+            final @Nullable Timeout next = timeout.next;
+            if (timeout.state.get() != Timeout.PENDING) {
+                bucket.remove(timeout);
+            } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                bucket.remove(timeout);
+                expire(timeout);
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+    
+    /**
+     * Hands the task of the given timeout to the executor and reschedules the timeout if it is periodic.
+     * If the executor rejects the task, it is run on the worker thread.
+     */
+    @Impure
+    private void expire(@Nonnull Timeout timeout) {
+        if (timeout.period > 0) {
+            timeout.deadline += timeout.period;
+            newTimeouts.add(timeout);
+        } else if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+            pendingTimeouts.decrementAndGet();
+        } else {
+            return;
+        }
+        try {
+            getExecutor().execute(timeout.getTask());
+        } catch (@Nonnull RejectedExecutionException exception) {
+            runOnWorkerThread(timeout.getTask());
+        }
+    }
+    
+    /**
+     * Runs the given task on the worker thread and reports its exceptions to the uncaught exception handler.
+     */
+    @Impure
+    private void runOnWorkerThread(@Nonnull Runnable task) {
+        try {
+            task.run();
+        } catch (@Nonnull RuntimeException exception) {
+            workerThread.getUncaughtExceptionHandler().uncaughtException(workerThread, exception);
+        }
+    }
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected HashedWheelTimer(@Nonnull String name, @Nonnull Time tickDuration, @Positive int ticksPerWheel, @Nullable Executor executor) {
+        Require.that(tickDuration.getValue() > 0).orThrow("The tick duration has to be positive but was $.", tickDuration);
+        Require.that(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30).orThrow("The number of ticks per wheel has to be positive and at most 2^30 but was $.", ticksPerWheel);
+        
+        this.name = name;
+        this.tickNanos = toNanos(tickDuration);
+        this.wheel = new Bucket[ticksPerWheel == 1 ? 1 : Integer.highestOneBit(ticksPerWheel - 1) << 1];
+        for (int i = 0; i < wheel.length; i++) { wheel[i] = new Bucket(); }
+        this.executor = executor;
+        this.workerThread = new Thread(this::run, name);
+        workerThread.setDaemon(true);
+    }
+    
+    /**
+     * Returns a new timer with the given name, tick duration and number of buckets, which runs its tasks on the given executor.
+     * The number of buckets is rounded up to the next power of two and should exceed the usual delay divided by the tick duration.
+     * The timer starts its worker thread when the first task is scheduled.
+     */
+    @Pure
+    public static @Nonnull HashedWheelTimer with(@Nonnull String name, @Nonnull Time tickDuration, @Positive int ticksPerWheel, @Nonnull Executor executor) {
+        return new HashedWheelTimer(name, tickDuration, ticksPerWheel, executor);
+    }
+    
+    /**
+     * Returns a new timer with the given name, a tick duration of 100 milliseconds and 512 buckets, which runs its tasks on the shared executor.
+     * The shared executor is looked up whenever a task is run and can therefore be replaced in the meantime.
+     */
+    @Pure
+    public static @Nonnull HashedWheelTimer withName(@Nonnull String name) {
+        return new HashedWheelTimer(name, Time.SECOND.divide(10), 512, null);
+    }
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores the timer that is shared by the library.
+     */
+    public static final @Nonnull Configuration<HashedWheelTimer> configuration = Configuration.with(withName("Timer"));
+    
+    /**
+     * Returns the timer that is shared by the library.
+     */
+    @Pure
+    public static @Nonnull HashedWheelTimer getSharedTimer() {
+        return configuration.get();
+    }
+    
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.time.timer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A timeout is the handle of a task that has been scheduled on a {@link HashedWheelTimer}.
+ * It can be cancelled in constant time until the task is handed to the executor of the timer.
+ */
+@Mutable
+@ThreadSafe
+public class Timeout {
+    
+    /* -------------------------------------------------- States -------------------------------------------------- */
+    
+    static final int PENDING = 0;
+    
+    static final int CANCELLED = 1;
+    
+    static final int EXPIRED = 2;
+    
+    final @Nonnull AtomicInteger state = new AtomicInteger(PENDING);
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull HashedWheelTimer timer;
+    
+    private final @Nonnull Runnable task;
+    
+    /**
+     * Returns the task that is run when this timeout expires.
+     */
+    @Pure
+    public @Nonnull Runnable getTask() {
+        return task;
+    }
+    
+    /**
+     * Stores the time at which this timeout expires next in nanoseconds since the start of the timer.
+     */
+    long deadline;
+    
+    /**
+     * Stores the period of this timeout in nanoseconds or zero if this timeout expires only once.
+     */
+    final long period;
+    
+    /**
+     * Returns whether this timeout expires periodically until it is cancelled.
+     */
+    @Pure
+    public boolean isPeriodic() {
+        return period > 0;
+    }
+    
+    /* -------------------------------------------------- Bucket -------------------------------------------------- */
+    
+    /**
+     * Stores the number of rotations of the wheel until this timeout expires.
+     * This field and the links are only accessed by the worker thread of the timer.
+     */
+    long remainingRounds;
+    
+    @Nullable Timeout next;
+    
+    @Nullable Timeout previous;
+    
+    @Nullable HashedWheelTimer.Bucket bucket;
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    Timeout(@Nonnull HashedWheelTimer timer, @Nonnull Runnable task, long deadline, long period) {
+        this.timer = timer;
+        this.task = task;
+        this.deadline = deadline;
+        this.period = period;
+    }
+    
+    /* -------------------------------------------------- Cancellation -------------------------------------------------- */
+    
+    /**
+     * Cancels this timeout so that its task is no longer run.
+     * A task that has already been handed to the executor is not interrupted.
+     * 
+     * @return whether this timeout was pending and is now cancelled.
+     */
+    @Impure
+    public boolean cancel() {
+        if (!state.compareAndSet(PENDING, CANCELLED)) { return false; }
+        timer.cancelled(this);
+        return true;
+    }
+    
+    /**
+     * Returns whether this timeout has been cancelled.
+     */
+    @Pure
+    public boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+    
+    /**
+     * Returns whether this timeout has expired, which is never the case for periodic timeouts.
+     */
+    @Pure
+    public boolean isExpired() {
+        return state.get() == EXPIRED;
+    }
+    
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.time.timer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.time.Time;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HashedWheelTimerTest {
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    private static final @Nonnull Time TICK = Time.SECOND.divide(100);
+    
+    private static final @Nonnull Executor DIRECT_EXECUTOR = Runnable::run;
+    
+    private @Nonnull HashedWheelTimer timer = HashedWheelTimer.with("TestTimer", TICK, 8, DIRECT_EXECUTOR);
+    
+    @After
+    public void stopTimer() {
+        timer.stop();
+    }
+    
+    /* -------------------------------------------------- Expiration -------------------------------------------------- */
+    
+    @Test
+    public void testOneShotExpiration() throws InterruptedException {
+        final @Nonnull CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        final @Nonnull Timeout timeout = timer.schedule(latch::countDown, TICK.multiply(3));
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("The task ran after " + elapsedMillis + " ms.", elapsedMillis >= 3 * TICK.getValue());
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        assertEquals(0, timer.getPendingTimeouts());
+    }
+    
+    @Test
+    public void testExpirationAfterSeveralRotations() throws InterruptedException {
+        final @Nonnull CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        // The wheel rotates once every 8 ticks, so this timeout has to wait for two rounds.
+        timer.schedule(latch::countDown, TICK.multiply(20));
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("The task ran after " + elapsedMillis + " ms.", elapsedMillis >= 20 * TICK.getValue());
+    }
+    
+    /* -------------------------------------------------- Cancellation -------------------------------------------------- */
+    
+    @Test
+    public void testCancellationBeforeExpiration() throws InterruptedException {
+        final @Nonnull AtomicBoolean ran = new AtomicBoolean(false);
+        final @Nonnull Timeout timeout = timer.schedule(() -> ran.set(true), TICK.multiply(5));
+        assertEquals(1, timer.getPendingTimeouts());
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.cancel());
+        assertEquals(0, timer.getPendingTimeouts());
+        Thread.sleep(10 * TICK.getValue());
+        assertFalse(ran.get());
+    }
+    
+    /* -------------------------------------------------- Fixed Rate -------------------------------------------------- */
+    
+    @Test
+    public void testFixedRateUntilCancelled() throws InterruptedException {
+        final @Nonnull AtomicInteger runs = new AtomicInteger();
+        final @Nonnull CountDownLatch latch = new CountDownLatch(3);
+        final @Nonnull Timeout timeout = timer.scheduleAtFixedRate(() -> { runs.incrementAndGet(); latch.countDown(); }, TICK, TICK.multiply(2));
+        assertTrue(timeout.isPeriodic());
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertFalse(timeout.isExpired());
+        assertEquals(1, timer.getPendingTimeouts());
+        
+        assertTrue(timeout.cancel());
+        assertEquals(0, timer.getPendingTimeouts());
+        // A run that was already handed to the executor when the timeout was cancelled may still complete.
+        Thread.sleep(2 * TICK.getValue());
+        final int runsAfterCancellation = runs.get();
+        Thread.sleep(10 * TICK.getValue());
+        assertEquals(runsAfterCancellation, runs.get());
+    }
+    
+    /* -------------------------------------------------- Stop -------------------------------------------------- */
+    
+    @Test
+    public void testStopCancelsPendingTimeouts() {
+        final @Nonnull Timeout first = timer.schedule(() -> {}, Time.HOUR);
+        final @Nonnull Timeout second = timer.schedule(() -> {}, Time.HOUR);
+        final @Nonnull Timeout periodic = timer.scheduleAtFixedRate(() -> {}, Time.HOUR, Time.HOUR);
+        assertEquals(3, timer.getPendingTimeouts());
+        
+        assertEquals(3, timer.stop());
+        assertEquals(0, timer.getPendingTimeouts());
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+        assertTrue(periodic.isCancelled());
+        assertFalse(first.cancel());
+        assertEquals(0, timer.getPendingTimeouts());
+        assertEquals(0, timer.stop());
+        
+        try {
+            timer.schedule(() -> {}, TICK);
+            fail("A stopped timer may not accept new timeouts.");
+        } catch (@Nonnull IllegalStateException exception) {
+            assertEquals(0, timer.getPendingTimeouts());
+        }
+    }
+    
+    /* -------------------------------------------------- Rejection -------------------------------------------------- */
+    
+    @Test
+    public void testRejectedTasksRunOnWorkerThread() throws InterruptedException {
+        timer = HashedWheelTimer.with("RejectingTimer", TICK, 8, task -> { throw new RejectedExecutionException("The executor is saturated."); });
+        final @Nonnull AtomicReference<String> threadName = new AtomicReference<>();
+        final @Nonnull CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(() -> { threadName.set(Thread.currentThread().getName()); latch.countDown(); }, TICK);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals("RejectingTimer", threadName.get());
+    }
+    
+}
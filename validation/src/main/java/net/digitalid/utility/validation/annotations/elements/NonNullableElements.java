@@ -20,7 +20,9 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -63,6 +65,14 @@ public @interface NonNullableElements {
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable Iterable<?> iterable) {
             if (iterable == null) { return true; }
+            if (iterable instanceof List<?> && iterable instanceof RandomAccess) {
+                final @Nonnull List<?> list = (List<?>) iterable;
+                final int size = list.size();
+                for (int i = 0; i < size; i++) {
+                    if (list.get(i) == null) { return false; }
+                }
+                return true;
+            }
             for (@Nullable Object element : iterable) {
                 if (element == null) { return false; }
             }
@@ -20,18 +20,22 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Modified;
 import net.digitalid.utility.annotations.parameter.Unmodified;
-import net.digitalid.utility.functional.conversion.ArrayConversion;
 import net.digitalid.utility.processing.utility.TypeImporter;
 import net.digitalid.utility.validation.annotations.meta.ValueValidator;
 import net.digitalid.utility.validation.annotations.type.Stateless;
@@ -55,16 +59,33 @@ public @interface UniqueElements {
     @Stateless
     public static class Validator extends IterableValidator {
         
+        /* -------------------------------------------------- Objects -------------------------------------------------- */
+        
         /**
          * Returns whether all elements in the given iterable are unique.
          */
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable Iterable<@Nullable?> iterable) {
-            if (iterable == null) { return true; }
+            if (iterable == null || iterable instanceof Set<?>) { return true; }
+            if (iterable instanceof Collection<?>) {
+                final int size = ((Collection<?>) iterable).size();
+                if (size < 2) { return true; }
+                final @Nonnull HashSet<Object> set = new HashSet<>(2 * size);
+                if (iterable instanceof List<?> && iterable instanceof RandomAccess) {
+                    final @Nonnull List<?> list = (List<?>) iterable;
+                    for (int i = 0; i < size; i++) {
+                        if (!set.add(list.get(i))) { return false; }
+                    }
+                    return true;
+                }
+                for (@Nullable Object element : iterable) {
+                    if (!set.add(element)) { return false; }
+                }
+                return true;
+            }
             final @Nonnull HashSet<Object> set = new HashSet<>();
             for (@Nullable Object element : iterable) {
-                if (set.contains(element)) { return false; }
-                else { set.add(element); }
+                if (!set.add(element)) { return false; }
             }
             return true;
         }
@@ -74,21 +95,27 @@ public @interface UniqueElements {
          */
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable @NullableElements Object[] array) {
-            if (array == null) { return true; }
-            final @Nonnull HashSet<Object> set = new HashSet<>();
+            if (array == null || array.length < 2) { return true; }
+            final @Nonnull HashSet<Object> set = new HashSet<>(2 * array.length);
             for (@Nullable Object element : array) {
-                if (set.contains(element)) { return false; }
-                else { set.add(element); }
+                if (!set.add(element)) { return false; }
             }
             return true;
         }
         
+        /* -------------------------------------------------- Small Domains -------------------------------------------------- */
+        
+        /**
+         * Stores the length up to which arrays are checked by comparing all pairs of values.
+         */
+        private static final int PAIRWISE_THRESHOLD = 16;
+        
         /**
          * Returns whether all elements in the given array are unique.
          */
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable boolean[] array) {
-            return validate(ArrayConversion.box(array));
+            return array == null || array.length < 2 || array.length == 2 && array[0] != array[1];
         }
         
         /**
@@ -96,7 +123,21 @@ public @interface UniqueElements {
          */
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable char[] array) {
-            return validate(ArrayConversion.box(array));
+            if (array == null || array.length < 2) { return true; }
+            if (array.length > 1 << 16) { return false; }
+            if (array.length <= PAIRWISE_THRESHOLD) {
+                for (int i = 1; i < array.length; i++) {
+                    for (int j = 0; j < i; j++) {
+                        if (array[i] == array[j]) { return false; }
+                    }
+                }
+                return true;
+            }
+            final @Nonnull long[] bits = new long[(1 << 16) >>> 6];
+            for (char value : array) {
+                if (!set(bits, value)) { return false; }
+            }
+            return true;
         }
         
         /**
@@ -104,7 +145,13 @@ public @interface UniqueElements {
          */
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable byte[] array) {
-            return validate(ArrayConversion.box(array));
+            if (array == null || array.length < 2) { return true; }
+            if (array.length > 1 << 8) { return false; }
+            final @Nonnull long[] bits = new long[(1 << 8) >>> 6];
+            for (byte value : array) {
+                if (!set(bits, value & 0xFF)) { return false; }
+            }
+            return true;
         }
         
         /**
@@ -112,7 +159,60 @@ public @interface UniqueElements {
          */
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable short[] array) {
-            return validate(ArrayConversion.box(array));
+            if (array == null || array.length < 2) { return true; }
+            if (array.length > 1 << 16) { return false; }
+            if (array.length <= PAIRWISE_THRESHOLD) {
+                for (int i = 1; i < array.length; i++) {
+                    for (int j = 0; j < i; j++) {
+                        if (array[i] == array[j]) { return false; }
+                    }
+                }
+                return true;
+            }
+            final @Nonnull long[] bits = new long[(1 << 16) >>> 6];
+            for (short value : array) {
+                if (!set(bits, value & 0xFFFF)) { return false; }
+            }
+            return true;
+        }
+        
+        /**
+         * Sets the bit of the given value in the given bitset and returns whether it was not set before.
+         */
+        @Impure
+        private static boolean set(@NonCaptured @Modified @Nonnull long[] bits, int value) {
+            final long mask = 1L << value;
+            final int index = value >>> 6;
+            if ((bits[index] & mask) != 0) { return false; }
+            bits[index] |= mask;
+            return true;
+        }
+        
+        /* -------------------------------------------------- Large Domains -------------------------------------------------- */
+        
+        /**
+         * Adds the given value to the given open-addressing hash table and returns whether it was not contained before.
+         * The value zero marks empty slots and is therefore tracked separately by the caller.
+         */
+        @Impure
+        private static boolean add(@NonCaptured @Modified @Nonnull long[] table, long value) {
+            final int mask = table.length - 1;
+            long hash = value * 0x9E3779B97F4A7C15L;
+            int index = (int) (hash ^ (hash >>> 32)) & mask;
+            while (table[index] != 0) {
+                if (table[index] == value) { return false; }
+                index = (index + 1) & mask;
+            }
+            table[index] = value;
+            return true;
+        }
+        
+        /**
+         * Returns an empty open-addressing hash table which can hold the given number of values at a load factor of at most one half.
+         */
+        @Pure
+        private static @Nonnull long[] table(int length) {
+            return new long[Integer.highestOneBit(Math.max(2, length) - 1) << 2];
         }
         
         /**
@@ -120,7 +220,24 @@ public @interface UniqueElements {
          */
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable int[] array) {
-            return validate(ArrayConversion.box(array));
+            if (array == null || array.length < 2) { return true; }
+            if (array.length <= PAIRWISE_THRESHOLD) {
+                for (int i = 1; i < array.length; i++) {
+                    for (int j = 0; j < i; j++) {
+                        if (array[i] == array[j]) { return false; }
+                    }
+                }
+                return true;
+            }
+            final @Nonnull long[] table = table(array.length);
+            boolean zero = false;
+            for (int value : array) {
+                if (value == 0) {
+                    if (zero) { return false; }
+                    zero = true;
+                } else if (!add(table, value)) { return false; }
+            }
+            return true;
         }
         
         /**
@@ -128,25 +245,66 @@ public @interface UniqueElements {
          */
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable long[] array) {
-            return validate(ArrayConversion.box(array));
+            if (array == null || array.length < 2) { return true; }
+            if (array.length <= PAIRWISE_THRESHOLD) {
+                for (int i = 1; i < array.length; i++) {
+                    for (int j = 0; j < i; j++) {
+                        if (array[i] == array[j]) { return false; }
+                    }
+                }
+                return true;
+            }
+            final @Nonnull long[] table = table(array.length);
+            boolean zero = false;
+            for (long value : array) {
+                if (value == 0) {
+                    if (zero) { return false; }
+                    zero = true;
+                } else if (!add(table, value)) { return false; }
+            }
+            return true;
         }
         
         /**
          * Returns whether all elements in the given array are unique.
+         * Values are compared by their bits like {@link Float#equals(java.lang.Object)} does, which means that {@code NaN} equals itself and that {@code 0.0f} and {@code -0.0f} differ.
          */
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable float[] array) {
-            return validate(ArrayConversion.box(array));
+            if (array == null || array.length < 2) { return true; }
+            final @Nonnull long[] table = table(array.length);
+            boolean zero = false;
+            for (float element : array) {
+                final int value = Float.floatToIntBits(element);
+                if (value == 0) {
+                    if (zero) { return false; }
+                    zero = true;
+                } else if (!add(table, value)) { return false; }
+            }
+            return true;
         }
         
         /**
          * Returns whether all elements in the given array are unique.
+         * Values are compared by their bits like {@link Double#equals(java.lang.Object)} does, which means that {@code NaN} equals itself and that {@code 0.0} and {@code -0.0} differ.
          */
         @Pure
         public static boolean validate(@NonCaptured @Unmodified @Nullable double[] array) {
-            return validate(ArrayConversion.box(array));
+            if (array == null || array.length < 2) { return true; }
+            final @Nonnull long[] table = table(array.length);
+            boolean zero = false;
+            for (double element : array) {
+                final long value = Double.doubleToLongBits(element);
+                if (value == 0) {
+                    if (zero) { return false; }
+                    zero = true;
+                } else if (!add(table, value)) { return false; }
+            }
+            return true;
         }
         
+        /* -------------------------------------------------- Contract Generation -------------------------------------------------- */
+        
         @Pure
         @Override
         public @Nonnull Contract generateContract(@Nonnull Element element, @Nonnull AnnotationMirror annotationMirror, @NonCaptured @Modified @Nonnull TypeImporter typeImporter) {
@@ -34,6 +34,7 @@ import net.digitalid.utility.processing.utility.TypeImporter;
 import net.digitalid.utility.validation.annotations.meta.ValueValidator;
 import net.digitalid.utility.validation.annotations.type.Stateless;
 import net.digitalid.utility.validation.contract.Contract;
+import net.digitalid.utility.validation.matching.CompiledMatcher;
 import net.digitalid.utility.validation.validators.StringValidator;
 
 /**
@@ -53,14 +54,14 @@ public @interface CodeIdentifier {
     @Stateless
     public static class Validator extends StringValidator {
         
-        private static final @Nonnull Pattern PATTERN = Pattern.compile("[a-z_$][a-z0-9_$]*", Pattern.CASE_INSENSITIVE);
+        private static final @Nonnull CompiledMatcher MATCHER = CompiledMatcher.with("[a-z_$][a-z0-9_$]*", Pattern.CASE_INSENSITIVE);
         
         /**
          * Returns whether the given string is a valid identifier in most languages like Java or SQL.
          */
         @Pure
         public static boolean validate(@Nullable String string) {
-            return string == null || PATTERN.matcher(string).matches();
+            return MATCHER.matchesIfNonNull(string);
         }
         
         @Pure
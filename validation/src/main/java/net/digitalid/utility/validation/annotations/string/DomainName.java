@@ -20,7 +20,6 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
-import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -34,6 +33,7 @@ import net.digitalid.utility.processing.utility.TypeImporter;
 import net.digitalid.utility.validation.annotations.meta.ValueValidator;
 import net.digitalid.utility.validation.annotations.type.Stateless;
 import net.digitalid.utility.validation.contract.Contract;
+import net.digitalid.utility.validation.matching.CompiledMatcher;
 import net.digitalid.utility.validation.validators.StringValidator;
 
 /**
@@ -53,14 +53,14 @@ public @interface DomainName {
     @Stateless
     public static class Validator extends StringValidator {
         
-        private static final @Nonnull Pattern PATTERN = Pattern.compile("[a-z0-9]+(?:[.-][a-z0-9]+)*\\.[a-z][a-z]+");
+        private static final @Nonnull CompiledMatcher MATCHER = CompiledMatcher.with("[a-z0-9]+(?:[.-][a-z0-9]+)*\\.[a-z][a-z]+");
         
         /**
          * Returns whether the given string denotes a valid domain name.
          */
         @Pure
         public static boolean validate(@Nullable String string) {
-            return string == null || PATTERN.matcher(string).matches();
+            return MATCHER.matchesIfNonNull(string);
         }
         
         @Pure
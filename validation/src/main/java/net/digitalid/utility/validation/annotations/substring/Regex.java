@@ -34,8 +34,11 @@ import net.digitalid.utility.annotations.parameter.Modified;
 import net.digitalid.utility.processing.logging.ErrorLogger;
 import net.digitalid.utility.processing.logging.SourcePosition;
 import net.digitalid.utility.processing.utility.ProcessingUtility;
+import net.digitalid.utility.processing.utility.TypeImporter;
 import net.digitalid.utility.validation.annotations.meta.ValueValidator;
 import net.digitalid.utility.validation.annotations.type.Stateless;
+import net.digitalid.utility.validation.contract.Contract;
+import net.digitalid.utility.validation.matching.SubstringMatching;
 import net.digitalid.utility.validation.validators.SubstringValidator;
 
 /**
@@ -83,6 +86,14 @@ public @interface Regex {
             return "matches";
         }
         
+        @Pure
+        @Override
+        public @Nonnull Contract generateContract(@Nonnull Element element, @Nonnull AnnotationMirror annotationMirror, @NonCaptured @Modified @Nonnull TypeImporter typeImporter) {
+            final @Nonnull String regex = String.valueOf(ProcessingUtility.getString(ProcessingUtility.getAnnotationValue(annotationMirror)));
+            final @Nonnull String subject = ProcessingUtility.isRawSubtype(element, CharSequence.class) ? "#" : typeImporter.importIfPossible(SubstringMatching.class) + ".getName(#)";
+            return Contract.with("# == null || " + Contract.MATCHER + ".matches(" + subject + ")", "The # has to " + getMessageCondition() + " '@' but was $.", element, annotationMirror).withRegex(regex);
+        }
+        
         @Pure
         @Override
         public @Nonnull String getMessageCondition() {
@@ -30,6 +30,7 @@ import net.digitalid.utility.string.Strings;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.string.JavaExpression;
 import net.digitalid.utility.validation.annotations.type.Immutable;
+import net.digitalid.utility.validation.matching.CompiledMatcher;
 import net.digitalid.utility.validation.validator.ContractGenerator;
 import net.digitalid.utility.validation.validator.ValueAnnotationValidator;
 
@@ -77,12 +78,42 @@ public class Contract {
         return arguments;
     }
     
+    /* -------------------------------------------------- Regex -------------------------------------------------- */
+    
+    /**
+     * Stores the placeholder which is replaced in the {@link #getCondition() condition} with the name of a static field that holds a {@link CompiledMatcher} for the {@link #getRegex() regex}.
+     */
+    public static final @Nonnull String MATCHER = "$MATCHER$";
+    
+    private final @Nullable String regex;
+    
+    /**
+     * Returns the regular expression which the code generator compiles once into a static field that replaces each {@link #MATCHER} in the {@link #getCondition() condition} or null if the condition contains no such placeholder.
+     */
+    @Pure
+    public @Nullable String getRegex() {
+        return regex;
+    }
+    
+    /**
+     * Returns a copy of this contract whose {@link #getCondition() condition} refers to a compiled matcher for the given regular expression with {@link #MATCHER}.
+     */
+    @Pure
+    public @Nonnull Contract withRegex(@Nonnull String regex) {
+        return new Contract(condition, message, regex, arguments);
+    }
+    
     /* -------------------------------------------------- Constructors -------------------------------------------------- */
     
-    protected Contract(@Nonnull @JavaExpression String condition, @Nonnull String message, @Captured @Nonnull @NonNullableElements String... arguments) {
+    private Contract(@Nonnull @JavaExpression String condition, @Nonnull String message, @Nullable String regex, @Nonnull FiniteIterable<@Nonnull String> arguments) {
         this.condition = condition;
         this.message = message;
-        this.arguments = FiniteIterable.of(arguments);
+        this.regex = regex;
+        this.arguments = arguments;
+    }
+    
+    protected Contract(@Nonnull @JavaExpression String condition, @Nonnull String message, @Captured @Nonnull @NonNullableElements String... arguments) {
+        this(condition, message, null, FiniteIterable.of(arguments));
     }
     
     /**
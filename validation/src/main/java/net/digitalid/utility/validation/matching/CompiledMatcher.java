@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.validation.matching;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * A compiled matcher wraps a {@link Pattern pattern} that is compiled only once and reuses a {@link Matcher matcher} per thread.
+ * The annotation processor hoists compiled matchers into static fields of the generated classes so that the contracts neither recompile the regular expression nor allocate a new matcher on each call.
+ */
+@Immutable
+@ThreadSafe
+public class CompiledMatcher {
+    
+    /* -------------------------------------------------- Pattern -------------------------------------------------- */
+    
+    private final @Nonnull Pattern pattern;
+    
+    /**
+     * Returns the pattern which is used to match the character sequences.
+     */
+    @Pure
+    public @Nonnull Pattern getPattern() {
+        return pattern;
+    }
+    
+    /* -------------------------------------------------- Matcher -------------------------------------------------- */
+    
+    private final @Nonnull ThreadLocal<@Nonnull Matcher> matcher;
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected CompiledMatcher(@Nonnull Pattern pattern) {
+        this.pattern = pattern;
+        this.matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+    }
+    
+    /**
+     * Returns a compiled matcher for the given pattern.
+     */
+    @Pure
+    public static @Nonnull CompiledMatcher with(@Nonnull Pattern pattern) {
+        return new CompiledMatcher(pattern);
+    }
+    
+    /**
+     * Returns a compiled matcher for the given regular expression.
+     * 
+     * @throws java.util.regex.PatternSyntaxException if the given regular expression is invalid.
+     */
+    @Pure
+    public static @Nonnull CompiledMatcher with(@Nonnull String regex) {
+        return new CompiledMatcher(Pattern.compile(regex));
+    }
+    
+    /**
+     * Returns a compiled matcher for the given regular expression with the given flags.
+     * 
+     * @throws java.util.regex.PatternSyntaxException if the given regular expression is invalid.
+     */
+    @Pure
+    public static @Nonnull CompiledMatcher with(@Nonnull String regex, int flags) {
+        return new CompiledMatcher(Pattern.compile(regex, flags));
+    }
+    
+    /* -------------------------------------------------- Matching -------------------------------------------------- */
+    
+    /**
+     * Returns whether the given character sequence matches the pattern entirely.
+     * The matcher of the current thread is reset to the given input and reset again afterwards so that the input is not retained.
+     */
+    @Impure
+    public boolean matches(@Nonnull CharSequence input) {
+        final @Nonnull Matcher matcher = this.matcher.get();
+        try {
+            return matcher.reset(input).matches();
+        } finally {
+            matcher.reset("");
+        }
+    }
+    
+    /**
+     * Returns whether the given character sequence is null or matches the pattern entirely.
+     */
+    @Impure
+    public boolean matchesIfNonNull(@Nullable CharSequence input) {
+        return input == null || matches(input);
+    }
+    
+    /* -------------------------------------------------- Object -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull String toString() {
+        return pattern.pattern();
+    }
+    
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.utility.validation.matching;
+
+import java.io.File;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * This utility class provides allocation-free substring checks for arbitrary character sequences, which are used by the generated substring contracts.
+ */
+@Utility
+public abstract class SubstringMatching {
+    
+    /* -------------------------------------------------- Regions -------------------------------------------------- */
+    
+    /**
+     * Returns whether the given sequence contains the given part at the given offset.
+     */
+    @Pure
+    private static boolean regionMatches(@Nonnull CharSequence sequence, int offset, @Nonnull String part) {
+        for (int i = 0; i < part.length(); i++) {
+            if (sequence.charAt(offset + i) != part.charAt(i)) { return false; }
+        }
+        return true;
+    }
+    
+    /* -------------------------------------------------- Substrings -------------------------------------------------- */
+    
+    /**
+     * Returns whether the given sequence starts with the given prefix.
+     */
+    @Pure
+    public static boolean startsWith(@Nonnull CharSequence sequence, @Nonnull String prefix) {
+        if (sequence instanceof String) { return ((String) sequence).startsWith(prefix); }
+        return sequence.length() >= prefix.length() && regionMatches(sequence, 0, prefix);
+    }
+    
+    /**
+     * Returns whether the given sequence ends with the given suffix.
+     */
+    @Pure
+    public static boolean endsWith(@Nonnull CharSequence sequence, @Nonnull String suffix) {
+        if (sequence instanceof String) { return ((String) sequence).endsWith(suffix); }
+        final int offset = sequence.length() - suffix.length();
+        return offset >= 0 && regionMatches(sequence, offset, suffix);
+    }
+    
+    /**
+     * Returns whether the given sequence contains the given infix.
+     */
+    @Pure
+    public static boolean contains(@Nonnull CharSequence sequence, @Nonnull String infix) {
+        if (sequence instanceof String) { return ((String) sequence).contains(infix); }
+        final int last = sequence.length() - infix.length();
+        for (int offset = 0; offset <= last; offset++) {
+            if (regionMatches(sequence, offset, infix)) { return true; }
+        }
+        return false;
+    }
+    
+    /* -------------------------------------------------- Files -------------------------------------------------- */
+    
+    /**
+     * Returns the name of the given file without resolving the absolute path unless the file has no name of its own (such as the empty path).
+     */
+    @Pure
+    public static @Nonnull String getName(@Nonnull File file) {
+        final @Nonnull String name = file.getName();
+        return name.isEmpty() ? file.getAbsoluteFile().getName() : name;
+    }
+    
+}
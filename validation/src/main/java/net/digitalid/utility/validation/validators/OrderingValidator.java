@@ -15,6 +15,9 @@
  */
 package net.digitalid.utility.validation.validators;
 
+import java.util.List;
+import java.util.RandomAccess;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.lang.model.element.AnnotationMirror;
@@ -69,6 +72,20 @@ public abstract class OrderingValidator extends IterableValidator {
     public static <T extends Comparable<? super T>> boolean validate(@NonCaptured @Unmodified @Nullable Iterable<@Nullable T> iterable, boolean strictly, boolean ascending) {
         if (iterable == null) { return true; }
         @Nullable T lastElement = null;
+        if (iterable instanceof List<?> && iterable instanceof RandomAccess) {
+            final @Nonnull List<@Nullable T> list = (List<@Nullable T>) iterable;
+            final int size = list.size();
+            for (int i = 0; i < size; i++) {
+                final @Nullable T element = list.get(i);
+                if (element != null) {
+                    if (lastElement != null) {
+                        if (element.compareTo(lastElement) * (ascending ? 1 : -1) < (strictly ? 1 : 0)) { return false; }
+                    }
+                    lastElement = element;
+                }
+            }
+            return true;
+        }
         for (@Nullable T element : iterable) {
             if (element != null) {
                 if (lastElement != null) {
@@ -29,6 +29,7 @@ import net.digitalid.utility.processing.utility.ProcessingUtility;
 import net.digitalid.utility.processing.utility.TypeImporter;
 import net.digitalid.utility.validation.annotations.type.Stateless;
 import net.digitalid.utility.validation.contract.Contract;
+import net.digitalid.utility.validation.matching.SubstringMatching;
 import net.digitalid.utility.validation.validator.ValueAnnotationValidator;
 
 /**
@@ -52,7 +53,7 @@ public abstract class SubstringValidator implements ValueAnnotationValidator {
     /* -------------------------------------------------- Abstract Methods -------------------------------------------------- */
     
     /**
-     * Returns the name of the method which is used to validate the substring.
+     * Returns the name of the static method in {@link SubstringMatching} which is used to validate the substring.
      */
     @Pure
     public abstract @Nonnull String getMethodName();
@@ -68,10 +69,11 @@ public abstract class SubstringValidator implements ValueAnnotationValidator {
     @Pure
     @Override
     public @Nonnull Contract generateContract(@Nonnull Element element, @Nonnull AnnotationMirror annotationMirror, @NonCaptured @Modified @Nonnull TypeImporter typeImporter) {
+        final @Nonnull String matching = typeImporter.importIfPossible(SubstringMatching.class);
         if (ProcessingUtility.isRawSubtype(element, CharSequence.class)) {
-            return Contract.with("# == null || #." + getMethodName() + "(\"@\")", "The # has to " + getMessageCondition() + " '@' but was $.", element, annotationMirror);
+            return Contract.with("# == null || " + matching + "." + getMethodName() + "(#, \"@\")", "The # has to " + getMessageCondition() + " '@' but was $.", element, annotationMirror);
         } else {
-            return Contract.with("# == null || #.getAbsoluteFile().getName()." + getMethodName() + "(\"@\")", "The # has to " + getMessageCondition() + " '@' but was $.", element, annotationMirror);
+            return Contract.with("# == null || " + matching + "." + getMethodName() + "(" + matching + ".getName(#), \"@\")", "The # has to " + getMessageCondition() + " '@' but was $.", element, annotationMirror);
         }
     }
     